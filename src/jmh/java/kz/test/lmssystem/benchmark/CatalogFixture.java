@@ -0,0 +1,84 @@
+package kz.test.lmssystem.benchmark;
+
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Детерминированный каталог для бенчмарков: уроки со связями, загруженными как при FetchPlan.FULL
+final class CatalogFixture {
+
+    private static final int CHAPTERS_PER_COURSE = 10;
+    private static final int LESSONS_PER_CHAPTER = 10;
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 10, 26, 9, 30);
+    private static final String DESCRIPTION = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, "
+            + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, "
+            + "quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat.";
+
+    private CatalogFixture() {
+    }
+
+    static List<Lesson> lessons(int size) {
+        List<Lesson> lessons = new ArrayList<>(size);
+        Chapter chapter = null;
+        for (int i = 0; i < size; i++) {
+            if (i % LESSONS_PER_CHAPTER == 0) {
+                chapter = chapter(i / LESSONS_PER_CHAPTER);
+            }
+            Lesson lesson = new Lesson();
+            lesson.setId((long) i + 1);
+            lesson.setName("Lesson " + (i + 1));
+            lesson.setDescription(DESCRIPTION);
+            lesson.setOrder(i % LESSONS_PER_CHAPTER + 1);
+            lesson.setChapter(chapter);
+            lesson.setChapterId(chapter.getId());
+            lesson.setCreatedTime(CREATED);
+            lesson.setUpdatedTime(CREATED.plusDays(1));
+            lessons.add(lesson);
+        }
+        return lessons;
+    }
+
+    static List<Chapter> chapters(int size) {
+        List<Chapter> chapters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            chapters.add(chapter(i));
+        }
+        return chapters;
+    }
+
+    static List<Course> courses(int size) {
+        List<Course> courses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            courses.add(course(i));
+        }
+        return courses;
+    }
+
+    private static Chapter chapter(int index) {
+        Course course = course(index / CHAPTERS_PER_COURSE);
+        Chapter chapter = new Chapter();
+        chapter.setId((long) index + 1);
+        chapter.setName("Chapter " + (index + 1));
+        chapter.setDescription(DESCRIPTION);
+        chapter.setOrder(index % CHAPTERS_PER_COURSE + 1);
+        chapter.setCourse(course);
+        chapter.setCourseId(course.getId());
+        chapter.setCreatedTime(CREATED);
+        chapter.setUpdatedTime(CREATED.plusDays(1));
+        return chapter;
+    }
+
+    private static Course course(int index) {
+        Course course = new Course();
+        course.setId((long) index + 1);
+        course.setName("Course " + (index + 1));
+        course.setDescription(DESCRIPTION);
+        course.setCreatedTime(CREATED);
+        course.setUpdatedTime(CREATED.plusDays(1));
+        return course;
+    }
+}
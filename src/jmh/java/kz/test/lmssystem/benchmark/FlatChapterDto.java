@@ -0,0 +1,15 @@
+package kz.test.lmssystem.benchmark;
+
+import java.time.LocalDateTime;
+
+// Предлагаемая плоская форма ChapterDto: вместо вложенного CourseDto - id и название курса
+public record FlatChapterDto(
+        Long id,
+        String chapterName,
+        String description,
+        int order,
+        Long courseId,
+        String courseName,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
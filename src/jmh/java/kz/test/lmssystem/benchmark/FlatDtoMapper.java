@@ -0,0 +1,26 @@
+package kz.test.lmssystem.benchmark;
+
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Lesson;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper
+public interface FlatDtoMapper {
+
+    @Mapping(target = "lessonName", source = "name")
+    @Mapping(target = "chapterName", source = "chapter.name")
+    @Mapping(target = "courseId", source = "chapter.courseId")
+    @Mapping(target = "courseName", source = "chapter.course.name")
+    FlatLessonDto toFlatLesson(Lesson lesson);
+
+    @Mapping(target = "chapterName", source = "name")
+    @Mapping(target = "courseName", source = "course.name")
+    FlatChapterDto toFlatChapter(Chapter chapter);
+
+    List<FlatLessonDto> toFlatLessonList(List<Lesson> lessons);
+
+    List<FlatChapterDto> toFlatChapterList(List<Chapter> chapters);
+}
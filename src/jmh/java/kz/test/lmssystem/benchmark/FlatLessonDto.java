@@ -0,0 +1,17 @@
+package kz.test.lmssystem.benchmark;
+
+import java.time.LocalDateTime;
+
+// Предлагаемая плоская форма LessonDto: вместо вложенных ChapterDto и CourseDto - их id и названия
+public record FlatLessonDto(
+        Long id,
+        String lessonName,
+        String description,
+        int order,
+        Long chapterId,
+        String chapterName,
+        Long courseId,
+        String courseName,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
@@ -0,0 +1,26 @@
+package kz.test.lmssystem.benchmark;
+
+import kz.test.lmssystem.mapper.ChapterMapper;
+import kz.test.lmssystem.mapper.ChapterMapperImpl;
+import kz.test.lmssystem.mapper.CourseMapper;
+import kz.test.lmssystem.mapper.CourseMapperImpl;
+import kz.test.lmssystem.mapper.LessonMapper;
+import kz.test.lmssystem.mapper.LessonMapperImpl;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+// Мапперы MapStruct связаны через @Autowired, поэтому собираются в минимальном контексте Spring
+final class Mappers implements AutoCloseable {
+
+    private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+            CourseMapperImpl.class, ChapterMapperImpl.class, LessonMapperImpl.class);
+
+    final CourseMapper courseMapper = context.getBean(CourseMapper.class);
+    final ChapterMapper chapterMapper = context.getBean(ChapterMapper.class);
+    final LessonMapper lessonMapper = context.getBean(LessonMapper.class);
+    final FlatDtoMapper flatDtoMapper = org.mapstruct.factory.Mappers.getMapper(FlatDtoMapper.class);
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
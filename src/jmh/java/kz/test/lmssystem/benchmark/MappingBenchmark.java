@@ -0,0 +1,79 @@
+package kz.test.lmssystem.benchmark;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Entity -> DTO для списков: текущие вложенные DTO против плоских форм
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MappingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private Mappers mappers;
+    private List<Course> courses;
+    private List<Chapter> chapters;
+    private List<Lesson> lessons;
+
+    @Setup
+    public void setUp() {
+        mappers = new Mappers();
+        courses = CatalogFixture.courses(size);
+        chapters = CatalogFixture.chapters(size);
+        lessons = CatalogFixture.lessons(size);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mappers.close();
+    }
+
+    @Benchmark
+    public List<CourseDto> courses() {
+        return mappers.courseMapper.toDtoCourseList(courses);
+    }
+
+    @Benchmark
+    public List<ChapterDto> chapters() {
+        return mappers.chapterMapper.toDtoChapterList(chapters);
+    }
+
+    @Benchmark
+    public List<FlatChapterDto> flatChapters() {
+        return mappers.flatDtoMapper.toFlatChapterList(chapters);
+    }
+
+    @Benchmark
+    public List<LessonDto> lessons() {
+        return mappers.lessonMapper.toDtoLessonList(lessons);
+    }
+
+    @Benchmark
+    public List<FlatLessonDto> flatLessons() {
+        return mappers.flatDtoMapper.toFlatLessonList(lessons);
+    }
+}
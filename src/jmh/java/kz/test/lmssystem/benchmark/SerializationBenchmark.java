@@ -0,0 +1,83 @@
+package kz.test.lmssystem.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Jackson-сериализация списков DTO в byte[] (как ResponseCache): вложенные DTO против плоских форм.
+// Размер тела виден в выводе Setup, аллокации - в gc.alloc.rate.norm
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    // Настройки как у ObjectMapper Spring Boot: JavaTimeModule, даты строками
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<CourseDto> courses;
+    private List<ChapterDto> chapters;
+    private List<FlatChapterDto> flatChapters;
+    private List<LessonDto> lessons;
+    private List<FlatLessonDto> flatLessons;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        try (Mappers mappers = new Mappers()) {
+            courses = mappers.courseMapper.toDtoCourseList(CatalogFixture.courses(size));
+            chapters = mappers.chapterMapper.toDtoChapterList(CatalogFixture.chapters(size));
+            flatChapters = mappers.flatDtoMapper.toFlatChapterList(CatalogFixture.chapters(size));
+            lessons = mappers.lessonMapper.toDtoLessonList(CatalogFixture.lessons(size));
+            flatLessons = mappers.flatDtoMapper.toFlatLessonList(CatalogFixture.lessons(size));
+        }
+        System.out.printf("%nPayload bytes for size=%d: lessons=%d, flatLessons=%d, chapters=%d, flatChapters=%d%n",
+                size, lessons().length, flatLessons().length, chapters().length, flatChapters().length);
+    }
+
+    @Benchmark
+    public byte[] courses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(courses);
+    }
+
+    @Benchmark
+    public byte[] chapters() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(chapters);
+    }
+
+    @Benchmark
+    public byte[] flatChapters() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(flatChapters);
+    }
+
+    @Benchmark
+    public byte[] lessons() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(lessons);
+    }
+
+    @Benchmark
+    public byte[] flatLessons() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(flatLessons);
+    }
+}
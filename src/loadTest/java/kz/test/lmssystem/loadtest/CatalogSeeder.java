@@ -0,0 +1,62 @@
+package kz.test.lmssystem.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// Каталог для прогона: курсы, главы и уроки с id 1..N, созданные на стороне базы через generate_series.
+// Родитель вычисляется из id, поэтому генератор трафика знает связи без запросов к базе
+final class CatalogSeeder {
+
+    private static final String DESCRIPTION = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, "
+            + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.";
+
+    private CatalogSeeder() {
+    }
+
+    static void seed(LocalDatabase database, LoadTestSettings settings) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(
+                database.jdbcUrl(), database.username(), database.password())) {
+            insert(connection, """
+                    INSERT INTO courses (id, name, description, created_time, updated_time)
+                    SELECT g, 'Course ' || g, ?, now(), now() FROM generate_series(1, ?) g
+                    """, settings.courses(), 0);
+            // sort_key с шагом OrderRepository.SORT_KEY_GAP, как после перенумерации
+            insert(connection, """
+                    INSERT INTO chapters (id, name, description, sort_key, course_id, created_time, updated_time)
+                    SELECT g, 'Chapter ' || g, ?, ((g - 1) % ? + 1) * 1048576, (g - 1) / ? + 1, now(), now()
+                    FROM generate_series(1, ?) g
+                    """, settings.chapters(), settings.chaptersPerCourse());
+            insert(connection, """
+                    INSERT INTO lessons (id, name, description, sort_key, chapter_id, created_time, updated_time)
+                    SELECT g, 'Lesson ' || g, ?, ((g - 1) % ? + 1) * 1048576, (g - 1) / ? + 1, now(), now()
+                    FROM generate_series(1, ?) g
+                    """, settings.lessons(), settings.lessonsPerChapter());
+            try (Statement statement = connection.createStatement()) {
+                // Как в 2026_10_18_create_id_sequences.sql: pooled-оптимизатор выдает блоки по 50 id
+                statement.execute("SELECT setval('courses_seq', (SELECT MAX(id) FROM courses) + 50, false)");
+                statement.execute("SELECT setval('chapters_seq', (SELECT MAX(id) FROM chapters) + 50, false)");
+                statement.execute("SELECT setval('lessons_seq', (SELECT MAX(id) FROM lessons) + 50, false)");
+                statement.execute("ANALYZE courses, chapters, lessons");
+            }
+        }
+        System.out.printf("Seeded %d courses, %d chapters, %d lessons in %d ms%n", settings.courses(), settings.chapters(),
+                settings.lessons(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void insert(Connection connection, String sql, int rows, int perParent) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            statement.setString(index++, DESCRIPTION);
+            if (perParent > 0) {
+                statement.setInt(index++, perParent);
+                statement.setInt(index++, perParent);
+            }
+            statement.setInt(index, rows);
+            statement.executeUpdate();
+        }
+    }
+}
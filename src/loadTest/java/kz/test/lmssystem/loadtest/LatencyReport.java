@@ -0,0 +1,121 @@
+package kz.test.lmssystem.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Задержки (HdrHistogram, микросекунды, 3 значащих цифры) и ошибки по каждому виду запроса и суммарно
+final class LatencyReport {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final Map<Operation, Stats> byOperation = new LinkedHashMap<>();
+    private final Stats total = new Stats();
+    private long elapsedNanos;
+
+    LatencyReport(List<Operation> operations) {
+        operations.forEach(operation -> byOperation.put(operation, new Stats()));
+    }
+
+    void record(Operation operation, long latencyNanos, boolean success) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS);
+        byOperation.get(operation).record(micros, success);
+        total.record(micros, success);
+    }
+
+    void finish(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    double totalP99Millis() {
+        return total.histogram.getValueAtPercentile(99) / 1000.0;
+    }
+
+    double totalErrorRate() {
+        long count = total.histogram.getTotalCount();
+        return count == 0 ? 0 : (double) total.errors.sum() / count;
+    }
+
+    void print(PrintStream out) {
+        printHeader(out, "operation");
+        byOperation.forEach((operation, stats) -> print(out, operation.name(), stats));
+        print(out, "TOTAL", total);
+    }
+
+    // Итоговая строка под своим именем: сравнение прогонов в одной таблице
+    void printTotal(PrintStream out, String name) {
+        print(out, name, total);
+    }
+
+    static void printHeader(PrintStream out, String title) {
+        out.printf("%n%-42s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                title, "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms");
+    }
+
+    void writeJson(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("elapsedSeconds", elapsedNanos / 1e9);
+        json.put("total", total.toJson(elapsedNanos));
+        List<Map<String, Object>> operations = new ArrayList<>();
+        byOperation.forEach((operation, stats) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("operation", operation.name());
+            entry.put("write", operation.write());
+            entry.putAll(stats.toJson(elapsedNanos));
+            operations.add(entry);
+        });
+        json.put("operations", operations);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), json);
+    }
+
+    private void print(PrintStream out, String name, Stats stats) {
+        Histogram histogram = stats.histogram;
+        out.printf("%-42s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                stats.errors.sum(), histogram.getTotalCount() / (elapsedNanos / 1e9),
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static final class Stats {
+
+        private final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long micros, boolean success) {
+            histogram.recordValue(micros);
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        Map<String, Object> toJson(long elapsedNanos) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("count", histogram.getTotalCount());
+            json.put("errors", errors.sum());
+            json.put("throughput", histogram.getTotalCount() / (elapsedNanos / 1e9));
+            json.put("p50Ms", millis(histogram, 50));
+            json.put("p90Ms", millis(histogram, 90));
+            json.put("p99Ms", millis(histogram, 99));
+            json.put("p999Ms", millis(histogram, 99.9));
+            json.put("maxMs", histogram.getMaxValue() / 1000.0);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package kz.test.lmssystem.loadtest;
+
+import kz.test.lmssystem.LmsSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Нагрузочный прогон: PostgreSQL (LocalDatabase) -> приложение на случайном порту -> каталог (CatalogSeeder)
+// -> смесь запросов по открытой модели -> отчет в консоль и JSON. Порог p99 и доля ошибок - условие успеха:
+// gradle loadTest -Plms.loadtest.rate=300 -Plms.loadtest.max-p99-ms=50
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<String> failures = new ArrayList<>();
+        try (LocalDatabase database = LocalDatabase.start(settings);
+             ConfigurableApplicationContext application = new SpringApplicationBuilder(LmsSystemApplication.class)
+                     .run(applicationArguments(database, settings, args))) {
+            CatalogSeeder.seed(database, settings);
+            int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+            LatencyReport report = new OpenModelDriver(settings, new TrafficMix(settings))
+                    .run(URI.create("http://localhost:" + port));
+            report.print(System.out);
+            report.writeJson(Path.of(settings.report()));
+            System.out.printf("%nReport written to %s%n", settings.report());
+
+            if (settings.maxP99Millis() != null && report.totalP99Millis() > settings.maxP99Millis()) {
+                failures.add(String.format("p99 %.2f ms exceeds %.2f ms", report.totalP99Millis(),
+                        settings.maxP99Millis()));
+            }
+            if (report.totalErrorRate() > settings.maxErrorRate()) {
+                failures.add(String.format("error rate %.4f exceeds %.4f", report.totalErrorRate(),
+                        settings.maxErrorRate()));
+            }
+        }
+        failures.forEach(failure -> System.err.println("Load test failed: " + failure));
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    // Аргументы командной строки перекрывают application.properties; свои args идут последними
+    static String[] applicationArguments(LocalDatabase database, LoadTestSettings settings, String... args) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + database.jdbcUrl(),
+                "--spring.datasource.username=" + database.username(),
+                "--spring.datasource.password=" + database.password(),
+                "--spring.datasource.hikari.maximum-pool-size=" + settings.poolSize(),
+                "--spring.r2dbc.url=" + database.jdbcUrl().replaceFirst("^jdbc:", "r2dbc:").replaceFirst("\\?.*$", ""),
+                "--spring.r2dbc.username=" + database.username(),
+                "--spring.r2dbc.password=" + database.password(),
+                "--spring.r2dbc.pool.max-size=" + settings.poolSize(),
+                "--spring.liquibase.contexts=test",
+                "--server.port=0",
+                "--lms.reactive.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.kz.test.lmssystem=WARN",
+                "--logging.file.name=build/loadtest/lms-system.log"));
+        arguments.addAll(List.of(args));
+        return arguments.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,61 @@
+package kz.test.lmssystem.loadtest;
+
+import java.time.Duration;
+
+// Параметры прогона из системных свойств lms.loadtest.* (gradle loadTest -Plms.loadtest.rate=500 ...)
+record LoadTestSettings(
+        int courses,
+        int chaptersPerCourse,
+        int lessonsPerChapter,
+        double rate,
+        boolean poisson,
+        Duration warmup,
+        Duration duration,
+        double writeRatio,
+        int maxInFlight,
+        int poolSize,
+        int clients,
+        Duration readDelay,
+        long seed,
+        String jdbcUrl,
+        String username,
+        String password,
+        Double maxP99Millis,
+        double maxErrorRate,
+        String report) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("lms.loadtest.courses", 100),
+                Integer.getInteger("lms.loadtest.chapters-per-course", 10),
+                Integer.getInteger("lms.loadtest.lessons-per-chapter", 10),
+                Double.parseDouble(property("rate", "200")),
+                !"constant".equals(property("arrival", "poisson")),
+                Duration.parse("PT" + property("warmup", "10s")),
+                Duration.parse("PT" + property("duration", "60s")),
+                Double.parseDouble(property("write-ratio", "0.1")),
+                Integer.getInteger("lms.loadtest.max-in-flight", 512),
+                Integer.getInteger("lms.loadtest.pool-size", 10),
+                Integer.getInteger("lms.loadtest.clients", 10_000),
+                Duration.parse("PT" + property("read-delay", "1s")),
+                Long.getLong("lms.loadtest.seed", 42L),
+                property("jdbc-url", null),
+                property("username", "postgres"),
+                property("password", "postgres"),
+                property("max-p99-ms", null) == null ? null : Double.valueOf(property("max-p99-ms", null)),
+                Double.parseDouble(property("max-error-rate", "0.01")),
+                property("report", "build/reports/loadtest/results.json"));
+    }
+
+    int chapters() {
+        return courses * chaptersPerCourse;
+    }
+
+    int lessons() {
+        return chapters() * lessonsPerChapter;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("lms.loadtest." + name, defaultValue);
+    }
+}
@@ -0,0 +1,60 @@
+package kz.test.lmssystem.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+
+// PostgreSQL для прогона: заданный jdbc-url, иначе контейнер Testcontainers, а без Docker - встроенный
+// PostgreSQL (бинарники из Maven, запускается не от root)
+final class LocalDatabase implements AutoCloseable {
+
+    private static final String IMAGE = "postgres:15";
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final AutoCloseable server;
+
+    private LocalDatabase(String jdbcUrl, String username, String password, AutoCloseable server) {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.server = server;
+    }
+
+    static LocalDatabase start(LoadTestSettings settings) throws IOException {
+        if (settings.jdbcUrl() != null) {
+            System.out.printf("Using PostgreSQL at %s%n", settings.jdbcUrl());
+            return new LocalDatabase(settings.jdbcUrl(), settings.username(), settings.password(), () -> { });
+        }
+        if (DockerClientFactory.instance().isDockerAvailable()) {
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>(IMAGE);
+            container.start();
+            System.out.printf("Started %s container at %s%n", IMAGE, container.getJdbcUrl());
+            return new LocalDatabase(container.getJdbcUrl(), container.getUsername(), container.getPassword(),
+                    container::stop);
+        }
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        System.out.printf("Docker is not available, started embedded PostgreSQL on port %d%n", postgres.getPort());
+        return new LocalDatabase(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "postgres", postgres);
+    }
+
+    String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String password() {
+        return password;
+    }
+
+    @Override
+    public void close() throws Exception {
+        server.close();
+    }
+}
@@ -0,0 +1,73 @@
+package kz.test.lmssystem.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Открытая модель нагрузки: запросы отправляются по расписанию прихода (Пуассон или равномерно) независимо
+// от ответов. Задержка считается от запланированного момента отправки, поэтому очередь перед сервером
+// попадает в перцентили (без coordinated omission). Сверх max-in-flight запрос не отправляется и считается ошибкой
+final class OpenModelDriver {
+
+    private final LoadTestSettings settings;
+    private final TrafficMix mix;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    OpenModelDriver(LoadTestSettings settings, TrafficMix mix) {
+        this.settings = settings;
+        this.mix = mix;
+    }
+
+    LatencyReport run(URI baseUri) throws InterruptedException {
+        LatencyReport warmup = new LatencyReport(mix.operations());
+        System.out.printf("Warmup for %s at %.0f req/s%n", settings.warmup(), settings.rate());
+        drive(baseUri, settings.warmup(), warmup, new SplittableRandom(settings.seed()));
+        LatencyReport report = new LatencyReport(mix.operations());
+        System.out.printf("Measuring for %s at %.0f req/s%n", settings.duration(), settings.rate());
+        drive(baseUri, settings.duration(), report, new SplittableRandom(settings.seed() + 1));
+        return report;
+    }
+
+    private void drive(URI baseUri, Duration duration, LatencyReport report, SplittableRandom random)
+            throws InterruptedException {
+        Semaphore inFlight = new Semaphore(settings.maxInFlight());
+        long meanIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intended = start;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = mix.next(random);
+            HttpRequest request = operation.request().apply(baseUri, random);
+            long scheduledAt = intended;
+            if (inFlight.tryAcquire()) {
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, failure) -> {
+                            inFlight.release();
+                            report.record(operation, System.nanoTime() - scheduledAt,
+                                    failure == null && response.statusCode() < 400);
+                        });
+            } else {
+                report.record(operation, System.nanoTime() - scheduledAt, false);
+            }
+            intended += settings.poisson()
+                    ? (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos)
+                    : meanIntervalNanos;
+        }
+        // Дождаться ответов на уже отправленные запросы
+        inFlight.acquire(settings.maxInFlight());
+        report.finish(System.nanoTime() - start);
+    }
+}
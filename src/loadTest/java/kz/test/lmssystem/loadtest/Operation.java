@@ -0,0 +1,10 @@
+package kz.test.lmssystem.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+// Один вид запроса в смеси трафика; weight - относительная доля внутри чтений или записей
+record Operation(String name, boolean write, int weight, BiFunction<URI, SplittableRandom, HttpRequest> request) {
+}
@@ -0,0 +1,113 @@
+package kz.test.lmssystem.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import kz.test.lmssystem.LmsSystemApplication;
+import kz.test.lmssystem.config.ReactiveServerConfig;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Тысячи одновременных медленных клиентов на одном маршруте (уроки главы) против двух стеков: реактивного
+// (Netty + R2DBC) и сервлетного (Tomcat + JPA). Клиенты (SlowClients) работают в отдельной JVM; сервер
+// измеряет себя, когда все соединения открыты: потоки, heap после GC и direct-буферы на открытое соединение.
+// Ответ должен быть заметно больше TCP-окна, например:
+// gradle loadTestReactive -Plms.loadtest.clients=10000 -Plms.loadtest.lessons-per-chapter=500
+public final class ReactiveConcurrencyBenchmark {
+
+    private ReactiveConcurrencyBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        List<Map<String, Object>> results = new ArrayList<>();
+        try (LocalDatabase database = LocalDatabase.start(settings);
+             ConfigurableApplicationContext application = new SpringApplicationBuilder(LmsSystemApplication.class)
+                     .run(LoadTest.applicationArguments(database, settings, "--lms.reactive.enabled=true"))) {
+            CatalogSeeder.seed(database, settings);
+            int servletPort = ((WebServerApplicationContext) application).getWebServer().getPort();
+            int reactivePort = application.getBean(ReactiveServerConfig.ReactiveServer.class).getPort();
+            // Одна и та же страница уроков главы на обоих стеках
+            String page = "/api/lessons/by-chapter/%d?limit=" + settings.lessonsPerChapter();
+            results.add(measure("reactive", reactivePort, page, settings));
+            results.add(measure("servlet", servletPort, page + "&fetch=FLAT", settings));
+        }
+        System.out.printf("%n%-10s %8s %8s %9s %7s %8s %12s %12s %8s %14s%n", "stack", "clients", "max open",
+                "completed", "failed", "timeout", "ttfb p50 ms", "ttfb p99 ms", "threads", "KB/connection");
+        for (Map<String, Object> result : results) {
+            System.out.printf("%-10s %8s %8s %9s %7s %8s %12s %12s %8s %14.1f%n", result.get("stack"),
+                    result.get("clients"), result.get("maxOpen"), result.get("completed"), result.get("failed"),
+                    result.get("timedOut"), result.get("firstByteP50Ms"), result.get("firstByteP99Ms"),
+                    result.get("serverThreads"), result.get("bytesPerConnection") instanceof Number bytes
+                            ? bytes.doubleValue() / 1024 : Double.NaN);
+        }
+        Path report = Path.of(settings.report().replaceFirst("(\\.json)?$", "-reactive.json"));
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), results);
+        System.out.printf("%nReport written to %s%n", report);
+        System.exit(0);
+    }
+
+    private static Map<String, Object> measure(String stack, int port, String pathTemplate, LoadTestSettings settings)
+            throws Exception {
+        System.out.printf("%n=== %s: %d slow clients on port %d ===%n", stack, settings.clients(), port);
+        long baseline = serverMemory();
+        Process clients = new ProcessBuilder(javaExecutable(), "-Xss256k", "-cp", System.getProperty("java.class.path"),
+                SlowClients.class.getName(), "localhost", String.valueOf(port), pathTemplate,
+                String.valueOf(settings.chapters()), String.valueOf(settings.clients()),
+                String.valueOf(settings.readDelay().toMillis()), String.valueOf(settings.duration().toMillis()))
+                .redirectErrorStream(true)
+                .start();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("stack", stack);
+        try (BufferedReader output = new BufferedReader(
+                new InputStreamReader(clients.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = output.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("CONNECTED open=")) {
+                    // Все клиенты подключены и ждут ответа: замер сервера под нагрузкой
+                    int open = Integer.parseInt(line.substring("CONNECTED open=".length()));
+                    long loaded = serverMemory();
+                    result.put("serverThreads", ManagementFactory.getThreadMXBean().getThreadCount());
+                    result.put("openAtMeasure", open);
+                    result.put("bytesPerConnection", open == 0 ? null : (double) (loaded - baseline) / open);
+                } else if (line.startsWith("RESULT ")) {
+                    result.putAll(new ObjectMapper().readValue(line.substring("RESULT ".length()),
+                            new TypeReference<Map<String, Object>>() {
+                            }));
+                }
+            }
+        }
+        clients.waitFor(1, TimeUnit.MINUTES);
+        return result;
+    }
+
+    // Heap после GC плюс direct-буферы (Netty держит в них данные ответов)
+    private static long serverMemory() throws InterruptedException {
+        System.gc();
+        Thread.sleep(200);
+        long direct = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + direct;
+    }
+
+    private static String javaExecutable() {
+        return ProcessHandle.current().info().command().orElse("java");
+    }
+}
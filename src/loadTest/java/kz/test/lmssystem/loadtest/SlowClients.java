@@ -0,0 +1,142 @@
+package kz.test.lmssystem.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Медленные клиенты в отдельной JVM, чтобы их память не смешивалась с памятью сервера. Каждый клиент открывает
+// соединение с маленьким приемным буфером и читает ответ порциями по CHUNK байт раз в read-delay, поэтому
+// сервер упирается в TCP-окно и держит ответ незаконченным. Прогресс и итог печатаются строками в stdout:
+// PROGRESS open=<n> done=<n> failed=<n>, CONNECTED open=<n>, RESULT <json>
+final class SlowClients {
+
+    private static final int RECEIVE_BUFFER = 4096;
+    private static final int CHUNK = 2048;
+    private static final int CONNECT_THREADS = 32;
+
+    private final String host;
+    private final int port;
+    private final String pathTemplate;
+    private final int targets;
+    private final long readDelayMillis;
+    private final ScheduledExecutorService readers = Executors.newScheduledThreadPool(4);
+    private final Histogram firstByteMicros = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger maxOpen = new AtomicInteger();
+
+    private SlowClients(String host, int port, String pathTemplate, int targets, long readDelayMillis) {
+        this.host = host;
+        this.port = port;
+        this.pathTemplate = pathTemplate;
+        this.targets = targets;
+        this.readDelayMillis = readDelayMillis;
+    }
+
+    // args: host port path-template(%d - номер цели) targets clients read-delay-ms timeout-ms
+    public static void main(String[] args) throws InterruptedException {
+        SlowClients clients = new SlowClients(args[0], Integer.parseInt(args[1]), args[2], Integer.parseInt(args[3]),
+                Long.parseLong(args[5]));
+        clients.run(Integer.parseInt(args[4]), Long.parseLong(args[6]));
+        System.exit(0);
+    }
+
+    private void run(int count, long timeoutMillis) throws InterruptedException {
+        long start = System.nanoTime();
+        CountDownLatch finished = new CountDownLatch(count);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor();
+        progress.scheduleAtFixedRate(() -> System.out.printf("PROGRESS open=%d done=%d failed=%d%n",
+                open.get(), done.get(), failed.get()), 1, 1, TimeUnit.SECONDS);
+        ExecutorService connectors = Executors.newFixedThreadPool(CONNECT_THREADS);
+        for (int i = 0; i < count; i++) {
+            int target = i % targets + 1;
+            connectors.execute(() -> connect(target, finished));
+        }
+        connectors.shutdown();
+        connectors.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        System.out.println("CONNECTED open=" + open.get());
+        boolean completed = finished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        progress.shutdownNow();
+        readers.shutdownNow();
+        System.out.printf(Locale.ROOT, "RESULT {\"clients\":%d,\"maxOpen\":%d,\"completed\":%d,\"failed\":%d,"
+                        + "\"timedOut\":%d,\"firstByteP50Ms\":%.2f,\"firstByteP99Ms\":%.2f,\"elapsedSeconds\":%.1f}%n",
+                count, maxOpen.get(), done.get(), failed.get(), completed ? 0 : finished.getCount(),
+                firstByteMicros.getValueAtPercentile(50) / 1000.0, firstByteMicros.getValueAtPercentile(99) / 1000.0,
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    private void connect(int target, CountDownLatch finished) {
+        long start = System.nanoTime();
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, RECEIVE_BUFFER);
+            channel.socket().connect(new InetSocketAddress(host, port), 10_000);
+            String request = "GET " + String.format(pathTemplate, target) + " HTTP/1.1\r\nHost: " + host
+                    + "\r\nAccept: application/json\r\nConnection: close\r\n\r\n";
+            channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+            channel.configureBlocking(false);
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            SocketChannel connected = channel;
+            readers.schedule(() -> read(connected, start, true, finished), readDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            close(channel);
+            failed.incrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    // Одна порция за раз; ответ без данных - повтор через read-delay, конец потока - клиент завершен
+    private void read(SocketChannel channel, long start, boolean first, CountDownLatch finished) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+        try {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                open.decrementAndGet();
+                (first ? failed : done).incrementAndGet();
+                close(channel);
+                finished.countDown();
+                return;
+            }
+            boolean stillFirst = first;
+            if (first && read > 0) {
+                stillFirst = false;
+                firstByteMicros.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                if (!new String(buffer.array(), 0, Math.min(read, 12), StandardCharsets.US_ASCII).endsWith("200")) {
+                    throw new IOException("Unexpected status");
+                }
+            }
+            boolean nextFirst = stillFirst;
+            readers.schedule(() -> read(channel, start, nextFirst, finished), readDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            open.decrementAndGet();
+            failed.incrementAndGet();
+            close(channel);
+            finished.countDown();
+        }
+    }
+
+    private static void close(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // соединение уже разорвано
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package kz.test.lmssystem.loadtest;
+
+import kz.test.lmssystem.LmsSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Сравнение режимов выполнения запросов на одной базе и одной нагрузке: пул платформенных потоков Tomcat
+// против виртуальных потоков (spring.threads.virtual.enabled). Пул соединений намеренно меньше числа
+// одновременных запросов (lms.loadtest.pool-size), чтобы запросы ждали соединение:
+// gradle loadTestThreadModes -Plms.loadtest.rate=400 -Plms.loadtest.pool-size=5.
+// Оба режима идут в одной JVM и второй получает прогретый JIT, поэтому warmup не стоит сокращать
+public final class ThreadModeBenchmark {
+
+    private ThreadModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        Map<String, LatencyReport> reports = new LinkedHashMap<>();
+        try (LocalDatabase database = LocalDatabase.start(settings)) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                String mode = virtual ? "virtual" : "platform";
+                System.out.printf("%n=== %s threads, pool size %d ===%n", mode, settings.poolSize());
+                try (ConfigurableApplicationContext application = new SpringApplicationBuilder(LmsSystemApplication.class)
+                        .run(LoadTest.applicationArguments(database, settings,
+                                "--spring.threads.virtual.enabled=" + virtual))) {
+                    // Каждый режим начинает с одинакового каталога
+                    truncate(database);
+                    CatalogSeeder.seed(database, settings);
+                    int port = ((WebServerApplicationContext) application).getWebServer().getPort();
+                    LatencyReport report = new OpenModelDriver(settings, new TrafficMix(settings))
+                            .run(URI.create("http://localhost:" + port));
+                    report.print(System.out);
+                    report.writeJson(reportPath(settings, mode));
+                    reports.put(mode, report);
+                }
+            }
+        }
+        LatencyReport.printHeader(System.out, "mode");
+        reports.forEach((mode, report) -> report.printTotal(System.out, mode));
+        System.out.printf("%nReports written to %s and %s%n", reportPath(settings, "platform"),
+                reportPath(settings, "virtual"));
+        System.exit(0);
+    }
+
+    private static void truncate(LocalDatabase database) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                database.jdbcUrl(), database.username(), database.password());
+             Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE lessons, chapters, courses");
+        }
+    }
+
+    // results.json -> results-platform.json / results-virtual.json
+    private static Path reportPath(LoadTestSettings settings, String mode) {
+        return Path.of(settings.report().replaceFirst("(\\.json)?$", "-" + mode + ".json"));
+    }
+}
@@ -0,0 +1,121 @@
+package kz.test.lmssystem.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+// Смесь чтений и записей по всем маршрутам /api/courses, /api/chapters и /api/lessons.
+// Id берутся из засеянного каталога (CatalogSeeder); удаляются только уроки из верхней половины,
+// а читаются из нижней, поэтому чтения не получают 404 из-за удалений
+final class TrafficMix {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestSettings settings;
+    private final List<Operation> reads = new ArrayList<>();
+    private final List<Operation> writes = new ArrayList<>();
+    private final AtomicLong nextDeletedLesson;
+    private int readWeight;
+    private int writeWeight;
+
+    TrafficMix(LoadTestSettings settings) {
+        this.settings = settings;
+        this.nextDeletedLesson = new AtomicLong(settings.lessons());
+
+        read("GET /api/courses/", 5, (base, random) -> get(base, "/api/courses/"));
+        read("GET /api/courses/?view=summary", 5, (base, random) -> get(base, "/api/courses/?view=summary"));
+        read("GET /api/courses/{id}", 15, (base, random) -> get(base, "/api/courses/" + course(random)));
+        read("GET /api/courses/{id}/tree", 10, (base, random) -> get(base, "/api/courses/" + course(random) + "/tree"));
+        read("GET /api/courses/by-name/{name}", 5,
+                (base, random) -> get(base, "/api/courses/by-name/Course%20" + course(random)));
+        read("GET /api/chapters/", 5, (base, random) -> get(base, "/api/chapters/"));
+        read("GET /api/chapters/{id}", 10, (base, random) -> get(base, "/api/chapters/" + chapter(random)));
+        read("GET /api/chapters/by-course/{courseId}", 10,
+                (base, random) -> get(base, "/api/chapters/by-course/" + course(random)));
+        read("GET /api/chapters/by-name/{name}", 3,
+                (base, random) -> get(base, "/api/chapters/by-name/Chapter%20" + chapter(random)));
+        read("GET /api/lessons/", 5, (base, random) -> get(base, "/api/lessons/"));
+        read("GET /api/lessons/{id}", 15, (base, random) -> get(base, "/api/lessons/" + lesson(random)));
+        read("GET /api/lessons/by-chapter/{chapterId}", 10,
+                (base, random) -> get(base, "/api/lessons/by-chapter/" + chapter(random)));
+        read("GET /api/lessons/by-course/{courseId}", 5,
+                (base, random) -> get(base, "/api/lessons/by-course/" + course(random)));
+        read("GET /api/lessons/by-name/{name}", 2,
+                (base, random) -> get(base, "/api/lessons/by-name/Lesson%20" + lesson(random)));
+
+        write("POST /api/courses/", 1, (base, random) -> send(base, "POST", "/api/courses/",
+                "{\"courseName\":\"Load course\",\"description\":\"Created by load test\"}"));
+        write("PUT /api/courses/", 2, (base, random) -> {
+            long id = course(random);
+            return send(base, "PUT", "/api/courses/", "{\"id\":" + id + ",\"name\":\"Course " + id
+                    + "\",\"description\":\"Updated by load test\"}");
+        });
+        write("POST /api/chapters/", 2, (base, random) -> send(base, "POST", "/api/chapters/",
+                "{\"chapterName\":\"Load chapter\",\"order\":" + (settings.chaptersPerCourse() + 1)
+                        + ",\"courseId\":" + course(random) + "}"));
+        write("POST /api/lessons/", 4, (base, random) -> send(base, "POST", "/api/lessons/",
+                "{\"lessonName\":\"Load lesson\",\"order\":" + (settings.lessonsPerChapter() + 1)
+                        + ",\"chapterId\":" + chapter(random) + "}"));
+        write("DELETE /api/lessons/{id}", 1, (base, random) -> {
+            long id = nextDeletedLesson.getAndUpdate(last -> last > settings.lessons() / 2 + 1 ? last - 1 : last);
+            return HttpRequest.newBuilder(base.resolve("/api/lessons/" + id)).timeout(TIMEOUT).DELETE().build();
+        });
+    }
+
+    Operation next(SplittableRandom random) {
+        boolean write = random.nextDouble() < settings.writeRatio();
+        List<Operation> operations = write ? writes : reads;
+        int point = random.nextInt(write ? writeWeight : readWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights out of range");
+    }
+
+    List<Operation> operations() {
+        List<Operation> operations = new ArrayList<>(reads);
+        operations.addAll(writes);
+        return operations;
+    }
+
+    private void read(String name, int weight, BiFunction<URI, SplittableRandom, HttpRequest> request) {
+        reads.add(new Operation(name, false, weight, request));
+        readWeight += weight;
+    }
+
+    private void write(String name, int weight, BiFunction<URI, SplittableRandom, HttpRequest> request) {
+        writes.add(new Operation(name, true, weight, request));
+        writeWeight += weight;
+    }
+
+    private long course(SplittableRandom random) {
+        return random.nextLong(settings.courses()) + 1;
+    }
+
+    private long chapter(SplittableRandom random) {
+        return random.nextLong(settings.chapters()) + 1;
+    }
+
+    private long lesson(SplittableRandom random) {
+        return random.nextLong(Math.max(1, settings.lessons() / 2)) + 1;
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest send(URI base, String method, String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
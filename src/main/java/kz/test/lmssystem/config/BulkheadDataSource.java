@@ -0,0 +1,150 @@
+package kz.test.lmssystem.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Переборка перед пулом соединений: одновременно выдано не больше соединений, чем в пуле, остальные потоки
+// ждут в честной очереди семафора. Виртуальный поток ждет на семафоре, не занимая поток-носитель,
+// а получивший разрешение берет соединение из пула сразу, без ожидания до connectionTimeout внутри Hikari.
+// Разрешение возвращается при закрытии соединения; не дождавшийся за maxWait получает SQLTransientConnectionException
+@Slf4j
+public class BulkheadDataSource extends DelegatingDataSource implements MeterBinder, AutoCloseable {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private volatile Timer acquiredTimer;
+    private volatile Timer rejectedTimer;
+
+    public BulkheadDataSource(DataSource target, String name, int maxConcurrent, Duration maxWait) {
+        super(target);
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent, true);
+        log.info("Connection bulkhead for {}: {} permits, max wait {}", name, maxConcurrent, maxWait);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Теги pool и outcome (acquired/rejected); очередь и свободные разрешения - gauges
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        acquiredTimer = waitTimer(registry, "acquired");
+        rejectedTimer = waitTimer(registry, "rejected");
+        Gauge.builder(MetricsConfig.DB_BULKHEAD_QUEUED, permits, Semaphore::getQueueLength)
+                .description("Threads waiting for a connection permit")
+                .tag("pool", name)
+                .register(registry);
+        Gauge.builder(MetricsConfig.DB_BULKHEAD_AVAILABLE, permits, Semaphore::availablePermits)
+                .description("Free connection permits")
+                .tag("pool", name)
+                .register(registry);
+    }
+
+    // Закрывает пул за переборкой
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException(name + " bulkhead: interrupted while waiting for a connection", e);
+        }
+        long waitedNanos = System.nanoTime() - start;
+        Timer timer = acquired ? acquiredTimer : rejectedTimer;
+        if (timer != null) {
+            timer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            log.warn("No {} connection within {} ms, all {} in use, {} threads waiting", name,
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), maxConcurrent, permits.getQueueLength());
+            throw new SQLTransientConnectionException(String.format(
+                    "%s bulkhead: no connection available within %d ms", name, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos)));
+        }
+    }
+
+    // Разрешение возвращается один раз, даже если соединение закрывают повторно
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    private Timer waitTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder(MetricsConfig.DB_BULKHEAD_WAIT)
+                .description("Time spent waiting for a connection permit")
+                .tags("pool", name, "outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,66 @@
+package kz.test.lmssystem.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+// Кэш сервисов (Caffeine, W-TinyLFU). Имена кэшей и размер заданы в application.properties (lms.cache.services.*)
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String COURSES = "courses";
+    public static final String COURSES_BY_NAME = "coursesByName";
+    public static final String CHAPTERS = "chapters";
+    public static final String CHAPTERS_BY_NAME = "chaptersByName";
+    public static final String CHAPTERS_BY_COURSE = "chaptersByCourse";
+    public static final String LESSONS = "lessons";
+    public static final String LESSONS_BY_NAME = "lessonsByName";
+    public static final String LESSONS_BY_CHAPTER = "lessonsByChapter";
+    public static final String LESSONS_BY_COURSE = "lessonsByCourse";
+    public static final String COURSE_TREES = "courseTrees";
+    public static final String RESPONSES = "responses";
+
+    // Кэши сервисов ведут индекс меток (CacheTagger): запись сбрасывает только связанные с ней записи.
+    // Готовые тела ответов ограничены суммарным размером в байтах, а не числом записей
+    @Bean
+    public CacheManager cacheManager(
+            CacheTagger cacheTagger,
+            @Value("${lms.cache.services.names}") List<String> cacheNames,
+            @Value("${lms.cache.services.spec}") String spec,
+            @Value("${lms.cache.responses.max-size}") DataSize maxSize,
+            @Value("${lms.cache.responses.ttl}") Duration ttl) {
+        TaggedCacheManager cacheManager = new TaggedCacheManager(cacheTagger);
+        cacheNames.forEach(name -> cacheManager.registerTaggedCache(name, Caffeine.from(spec)));
+        cacheManager.registerCustomCache(RESPONSES, Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<Object, Object>weigher((key, value) -> value instanceof Weighted weighted ? weighted.weight() : 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    // Значение кэша, размер которого известен в байтах
+    public interface Weighted {
+        int weight();
+    }
+
+    // Для методов (parentId, after, limit[, fetchPlan]); без fetchPlan видом страницы служит имя метода
+    @Bean
+    public KeyGenerator parentPageKeyGenerator() {
+        return (target, method, params) -> new ParentPageKey(
+                (Long) params[0],
+                (String) params[1],
+                (Integer) params[2],
+                params.length > 3 ? params[3] : method.getName());
+    }
+}
@@ -0,0 +1,10 @@
+package kz.test.lmssystem.config;
+
+import java.util.Set;
+
+// Метки записи кэша (id сущностей в значении, родитель из ключа): по метке запись находится без обхода кэша
+@FunctionalInterface
+public interface CacheTagger {
+
+    Set<Object> tags(Object key, Object value);
+}
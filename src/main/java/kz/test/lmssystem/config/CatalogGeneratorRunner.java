@@ -0,0 +1,40 @@
+package kz.test.lmssystem.config;
+
+import kz.test.lmssystem.dto.GenerationReportDto;
+import kz.test.lmssystem.service.CatalogGeneratorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Профиль generate: заполняет базу синтетическим каталогом и завершается (веб-сервер не поднимается),
+// параметры - lms.generator.* в application-generate.properties. Из Gradle: gradle generateCatalog
+@Slf4j
+@Component
+@Profile("generate")
+@RequiredArgsConstructor
+public class CatalogGeneratorRunner implements CommandLineRunner {
+
+    private final CatalogGeneratorService catalogGeneratorService;
+
+    @Value("${lms.generator.courses}")
+    private int courses;
+
+    @Value("${lms.generator.chapters-per-course}")
+    private int chaptersPerCourse;
+
+    @Value("${lms.generator.lessons-per-chapter}")
+    private int lessonsPerChapter;
+
+    @Value("${lms.generator.seed}")
+    private long seed;
+
+    @Override
+    public void run(String... args) {
+        GenerationReportDto report = catalogGeneratorService.generate(courses, chaptersPerCourse, lessonsPerChapter, seed);
+        log.info("Synthetic catalog for seed {}: {} courses, {} chapters, {} lessons in {} ms", report.getSeed(),
+                report.getCourses(), report.getChapters(), report.getLessons(), report.getElapsedMs());
+    }
+}
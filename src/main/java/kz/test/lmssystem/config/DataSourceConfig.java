@@ -0,0 +1,116 @@
+package kz.test.lmssystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение с реплик: @Transactional(readOnly = true) получает соединение из ReplicaDataSource, остальное - с primary.
+// LazyConnectionDataSourceProxy берет физическое соединение при первом запросе, когда флаг readOnly уже выставлен.
+// Перед каждым пулом - BulkheadDataSource с числом разрешений, равным размеру пула
+@Configuration
+public class DataSourceConfig {
+
+    // DataSourceAutoConfiguration отключается, когда есть R2DBC ConnectionFactory, поэтому свойства объявлены здесь
+    @Bean
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public DataSource primaryConnections(
+            HikariDataSource primaryDataSource,
+            @Value("${lms.datasource.bulkhead.enabled:true}") boolean bulkheadEnabled,
+            @Value("${lms.datasource.bulkhead.max-wait:5s}") Duration bulkheadMaxWait,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return bulkhead(primaryDataSource, "primary", bulkheadEnabled, bulkheadMaxWait, meterRegistry);
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(
+            @Qualifier("primaryConnections") DataSource primaryConnections,
+            DataSourceProperties properties,
+            @Value("${lms.datasource.replica.urls:}") List<String> urls,
+            @Value("${lms.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${lms.datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${lms.datasource.replica.pool-size:10}") int poolSize,
+            @Value("${lms.datasource.replica.max-lag:1s}") Duration maxLag,
+            @Value("${lms.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval,
+            @Value("${lms.datasource.bulkhead.enabled:true}") boolean bulkheadEnabled,
+            @Value("${lms.datasource.bulkhead.max-wait:5s}") Duration bulkheadMaxWait,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.getDriverClassName());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Пул не падает при старте, если реплика еще недоступна: ее исключит проверка отставания
+            replica.setInitializationFailTimeout(-1);
+            // Пулы реплик не бины, метрики hikaricp_* (тег pool) подключаются вручную
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(bulkhead(replica, replica.getPoolName(), bulkheadEnabled, bulkheadMaxWait, meterRegistry));
+        }
+        ReplicaDataSource replicaDataSource = new ReplicaDataSource(primaryConnections, replicas, maxLag);
+        replicaDataSource.start(lagCheckInterval);
+        return replicaDataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryConnections") DataSource primaryConnections,
+                                 ReplicaDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryConnections);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+
+    // Spring Boot подключает слушатель к менеджеру транзакций: после коммита записи чтение этого клиента
+    // на время max-lag идет с primary (ReadYourWrites)
+    @Bean
+    public TransactionExecutionListener replicaReadYourWritesListener() {
+        return new TransactionExecutionListener() {
+            @Override
+            public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+                if (!transaction.isReadOnly() && commitFailure == null) {
+                    ReadYourWrites.writeCommitted();
+                }
+            }
+        };
+    }
+
+    private static DataSource bulkhead(HikariDataSource pool, String name, boolean enabled, Duration maxWait,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        if (!enabled) {
+            return pool;
+        }
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, name, pool.getMaximumPoolSize(), maxWait);
+        meterRegistry.ifAvailable(bulkhead::bindTo);
+        return bulkhead;
+    }
+}
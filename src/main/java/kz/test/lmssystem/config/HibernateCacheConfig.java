@@ -0,0 +1,80 @@
+package kz.test.lmssystem.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Регионы второго уровня кэша Hibernate (JCache поверх Caffeine) с ограничениями из application.properties.
+// Незнакомый регион - ошибка старта (missing_cache_strategy=fail), так что неограниченных кэшей нет
+@Slf4j
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String COURSES_REGION = "courses";
+    public static final String CHAPTERS_REGION = "chapters";
+    public static final String CHAPTERS_BY_COURSE_REGION = "chapters-by-course";
+
+    private static final String DEFAULT_QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${lms.cache.entity.max-size:10000}")
+    private long entityMaxSize;
+
+    @Value("${lms.cache.entity.ttl:10m}")
+    private Duration entityTtl;
+
+    @Value("${lms.cache.query.max-size:1000}")
+    private long queryMaxSize;
+
+    @Value("${lms.cache.query.ttl:5m}")
+    private Duration queryTtl;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        CacheManager cacheManager = createCacheManager();
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    private CacheManager createCacheManager() {
+        // Отдельный URI на каждый контекст: иначе контексты в одной JVM (тесты) делят один менеджер
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("lms-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(COURSES_REGION, bounded(entityMaxSize, entityTtl));
+        cacheManager.createCache(CHAPTERS_REGION, bounded(entityMaxSize, entityTtl));
+        cacheManager.createCache(CHAPTERS_BY_COURSE_REGION, bounded(queryMaxSize, queryTtl));
+        cacheManager.createCache(DEFAULT_QUERY_RESULTS_REGION, bounded(queryMaxSize, queryTtl));
+        // Метки обновления таблиц не должны вытесняться раньше результатов запросов: по одной записи на таблицу
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setExpiryPolicyFactory(EternalExpiryPolicy.factoryOf());
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+        log.info("Second-level cache: entities max {} / ttl {}, queries max {} / ttl {}",
+                entityMaxSize, entityTtl, queryMaxSize, queryTtl);
+        return cacheManager;
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpiryPolicyFactory(FactoryBuilder.factoryOf(new CreatedExpiryPolicy(
+                new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, ttl.toMillis()))));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,25 @@
+package kz.test.lmssystem.config;
+
+// Имена таймеров для @Timed. HTTP-запросы (http.server.requests, тег uri - шаблон маршрута),
+// методы Spring Data репозиториев (spring.data.repository.invocations) и пулы HikariCP
+// измеряет Spring Boot Actuator; гистограммы, перцентили и SLO заданы в application.properties
+public final class MetricsConfig {
+
+    // Методы *ServiceImpl, теги class и method
+    public static final String SERVICE_TIMER = "lms.service";
+    // Репозитории на JdbcTemplate/COPY, которые не измеряет Spring Data
+    public static final String REPOSITORY_TIMER = "lms.repository";
+    // Учет SQL на HTTP-запрос (SqlStatementCounter), теги method и uri
+    public static final String SQL_STATEMENTS = "lms.sql.statements";
+    public static final String SQL_JDBC_TIME = "lms.sql.jdbc.time";
+    public static final String SQL_ENTITIES_LOADED = "lms.sql.entities.loaded";
+    // Переборка перед пулами соединений (BulkheadDataSource), тег pool
+    public static final String DB_BULKHEAD_WAIT = "lms.db.bulkhead.wait";
+    public static final String DB_BULKHEAD_QUEUED = "lms.db.bulkhead.queued";
+    public static final String DB_BULKHEAD_AVAILABLE = "lms.db.bulkhead.available";
+    // Время, на которое виртуальный поток занял поток-носитель (JFR jdk.VirtualThreadPinned)
+    public static final String VIRTUAL_THREAD_PINNED = "lms.jvm.threads.pinned";
+
+    private MetricsConfig() {
+    }
+}
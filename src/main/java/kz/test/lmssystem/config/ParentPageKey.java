@@ -0,0 +1,5 @@
+package kz.test.lmssystem.config;
+
+// Ключ кэша для страницы дочерних записей: по parentId кэш очищается точечно
+public record ParentPageKey(Long parentId, String after, int limit, Object view) {
+}
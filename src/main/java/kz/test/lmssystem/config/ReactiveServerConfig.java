@@ -0,0 +1,76 @@
+package kz.test.lmssystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import java.util.List;
+
+// Второй HTTP-сервер приложения: Netty для реактивных маршрутов рядом с Tomcat (Spring MVC).
+// Медленный клиент не занимает поток: ответ пишется по мере его спроса, а R2DBC читает строки по спросу ответа.
+// JSON пишется тем же ObjectMapper, что и в MVC. Выключен, пока lms.reactive.enabled=true не задан явно
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "lms.reactive.enabled", havingValue = "true")
+public class ReactiveServerConfig {
+
+    @Bean
+    public ReactiveServer reactiveServer(List<RouterFunction<ServerResponse>> routes, ObjectMapper objectMapper,
+                                         @Value("${lms.reactive.port:8081}") int port) {
+        RouterFunction<ServerResponse> route = routes.stream().reduce(RouterFunction::and).orElseThrow();
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(route, strategies);
+        return new ReactiveServer(new NettyReactiveWebServerFactory(port).getWebServer(httpHandler));
+    }
+
+    // Сервер стартует и останавливается вместе с контекстом
+    public static class ReactiveServer implements SmartLifecycle {
+
+        private final WebServer webServer;
+        private volatile boolean running;
+
+        ReactiveServer(WebServer webServer) {
+            this.webServer = webServer;
+        }
+
+        @Override
+        public void start() {
+            webServer.start();
+            running = true;
+            log.info("Reactive read API started on port {}", webServer.getPort());
+        }
+
+        @Override
+        public void stop() {
+            webServer.stop();
+            running = false;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        public int getPort() {
+            return webServer.getPort();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package kz.test.lmssystem.config;
+
+import java.util.function.LongConsumer;
+
+// Чтение своих записей в пределах одного клиента: время его последнего коммита записи (epoch ms, cookie COOKIE)
+// привязано к потоку запроса. Пока с этого времени не прошел max-lag, readOnly-транзакции клиента идут на primary,
+// остальные клиенты продолжают читать с реплик. Вне окна start()/stop() запись никого на primary не переводит
+public final class ReadYourWrites {
+
+    public static final String COOKIE = "lms-last-write";
+
+    private static final ThreadLocal<ReadYourWrites> CURRENT = new ThreadLocal<>();
+
+    private final LongConsumer onWrite;
+    private long lastWriteMillis;
+
+    private ReadYourWrites(long lastWriteMillis, LongConsumer onWrite) {
+        this.lastWriteMillis = lastWriteMillis;
+        this.onWrite = onWrite;
+    }
+
+    // lastWriteMillis - из cookie клиента (0, если его нет); onWrite получает время каждого нового коммита записи
+    public static ReadYourWrites start(long lastWriteMillis, LongConsumer onWrite) {
+        ReadYourWrites context = new ReadYourWrites(lastWriteMillis, onWrite);
+        CURRENT.set(context);
+        return context;
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    // Вызывается после коммита пишущей транзакции, в том числе autocommit-записи вне транзакций Spring (COPY)
+    public static void writeCommitted() {
+        ReadYourWrites context = CURRENT.get();
+        if (context != null) {
+            context.lastWriteMillis = System.currentTimeMillis();
+            context.onWrite.accept(context.lastWriteMillis);
+        }
+    }
+
+    static boolean wroteWithin(long windowMillis) {
+        ReadYourWrites context = CURRENT.get();
+        return context != null && System.currentTimeMillis() - context.lastWriteMillis < windowMillis;
+    }
+}
@@ -0,0 +1,150 @@
+package kz.test.lmssystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+// Источник соединений для readOnly-транзакций. Реплика выбирается по кругу среди тех, чье отставание
+// не больше maxLag. Если подходящих нет, реплика недоступна или у этого клиента в течение maxLag был коммит
+// записи (чтение своих записей, ReadYourWrites) - соединение берется с primary
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    // Отставание в секундах; 0, если реплика догнала primary или это не реплика (локальная замена)
+    static final String LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END""";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService lagChecker;
+
+    public ReplicaDataSource(DataSource primary, List<? extends DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicas.size())
+                .mapToObj(i -> new Replica(i + 1, replicas.get(i)))
+                .toList();
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    // До первой проверки реплики считаются отстающими
+    public void start(Duration interval) {
+        if (replicas.isEmpty()) {
+            log.info("No read replicas configured, read-only transactions use the primary");
+            return;
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("{} read replicas, max lag {}, checked every {}", replicas.size(), Duration.ofNanos(maxLagNanos),
+                interval);
+    }
+
+    // Сколько после коммита чтение с реплики может еще не видеть запись
+    public Duration staleReadWindow() {
+        return replicas.isEmpty() ? Duration.ZERO : Duration.ofNanos(maxLagNanos);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = choose();
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.dataSource.getConnection();
+        } catch (SQLException e) {
+            log.warn("Replica {} is unavailable, falling back to primary: {}", replica.index, e.getMessage());
+            replica.lagNanos = Long.MAX_VALUE;
+            return primary.getConnection();
+        }
+    }
+
+    // Учетные данные реплик заданы в их пулах, явные - только для primary
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    Replica choose() {
+        if (replicas.isEmpty() || ReadYourWrites.wroteWithin(TimeUnit.NANOSECONDS.toMillis(maxLagNanos))) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.lagNanos <= maxLagNanos) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    void checkLag() {
+        for (Replica replica : replicas) {
+            long lagNanos;
+            try {
+                lagNanos = (long) (measureLagSeconds(replica.dataSource) * 1_000_000_000L);
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Lag check failed for replica {}: {}", replica.index, e.getMessage());
+                lagNanos = Long.MAX_VALUE;
+            }
+            boolean wasUsable = replica.lagNanos <= maxLagNanos;
+            replica.lagNanos = lagNanos;
+            if (wasUsable != lagNanos <= maxLagNanos) {
+                log.info("Replica {} is {} (lag {} ms)", replica.index, wasUsable ? "lagging, reads go to primary"
+                        : "in sync, serving reads", lagNanos == Long.MAX_VALUE ? "unknown" : lagNanos / 1_000_000);
+            }
+        }
+    }
+
+    double measureLagSeconds(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            resultSet.next();
+            return resultSet.getDouble(1);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    static final class Replica {
+
+        final int index;
+        final DataSource dataSource;
+        volatile long lagNanos = Long.MAX_VALUE;
+
+        Replica(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package kz.test.lmssystem.config;
+
+// Счетчик SQL текущего HTTP-запроса: число выполненных statement (batch - один), время JDBC и загруженные сущности.
+// Привязан к потоку запроса; запросы вне окна start()/stop() и JdbcTemplate мимо Hibernate не учитываются
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+
+    private final int budget;
+    private final boolean captureStack;
+
+    private int statements;
+    private long jdbcNanos;
+    private int entitiesLoaded;
+    private Throwable overBudgetStack;
+
+    private SqlStatementCounter(int budget, boolean captureStack) {
+        this.budget = budget;
+        this.captureStack = captureStack;
+    }
+
+    // captureStack - запомнить стек statement, первым превысившего бюджет (дорого, только для выборки запросов)
+    public static SqlStatementCounter start(int budget, boolean captureStack) {
+        SqlStatementCounter counter = new SqlStatementCounter(budget, captureStack);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    public static SqlStatementCounter current() {
+        return CURRENT.get();
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    static void statementExecuted(long nanos) {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter == null) {
+            return;
+        }
+        counter.statements++;
+        counter.jdbcNanos += nanos;
+        if (counter.statements == counter.budget + 1 && counter.captureStack) {
+            counter.overBudgetStack = new Throwable("SQL statement " + counter.statements + " over budget " + counter.budget);
+        }
+    }
+
+    static void entityLoaded() {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.entitiesLoaded++;
+        }
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public boolean isOverBudget() {
+        return statements > budget;
+    }
+
+    // null, если бюджет не превышен или стек не снимался
+    public Throwable getOverBudgetStack() {
+        return overBudgetStack;
+    }
+}
@@ -0,0 +1,35 @@
+package kz.test.lmssystem.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caffeine-менеджер, у которого кэши, зарегистрированные через registerTaggedCache, ведут индекс меток.
+// Набор кэшей фиксирован: getCache для незарегистрированного имени возвращает null
+public class TaggedCacheManager extends CaffeineCacheManager {
+
+    private final CacheTagger tagger;
+    private final Map<String, TaggedCaffeineCache.Index> indexes = new ConcurrentHashMap<>();
+
+    public TaggedCacheManager(CacheTagger tagger) {
+        this.tagger = tagger;
+        setCacheNames(List.of());
+    }
+
+    public void registerTaggedCache(String name, Caffeine<Object, Object> builder) {
+        TaggedCaffeineCache.Index index = new TaggedCaffeineCache.Index();
+        indexes.put(name, index);
+        registerCustomCache(name, builder.evictionListener((key, value, cause) -> index.untag(key)).build());
+    }
+
+    @Override
+    protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        TaggedCaffeineCache.Index index = indexes.get(name);
+        return index == null ? super.adaptCaffeineCache(name, cache)
+                : new TaggedCaffeineCache(name, cache, isAllowNullValues(), tagger, index);
+    }
+}
@@ -0,0 +1,114 @@
+package kz.test.lmssystem.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caffeine-кэш с индексом меток: очистка по метке трогает только ее записи, а не обходит весь кэш.
+// Метки записываются после put, поэтому вытеснение старого значения не снимет метки нового.
+// Лишняя метка (значение по ключу заменено) дает только лишнюю очистку
+public class TaggedCaffeineCache extends CaffeineCache {
+
+    private final CacheTagger tagger;
+    private final Index index;
+
+    TaggedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                        boolean allowNullValues, CacheTagger tagger, Index index) {
+        super(name, cache, allowNullValues);
+        this.tagger = tagger;
+        this.index = index;
+    }
+
+    public void evictTagged(Collection<?> tags) {
+        for (Object tag : tags) {
+            index.keys(tag).forEach(this::evict);
+        }
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        T value = super.get(key, valueLoader);
+        index.tag(key, tagger.tags(key, value));
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        index.tag(key, tagger.tags(key, value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = super.putIfAbsent(key, value);
+        if (existing == null) {
+            index.tag(key, tagger.tags(key, value));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        index.untag(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = super.evictIfPresent(key);
+        index.untag(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        index.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = super.invalidate();
+        index.clear();
+        return invalidated;
+    }
+
+    // Метки по ключу и ключи по метке. Вытеснение по размеру и TTL снимает метки через evictionListener
+    static final class Index {
+
+        private final Map<Object, Set<Object>> tagsByKey = new ConcurrentHashMap<>();
+        private final Map<Object, Set<Object>> keysByTag = new ConcurrentHashMap<>();
+
+        void tag(Object key, Set<Object> tags) {
+            tagsByKey.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).addAll(tags);
+            for (Object tag : tags) {
+                keysByTag.computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+
+        void untag(Object key) {
+            Set<Object> tags = tagsByKey.remove(key);
+            if (tags == null) {
+                return;
+            }
+            for (Object tag : tags) {
+                keysByTag.computeIfPresent(tag, (t, keys) -> keys.remove(key) && keys.isEmpty() ? null : keys);
+            }
+        }
+
+        List<Object> keys(Object tag) {
+            Set<Object> keys = keysByTag.get(tag);
+            return keys == null ? List.of() : List.copyOf(keys);
+        }
+
+        void clear() {
+            tagsByKey.clear();
+            keysByTag.clear();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package kz.test.lmssystem.controller;
+
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import kz.test.lmssystem.dto.CacheRegionStatisticsDto;
+import kz.test.lmssystem.service.CacheStatisticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/api/cache/")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Cache", description = "Second-level cache diagnostics")
+public class CacheStatisticsRestController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    @Operation(summary = "Get cache statistics",
+            description = "Hit, miss and put counters for every Hibernate second-level and query cache region")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved cache statistics"),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(value = "/statistics")
+    public ResponseEntity<List<CacheRegionStatisticsDto>> getCacheStatistics() {
+        log.info("REST request to get cache statistics");
+        return ResponseEntity.ok(cacheStatisticsService.getRegionStatistics());
+    }
+}
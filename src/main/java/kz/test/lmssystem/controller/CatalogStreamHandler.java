@@ -0,0 +1,63 @@
+package kz.test.lmssystem.controller;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.exception.InvalidCursorException;
+import kz.test.lmssystem.service.CatalogStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Обработчики реактивных маршрутов (CatalogStreamRoutes). Ответ - поток: application/x-ndjson (объект на строку)
+// по Accept, иначе JSON-массив, который тоже пишется по мере чтения строк из базы
+@Component
+@RequiredArgsConstructor
+public class CatalogStreamHandler {
+
+    private final CatalogStreamService catalogStreamService;
+
+    public Mono<ServerResponse> courses(ServerRequest request) {
+        return stream(request, catalogStreamService.streamCourses(
+                longParam(request, "after"), longParam(request, "limit")), CourseDto.class);
+    }
+
+    public Mono<ServerResponse> chaptersByCourse(ServerRequest request) {
+        return stream(request, catalogStreamService.streamChaptersByCourseId(pathId(request, "courseId"),
+                request.queryParam("after").orElse(null), longParam(request, "limit")), ChapterDto.class);
+    }
+
+    public Mono<ServerResponse> lessonsByChapter(ServerRequest request) {
+        return stream(request, catalogStreamService.streamLessonsByChapterId(pathId(request, "chapterId"),
+                request.queryParam("after").orElse(null), longParam(request, "limit")), LessonDto.class);
+    }
+
+    private static <T> Mono<ServerResponse> stream(ServerRequest request, Flux<T> body, Class<T> type) {
+        MediaType mediaType = request.headers().accept().contains(MediaType.APPLICATION_NDJSON)
+                ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON;
+        // Курсор разбирается до первой строки ответа, поэтому статус еще можно заменить на 400
+        return ServerResponse.ok().contentType(mediaType).body(body.onErrorMap(InvalidCursorException.class,
+                e -> new ServerWebInputException(e.getMessage(), null, e)), type);
+    }
+
+    private static long pathId(ServerRequest request, String name) {
+        return parse(name, request.pathVariable(name));
+    }
+
+    private static Long longParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> parse(name, value)).orElse(null);
+    }
+
+    private static long parse(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Parameter '" + name + "' must be a number: " + value);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package kz.test.lmssystem.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+// Реактивные маршруты чтения с теми же путями, что у REST-контроллеров; обслуживаются отдельным
+// сервером Netty (config.ReactiveServerConfig) на lms.reactive.port. Параметры: ?after=<курсор>&limit=<n>;
+// курсор курсов - id, курсор детей - поле cursor последнего полученного элемента
+@Configuration
+public class CatalogStreamRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> catalogStreamRouter(CatalogStreamHandler handler) {
+        return route(GET("/api/courses/"), handler::courses)
+                .andRoute(GET("/api/chapters/by-course/{courseId}"), handler::chaptersByCourse)
+                .andRoute(GET("/api/lessons/by-chapter/{chapterId}"), handler::lessonsByChapter);
+    }
+}
@@ -7,16 +7,24 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.ChapterPatchDto;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+import kz.test.lmssystem.dto.SliceDto;
 import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.mapper.ChapterMapper;
 import kz.test.lmssystem.service.ChapterService;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,22 +38,58 @@ public class ChapterRestContoller {
     private final ChapterService chapterService;
     private final ChapterMapper chapterMapper;
 
-    @Operation(summary = "Get all chapters", description = "Retrieve a list of all available chapters")
+    @Operation(summary = "Get all chapters", description = "Retrieve a page of chapters ordered by id, continuing after the given cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved list of chapters"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping
-    public ResponseEntity<List<ChapterDto>> getAllChapters() {
-        log.info("REST request to get all chapters");
-        List<ChapterDto> chapters = chapterMapper.toDtoChapterList(chapterService.getAllChapters());
-        return ResponseEntity.ok(chapters);
+    public ResponseEntity<SliceDto<ChapterDto>> getAllChapters(
+            @Parameter(description = "Cursor: id of the last chapter from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of chapters to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Fetch plan: FLAT returns parent ids only, FULL embeds the parent course")
+            @RequestParam(defaultValue = "FULL") FetchPlan fetch,
+            WebRequest request) {
+        log.info("REST request to get chapters after id: {}, limit: {}, fetch plan: {}", after, limit, fetch);
+        if (ConditionalGet.notModified(request, chapterService.getChaptersVersion())) {
+            return null;
+        }
+        Slice<Chapter> chapters = chapterService.getChapters(after, limit, fetch);
+        return ResponseEntity.ok(SliceDto.of(
+                chapterMapper.toDtoChapterList(chapters.getContent()), chapters.hasNext(), ChapterDto::getId));
+    }
+
+    @Operation(summary = "Get chapter summaries",
+            description = "Retrieve a page of chapters without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved chapter summaries"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<SliceDto<ChapterSummaryDto>> getChapterSummaries(
+            @Parameter(description = "Cursor: id of the last chapter from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of chapters to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get chapter summaries after id: {}, limit: {}", after, limit);
+        if (ConditionalGet.notModified(request, chapterService.getChaptersVersion())) {
+            return null;
+        }
+        Slice<ChapterSummaryDto> chapters = chapterService.getChapterSummaries(after, limit);
+        return ResponseEntity.ok(SliceDto.of(chapters.getContent(), chapters.hasNext(), ChapterSummaryDto::id));
     }
 
     @Operation(summary = "Get chapter by ID", description = "Retrieve a specific chapter by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved chapter"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Chapter not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -54,15 +98,21 @@ public class ChapterRestContoller {
     @GetMapping(value = "/{id}")
     public ResponseEntity<ChapterDto> getChapterById(
             @Parameter(description = "ID of the chapter to retrieve", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
         log.info("REST request to get chapter by id: {}", id);
-        ChapterDto chapter = chapterMapper.toDtoChapter(chapterService.getChapterById(id));
+        ChapterDto chapter = chapterService.withOrder(
+                chapterMapper.toDtoChapter(chapterService.getChapterById(id)));
+        if (ConditionalGet.notModified(request, chapter)) {
+            return null;
+        }
         return ResponseEntity.ok(chapter);
     }
 
     @Operation(summary = "Get chapter by name", description = "Retrieve a specific chapter by its name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved chapter"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Chapter not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -71,9 +121,14 @@ public class ChapterRestContoller {
     @GetMapping(value = "/by-name/{name}")
     public ResponseEntity<ChapterDto> getChapterByName(
             @Parameter(description = "Name of the chapter to retrieve", required = true)
-            @PathVariable String name) {
+            @PathVariable String name,
+            WebRequest request) {
         log.info("REST request to get chapter by name: {}", name);
-        ChapterDto chapter = chapterMapper.toDtoChapter(chapterService.getChapterByName(name));
+        ChapterDto chapter = chapterService.withOrder(
+                chapterMapper.toDtoChapter(chapterService.getChapterByName(name)));
+        if (ConditionalGet.notModified(request, chapter)) {
+            return null;
+        }
         return ResponseEntity.ok(chapter);
     }
 
@@ -83,6 +138,8 @@ public class ChapterRestContoller {
             @ApiResponse(responseCode = "200", description = "Chapter updated successfully"),
             @ApiResponse(responseCode = "404", description = "Chapter not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The version in the body is out of date",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -95,6 +152,32 @@ public class ChapterRestContoller {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Patch chapter",
+            description = "Change only the given fields of a chapter. The version from the last read is required: "
+                    + "if the chapter has changed since, nothing is written and 409 is returned")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Chapter patched, the body holds the new version",
+                    content = @Content(schema = @Schema(implementation = ChapterDto.class))),
+            @ApiResponse(responseCode = "400", description = "Version is missing",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Chapter not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The chapter was modified after the given version",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PatchMapping(value = "/{id}")
+    public ResponseEntity<ChapterDto> patchChapter(
+            @Parameter(description = "ID of the chapter to patch", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change and the version they were read at", required = true)
+            @Valid @RequestBody ChapterPatchDto patch) {
+        log.info("REST request to patch chapter with id: {}, version: {}", id, patch.version());
+        return ResponseEntity.ok(chapterService.withOrder(
+                chapterMapper.toDtoChapter(chapterService.patchChapter(id, patch))));
+    }
+
     @Operation(summary = "Create new chapter", description = "Create a new chapter in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Chapter created successfully"),
@@ -113,7 +196,71 @@ public class ChapterRestContoller {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
-    @Operation(summary = "Delete chapter", description = "Delete a chapter by its ID")
+    @Operation(summary = "Insert chapter before another chapter",
+            description = "Create a new chapter in the course of the given chapter, right before it. Only the new chapter is written: "
+                    + "sibling orders shift without renumbering stored rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Chapter created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Chapter to insert before not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(params = "before")
+    public ResponseEntity<Void> insertChapterBefore(
+            @Parameter(description = "ID of the chapter to insert the new one before", required = true)
+            @RequestParam Long before,
+            @Parameter(description = "Chapter data to create", required = true)
+            @RequestBody ChapterDto chapterDto) {
+        log.info("REST request to create new chapter before chapter with id: {}", before);
+        chapterService.insertChapterBefore(before, chapterMapper.toEntityChapter(chapterDto));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @Operation(summary = "Insert chapter after another chapter",
+            description = "Create a new chapter in the course of the given chapter, right after it. Only the new chapter is written: "
+                    + "sibling orders shift without renumbering stored rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Chapter created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Chapter to insert after not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(params = "after")
+    public ResponseEntity<Void> insertChapterAfter(
+            @Parameter(description = "ID of the chapter to insert the new one after", required = true)
+            @RequestParam Long after,
+            @Parameter(description = "Chapter data to create", required = true)
+            @RequestBody ChapterDto chapterDto) {
+        log.info("REST request to create new chapter after chapter with id: {}", after);
+        chapterService.insertChapterAfter(after, chapterMapper.toEntityChapter(chapterDto));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @Operation(summary = "Create chapters in batch", description = "Create many chapters in one transaction using JDBC batching")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Chapters created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(value = "/batch")
+    public ResponseEntity<Void> addChapters(
+            @Parameter(description = "Chapter data to create", required = true)
+            @RequestBody List<ChapterDto> chapterDtos) {
+        log.info("REST request to create {} chapters in batch", chapterDtos.size());
+        List<Chapter> chapters = chapterMapper.toEntityChapterList(chapterDtos);
+        chapterService.saveChapters(chapters);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @Operation(summary = "Delete chapter", description = "Delete a chapter by its ID with all its lessons")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Chapter deleted successfully"),
             @ApiResponse(responseCode = "404", description = "Chapter not found",
@@ -130,21 +277,104 @@ public class ChapterRestContoller {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Get chapters by course ID", description = "Retrieve all chapters for a specific course")
+    @Operation(summary = "Delete chapters by ids",
+            description = "Delete several chapters with all their lessons in one transaction. " +
+                    "If any id is not found, nothing is deleted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Chapters deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Some of the chapters not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Void> deleteChapters(
+            @Parameter(description = "IDs of the chapters to delete", required = true)
+            @RequestParam List<Long> ids) {
+        log.info("REST request to delete {} chapters", ids.size());
+        chapterService.deleteChapters(ids);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Reorder lessons of a chapter",
+            description = "Set the order of all lessons of a chapter at once: the lesson listed first gets order 1")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lessons reordered successfully"),
+            @ApiResponse(responseCode = "400", description = "The list repeats a lesson or does not match the lessons of the chapter",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Chapter not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PutMapping(value = "/{id}/lessons/order")
+    public ResponseEntity<Void> reorderLessons(
+            @Parameter(description = "ID of the chapter", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Ids of all lessons of the chapter in the new order", required = true)
+            @RequestBody List<Long> lessonIds) {
+        log.info("REST request to reorder {} lessons of chapter with id: {}", lessonIds.size(), id);
+        chapterService.reorderLessons(id, lessonIds);
+        return ResponseEntity.ok().build();
+    }
+
+    @Operation(summary = "Get chapters by course ID", description = "Retrieve a page of chapters for a specific course in chapter order, continuing after the given cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved chapters"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Course not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(value = "/by-course/{courseId}")
-    public ResponseEntity<List<ChapterDto>> getChaptersByCourseId(
+    public ResponseEntity<SliceDto<ChapterDto>> getChaptersByCourseId(
+            @Parameter(description = "ID of the course to retrieve chapters for", required = true)
+            @PathVariable Long courseId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of chapters to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Fetch plan: FLAT returns parent ids only, FULL embeds the parent course")
+            @RequestParam(defaultValue = "FULL") FetchPlan fetch,
+            WebRequest request) {
+        log.info("REST request to get chapters by course id: {} after: {}, limit: {}, fetch plan: {}",
+                courseId, after, limit, fetch);
+        if (ConditionalGet.notModified(request, chapterService.getChaptersVersionByCourseId(courseId))) {
+            return null;
+        }
+        KeysetSlice<Chapter> chapters = chapterService.getChapterByCourseId(courseId, after, limit, fetch);
+        return ResponseEntity.ok(SliceDto.of(
+                chapterMapper.toDtoChapterList(chapters.getContent()), chapters.hasNext(), chapters.getNextCursor()));
+    }
+
+    @Operation(summary = "Get chapter summaries by course ID",
+            description = "Retrieve a page of chapters for a specific course in chapter order without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved chapter summaries"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(value = "/by-course/{courseId}", params = "view=summary")
+    public ResponseEntity<SliceDto<ChapterSummaryDto>> getChapterSummariesByCourseId(
             @Parameter(description = "ID of the course to retrieve chapters for", required = true)
-            @PathVariable Long courseId) {
-        log.info("REST request to get chapters by course id: {}", courseId);
-        List<ChapterDto> chapters = chapterMapper.toDtoChapterList(chapterService.getChapterByCourseId(courseId));
-        return ResponseEntity.ok(chapters);
+            @PathVariable Long courseId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of chapters to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get chapter summaries by course id: {} after: {}, limit: {}", courseId, after, limit);
+        if (ConditionalGet.notModified(request, chapterService.getChaptersVersionByCourseId(courseId))) {
+            return null;
+        }
+        KeysetSlice<ChapterSummaryDto> chapters = chapterService.getChapterSummariesByCourseId(courseId, after, limit);
+        return ResponseEntity.ok(SliceDto.of(chapters.getContent(), chapters.hasNext(), chapters.getNextCursor()));
     }
 
 }
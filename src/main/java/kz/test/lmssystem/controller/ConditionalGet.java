@@ -0,0 +1,77 @@
+package kz.test.lmssystem.controller;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.dto.VersionStamp;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+// Условный GET: ETag и Last-Modified строятся из версии данных, а не из тела ответа.
+// При совпадении ответ 304 уходит без загрузки списка и без сериализации
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    // true - ответ 304 уже выставлен, обработчик возвращает null
+    static boolean notModified(WebRequest request, VersionStamp version) {
+        LocalDateTime lastModified = lastModifiedOf(version);
+        long lastModifiedMillis = lastModified == null ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return request.checkNotModified(etag(version), lastModifiedMillis);
+    }
+
+    // Отдельная глава: номер order меняется вставкой и удалением соседей без записи в саму главу,
+    // поэтому он входит в ETag, а Last-Modified не проверяется
+    static boolean notModified(WebRequest request, ChapterDto chapter) {
+        return request.checkNotModified(etag(versionOf(chapter), String.valueOf(chapter.getOrder())));
+    }
+
+    // Отдельный урок: в ETag входит его номер и номер встроенной главы
+    static boolean notModified(WebRequest request, LessonDto lesson) {
+        String positions = lesson.getChapter() == null ? String.valueOf(lesson.getOrder())
+                : lesson.getOrder() + "." + lesson.getChapter().getOrder();
+        return request.checkNotModified(etag(versionOf(lesson), positions));
+    }
+
+    // ETag слабый: под ним уходят и JSON, и gzip того же ответа, а байты у них разные.
+    // If-None-Match у GET сравнивается слабо, так что 304 работает для обоих
+    static String etag(VersionStamp version) {
+        return "W/\"" + tag(version) + "\"";
+    }
+
+    private static String etag(VersionStamp version, String positions) {
+        return "W/\"" + tag(version) + "-" + positions + "\"";
+    }
+
+    private static String tag(VersionStamp version) {
+        LocalDateTime lastModified = lastModifiedOf(version);
+        long micros = lastModified == null ? 0
+                : ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), lastModified);
+        return version.count() + "-" + Long.toHexString(micros);
+    }
+
+    // Время в базе хранится с точностью до микросекунд
+    private static LocalDateTime lastModifiedOf(VersionStamp version) {
+        return version.lastModified() == null ? null : version.lastModified().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    static VersionStamp versionOf(CourseDto course) {
+        return VersionStamp.of(course.getUpdatedTime(), course.getCreatedTime());
+    }
+
+    // Курс встроен в главу только при FetchPlan.FULL
+    static VersionStamp versionOf(ChapterDto chapter) {
+        VersionStamp version = VersionStamp.of(chapter.getUpdatedTime(), chapter.getCreatedTime());
+        return chapter.getCourse() == null ? version : version.and(versionOf(chapter.getCourse()));
+    }
+
+    static VersionStamp versionOf(LessonDto lesson) {
+        VersionStamp version = VersionStamp.of(lesson.getUpdatedTime(), lesson.getCreatedTime());
+        return lesson.getChapter() == null ? version : version.and(versionOf(lesson.getChapter()));
+    }
+}
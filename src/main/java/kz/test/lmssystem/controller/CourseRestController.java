@@ -8,19 +8,28 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.CoursePatchDto;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.SliceDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Course;
 import kz.test.lmssystem.mapper.CourseMapper;
 import kz.test.lmssystem.service.CourseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
+// Ответы GET отдаются готовыми байтами из ResponseCache
 @RestController
 @RequestMapping(value = "/api/courses/")
 @RequiredArgsConstructor
@@ -30,54 +39,134 @@ public class CourseRestController {
 
     private final CourseService courseService;
     private final CourseMapper courseMapper;
+    private final ResponseCache responseCache;
 
-    @Operation(summary = "Get all courses", description = "Retrieve a list of all available courses")
+    @Operation(summary = "Get all courses", description = "Retrieve a page of courses ordered by id, continuing after the given cursor")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of courses"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved list of courses",
+                    content = @Content(schema = @Schema(implementation = SliceDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping
-    public ResponseEntity<List<CourseDto>> getAllCourses() {
-        log.info("REST request to get all courses");
-        List<CourseDto> courses = courseMapper.toDtoCourseList(courseService.getAllCourses());
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<byte[]> getAllCourses(
+            @Parameter(description = "Cursor: id of the last course from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of courses to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get courses after id: {}, limit: {}", after, limit);
+        VersionStamp version = courseService.getCoursesVersion();
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+        return responseCache.ok(request, version, () -> {
+            Slice<Course> courses = courseService.getCourses(after, limit);
+            return SliceDto.of(courseMapper.toDtoCourseList(courses.getContent()), courses.hasNext(), CourseDto::getId);
+        });
+    }
+
+    @Operation(summary = "Get course summaries",
+            description = "Retrieve a page of courses without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved course summaries",
+                    content = @Content(schema = @Schema(implementation = SliceDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<byte[]> getCourseSummaries(
+            @Parameter(description = "Cursor: id of the last course from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of courses to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get course summaries after id: {}, limit: {}", after, limit);
+        VersionStamp version = courseService.getCoursesVersion();
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+        return responseCache.ok(request, version, () -> {
+            Slice<CourseSummaryDto> courses = courseService.getCourseSummaries(after, limit);
+            return SliceDto.of(courses.getContent(), courses.hasNext(), CourseSummaryDto::id);
+        });
     }
 
 
     @Operation(summary = "Get course by ID", description = "Retrieve a specific course by its ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved course"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved course",
+                    content = @Content(schema = @Schema(implementation = CourseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Course not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(value = "/{id}")
-    public ResponseEntity<CourseDto> getCourseById(
+    public ResponseEntity<byte[]> getCourseById(
             @Parameter(description = "ID of the course to retrieve", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
         log.info("REST request to get course by id: {}", id);
-        CourseDto course = courseMapper.toDtoCourse(courseService.getCourseById(id));
-        return ResponseEntity.ok(course);
+        Course course = courseService.getCourseById(id);
+        VersionStamp version = VersionStamp.of(course.getUpdatedTime(), course.getCreatedTime());
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+        return responseCache.ok(request, version, () -> courseMapper.toDtoCourse(course));
+    }
+
+
+    @Operation(summary = "Get course tree",
+            description = "Retrieve a course with its chapters and their lessons, both in order, in one call")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved course tree",
+                    content = @Content(schema = @Schema(implementation = CourseTreeDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(value = "/{id}/tree")
+    public ResponseEntity<byte[]> getCourseTree(
+            @Parameter(description = "ID of the course to retrieve", required = true)
+            @PathVariable Long id,
+            WebRequest request) {
+        log.info("REST request to get course tree by id: {}", id);
+        VersionStamp version = courseService.getCourseTreeVersion(id);
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+        return responseCache.ok(request, version, () -> courseService.getCourseTree(id));
     }
 
 
     @Operation(summary = "Get course by name", description = "Retrieve a specific course by its name")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved course"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved course",
+                    content = @Content(schema = @Schema(implementation = CourseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "404", description = "Course not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(value = "/by-name/{name}")
-    public ResponseEntity<CourseDto> getCourseByName(
+    public ResponseEntity<byte[]> getCourseByName(
             @Parameter(description = "Name of the course to retrieve", required = true)
-            @PathVariable String name) {
+            @PathVariable String name,
+            WebRequest request) {
         log.info("REST request to get course by name: {}", name);
-        CourseDto course = courseMapper.toDtoCourse(courseService.getCourseByName(name));
-        return ResponseEntity.ok(course);
+        Course course = courseService.getCourseByName(name);
+        VersionStamp version = VersionStamp.of(course.getUpdatedTime(), course.getCreatedTime());
+        if (ConditionalGet.notModified(request, version)) {
+            return null;
+        }
+        return responseCache.ok(request, version, () -> courseMapper.toDtoCourse(course));
     }
 
 
@@ -86,6 +175,8 @@ public class CourseRestController {
             @ApiResponse(responseCode = "200", description = "Course updated successfully"),
             @ApiResponse(responseCode = "404", description = "Course not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The version in the body is out of date",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -99,6 +190,32 @@ public class CourseRestController {
     }
 
 
+    @Operation(summary = "Patch course",
+            description = "Change only the given fields of a course. The version from the last read is required: "
+                    + "if the course has changed since, nothing is written and 409 is returned")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Course patched, the body holds the new version",
+                    content = @Content(schema = @Schema(implementation = CourseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Version is missing",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The course was modified after the given version",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PatchMapping(value = "/{id}")
+    public ResponseEntity<CourseDto> patchCourse(
+            @Parameter(description = "ID of the course to patch", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change and the version they were read at", required = true)
+            @Valid @RequestBody CoursePatchDto patch) {
+        log.info("REST request to patch course with id: {}, version: {}", id, patch.version());
+        return ResponseEntity.ok(courseMapper.toDtoCourse(courseService.patchCourse(id, patch)));
+    }
+
+
     @Operation(summary = "Create new course", description = "Create a new course in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Course created successfully"),
@@ -118,7 +235,26 @@ public class CourseRestController {
     }
 
 
-    @Operation(summary = "Delete course", description = "Delete a course by its ID")
+    @Operation(summary = "Create courses in batch", description = "Create many courses in one transaction using JDBC batching")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Courses created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(value = "/batch")
+    public ResponseEntity<Void> addCourses(
+            @Parameter(description = "Course data to create", required = true)
+            @RequestBody List<CourseDto> courseDtos) {
+        log.info("REST request to create {} courses in batch", courseDtos.size());
+        List<Course> courses = courseMapper.toEntityCourseList(courseDtos);
+        courseService.saveCourses(courses);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+
+    @Operation(summary = "Delete course", description = "Delete a course by its ID with all its chapters and lessons")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Course deleted successfully"),
             @ApiResponse(responseCode = "404", description = "Course not found",
@@ -135,4 +271,46 @@ public class CourseRestController {
         return ResponseEntity.noContent().build();
     }
 
+
+    @Operation(summary = "Delete courses by ids",
+            description = "Delete several courses with all their chapters and lessons in one transaction. " +
+                    "If any id is not found, nothing is deleted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Courses deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Some of the courses not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Void> deleteCourses(
+            @Parameter(description = "IDs of the courses to delete", required = true)
+            @RequestParam List<Long> ids) {
+        log.info("REST request to delete {} courses", ids.size());
+        courseService.deleteCourses(ids);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Reorder chapters of a course",
+            description = "Set the order of all chapters of a course at once: the chapter listed first gets order 1")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Chapters reordered successfully"),
+            @ApiResponse(responseCode = "400", description = "The list repeats a chapter or does not match the chapters of the course",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Course not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PutMapping(value = "/{id}/chapters/order")
+    public ResponseEntity<Void> reorderChapters(
+            @Parameter(description = "ID of the course", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Ids of all chapters of the course in the new order", required = true)
+            @RequestBody List<Long> chapterIds) {
+        log.info("REST request to reorder {} chapters of course with id: {}", chapterIds.size(), id);
+        courseService.reorderChapters(id, chapterIds);
+        return ResponseEntity.ok().build();
+    }
+
 }
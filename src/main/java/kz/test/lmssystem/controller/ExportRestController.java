@@ -0,0 +1,64 @@
+package kz.test.lmssystem.controller;
+
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import kz.test.lmssystem.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping(value = "/api/export/")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Bulk Export", description = "APIs for streaming NDJSON exports")
+public class ExportRestController {
+
+    private final ExportService exportService;
+
+    @Operation(summary = "Export courses", description = "Stream all courses ordered by id as NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Courses are being streamed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/courses", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportCourses() {
+        log.info("REST request to export courses");
+        return ndjson(exportService::exportCourses);
+    }
+
+    @Operation(summary = "Export chapters", description = "Stream all chapters ordered by id as NDJSON (with courseId)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Chapters are being streamed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/chapters", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportChapters() {
+        log.info("REST request to export chapters");
+        return ndjson(exportService::exportChapters);
+    }
+
+    @Operation(summary = "Export lessons", description = "Stream all lessons ordered by id as NDJSON (with chapterId)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lessons are being streamed"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @GetMapping(value = "/lessons", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLessons() {
+        log.info("REST request to export lessons");
+        return ndjson(exportService::exportLessons);
+    }
+
+    // Тело пишется в отдельном потоке после возврата из контроллера, прямо в сокет
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -0,0 +1,78 @@
+package kz.test.lmssystem.controller;
+
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import kz.test.lmssystem.dto.ImportReportDto;
+import kz.test.lmssystem.service.ImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+@RestController
+@RequestMapping(value = "/api/import/")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Bulk Import", description = "APIs for streaming NDJSON imports")
+public class ImportRestController {
+
+    private final ImportService importService;
+
+    @Operation(summary = "Import courses",
+            description = "Stream courses as NDJSON (one object per line, optionally gzip-encoded) into the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for rejected lines"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/courses", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importCourses(HttpServletRequest request) throws IOException {
+        log.info("REST request to import courses");
+        try (InputStream body = body(request)) {
+            return ResponseEntity.ok(importService.importCourses(body));
+        }
+    }
+
+    @Operation(summary = "Import chapters",
+            description = "Stream chapters as NDJSON; the course is resolved by courseId or courseName")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for rejected lines"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/chapters", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importChapters(HttpServletRequest request) throws IOException {
+        log.info("REST request to import chapters");
+        try (InputStream body = body(request)) {
+            return ResponseEntity.ok(importService.importChapters(body));
+        }
+    }
+
+    @Operation(summary = "Import lessons",
+            description = "Stream lessons as NDJSON; the chapter is resolved by chapterId or chapterName (within courseId/courseName)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import finished, see the report for rejected lines"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(value = "/lessons", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importLessons(HttpServletRequest request) throws IOException {
+        log.info("REST request to import lessons");
+        try (InputStream body = body(request)) {
+            return ResponseEntity.ok(importService.importLessons(body));
+        }
+    }
+
+    // Тело читается потоком, без буферизации всего файла в памяти
+    private static InputStream body(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        return "gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING)) ? new GZIPInputStream(in) : in;
+    }
+}
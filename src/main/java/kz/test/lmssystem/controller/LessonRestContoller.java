@@ -7,16 +7,24 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.dto.LessonPatchDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.SliceDto;
 import kz.test.lmssystem.entity.Lesson;
 import kz.test.lmssystem.mapper.LessonMapper;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import kz.test.lmssystem.service.LessonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -30,22 +38,58 @@ public class LessonRestContoller {
     private final LessonService lessonService;
     private final LessonMapper lessonMapper;
 
-    @Operation(summary = "Get all lessons", description = "Retrieve a list of all available lessons")
+    @Operation(summary = "Get all lessons", description = "Retrieve a page of lessons ordered by id, continuing after the given cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved list of lessons"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping
-    public ResponseEntity<List<LessonDto>> getAllLessons() {
-        log.info("REST request to get all lessons");
-        List<LessonDto> lessons = lessonMapper.toDtoLessonList(lessonService.getAllLessons());
-        return ResponseEntity.ok(lessons);
+    public ResponseEntity<SliceDto<LessonDto>> getAllLessons(
+            @Parameter(description = "Cursor: id of the last lesson from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Fetch plan: FLAT returns parent ids only, FULL embeds the parent chapter and course")
+            @RequestParam(defaultValue = "FULL") FetchPlan fetch,
+            WebRequest request) {
+        log.info("REST request to get lessons after id: {}, limit: {}, fetch plan: {}", after, limit, fetch);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersion())) {
+            return null;
+        }
+        Slice<Lesson> lessons = lessonService.getLessons(after, limit, fetch);
+        return ResponseEntity.ok(SliceDto.of(
+                lessonMapper.toDtoLessonList(lessons.getContent()), lessons.hasNext(), LessonDto::getId));
+    }
+
+    @Operation(summary = "Get lesson summaries",
+            description = "Retrieve a page of lessons without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved lesson summaries"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(params = "view=summary")
+    public ResponseEntity<SliceDto<LessonSummaryDto>> getLessonSummaries(
+            @Parameter(description = "Cursor: id of the last lesson from the previous page")
+            @RequestParam(required = false) Long after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get lesson summaries after id: {}, limit: {}", after, limit);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersion())) {
+            return null;
+        }
+        Slice<LessonSummaryDto> lessons = lessonService.getLessonSummaries(after, limit);
+        return ResponseEntity.ok(SliceDto.of(lessons.getContent(), lessons.hasNext(), LessonSummaryDto::id));
     }
 
     @Operation(summary = "Get lesson by ID", description = "Retrieve a specific lesson by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved lesson"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Lesson not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -54,15 +98,21 @@ public class LessonRestContoller {
     @GetMapping(value = "/{id}")
     public ResponseEntity<LessonDto> getLessonById(
             @Parameter(description = "ID of the lesson to retrieve", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest request) {
         log.info("REST request to get lesson by id: {}", id);
-        LessonDto lesson = lessonMapper.toDtoLesson(lessonService.getLessonById(id));
+        LessonDto lesson = lessonService.withOrder(
+                lessonMapper.toDtoLesson(lessonService.getLessonById(id)));
+        if (ConditionalGet.notModified(request, lesson)) {
+            return null;
+        }
         return ResponseEntity.ok(lesson);
     }
 
     @Operation(summary = "Get lesson by name", description = "Retrieve a specific lesson by its name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved lesson"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Lesson not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
@@ -71,27 +121,74 @@ public class LessonRestContoller {
     @GetMapping(value = "/by-name/{name}")
     public ResponseEntity<LessonDto> getLessonByName(
             @Parameter(description = "Name of the lesson to retrieve", required = true)
-            @PathVariable String name) {
+            @PathVariable String name,
+            WebRequest request) {
         log.info("REST request to get lesson by name: {}", name);
-        LessonDto lesson = lessonMapper.toDtoLesson(lessonService.getLessonsByName(name));
+        LessonDto lesson = lessonService.withOrder(
+                lessonMapper.toDtoLesson(lessonService.getLessonsByName(name)));
+        if (ConditionalGet.notModified(request, lesson)) {
+            return null;
+        }
         return ResponseEntity.ok(lesson);
     }
 
-    @Operation(summary = "Get lessons by chapter ID", description = "Retrieve all lessons for a specific chapter")
+    @Operation(summary = "Get lessons by chapter ID", description = "Retrieve a page of lessons for a specific chapter in lesson order, continuing after the given cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved lessons"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Chapter not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(value = "/by-chapter/{chapterId}")
-    public ResponseEntity<List<LessonDto>> getLessonsByChapterId(
+    public ResponseEntity<SliceDto<LessonDto>> getLessonsByChapterId(
+            @Parameter(description = "ID of the chapter to retrieve lessons for", required = true)
+            @PathVariable Long chapterId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Fetch plan: FLAT returns parent ids only, FULL embeds the parent chapter and course")
+            @RequestParam(defaultValue = "FULL") FetchPlan fetch,
+            WebRequest request) {
+        log.info("REST request to get lessons by chapter id: {} after: {}, limit: {}, fetch plan: {}",
+                chapterId, after, limit, fetch);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersionByChapterId(chapterId))) {
+            return null;
+        }
+        KeysetSlice<Lesson> lessons = lessonService.getLessonsByChapterId(chapterId, after, limit, fetch);
+        return ResponseEntity.ok(SliceDto.of(
+                lessonMapper.toDtoLessonList(lessons.getContent()), lessons.hasNext(), lessons.getNextCursor()));
+    }
+
+    @Operation(summary = "Get lesson summaries by chapter ID",
+            description = "Retrieve a page of lessons for a specific chapter in lesson order without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved lesson summaries"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(value = "/by-chapter/{chapterId}", params = "view=summary")
+    public ResponseEntity<SliceDto<LessonSummaryDto>> getLessonSummariesByChapterId(
             @Parameter(description = "ID of the chapter to retrieve lessons for", required = true)
-            @PathVariable Long chapterId) {
-        log.info("REST request to get lessons by chapter id: {}", chapterId);
-        List<LessonDto> lessons = lessonMapper.toDtoLessonList(lessonService.getLessonsByChapterId(chapterId));
-        return ResponseEntity.ok(lessons);
+            @PathVariable Long chapterId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get lesson summaries by chapter id: {} after: {}, limit: {}", chapterId, after, limit);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersionByChapterId(chapterId))) {
+            return null;
+        }
+        KeysetSlice<LessonSummaryDto> lessons = lessonService.getLessonSummariesByChapterId(chapterId, after, limit);
+        return ResponseEntity.ok(SliceDto.of(lessons.getContent(), lessons.hasNext(), lessons.getNextCursor()));
     }
 
     @Operation(summary = "Update existing lesson", description = "Update an existing lesson with new data")
@@ -99,6 +196,8 @@ public class LessonRestContoller {
             @ApiResponse(responseCode = "200", description = "Lesson updated successfully"),
             @ApiResponse(responseCode = "404", description = "Lesson not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The version in the body is out of date",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
@@ -111,6 +210,32 @@ public class LessonRestContoller {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Patch lesson",
+            description = "Change only the given fields of a lesson. The version from the last read is required: "
+                    + "if the lesson has changed since, nothing is written and 409 is returned")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lesson patched, the body holds the new version",
+                    content = @Content(schema = @Schema(implementation = LessonDto.class))),
+            @ApiResponse(responseCode = "400", description = "Version is missing",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Lesson not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "409", description = "The lesson was modified after the given version",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PatchMapping(value = "/{id}")
+    public ResponseEntity<LessonDto> patchLesson(
+            @Parameter(description = "ID of the lesson to patch", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change and the version they were read at", required = true)
+            @Valid @RequestBody LessonPatchDto patch) {
+        log.info("REST request to patch lesson with id: {}, version: {}", id, patch.version());
+        return ResponseEntity.ok(lessonService.withOrder(
+                lessonMapper.toDtoLesson(lessonService.patchLesson(id, patch))));
+    }
+
     @Operation(summary = "Create new lesson", description = "Create a new lesson in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Lesson created successfully"),
@@ -129,6 +254,70 @@ public class LessonRestContoller {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    @Operation(summary = "Insert lesson before another lesson",
+            description = "Create a new lesson in the chapter of the given lesson, right before it. Only the new lesson is written: "
+                    + "sibling orders shift without renumbering stored rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Lesson created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Lesson to insert before not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(params = "before")
+    public ResponseEntity<Void> insertLessonBefore(
+            @Parameter(description = "ID of the lesson to insert the new one before", required = true)
+            @RequestParam Long before,
+            @Parameter(description = "Lesson data to create", required = true)
+            @RequestBody LessonDto lessonDto) {
+        log.info("REST request to create new lesson before lesson with id: {}", before);
+        lessonService.insertLessonBefore(before, lessonMapper.toEntityLesson(lessonDto));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @Operation(summary = "Insert lesson after another lesson",
+            description = "Create a new lesson in the chapter of the given lesson, right after it. Only the new lesson is written: "
+                    + "sibling orders shift without renumbering stored rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Lesson created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Lesson to insert after not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(params = "after")
+    public ResponseEntity<Void> insertLessonAfter(
+            @Parameter(description = "ID of the lesson to insert the new one after", required = true)
+            @RequestParam Long after,
+            @Parameter(description = "Lesson data to create", required = true)
+            @RequestBody LessonDto lessonDto) {
+        log.info("REST request to create new lesson after lesson with id: {}", after);
+        lessonService.insertLessonAfter(after, lessonMapper.toEntityLesson(lessonDto));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @Operation(summary = "Create lessons in batch", description = "Create many lessons in one transaction using JDBC batching")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Lessons created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(value = "/batch")
+    public ResponseEntity<Void> addLessons(
+            @Parameter(description = "Lesson data to create", required = true)
+            @RequestBody List<LessonDto> lessonDtos) {
+        log.info("REST request to create {} lessons in batch", lessonDtos.size());
+        List<Lesson> lessons = lessonMapper.toEntityLessonList(lessonDtos);
+        lessonService.saveLessons(lessons);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
     @Operation(summary = "Delete lesson", description = "Delete a lesson by its ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Lesson deleted successfully"),
@@ -146,21 +335,82 @@ public class LessonRestContoller {
         return ResponseEntity.noContent().build();
     }
 
-    @Operation(summary = "Get lessons by course ID", description = "Retrieve all lessons for a specific course")
+    @Operation(summary = "Delete lessons by ids",
+            description = "Delete several lessons in one transaction. " +
+                    "If any id is not found, nothing is deleted")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Lessons deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Some of the lessons not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Void> deleteLessons(
+            @Parameter(description = "IDs of the lessons to delete", required = true)
+            @RequestParam List<Long> ids) {
+        log.info("REST request to delete {} lessons", ids.size());
+        lessonService.deleteLessons(ids);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Get lessons by course ID", description = "Retrieve a page of lessons for a specific course in chapter and lesson order, continuing after the given cursor")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved lessons"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Course not found",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(value = "/by-course/{courseId}")
-    public ResponseEntity<List<LessonDto>> getLessonsByCourseId(
+    public ResponseEntity<SliceDto<LessonDto>> getLessonsByCourseId(
+            @Parameter(description = "ID of the course to retrieve lessons for", required = true)
+            @PathVariable Long courseId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            @Parameter(description = "Fetch plan: FLAT returns parent ids only, FULL embeds the parent chapter and course")
+            @RequestParam(defaultValue = "FULL") FetchPlan fetch,
+            WebRequest request) {
+        log.info("REST request to get lessons by course id: {} after: {}, limit: {}, fetch plan: {}",
+                courseId, after, limit, fetch);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersionByCourseId(courseId))) {
+            return null;
+        }
+        KeysetSlice<Lesson> lessons = lessonService.getLessonsByCourseId(courseId, after, limit, fetch);
+        return ResponseEntity.ok(SliceDto.of(
+                lessonMapper.toDtoLessonList(lessons.getContent()), lessons.hasNext(), lessons.getNextCursor()));
+    }
+
+    @Operation(summary = "Get lesson summaries by course ID",
+            description = "Retrieve a page of lessons for a specific course in chapter and lesson order without descriptions (?view=summary)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved lesson summaries"),
+            @ApiResponse(responseCode = "304", description = "Not modified since the given ETag or date"),
+            @ApiResponse(responseCode = "400", description = "Cursor is not a nextCursor of a previous page",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(value = "/by-course/{courseId}", params = "view=summary")
+    public ResponseEntity<SliceDto<LessonSummaryDto>> getLessonSummariesByCourseId(
             @Parameter(description = "ID of the course to retrieve lessons for", required = true)
-            @PathVariable Long courseId) {
-        log.info("REST request to get lessons by course id: {}", courseId);
-        List<LessonDto> lessons = lessonMapper.toDtoLessonList(lessonService.getLessonsByCourseId(courseId));
-        return ResponseEntity.ok(lessons);
+            @PathVariable Long courseId,
+            @Parameter(description = "Cursor: nextCursor of the previous page")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Maximum number of lessons to return (1-500)")
+            @RequestParam(defaultValue = "50") int limit,
+            WebRequest request) {
+        log.info("REST request to get lesson summaries by course id: {} after: {}, limit: {}", courseId, after, limit);
+        if (ConditionalGet.notModified(request, lessonService.getLessonsVersionByCourseId(courseId))) {
+            return null;
+        }
+        KeysetSlice<LessonSummaryDto> lessons = lessonService.getLessonSummariesByCourseId(courseId, after, limit);
+        return ResponseEntity.ok(SliceDto.of(lessons.getContent(), lessons.hasNext(), lessons.getNextCursor()));
     }
 
 }
@@ -0,0 +1,67 @@
+package kz.test.lmssystem.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kz.test.lmssystem.config.ReadYourWrites;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// Чтение своих записей по клиенту: время его последней записи приходит в cookie и привязывается к потоку запроса
+// (ReadYourWrites), коммит записи в запросе выставляет новое. Cookie живет max-lag: потом реплики уже догнали запись.
+// Запись после начала ответа (потоковый импорт) cookie не обновляет
+@Component
+class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final int cookieMaxAgeSeconds;
+
+    ReadYourWritesFilter(@Value("${lms.datasource.replica.max-lag:1s}") Duration maxLag) {
+        this.cookieMaxAgeSeconds = (int) Math.max(1, (maxLag.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadYourWrites context = ReadYourWrites.start(lastWriteMillis(request), millis -> {
+            if (!response.isCommitted()) {
+                Cookie cookie = new Cookie(ReadYourWrites.COOKIE, Long.toString(millis));
+                cookie.setPath("/api/");
+                cookie.setHttpOnly(true);
+                cookie.setMaxAge(cookieMaxAgeSeconds);
+                response.addCookie(cookie);
+            }
+        });
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            context.stop();
+        }
+    }
+
+    private static long lastWriteMillis(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (ReadYourWrites.COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
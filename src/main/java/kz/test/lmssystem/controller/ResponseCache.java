@@ -0,0 +1,120 @@
+package kz.test.lmssystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.dto.VersionStamp;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Готовые тела ответов: JSON и заранее сжатый gzip. Ключ - маршрут с параметрами и ETag версии данных,
+// поэтому после записи старая запись уже не совпадет. При попадании MapStruct и Jackson не вызываются
+@Component
+@RequiredArgsConstructor
+class ResponseCache {
+
+    // Меньшие тела сжимать невыгодно (как server.compression.min-response-size)
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private final CacheManager cacheManager;
+    private final ObjectMapper objectMapper;
+
+    ResponseEntity<byte[]> ok(WebRequest request, VersionStamp version, Supplier<?> body) {
+        String key = routeOf(request) + " " + ConditionalGet.etag(version);
+        // Без get(key, loader): загрузка под блокировкой Caffeine ждет соединение с базой, а очистка кэша
+        // после коммита записи ждет эту блокировку, удерживая соединение, - пул исчерпывается
+        CachedBody cached = cache().get(key, CachedBody.class);
+        if (cached == null) {
+            cached = CachedBody.of(serialize(body.get()));
+            cache().put(key, cached);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (cached.gzip() != null && acceptsGzip(request)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(cached.gzip());
+        }
+        return response.body(cached.json());
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Cache cache() {
+        return Objects.requireNonNull(cacheManager.getCache(CacheConfig.RESPONSES), CacheConfig.RESPONSES);
+    }
+
+    private static String routeOf(WebRequest request) {
+        HttpServletRequest servletRequest = ((NativeWebRequest) request).getNativeRequest(HttpServletRequest.class);
+        if (servletRequest == null) {
+            return request.getDescription(false);
+        }
+        String query = servletRequest.getQueryString();
+        return query == null ? servletRequest.getRequestURI() : servletRequest.getRequestURI() + "?" + query;
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // gzip хранится, только если он меньше исходного JSON
+    record CachedBody(byte[] json, byte[] gzip) implements CacheConfig.Weighted {
+
+        static CachedBody of(byte[] json) {
+            if (json.length < MIN_GZIP_SIZE) {
+                return new CachedBody(json, null);
+            }
+            byte[] gzip = gzip(json);
+            return new CachedBody(json, gzip.length < json.length ? gzip : null);
+        }
+
+        @Override
+        public int weight() {
+            return json.length + (gzip == null ? 0 : gzip.length);
+        }
+
+        private static byte[] gzip(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+                {
+                    def.setLevel(Deflater.BEST_COMPRESSION);
+                }
+            }) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package kz.test.lmssystem.controller;
+
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import kz.test.lmssystem.dto.SearchResultDto;
+import kz.test.lmssystem.dto.SliceDto;
+import kz.test.lmssystem.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/api/search")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Search", description = "Full-text search across courses, chapters and lessons")
+public class SearchRestController {
+
+    private final SearchService searchService;
+
+    @Operation(summary = "Search the catalog",
+            description = "Full-text search by name and description, ranked with name matches first; " +
+                    "the last word is matched as a prefix")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved search results"),
+            @ApiResponse(responseCode = "400", description = "Query parameter is missing",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping
+    public ResponseEntity<SliceDto<SearchResultDto>> search(
+            @Parameter(description = "Search text")
+            @RequestParam String q,
+            @Parameter(description = "Number of results to skip; nextCursor of the previous page")
+            @RequestParam(defaultValue = "0") int offset,
+            @Parameter(description = "Maximum number of results to return (1-100)")
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("REST request to search for: '{}', offset: {}, limit: {}", q, offset, limit);
+        Slice<SearchResultDto> results = searchService.search(q, offset, limit);
+        // Результаты упорядочены по рангу, а не по id, поэтому курсор здесь - смещение следующей страницы
+        String nextOffset = results.hasNext()
+                ? String.valueOf(Math.max(0, offset) + results.getNumberOfElements()) : null;
+        return ResponseEntity.ok(SliceDto.of(results.getContent(), results.hasNext(), nextOffset));
+    }
+}
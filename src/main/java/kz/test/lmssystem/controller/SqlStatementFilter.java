@@ -0,0 +1,84 @@
+package kz.test.lmssystem.controller;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.config.SqlStatementCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Учет SQL на каждый запрос к /api: число statement, время JDBC и загруженные сущности по маршруту (метрики lms.sql.*).
+// Превышение бюджета - предупреждение в лог, для выборки запросов со стеком statement, первым вышедшего за бюджет
+@Slf4j
+@Component
+class SqlStatementFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+    private final double stackSampleRate;
+    private final boolean failOverBudget;
+
+    SqlStatementFilter(ObjectProvider<MeterRegistry> meterRegistry,
+                       @Value("${lms.sql.statement-budget:10}") int budget,
+                       @Value("${lms.sql.stack-sample-rate:0.1}") double stackSampleRate,
+                       @Value("${lms.sql.fail-over-budget:false}") boolean failOverBudget) {
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.budget = budget;
+        this.stackSampleRate = stackSampleRate;
+        this.failOverBudget = failOverBudget;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean captureStack = ThreadLocalRandom.current().nextDouble() < stackSampleRate;
+        SqlStatementCounter counter = SqlStatementCounter.start(budget, captureStack);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            counter.stop();
+        }
+        String uri = Objects.toString(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), "UNKNOWN");
+        record(Tags.of("method", request.getMethod(), "uri", uri), counter);
+        if (counter.isOverBudget()) {
+            String message = String.format("%s issued %d SQL statements (budget %d), JDBC %d ms, %d entities loaded",
+                    request.getMethod() + " " + uri, counter.getStatements(), budget,
+                    TimeUnit.NANOSECONDS.toMillis(counter.getJdbcNanos()), counter.getEntitiesLoaded());
+            log.warn(message, counter.getOverBudgetStack());
+            // Для тестов контроллеров: превышение бюджета роняет тест
+            if (failOverBudget) {
+                throw new IllegalStateException(message);
+            }
+        }
+    }
+
+    private void record(Tags tags, SqlStatementCounter counter) {
+        DistributionSummary.builder(MetricsConfig.SQL_STATEMENTS).tags(tags).register(meterRegistry)
+                .record(counter.getStatements());
+        Timer.builder(MetricsConfig.SQL_JDBC_TIME).tags(tags).register(meterRegistry)
+                .record(counter.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(MetricsConfig.SQL_ENTITIES_LOADED).tags(tags).register(meterRegistry)
+                .record(counter.getEntitiesLoaded());
+    }
+}
@@ -0,0 +1,45 @@
+package kz.test.lmssystem.controller;
+
+import kz.test.lmssystem.config.SqlStatementCounter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+// Необязательные заголовки с учетом SQL (lms.sql.response-header). Ставятся перед записью тела,
+// когда ответ еще не отправлен; SQL при сериализации тела (ленивые связи) в них не попадает
+@ControllerAdvice
+class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    static final String JDBC_TIME_HEADER = "X-SQL-Time-Ms";
+    static final String ENTITIES_HEADER = "X-SQL-Entities";
+
+    @Value("${lms.sql.response-header:false}")
+    private boolean enabled;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementCounter counter = SqlStatementCounter.current();
+        if (counter != null) {
+            response.getHeaders().set(STATEMENTS_HEADER, String.valueOf(counter.getStatements()));
+            response.getHeaders().set(JDBC_TIME_HEADER,
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(counter.getJdbcNanos())));
+            response.getHeaders().set(ENTITIES_HEADER, String.valueOf(counter.getEntitiesLoaded()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+// Счетчики региона кэша Hibernate с момента старта (или последнего сброса статистики)
+public record CacheRegionStatisticsDto(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        double hitRatio) {
+}
@@ -1,6 +1,7 @@
 package kz.test.lmssystem.dto;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -17,7 +18,12 @@ public class ChapterDto {
     private String chapterName;
     private String description;
     private int order;
+    private Long courseId;
     private CourseDto course;
     private LocalDateTime createdTime;
     private LocalDateTime updatedTime;
+    private Long version;
+    // Только в реактивных потоках: ?after= для продолжения потока после этого элемента
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
 }
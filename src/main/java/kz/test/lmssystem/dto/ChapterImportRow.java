@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+// Одна строка NDJSON-импорта глав: курс задается по courseId или courseName
+public record ChapterImportRow(
+        String chapterName,
+        String description,
+        Integer order,
+        Long courseId,
+        String courseName) {
+}
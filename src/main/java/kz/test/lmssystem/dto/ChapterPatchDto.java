@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+// Частичное обновление главы: null - поле не меняется. Курс и порядок меняются через PUT и вставку
+public record ChapterPatchDto(
+        String chapterName,
+        String description,
+        @NotNull Long version) {
+}
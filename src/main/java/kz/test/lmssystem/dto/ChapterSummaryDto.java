@@ -0,0 +1,13 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+
+// Глава без description: для списков, где нужны только название и порядок
+public record ChapterSummaryDto(
+        Long id,
+        String chapterName,
+        int order,
+        Long courseId,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
@@ -0,0 +1,15 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Глава внутри дерева курса вместе со своими уроками
+public record ChapterTreeDto(
+        Long id,
+        String chapterName,
+        String description,
+        int order,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime,
+        List<LessonTreeDto> lessons) {
+}
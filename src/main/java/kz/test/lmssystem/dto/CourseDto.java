@@ -18,4 +18,5 @@ public class CourseDto {
     private String description;
     private LocalDateTime createdTime;
     private LocalDateTime updatedTime;
+    private Long version;
 }
@@ -0,0 +1,7 @@
+package kz.test.lmssystem.dto;
+
+// Одна строка NDJSON-импорта курсов
+public record CourseImportRow(
+        String courseName,
+        String description) {
+}
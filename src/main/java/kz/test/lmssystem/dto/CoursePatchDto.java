@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+// Частичное обновление курса: null - поле не меняется. version - версия, которую видел клиент
+public record CoursePatchDto(
+        String courseName,
+        String description,
+        @NotNull Long version) {
+}
@@ -0,0 +1,11 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+
+// Курс без description: для списков, где нужны только название и даты
+public record CourseSummaryDto(
+        Long id,
+        String courseName,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
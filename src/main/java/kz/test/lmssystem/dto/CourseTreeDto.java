@@ -0,0 +1,14 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Курс целиком: главы по порядку, внутри каждой главы уроки по порядку
+public record CourseTreeDto(
+        Long id,
+        String courseName,
+        String description,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime,
+        List<ChapterTreeDto> chapters) {
+}
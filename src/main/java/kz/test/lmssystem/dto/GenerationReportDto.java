@@ -0,0 +1,17 @@
+package kz.test.lmssystem.dto;
+
+import lombok.*;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class GenerationReportDto {
+
+    private long seed;
+    private long courses;
+    private long chapters;
+    private long lessons;
+    private long elapsedMs;
+}
@@ -0,0 +1,32 @@
+package kz.test.lmssystem.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class ImportReportDto {
+
+    private String entity;
+    private long received;
+    private long imported;
+    private long rejected;
+    @Builder.Default
+    private List<Chunk> chunks = new ArrayList<>();
+    // Первые отклоненные строки, остальные только считаются
+    @Builder.Default
+    private List<RejectedRow> rejectedRows = new ArrayList<>();
+
+    // error - причина, по которой COPY части не прошел (например, родителя удалили во время импорта);
+    // строки такой части не вставлены и учтены в rejected
+    public record Chunk(int number, int rows, long elapsedMs, String error) {
+    }
+
+    public record RejectedRow(long line, String reason) {
+    }
+}
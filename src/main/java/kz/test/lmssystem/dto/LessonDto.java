@@ -1,6 +1,6 @@
 package kz.test.lmssystem.dto;
 
-import kz.test.lmssystem.entity.Chapter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -16,7 +16,12 @@ public class LessonDto {
     private String lessonName;
     private String description;
     private int order;
-    private Chapter chapter;
+    private Long chapterId;
+    private ChapterDto chapter;
     private LocalDateTime createdTime;
     private LocalDateTime updatedTime;
+    private Long version;
+    // Только в реактивных потоках: ?after= для продолжения потока после этого элемента
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
 }
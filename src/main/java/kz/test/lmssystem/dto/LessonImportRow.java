@@ -0,0 +1,13 @@
+package kz.test.lmssystem.dto;
+
+// Одна строка NDJSON-импорта уроков: глава задается по chapterId
+// или по chapterName (при совпадении имен уточняется courseId/courseName)
+public record LessonImportRow(
+        String lessonName,
+        String description,
+        Integer order,
+        Long chapterId,
+        String chapterName,
+        Long courseId,
+        String courseName) {
+}
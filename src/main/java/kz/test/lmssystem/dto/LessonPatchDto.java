@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+// Частичное обновление урока: null - поле не меняется. Глава и порядок меняются через PUT и вставку
+public record LessonPatchDto(
+        String lessonName,
+        String description,
+        @NotNull Long version) {
+}
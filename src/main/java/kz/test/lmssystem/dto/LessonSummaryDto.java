@@ -0,0 +1,13 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+
+// Урок без description: для списков, где нужны только название и порядок
+public record LessonSummaryDto(
+        Long id,
+        String lessonName,
+        int order,
+        Long chapterId,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
@@ -0,0 +1,13 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+
+// Урок внутри дерева курса
+public record LessonTreeDto(
+        Long id,
+        String lessonName,
+        String description,
+        int order,
+        LocalDateTime createdTime,
+        LocalDateTime updatedTime) {
+}
@@ -0,0 +1,10 @@
+package kz.test.lmssystem.dto;
+
+// Результат полнотекстового поиска: type - course/chapter/lesson, parentId - курс главы или глава урока
+public record SearchResultDto(
+        String type,
+        Long id,
+        String name,
+        Long parentId,
+        float rank) {
+}
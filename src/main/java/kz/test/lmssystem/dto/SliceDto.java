@@ -0,0 +1,36 @@
+package kz.test.lmssystem.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Builder
+public class SliceDto<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    // nextCursor - id последнего элемента, передается клиентом в ?after= для следующей страницы
+    public static <T> SliceDto<T> of(List<T> content, boolean hasNext, Function<T, Long> cursor) {
+        String nextCursor = hasNext && !content.isEmpty()
+                ? String.valueOf(cursor.apply(content.get(content.size() - 1))) : null;
+        return of(content, hasNext, nextCursor);
+    }
+
+    // Курсор уже посчитан сервисом (страницы внутри родителя) - клиент передает его в ?after= как есть
+    public static <T> SliceDto<T> of(List<T> content, boolean hasNext, String nextCursor) {
+        return SliceDto.<T>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+}
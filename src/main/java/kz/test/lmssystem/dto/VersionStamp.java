@@ -0,0 +1,19 @@
+package kz.test.lmssystem.dto;
+
+import java.time.LocalDateTime;
+
+// Версия набора строк: количество и последнее время изменения (updated_Time, для новых строк created_Time).
+// Вставка и изменение сдвигают lastModified, удаление уменьшает count, поэтому сумма версий тоже меняется
+public record VersionStamp(Long count, LocalDateTime lastModified) {
+
+    public static VersionStamp of(LocalDateTime updatedTime, LocalDateTime createdTime) {
+        return new VersionStamp(1L, updatedTime != null ? updatedTime : createdTime);
+    }
+
+    public VersionStamp and(VersionStamp other) {
+        LocalDateTime latest = lastModified == null ? other.lastModified
+                : other.lastModified == null || lastModified.isAfter(other.lastModified) ? lastModified
+                : other.lastModified;
+        return new VersionStamp(count + other.count, latest);
+    }
+}
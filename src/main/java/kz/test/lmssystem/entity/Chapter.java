@@ -1,23 +1,33 @@
 package kz.test.lmssystem.entity;
 
 import jakarta.persistence.*;
+import kz.test.lmssystem.config.HibernateCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "chapters")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.CHAPTERS_REGION)
+@NamedEntityGraph(name = "Chapter.course", attributeNodes = @NamedAttributeNode("course"))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class Chapter {
 
+    // Sequence вместо IDENTITY: id выдаются блоками (pooled), вставки идут JDBC-батчами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chapters_seq")
+    @SequenceGenerator(name = "chapters_seq", sequenceName = "chapters_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -26,26 +36,49 @@ public class Chapter {
     @Column(name = "description", columnDefinition = "text")
     private String description;
 
-    @Column(name = "order_number")
+    // Разреженный ключ порядка внутри курса: пишут его вставка и перестановка (OrderRepository),
+    // PUT сущности его не меняет
+    @Column(name = "sort_key", nullable = false, updatable = false)
+    private Long sortKey;
+
+    // Номер внутри курса с 1. Не хранится и не попадает в кэши сущностей: вставка и удаление соседних глав
+    // меняют его без записи в эту строку. Сервис выводит его только в ответах, которые его отдают
+    @Transient
     private int order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id")
     private Course course;
 
+    // course_id без загрузки самого курса, только для чтения
+    @Column(name = "course_id", insertable = false, updatable = false)
+    private Long courseId;
+
     @Column(name = "created_Time")
     private LocalDateTime createdTime;
 
     @Column(name = "updated_Time")
     private LocalDateTime updatedTime;
 
+    // Оптимистическая блокировка: UPDATE пишет только измененные колонки (@DynamicUpdate) с условием version = ?
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     public void createdTime(){
         createdTime = LocalDateTime.now();
+        syncCourseId();
     }
 
     @PreUpdate
     public void updatedTime(){
         updatedTime = LocalDateTime.now();
+        syncCourseId();
+    }
+
+    // Колонка только для чтения не пишется Hibernate, но попадает в кэш второго уровня после записи
+    private void syncCourseId(){
+        courseId = course != null ? course.getId() : null;
     }
 }
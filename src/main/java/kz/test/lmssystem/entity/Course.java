@@ -1,23 +1,32 @@
 package kz.test.lmssystem.entity;
 
 import jakarta.persistence.*;
+import kz.test.lmssystem.config.HibernateCacheConfig;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "courses")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.COURSES_REGION)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class Course {
 
+    // Sequence вместо IDENTITY: id выдаются блоками (pooled), вставки идут JDBC-батчами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courses_seq")
+    @SequenceGenerator(name = "courses_seq", sequenceName = "courses_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -32,6 +41,11 @@ public class Course {
     @Column(name = "updated_Time")
     private LocalDateTime updatedTime;
 
+    // Оптимистическая блокировка: UPDATE пишет только измененные колонки (@DynamicUpdate) с условием version = ?
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     public void createdTime(){
         createdTime = LocalDateTime.now();
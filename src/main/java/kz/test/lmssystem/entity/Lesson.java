@@ -6,19 +6,26 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "lessons")
+@DynamicUpdate
+@NamedEntityGraph(name = "Lesson.chapterAndCourse",
+        attributeNodes = @NamedAttributeNode(value = "chapter", subgraph = "chapter.course"),
+        subgraphs = @NamedSubgraph(name = "chapter.course", attributeNodes = @NamedAttributeNode("course")))
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 public class Lesson {
 
+    // Sequence вместо IDENTITY: id выдаются блоками (pooled), вставки идут JDBC-батчами
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lessons_seq")
+    @SequenceGenerator(name = "lessons_seq", sequenceName = "lessons_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name")
@@ -27,26 +34,49 @@ public class Lesson {
     @Column(name = "description", columnDefinition = "text")
     private String description;
 
-    @Column(name = "order_number")
+    // Разреженный ключ порядка внутри главы: пишут его вставка и перестановка (OrderRepository),
+    // PUT сущности его не меняет
+    @Column(name = "sort_key", nullable = false, updatable = false)
+    private Long sortKey;
+
+    // Номер внутри главы с 1. Не хранится и не попадает в кэши сущностей: вставка и удаление соседних уроков
+    // меняют его без записи в эту строку. Сервис выводит его только в ответах, которые его отдают
+    @Transient
     private int order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "chapter_id")
     private Chapter chapter;
 
+    // chapter_id без загрузки самой главы, только для чтения
+    @Column(name = "chapter_id", insertable = false, updatable = false)
+    private Long chapterId;
+
     @Column(name = "created_Time")
     private LocalDateTime createdTime;
 
     @Column(name = "updated_Time")
     private LocalDateTime updatedTime;
 
+    // Оптимистическая блокировка: UPDATE пишет только измененные колонки (@DynamicUpdate) с условием version = ?
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @PrePersist
     public void createdTime(){
         createdTime = LocalDateTime.now();
+        syncChapterId();
     }
 
     @PreUpdate
     public void updatedTime(){
         updatedTime = LocalDateTime.now();
+        syncChapterId();
+    }
+
+    // Колонка только для чтения не пишется Hibernate, но попадает в кэш второго уровня после записи
+    private void syncChapterId(){
+        chapterId = chapter != null ? chapter.getId() : null;
     }
 }
@@ -0,0 +1,8 @@
+package kz.test.lmssystem.exception;
+
+// Курсор ?after= не разобран: строка не из nextCursor предыдущей страницы
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super(String.format("Invalid page cursor '%s', pass nextCursor of the previous page", cursor));
+    }
+}
@@ -0,0 +1,8 @@
+package kz.test.lmssystem.exception;
+
+// Список id для нового порядка не совпадает с детьми родителя или содержит повторы
+public class InvalidOrderException extends RuntimeException {
+    public InvalidOrderException(String message) {
+        super(message);
+    }
+}
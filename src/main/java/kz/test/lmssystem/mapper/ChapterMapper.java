@@ -2,21 +2,44 @@ package kz.test.lmssystem.mapper;
 
 import kz.test.lmssystem.dto.ChapterDto;
 import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import org.hibernate.Hibernate;
+import org.mapstruct.Condition;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = CourseMapper.class)
 public interface ChapterMapper {
 
     @Mapping(target = "chapterName", source = "name")
+    @Mapping(target = "cursor", ignore = true)
     ChapterDto toDtoChapter(Chapter chapter);
 
     @Mapping(target = "name", source = "chapterName")
+    @Mapping(target = "course", expression = "java(toCourseReference(chapterDto))")
+    @Mapping(target = "sortKey", ignore = true)
     Chapter toEntityChapter(ChapterDto chapterDto);
 
     List<ChapterDto> toDtoChapterList(List<Chapter> chapters);
 
     List<Chapter> toEntityChapterList(List<ChapterDto> dtoListChapterDto);
+
+    // Курс попадает в DTO, только если он был загружен планом выборки (FetchPlan.FULL)
+    @Condition
+    default boolean isLoaded(Course course) {
+        return course != null && Hibernate.isInitialized(course);
+    }
+
+    default Course toCourseReference(ChapterDto chapterDto) {
+        Long courseId = chapterDto.getCourseId() != null ? chapterDto.getCourseId()
+                : chapterDto.getCourse() != null ? chapterDto.getCourse().getId() : null;
+        if (courseId == null) {
+            return null;
+        }
+        Course course = new Course();
+        course.setId(courseId);
+        return course;
+    }
 }
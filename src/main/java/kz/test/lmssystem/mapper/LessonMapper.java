@@ -1,22 +1,45 @@
 package kz.test.lmssystem.mapper;
 
 import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.entity.Lesson;
+import org.hibernate.Hibernate;
+import org.mapstruct.Condition;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = ChapterMapper.class)
 public interface LessonMapper {
 
     @Mapping(target = "lessonName", source = "name")
+    @Mapping(target = "cursor", ignore = true)
     LessonDto toDtoLesson(Lesson lesson);
 
     @Mapping(target = "name", source = "lessonName")
+    @Mapping(target = "chapter", expression = "java(toChapterReference(lessonDto))")
+    @Mapping(target = "sortKey", ignore = true)
     Lesson toEntityLesson(LessonDto lessonDto);
 
     List<LessonDto> toDtoLessonList(List<Lesson> lessons);
 
     List<Lesson> toEntityLessonList(List<LessonDto> dtoListLessonDto);
+
+    // Глава попадает в DTO, только если она была загружена планом выборки (FetchPlan.FULL)
+    @Condition
+    default boolean isLoaded(Chapter chapter) {
+        return chapter != null && Hibernate.isInitialized(chapter);
+    }
+
+    default Chapter toChapterReference(LessonDto lessonDto) {
+        Long chapterId = lessonDto.getChapterId() != null ? lessonDto.getChapterId()
+                : lessonDto.getChapter() != null ? lessonDto.getChapter().getId() : null;
+        if (chapterId == null) {
+            return null;
+        }
+        Chapter chapter = new Chapter();
+        chapter.setId(chapterId);
+        return chapter;
+    }
 }
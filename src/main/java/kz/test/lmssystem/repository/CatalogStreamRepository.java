@@ -0,0 +1,157 @@
+package kz.test.lmssystem.repository;
+
+import io.r2dbc.spi.Readable;
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+// Чтение каталога через R2DBC для реактивных маршрутов. Поток читается порциями по CHUNK_SIZE строк: каждая
+// порция - отдельный keyset-запрос после ключа последней строки предыдущей, прочитанный целиком, поэтому
+// соединение возвращается в пул сразу, а не держится, пока медленный клиент дочитывает ответ. Следующая порция
+// читается по спросу клиента, не больше одной порции вперед.
+// Порядок - как у keyset-страниц JPA-репозиториев: курсы по id, дети по (sort_key, id), без встраивания родителя.
+// Номер order детей не читается: сервис нумерует их по порядку потока от номера в курсоре
+@Repository
+@RequiredArgsConstructor
+public class CatalogStreamRepository {
+
+    static final int CHUNK_SIZE = 256;
+
+    private static final String COURSES_SQL = """
+            SELECT id, name, description, created_time, updated_time, version FROM courses
+            WHERE id > :after ORDER BY id LIMIT :limit""";
+
+    private static final String CHAPTERS_SQL = """
+            SELECT id, name, description, course_id, sort_key, created_time, updated_time, version FROM chapters
+            WHERE course_id = :parentId AND (sort_key, id) > (:sortKey, :after) ORDER BY sort_key, id LIMIT :limit""";
+
+    private static final String LESSONS_SQL = """
+            SELECT id, name, description, chapter_id, sort_key, created_time, updated_time, version FROM lessons
+            WHERE chapter_id = :parentId AND (sort_key, id) > (:sortKey, :after) ORDER BY sort_key, id LIMIT :limit""";
+
+    private final DatabaseClient databaseClient;
+
+    // Ключ строки, после которой читается следующая порция
+    public record Cursor(long sortKey, long id) {
+    }
+
+    // Строка потока детей вместе с ее ключом: из него сервис строит курсор для продолжения потока
+    public record Keyed<T>(T value, Cursor cursor) {
+    }
+
+    // Прочитанная порция и сколько строк потока еще осталось
+    private record Chunk<T>(List<Keyed<T>> rows, int size, long remaining) {
+
+        boolean hasNext() {
+            return rows.size() == size && remaining > 0;
+        }
+
+        Cursor last() {
+            return rows.get(rows.size() - 1).cursor();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkQuery<T> {
+        Flux<Keyed<T>> read(Cursor after, int limit);
+    }
+
+    public Flux<CourseDto> streamCourses(long after, long limit) {
+        return chunked(new Cursor(0, after), limit, (cursor, size) -> databaseClient.sql(COURSES_SQL)
+                .bind("after", cursor.id())
+                .bind("limit", size)
+                .map(row -> keyed(course(row), row, 0))
+                .all())
+                .map(Keyed::value);
+    }
+
+    public Flux<Keyed<ChapterDto>> streamChaptersByCourseId(long courseId, long sortKey, long after, long limit) {
+        return chunked(new Cursor(sortKey, after), limit, (cursor, size) -> children(CHAPTERS_SQL, courseId, cursor,
+                size, row -> keyed(chapter(row), row, row.get("sort_key", Long.class))));
+    }
+
+    public Flux<Keyed<LessonDto>> streamLessonsByChapterId(long chapterId, long sortKey, long after, long limit) {
+        return chunked(new Cursor(sortKey, after), limit, (cursor, size) -> children(LESSONS_SQL, chapterId, cursor,
+                size, row -> keyed(lesson(row), row, row.get("sort_key", Long.class))));
+    }
+
+    // Порции по запросу: запрос следующей порции уходит в базу, когда concatMapIterable (prefetch 1) запросил ее,
+    // а не при подписке. Запрос начинается на Schedulers.parallel(): начатый прямо из сигнала предыдущей порции
+    // на потоке драйвера, он не получал соединение из пула в одно соединение
+    private static <T> Flux<Keyed<T>> chunked(Cursor start, long limit, ChunkQuery<T> query) {
+        return read(query, start, limit)
+                .expand(chunk -> chunk.hasNext()
+                        ? Mono.just(chunk)
+                        .publishOn(Schedulers.parallel())
+                        .flatMap(last -> read(query, last.last(), last.remaining()))
+                        : Mono.empty())
+                .concatMapIterable(Chunk::rows, 1);
+    }
+
+    private static <T> Mono<Chunk<T>> read(ChunkQuery<T> query, Cursor after, long remaining) {
+        int size = (int) Math.min(CHUNK_SIZE, remaining);
+        return query.read(after, size)
+                .collectList()
+                .map(rows -> new Chunk<>(rows, size, remaining - rows.size()));
+    }
+
+    private <T> Flux<Keyed<T>> children(String sql, long parentId, Cursor cursor, int size,
+                                        Function<Readable, Keyed<T>> mapper) {
+        return databaseClient.sql(sql)
+                .bind("parentId", parentId)
+                .bind("sortKey", cursor.sortKey())
+                .bind("after", cursor.id())
+                .bind("limit", size)
+                .map(mapper::apply)
+                .all();
+    }
+
+    private static <T> Keyed<T> keyed(T value, Readable row, long sortKey) {
+        return new Keyed<>(value, new Cursor(sortKey, row.get("id", Long.class)));
+    }
+
+    private static CourseDto course(Readable row) {
+        return CourseDto.builder()
+                .id(row.get("id", Long.class))
+                .courseName(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .createdTime(row.get("created_time", LocalDateTime.class))
+                .updatedTime(row.get("updated_time", LocalDateTime.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    private static ChapterDto chapter(Readable row) {
+        return ChapterDto.builder()
+                .id(row.get("id", Long.class))
+                .chapterName(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .courseId(row.get("course_id", Long.class))
+                .createdTime(row.get("created_time", LocalDateTime.class))
+                .updatedTime(row.get("updated_time", LocalDateTime.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    private static LessonDto lesson(Readable row) {
+        return LessonDto.builder()
+                .id(row.get("id", Long.class))
+                .lessonName(row.get("name", String.class))
+                .description(row.get("description", String.class))
+                .chapterId(row.get("chapter_id", Long.class))
+                .createdTime(row.get("created_time", LocalDateTime.class))
+                .updatedTime(row.get("updated_time", LocalDateTime.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -1,19 +1,96 @@
 package kz.test.lmssystem.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Chapter;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 @Transactional
 public interface ChapterRepository extends JpaRepository<Chapter, Long> {
-    Chapter findByName(String name);
 
-    List<Chapter> findByCourseId(Long courseId);
+    @Override
+    @EntityGraph("Chapter.course")
+    Optional<Chapter> findById(Long id);
 
+    @EntityGraph("Chapter.course")
+    @Query("SELECT c FROM Chapter c WHERE lower(c.name) = lower(:name) AND c.name = :name")
+    Chapter findByName(@Param("name") String name);
+
+    // Порядок индекса (course_id, sort_key, id). Результат в кэше запросов Hibernate
+    @EntityGraph("Chapter.course")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION)
+    })
+    @Query("SELECT c FROM Chapter c WHERE c.courseId = :courseId ORDER BY c.sortKey, c.id")
+    List<Chapter> findByCourseId(@Param("courseId") Long courseId);
+
+    // Версия списка для условного GET. Курс входит в агрегат, так как FetchPlan.FULL встраивает его в главы
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(c), max(greatest(" +
+            "coalesce(c.updatedTime, c.createdTime), coalesce(co.updatedTime, co.createdTime)))) " +
+            "FROM Chapter c JOIN c.course co")
+    VersionStamp findVersion();
+
+    // Версия глав курса для условного GET: агрегат по индексу course_id. Курс входит в агрегат,
+    // так как FetchPlan.FULL встраивает его в главы
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(c), max(greatest(" +
+            "coalesce(c.updatedTime, c.createdTime), coalesce(co.updatedTime, co.createdTime)))) " +
+            "FROM Chapter c JOIN c.course co WHERE c.courseId = :courseId")
+    VersionStamp findVersionByCourseId(@Param("courseId") Long courseId);
+
+    // Keyset-пагинация: следующая страница после курсора, без COUNT
+    Slice<Chapter> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // Страницы внутри курса в порядке индекса (course_id, sort_key, id): курсор - ключ и id последней главы
+    @Query("SELECT c FROM Chapter c WHERE c.courseId = :courseId AND (c.sortKey, c.id) > (:sortKey, :after) " +
+            "ORDER BY c.sortKey, c.id")
+    Slice<Chapter> findByCourseIdAfter(@Param("courseId") Long courseId, @Param("sortKey") long sortKey,
+                                       @Param("after") long after, Pageable pageable);
+
+    // Те же страницы вместе с курсом (FetchPlan.FULL)
+    @EntityGraph("Chapter.course")
+    Slice<Chapter> findWithCourseByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    @EntityGraph("Chapter.course")
+    @Query("SELECT c FROM Chapter c WHERE c.courseId = :courseId AND (c.sortKey, c.id) > (:sortKey, :after) " +
+            "ORDER BY c.sortKey, c.id")
+    Slice<Chapter> findWithCourseByCourseIdAfter(@Param("courseId") Long courseId, @Param("sortKey") long sortKey,
+                                                 @Param("after") long after, Pageable pageable);
+
+    // Проекции без колонки description (text)
+    @Query("SELECT new kz.test.lmssystem.repository.ChapterSummaryRow(c.id, c.name, c.courseId, c.createdTime, " +
+            "c.updatedTime, c.sortKey) FROM Chapter c WHERE c.id > :after ORDER BY c.id")
+    Slice<ChapterSummaryRow> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT new kz.test.lmssystem.repository.ChapterSummaryRow(c.id, c.name, c.courseId, " +
+            "c.createdTime, c.updatedTime, c.sortKey) FROM Chapter c " +
+            "WHERE c.courseId = :courseId AND (c.sortKey, c.id) > (:sortKey, :after) ORDER BY c.sortKey, c.id")
+    Slice<ChapterSummaryRow> findSummariesByCourseIdAfter(@Param("courseId") Long courseId,
+                                                          @Param("sortKey") long sortKey, @Param("after") long after,
+                                                          Pageable pageable);
+
+    // Поток для NDJSON-выгрузки, читается внутри транзакции.
+    // Порядок индекса (course_id, sort_key, id): номер order считается на ходу
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT c FROM Chapter c ORDER BY c.courseId, c.sortKey, c.id")
+    Stream<Chapter> streamAll();
 }
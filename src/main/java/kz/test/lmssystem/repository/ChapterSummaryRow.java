@@ -0,0 +1,15 @@
+package kz.test.lmssystem.repository;
+
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+
+import java.time.LocalDateTime;
+
+// Строка страницы сводок глав: поля ChapterSummaryDto без номера order и sort_key для курсора следующей страницы.
+// Номер order сервис выводит из курсора
+public record ChapterSummaryRow(Long id, String name, Long courseId, LocalDateTime createdTime,
+                                LocalDateTime updatedTime, Long sortKey) {
+
+    public ChapterSummaryDto toDto(int order) {
+        return new ChapterSummaryDto(id, name, order, courseId, createdTime, updatedTime);
+    }
+}
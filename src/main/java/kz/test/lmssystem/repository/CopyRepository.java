@@ -0,0 +1,122 @@
+package kz.test.lmssystem.repository;
+
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.config.ReadYourWrites;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Массовая загрузка через PostgreSQL COPY, в обход JPA
+@Repository
+@RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class CopyRepository {
+
+    // Совпадает с allocationSize у @SequenceGenerator сущностей
+    public static final int SEQUENCE_INCREMENT = 50;
+
+    public static final String COPY_COURSES =
+            "COPY courses (id, name, description, created_time, updated_time) FROM STDIN WITH (FORMAT csv)";
+    public static final String COPY_CHAPTERS =
+            "COPY chapters (id, name, description, sort_key, course_id, created_time, updated_time) " +
+                    "FROM STDIN WITH (FORMAT csv)";
+    public static final String COPY_LESSONS =
+            "COPY lessons (id, name, description, sort_key, chapter_id, created_time, updated_time) " +
+                    "FROM STDIN WITH (FORMAT csv)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record ParentRef(Long id, String name, Long parentId) {
+    }
+
+    public List<ParentRef> findCourseRefs() {
+        return jdbcTemplate.query("SELECT id, name FROM courses",
+                (rs, i) -> new ParentRef(rs.getLong("id"), rs.getString("name"), null));
+    }
+
+    public List<ParentRef> findChapterRefs() {
+        return jdbcTemplate.query("SELECT id, name, course_id FROM chapters",
+                (rs, i) -> new ParentRef(rs.getLong("id"), rs.getString("name"), rs.getObject("course_id", Long.class)));
+    }
+
+    // Последний sort_key глав каждого курса: строки без order встают после них
+    public Map<Long, Long> findLastChapterSortKeys() {
+        return lastSortKeys("SELECT course_id, max(sort_key) FROM chapters GROUP BY course_id");
+    }
+
+    // Последний sort_key уроков каждой главы
+    public Map<Long, Long> findLastLessonSortKeys() {
+        return lastSortKeys("SELECT chapter_id, max(sort_key) FROM lessons GROUP BY chapter_id");
+    }
+
+    private Map<Long, Long> lastSortKeys(String sql) {
+        Map<Long, Long> keys = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            keys.put(rs.getLong(1), rs.getLong(2));
+        });
+        return keys;
+    }
+
+    // Резервирует count id так же, как pooled-оптимизатор Hibernate: nextval = верхняя граница блока
+    public List<Long> reserveIds(String sequence, int count) {
+        int blocks = (count + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        List<Long> hiValues = jdbcTemplate.queryForList(
+                "SELECT nextval(CAST(? AS regclass)) FROM generate_series(1, ?)", Long.class, sequence, blocks);
+        List<Long> ids = new ArrayList<>(count);
+        for (Long hi : hiValues) {
+            for (long id = hi - SEQUENCE_INCREMENT + 1; id <= hi && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // Один COPY = одна транзакция (autocommit), возвращает число вставленных строк.
+    // Слушатель коммитов Spring ее не видит, поэтому клиент отмечается как писавший здесь
+    public long copyIn(String copySql, String csv) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, new StringReader(csv));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            ReadYourWrites.writeCommitted();
+        }
+        return rows == null ? 0 : rows;
+    }
+
+    // Пустой каталог и последовательности с начала: следующий блок id - 1..50
+    public void truncateCatalog() {
+        jdbcTemplate.execute("TRUNCATE lessons, chapters, courses");
+        for (String sequence : List.of("courses_seq", "chapters_seq", "lessons_seq")) {
+            jdbcTemplate.queryForObject("SELECT setval(CAST(? AS regclass), ?, false)", Long.class,
+                    sequence, SEQUENCE_INCREMENT);
+        }
+    }
+
+    // Свежая статистика планировщика после массовой загрузки
+    public void analyzeCatalog() {
+        jdbcTemplate.execute("ANALYZE courses, chapters, lessons");
+    }
+
+    // CSV-поле в кавычках; пустое поле без кавычек COPY читает как NULL
+    public static void appendText(StringBuilder csv, String value) {
+        if (value != null) {
+            csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+        }
+    }
+}
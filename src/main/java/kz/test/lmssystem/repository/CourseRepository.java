@@ -1,13 +1,50 @@
 package kz.test.lmssystem.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Course;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.stream.Stream;
+
 @Repository
 @Transactional
 public interface CourseRepository extends JpaRepository<Course, Long> {
 
-    Course findByName(String name);
+    // lower(name) попадает в функциональный индекс, name = :name сохраняет точное сравнение
+    @Query("SELECT c FROM Course c WHERE lower(c.name) = lower(:name) AND c.name = :name")
+    Course findByName(@Param("name") String name);
+
+    // Keyset-пагинация: следующая страница после курсора, без COUNT
+    Slice<Course> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // Проекция без колонки description (text)
+    @Query("SELECT new kz.test.lmssystem.dto.CourseSummaryDto(c.id, c.name, c.createdTime, c.updatedTime) " +
+            "FROM Course c WHERE c.id > :after ORDER BY c.id")
+    Slice<CourseSummaryDto> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    // Версия списка для условного GET: одна строка агрегатов вместо загрузки страницы
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(c), max(coalesce(c.updatedTime, c.createdTime))) " +
+            "FROM Course c")
+    VersionStamp findVersion();
+
+    // Выгрузка серверным курсором: строки приходят порциями по fetch size, без снимков для dirty checking.
+    // Поток должен читаться внутри транзакции и закрываться вызывающим кодом
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            // Выгрузка не читает и не заполняет кэш второго уровня: иначе вытеснила бы из него рабочий набор
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT c FROM Course c ORDER BY c.id")
+    Stream<Course> streamAll();
 }
@@ -0,0 +1,92 @@
+package kz.test.lmssystem.repository;
+
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.MetricsConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+// Удаление поддеревьев множествами: один DELETE на уровень (уроки, главы, курсы) вместо загрузки
+// и удаления каждой сущности. Родители сначала блокируются FOR UPDATE: проверка внешнего ключа у параллельной
+// вставки берет FOR KEY SHARE на родителе и ждет, поэтому между DELETE детей и родителя новые дети не появятся.
+// Запись идет мимо Hibernate: кэши сбрасывает вызывающий сервис
+@Repository
+@RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class DeleteRepository {
+
+    private static final String LOCK_COURSES_SQL = """
+            SELECT id FROM courses WHERE id = ANY (CAST(:ids AS bigint[])) ORDER BY id FOR UPDATE
+            """;
+
+    private static final String LOCK_CHAPTERS_SQL = """
+            SELECT id, course_id FROM chapters WHERE id = ANY (CAST(:ids AS bigint[])) ORDER BY id FOR UPDATE
+            """;
+
+    private static final String LOCK_CHAPTERS_OF_COURSES_SQL = """
+            SELECT id FROM chapters WHERE course_id = ANY (CAST(:ids AS bigint[])) ORDER BY id FOR UPDATE
+            """;
+
+    private static final String DELETE_LESSONS_OF_CHAPTERS_SQL = """
+            DELETE FROM lessons WHERE chapter_id = ANY (CAST(:ids AS bigint[]))
+            """;
+
+    private static final String DELETE_CHAPTERS_SQL = "DELETE FROM chapters WHERE id = ANY (CAST(:ids AS bigint[]))";
+
+    private static final String DELETE_COURSES_SQL = "DELETE FROM courses WHERE id = ANY (CAST(:ids AS bigint[]))";
+
+    private static final String DELETE_LESSONS_SQL = """
+            DELETE FROM lessons WHERE id = ANY (CAST(:ids AS bigint[])) RETURNING id, chapter_id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Заблокированная глава и ее курс
+    public record LockedChapter(long id, Long courseId) {
+    }
+
+    public record DeletedLesson(long id, Long chapterId) {
+    }
+
+    // Существующие курсы из списка; блокировка держится до конца транзакции. Порядок по id - против взаимных блокировок
+    public List<Long> lockCourses(Collection<Long> courseIds) {
+        return jdbcTemplate.queryForList(LOCK_COURSES_SQL, params(courseIds), Long.class);
+    }
+
+    public List<LockedChapter> lockChapters(Collection<Long> chapterIds) {
+        return jdbcTemplate.query(LOCK_CHAPTERS_SQL, params(chapterIds),
+                (rs, i) -> new LockedChapter(rs.getLong("id"), rs.getObject("course_id", Long.class)));
+    }
+
+    public List<Long> lockChaptersOfCourses(Collection<Long> courseIds) {
+        return jdbcTemplate.queryForList(LOCK_CHAPTERS_OF_COURSES_SQL, params(courseIds), Long.class);
+    }
+
+    // Возвращают число удаленных строк
+    public int deleteLessonsOfChapters(Collection<Long> chapterIds) {
+        return jdbcTemplate.update(DELETE_LESSONS_OF_CHAPTERS_SQL, params(chapterIds));
+    }
+
+    public int deleteChapters(Collection<Long> chapterIds) {
+        return jdbcTemplate.update(DELETE_CHAPTERS_SQL, params(chapterIds));
+    }
+
+    public int deleteCourses(Collection<Long> courseIds) {
+        return jdbcTemplate.update(DELETE_COURSES_SQL, params(courseIds));
+    }
+
+    // Уроки не блокируются заранее: детей у них нет, удаленные и их главы возвращает сам DELETE
+    public List<DeletedLesson> deleteLessons(Collection<Long> lessonIds) {
+        return jdbcTemplate.query(DELETE_LESSONS_SQL, params(lessonIds),
+                (rs, i) -> new DeletedLesson(rs.getLong("id"), rs.getObject("chapter_id", Long.class)));
+    }
+
+    // Один параметр-массив, как в OrderRepository
+    private static MapSqlParameterSource params(Collection<Long> ids) {
+        return new MapSqlParameterSource("ids", ids.toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,7 @@
+package kz.test.lmssystem.repository;
+
+import kz.test.lmssystem.entity.Lesson;
+
+// Урок страницы курса без загрузки главы (FetchPlan.FLAT) и ключ его главы для курсора следующей страницы
+public record LessonPageRow(Lesson lesson, Long chapterSortKey) {
+}
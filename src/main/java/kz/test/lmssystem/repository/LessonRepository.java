@@ -1,25 +1,140 @@
 package kz.test.lmssystem.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Lesson;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 @Transactional
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
-    Lesson findByName(String name);
+
+    @Override
+    @EntityGraph("Lesson.chapterAndCourse")
+    Optional<Lesson> findById(Long id);
+
+    @EntityGraph("Lesson.chapterAndCourse")
+    @Query("SELECT l FROM Lesson l WHERE lower(l.name) = lower(:name) AND l.name = :name")
+    Lesson findByName(@Param("name") String name);
 
     List<Lesson> findByNameContainingIgnoreCase(String name);
 
-    // Найти уроки по chapter_id
-    List<Lesson> findByChapterId(Long chapterId);
+    // Найти уроки по chapter_id в порядке индекса (chapter_id, sort_key, id)
+    @EntityGraph("Lesson.chapterAndCourse")
+    @Query("SELECT l FROM Lesson l WHERE l.chapterId = :chapterId ORDER BY l.sortKey, l.id")
+    List<Lesson> findByChapterId(@Param("chapterId") Long chapterId);
 
-    // Найти уроки по course_id через JOIN
-    @Query("SELECT l FROM Lesson l JOIN l.chapter c WHERE c.course.id = :courseId")
+    // Найти уроки по course_id через JOIN: главы по порядку, внутри главы уроки по порядку
+    @EntityGraph("Lesson.chapterAndCourse")
+    @Query("SELECT l FROM Lesson l JOIN l.chapter c WHERE c.courseId = :courseId ORDER BY c.sortKey, c.id, l.sortKey, l.id")
     List<Lesson> findByCourseId(@Param("courseId") Long courseId);
+
+    // Уроки курса для дерева: главы не подгружаются, группировка по chapterId делается в памяти
+    @Query("SELECT l FROM Lesson l WHERE l.chapter.courseId = :courseId ORDER BY l.chapterId, l.sortKey, l.id")
+    List<Lesson> findForTreeByCourseId(@Param("courseId") Long courseId);
+
+    // Версия списка для условного GET. Глава и курс входят в агрегат, так как FetchPlan.FULL встраивает их в уроки
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(l), max(greatest(" +
+            "coalesce(l.updatedTime, l.createdTime), coalesce(c.updatedTime, c.createdTime), " +
+            "coalesce(co.updatedTime, co.createdTime)))) FROM Lesson l JOIN l.chapter c JOIN c.course co")
+    VersionStamp findVersion();
+
+    // Версии уроков главы и курса для условного GET: агрегаты по индексам родителя. Глава и курс входят
+    // в агрегат, так как FetchPlan.FULL встраивает их в уроки
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(l), max(greatest(" +
+            "coalesce(l.updatedTime, l.createdTime), coalesce(c.updatedTime, c.createdTime), " +
+            "coalesce(co.updatedTime, co.createdTime)))) FROM Lesson l JOIN l.chapter c JOIN c.course co " +
+            "WHERE l.chapterId = :chapterId")
+    VersionStamp findVersionByChapterId(@Param("chapterId") Long chapterId);
+
+    @Query("SELECT new kz.test.lmssystem.dto.VersionStamp(count(l), max(greatest(" +
+            "coalesce(l.updatedTime, l.createdTime), coalesce(c.updatedTime, c.createdTime), " +
+            "coalesce(co.updatedTime, co.createdTime)))) FROM Lesson l JOIN l.chapter c JOIN c.course co " +
+            "WHERE c.courseId = :courseId")
+    VersionStamp findVersionByCourseId(@Param("courseId") Long courseId);
+
+    // Keyset-пагинация: следующая страница после курсора, без COUNT
+    Slice<Lesson> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // Страницы внутри родителя в порядке индекса (chapter_id, sort_key, id): курсор - ключ и id последнего урока
+    @Query("SELECT l FROM Lesson l WHERE l.chapterId = :chapterId AND (l.sortKey, l.id) > (:sortKey, :after) " +
+            "ORDER BY l.sortKey, l.id")
+    Slice<Lesson> findByChapterIdAfter(@Param("chapterId") Long chapterId, @Param("sortKey") long sortKey,
+                                       @Param("after") long after, Pageable pageable);
+
+    // Главы по порядку, внутри главы уроки по порядку: курсор включает ключ и id главы последнего урока.
+    // Глава не загружается, ее ключ для курсора приходит из того же JOIN
+    @Query("SELECT new kz.test.lmssystem.repository.LessonPageRow(l, c.sortKey) FROM Lesson l JOIN l.chapter c " +
+            "WHERE c.courseId = :courseId " +
+            "AND (c.sortKey, c.id, l.sortKey, l.id) > (:chapterSortKey, :chapterId, :sortKey, :after) " +
+            "ORDER BY c.sortKey, c.id, l.sortKey, l.id")
+    Slice<LessonPageRow> findByCourseIdAfter(@Param("courseId") Long courseId,
+                                             @Param("chapterSortKey") long chapterSortKey,
+                                             @Param("chapterId") long chapterId, @Param("sortKey") long sortKey,
+                                             @Param("after") long after, Pageable pageable);
+
+    // Те же страницы вместе с главой и курсом (FetchPlan.FULL)
+    @EntityGraph("Lesson.chapterAndCourse")
+    Slice<Lesson> findWithParentsByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    @EntityGraph("Lesson.chapterAndCourse")
+    @Query("SELECT l FROM Lesson l WHERE l.chapterId = :chapterId AND (l.sortKey, l.id) > (:sortKey, :after) " +
+            "ORDER BY l.sortKey, l.id")
+    Slice<Lesson> findWithParentsByChapterIdAfter(@Param("chapterId") Long chapterId, @Param("sortKey") long sortKey,
+                                                  @Param("after") long after, Pageable pageable);
+
+    @EntityGraph("Lesson.chapterAndCourse")
+    @Query("SELECT l FROM Lesson l JOIN l.chapter c WHERE c.courseId = :courseId " +
+            "AND (c.sortKey, c.id, l.sortKey, l.id) > (:chapterSortKey, :chapterId, :sortKey, :after) " +
+            "ORDER BY c.sortKey, c.id, l.sortKey, l.id")
+    Slice<Lesson> findWithParentsByCourseIdAfter(@Param("courseId") Long courseId,
+                                                 @Param("chapterSortKey") long chapterSortKey,
+                                                 @Param("chapterId") long chapterId, @Param("sortKey") long sortKey,
+                                                 @Param("after") long after, Pageable pageable);
+
+    // Проекции без колонки description (text)
+    @Query("SELECT new kz.test.lmssystem.repository.LessonSummaryRow(l.id, l.name, l.chapterId, l.createdTime, " +
+            "l.updatedTime, l.sortKey) FROM Lesson l WHERE l.id > :after ORDER BY l.id")
+    Slice<LessonSummaryRow> findSummariesAfter(@Param("after") Long after, Pageable pageable);
+
+    @Query("SELECT new kz.test.lmssystem.repository.LessonSummaryRow(l.id, l.name, l.chapterId, " +
+            "l.createdTime, l.updatedTime, l.sortKey) FROM Lesson l " +
+            "WHERE l.chapterId = :chapterId AND (l.sortKey, l.id) > (:sortKey, :after) ORDER BY l.sortKey, l.id")
+    Slice<LessonSummaryRow> findSummariesByChapterIdAfter(@Param("chapterId") Long chapterId,
+                                                          @Param("sortKey") long sortKey, @Param("after") long after,
+                                                          Pageable pageable);
+
+    @Query("SELECT new kz.test.lmssystem.repository.LessonSummaryRow(l.id, l.name, l.chapterId, " +
+            "l.createdTime, l.updatedTime, c.sortKey, l.sortKey) FROM Lesson l JOIN l.chapter c " +
+            "WHERE c.courseId = :courseId " +
+            "AND (c.sortKey, c.id, l.sortKey, l.id) > (:chapterSortKey, :chapterId, :sortKey, :after) " +
+            "ORDER BY c.sortKey, c.id, l.sortKey, l.id")
+    Slice<LessonSummaryRow> findSummariesByCourseIdAfter(@Param("courseId") Long courseId,
+                                                         @Param("chapterSortKey") long chapterSortKey,
+                                                         @Param("chapterId") long chapterId,
+                                                         @Param("sortKey") long sortKey, @Param("after") long after,
+                                                         Pageable pageable);
+
+    // Поток для NDJSON-выгрузки: главы не подгружаются, в DTO попадает только chapterId.
+    // Порядок индекса (chapter_id, sort_key, id): номер order считается на ходу
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT l FROM Lesson l ORDER BY l.chapterId, l.sortKey, l.id")
+    Stream<Lesson> streamAll();
 }
@@ -0,0 +1,21 @@
+package kz.test.lmssystem.repository;
+
+import kz.test.lmssystem.dto.LessonSummaryDto;
+
+import java.time.LocalDateTime;
+
+// Строка страницы сводок уроков: поля LessonSummaryDto без номера order и ключи порядка урока и его главы,
+// из которых строится курсор следующей страницы. Номер order сервис выводит из курсора
+public record LessonSummaryRow(Long id, String name, Long chapterId, LocalDateTime createdTime,
+                               LocalDateTime updatedTime, Long chapterSortKey, Long sortKey) {
+
+    // Страницы внутри главы и по id: ключ главы курсору не нужен
+    public LessonSummaryRow(Long id, String name, Long chapterId, LocalDateTime createdTime,
+                            LocalDateTime updatedTime, Long sortKey) {
+        this(id, name, chapterId, createdTime, updatedTime, null, sortKey);
+    }
+
+    public LessonSummaryDto toDto(int order) {
+        return new LessonSummaryDto(id, name, order, chapterId, createdTime, updatedTime);
+    }
+}
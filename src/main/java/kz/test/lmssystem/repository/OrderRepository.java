@@ -0,0 +1,273 @@
+package kz.test.lmssystem.repository;
+
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.MetricsConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Порядок детей родителя по разреженному ключу sort_key: соседи стоят с шагом SORT_KEY_GAP, новый ребенок
+// получает ключ посередине зазора и соседей не трогает. Номер order выводится из ключа при чтении.
+// Запись идет мимо Hibernate: кэши сбрасывает вызывающий сервис.
+// Блокировки: вставка держит FOR KEY SHARE на строке родителя (как проверка внешнего ключа), перенумерация -
+// FOR UPDATE, поэтому вставки в одного родителя идут параллельно, а перенумерация ждет их и задерживает новые
+@Repository
+@RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class OrderRepository {
+
+    // Шаг между соседями после перенумерации: в один зазор помещается 20 вставок подряд
+    public static final long SORT_KEY_GAP = 1L << 20;
+    // Зазор меньше этого - родитель уходит в фоновую перенумерацию, пока вставки в середину еще возможны
+    public static final long REBALANCE_THRESHOLD = SORT_KEY_GAP >> 10;
+
+    // Позиция id в списке (с 1) задает ключ. Массив - один параметр, так что текст запроса не зависит от длины
+    // списка. Строки, чей ключ не изменился, не переписываются. updated_time - часы JVM, как у @PreUpdate
+    private static final String REORDER_SQL = """
+            UPDATE %1$s t SET sort_key = v.ord * :gap, updated_time = :updatedTime
+            FROM unnest(CAST(:ids AS bigint[])) WITH ORDINALITY AS v(id, ord)
+            WHERE t.id = v.id AND t.%2$s = :parentId AND t.sort_key IS DISTINCT FROM v.ord * :gap
+            """;
+
+    private static final String CHECK_SQL = """
+            SELECT count(*) AS children,
+                   count(*) FILTER (WHERE id = ANY (CAST(:ids AS bigint[]))) AS listed,
+                   count(DISTINCT sort_key) AS distinct_keys
+            FROM %1$s WHERE %2$s = :parentId
+            """;
+
+    // Якорь вставки: строка ребенка блокируется, чтобы параллельная вставка рядом с ним ждала
+    private static final String LOCK_SQL = """
+            SELECT t.id, t.%2$s AS parent_id, t.sort_key FROM %1$s t JOIN %3$s p ON p.id = t.%2$s
+            WHERE t.id = :id
+            FOR UPDATE OF t FOR KEY SHARE OF p
+            """;
+
+    private static final String NEXT_SQL = """
+            SELECT sort_key FROM %1$s WHERE %2$s = :parentId AND (sort_key, id) > (:sortKey, :id)
+            ORDER BY sort_key, id LIMIT 1
+            """;
+
+    private static final String PREVIOUS_SQL = """
+            SELECT sort_key FROM %1$s WHERE %2$s = :parentId AND (sort_key, id) < (:sortKey, :id)
+            ORDER BY sort_key DESC, id DESC LIMIT 1
+            """;
+
+    private static final String APPEND_SQL = """
+            SELECT coalesce((SELECT max(sort_key) FROM %1$s WHERE %2$s = p.id), 0) + :gap FROM %3$s p
+            WHERE p.id = :parentId
+            FOR KEY SHARE
+            """;
+
+    private static final String MOVE_TO_END_SQL = """
+            UPDATE %1$s SET sort_key = coalesce((SELECT max(sort_key) FROM %1$s WHERE %2$s = :parentId), 0) + :gap
+            WHERE id = :id
+            """;
+
+    private static final String LOCK_PARENT_SQL = "SELECT id FROM %3$s WHERE id = :parentId FOR UPDATE";
+
+    // Прежний порядок (sort_key, id) сохраняется, номера order не меняются
+    private static final String REBALANCE_SQL = """
+            UPDATE %1$s t SET sort_key = r.pos * :gap
+            FROM (SELECT id, row_number() OVER (ORDER BY sort_key, id) AS pos FROM %1$s WHERE %2$s = :parentId) r
+            WHERE t.id = r.id AND t.sort_key <> r.pos * :gap
+            """;
+
+    // Номера order для набора детей, которые идут не по родителю (страницы по id, отдельные сущности):
+    // одна оконная функция по детям их родителей в порядке индекса (parent, sort_key, id).
+    // Ребенок без родителя в ответ не попадает
+    private static final String POSITIONS_SQL = """
+            SELECT id, position FROM (
+                SELECT id, row_number() OVER (PARTITION BY %2$s ORDER BY sort_key, id) AS position FROM %1$s
+                WHERE %2$s IN (SELECT %2$s FROM %1$s WHERE id = ANY (CAST(:ids AS bigint[])))
+            ) t
+            WHERE id = ANY (CAST(:ids AS bigint[]))
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Состояние родителя после записи: сколько у него детей, сколько из них в списке, сколько разных ключей
+    public record OrderCheck(long children, long listed, long distinctKeys) {
+    }
+
+    // Заблокированный ребенок-якорь и его ключ
+    public record Position(long id, long parentId, long sortKey) {
+    }
+
+    private enum Children {
+        LESSONS("lessons", "chapter_id", "chapters"),
+        CHAPTERS("chapters", "course_id", "courses");
+
+        private final String table;
+        private final String parentColumn;
+        private final String parentTable;
+
+        Children(String table, String parentColumn, String parentTable) {
+            this.table = table;
+            this.parentColumn = parentColumn;
+            this.parentTable = parentTable;
+        }
+
+        String sql(String template) {
+            return template.formatted(table, parentColumn, parentTable);
+        }
+    }
+
+    // Возвращает число переписанных строк
+    public int reorderLessons(long chapterId, List<Long> lessonIds) {
+        return reorder(Children.LESSONS, chapterId, lessonIds);
+    }
+
+    public int reorderChapters(long courseId, List<Long> chapterIds) {
+        return reorder(Children.CHAPTERS, courseId, chapterIds);
+    }
+
+    public OrderCheck checkLessonOrder(long chapterId, List<Long> lessonIds) {
+        return check(Children.LESSONS, chapterId, lessonIds);
+    }
+
+    public OrderCheck checkChapterOrder(long courseId, List<Long> chapterIds) {
+        return check(Children.CHAPTERS, courseId, chapterIds);
+    }
+
+    // Пусто, если урока нет или он вне главы
+    public Optional<Position> lockLesson(long lessonId) {
+        return lock(Children.LESSONS, lessonId);
+    }
+
+    public Optional<Position> lockChapter(long chapterId) {
+        return lock(Children.CHAPTERS, chapterId);
+    }
+
+    // Ключ соседа якоря после него (after) или перед ним; null, если якорь крайний
+    public Long neighborLessonKey(Position anchor, boolean after) {
+        return neighbor(Children.LESSONS, anchor, after);
+    }
+
+    public Long neighborChapterKey(Position anchor, boolean after) {
+        return neighbor(Children.CHAPTERS, anchor, after);
+    }
+
+    // Ключ в конец родителя; без родителя - первый ключ
+    public long appendLessonKey(Long chapterId) {
+        return append(Children.LESSONS, chapterId);
+    }
+
+    public long appendChapterKey(Long courseId) {
+        return append(Children.CHAPTERS, courseId);
+    }
+
+    // Перенос в другого родителя: ребенок встает в его конец
+    public void moveLessonToEnd(long lessonId, Long chapterId) {
+        moveToEnd(Children.LESSONS, lessonId, chapterId);
+    }
+
+    public void moveChapterToEnd(long chapterId, Long courseId) {
+        moveToEnd(Children.CHAPTERS, chapterId, courseId);
+    }
+
+    // Ключи родителя заново с шагом SORT_KEY_GAP; возвращает число переписанных строк, 0 - родителя уже нет
+    public int rebalanceLessons(long chapterId) {
+        return rebalance(Children.LESSONS, chapterId);
+    }
+
+    public int rebalanceChapters(long courseId) {
+        return rebalance(Children.CHAPTERS, courseId);
+    }
+
+    // id урока -> номер внутри главы
+    public Map<Long, Integer> lessonPositions(Collection<Long> lessonIds) {
+        return positions(Children.LESSONS, lessonIds);
+    }
+
+    public Map<Long, Integer> chapterPositions(Collection<Long> chapterIds) {
+        return positions(Children.CHAPTERS, chapterIds);
+    }
+
+    private int reorder(Children children, long parentId, List<Long> ids) {
+        return jdbcTemplate.update(children.sql(REORDER_SQL), params(parentId, ids)
+                .addValue("gap", SORT_KEY_GAP)
+                .addValue("updatedTime", LocalDateTime.now()));
+    }
+
+    private OrderCheck check(Children children, long parentId, List<Long> ids) {
+        return jdbcTemplate.queryForObject(children.sql(CHECK_SQL), params(parentId, ids),
+                (rs, i) -> new OrderCheck(rs.getLong("children"), rs.getLong("listed"), rs.getLong("distinct_keys")));
+    }
+
+    private Optional<Position> lock(Children children, long id) {
+        return jdbcTemplate.query(children.sql(LOCK_SQL), new MapSqlParameterSource("id", id),
+                        (rs, i) -> new Position(rs.getLong("id"), rs.getLong("parent_id"), rs.getLong("sort_key")))
+                .stream()
+                .findFirst();
+    }
+
+    private Long neighbor(Children children, Position anchor, boolean after) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("parentId", anchor.parentId())
+                .addValue("sortKey", anchor.sortKey())
+                .addValue("id", anchor.id());
+        return jdbcTemplate.queryForList(children.sql(after ? NEXT_SQL : PREVIOUS_SQL), params, Long.class)
+                .stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private long append(Children children, Long parentId) {
+        if (parentId == null) {
+            return SORT_KEY_GAP;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("parentId", parentId)
+                .addValue("gap", SORT_KEY_GAP);
+        // Родителя нет - вставку отклонит внешний ключ
+        return jdbcTemplate.queryForList(children.sql(APPEND_SQL), params, Long.class)
+                .stream()
+                .findFirst()
+                .orElse(SORT_KEY_GAP);
+    }
+
+    private void moveToEnd(Children children, long id, Long parentId) {
+        jdbcTemplate.update(children.sql(MOVE_TO_END_SQL), new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("parentId", parentId)
+                .addValue("gap", SORT_KEY_GAP));
+    }
+
+    private int rebalance(Children children, long parentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("parentId", parentId)
+                .addValue("gap", SORT_KEY_GAP);
+        if (jdbcTemplate.queryForList(children.sql(LOCK_PARENT_SQL), params, Long.class).isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(children.sql(REBALANCE_SQL), params);
+    }
+
+    private Map<Long, Integer> positions(Children children, Collection<Long> ids) {
+        Map<Long, Integer> positions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return positions;
+        }
+        jdbcTemplate.query(children.sql(POSITIONS_SQL), new MapSqlParameterSource("ids", ids.toArray(Long[]::new)),
+                rs -> {
+                    positions.put(rs.getLong("id"), rs.getInt("position"));
+                });
+        return positions;
+    }
+
+    // Массив, а не коллекция: коллекцию NamedParameterJdbcTemplate развернул бы в список параметров
+    private static MapSqlParameterSource params(long parentId, List<Long> ids) {
+        return new MapSqlParameterSource()
+                .addValue("parentId", parentId)
+                .addValue("ids", ids.toArray(Long[]::new));
+    }
+}
@@ -0,0 +1,62 @@
+package kz.test.lmssystem.repository;
+
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.SearchResultDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Поиск по generated-колонкам search_vector (GIN), которых нет в JPA-сущностях
+@Repository
+@RequiredArgsConstructor
+@Timed(MetricsConfig.REPOSITORY_TIMER)
+public class SearchRepository {
+
+    // Каждая ветка отдает только свои лучшие offset + limit совпадений (top-N по rank вместо сортировки всех),
+    // общий порядок и страница выбираются уже из них
+    private static final String SEARCH_SQL = """
+            SELECT type, id, name, parent_id, rank FROM (
+                (SELECT 'course' AS type, c.id, c.name, CAST(NULL AS bigint) AS parent_id,
+                        ts_rank(c.search_vector, q) AS rank
+                 FROM courses c CROSS JOIN to_tsquery('simple', :query) q
+                 WHERE c.search_vector @@ q
+                 ORDER BY rank DESC, id
+                 LIMIT :window)
+                UNION ALL
+                (SELECT 'chapter', ch.id, ch.name, ch.course_id, ts_rank(ch.search_vector, q) AS rank
+                 FROM chapters ch CROSS JOIN to_tsquery('simple', :query) q
+                 WHERE ch.search_vector @@ q
+                 ORDER BY rank DESC, id
+                 LIMIT :window)
+                UNION ALL
+                (SELECT 'lesson', l.id, l.name, l.chapter_id, ts_rank(l.search_vector, q) AS rank
+                 FROM lessons l CROSS JOIN to_tsquery('simple', :query) q
+                 WHERE l.search_vector @@ q
+                 ORDER BY rank DESC, id
+                 LIMIT :window)
+            ) hits
+            ORDER BY rank DESC, type, id
+            LIMIT :limit OFFSET :offset
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // tsQuery - уже собранный запрос to_tsquery, например "java & sprin:*"
+    public List<SearchResultDto> search(String tsQuery, int offset, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", tsQuery)
+                .addValue("offset", offset)
+                .addValue("limit", limit)
+                .addValue("window", offset + limit);
+        return jdbcTemplate.query(SEARCH_SQL, params, (rs, i) -> new SearchResultDto(
+                rs.getString("type"),
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getObject("parent_id", Long.class),
+                rs.getFloat("rank")));
+    }
+}
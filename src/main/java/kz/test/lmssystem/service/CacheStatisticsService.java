@@ -0,0 +1,12 @@
+package kz.test.lmssystem.service;
+
+import kz.test.lmssystem.dto.CacheRegionStatisticsDto;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public interface CacheStatisticsService {
+
+    List<CacheRegionStatisticsDto> getRegionStatistics();
+}
@@ -0,0 +1,11 @@
+package kz.test.lmssystem.service;
+
+import kz.test.lmssystem.dto.GenerationReportDto;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface CatalogGeneratorService {
+
+    // Средние по каталогу; фактическое число глав курса и уроков главы разбросано вокруг них
+    GenerationReportDto generate(int courses, int chaptersPerCourse, int lessonsPerChapter, long seed);
+}
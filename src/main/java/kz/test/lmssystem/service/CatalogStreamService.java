@@ -0,0 +1,20 @@
+package kz.test.lmssystem.service;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+// Реактивное чтение каталога; запись остается в JPA-сервисах. limit == null - до конца.
+// Курсы: after - id последнего полученного курса. Дети: after - cursor последнего полученного элемента
+// (или nextCursor страницы), испорченный курсор - поток завершается InvalidCursorException
+@Service
+public interface CatalogStreamService {
+
+    Flux<CourseDto> streamCourses(Long after, Long limit);
+
+    Flux<ChapterDto> streamChaptersByCourseId(Long courseId, String after, Long limit);
+
+    Flux<LessonDto> streamLessonsByChapterId(Long chapterId, String after, Long limit);
+}
@@ -1,6 +1,11 @@
 package kz.test.lmssystem.service;
 
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.ChapterPatchDto;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Chapter;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -8,17 +13,45 @@ import java.util.List;
 @Service
 public interface ChapterService {
 
-    List<Chapter> getAllChapters();
+    Slice<Chapter> getChapters(Long after, int limit, FetchPlan fetchPlan);
+
+    Slice<ChapterSummaryDto> getChapterSummaries(Long after, int limit);
 
     Chapter getChapterById(Long id);
 
     Chapter getChapterByName(String name);
 
+    // Номер order главы для ответа с одной главой: в кэше вместе с главой он не хранится
+    ChapterDto withOrder(ChapterDto chapter);
+
     void updateChapter(Chapter chapter);
 
+    // Меняет только непустые поля patch; устаревшая patch.version() - OptimisticLockingFailureException
+    Chapter patchChapter(Long id, ChapterPatchDto patch);
+
     void saveChapter(Chapter chapter);
 
+    void saveChapters(List<Chapter> chapters);
+
+    // Новая глава в курсе главы chapterId, сразу перед ней или после нее
+    void insertChapterBefore(Long chapterId, Chapter chapter);
+
+    void insertChapterAfter(Long chapterId, Chapter chapter);
+
+    // Глава удаляется вместе со всеми уроками
     void deleteChapterById(Long id);
 
-    List<Chapter> getChapterByCourseId(Long courseId);
+    void deleteChapters(List<Long> ids);
+
+    // lessonIds - все уроки главы в новом порядке
+    void reorderLessons(Long chapterId, List<Long> lessonIds);
+
+    // after - nextCursor предыдущей страницы, null - первая страница; испорченный курсор - InvalidCursorException
+    KeysetSlice<Chapter> getChapterByCourseId(Long courseId, String after, int limit, FetchPlan fetchPlan);
+
+    KeysetSlice<ChapterSummaryDto> getChapterSummariesByCourseId(Long courseId, String after, int limit);
+
+    VersionStamp getChaptersVersion();
+
+    VersionStamp getChaptersVersionByCourseId(Long courseId);
 }
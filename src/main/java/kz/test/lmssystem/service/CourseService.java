@@ -1,6 +1,11 @@
 package kz.test.lmssystem.service;
 
+import kz.test.lmssystem.dto.CoursePatchDto;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Course;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -8,16 +13,35 @@ import java.util.List;
 @Service
 public interface CourseService {
 
-    List<Course> getAllCourses();
+    Slice<Course> getCourses(Long after, int limit);
+
+    Slice<CourseSummaryDto> getCourseSummaries(Long after, int limit);
 
     Course getCourseById(Long id);
 
     Course getCourseByName(String name);
 
+    CourseTreeDto getCourseTree(Long id);
+
+    VersionStamp getCoursesVersion();
+
+    VersionStamp getCourseTreeVersion(Long id);
+
     void updateCourse(Course course);
 
+    // Меняет только непустые поля patch; устаревшая patch.version() - OptimisticLockingFailureException
+    Course patchCourse(Long id, CoursePatchDto patch);
+
     void saveCourse(Course course);
 
+    void saveCourses(List<Course> courses);
+
+    // Курс удаляется вместе со всеми главами и уроками
     void deleteCourseById(Long id);
 
+    void deleteCourses(List<Long> ids);
+
+    // chapterIds - все главы курса в новом порядке
+    void reorderChapters(Long courseId, List<Long> chapterIds);
+
 }
@@ -0,0 +1,16 @@
+package kz.test.lmssystem.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Service
+public interface ExportService {
+
+    long exportCourses(OutputStream out) throws IOException;
+
+    long exportChapters(OutputStream out) throws IOException;
+
+    long exportLessons(OutputStream out) throws IOException;
+}
@@ -0,0 +1,11 @@
+package kz.test.lmssystem.service;
+
+// Какие связи загружать вместе со списком. Определяет число SQL-запросов на страницу
+public enum FetchPlan {
+
+    // Только колонки самой сущности, родители доступны по id (chapterId, courseId)
+    FLAT,
+
+    // Вся цепочка Lesson -> Chapter -> Course одним запросом через JOIN
+    FULL
+}
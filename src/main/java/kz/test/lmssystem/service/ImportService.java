@@ -0,0 +1,17 @@
+package kz.test.lmssystem.service;
+
+import kz.test.lmssystem.dto.ImportReportDto;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Service
+public interface ImportService {
+
+    ImportReportDto importCourses(InputStream ndjson) throws IOException;
+
+    ImportReportDto importChapters(InputStream ndjson) throws IOException;
+
+    ImportReportDto importLessons(InputStream ndjson) throws IOException;
+}
@@ -1,6 +1,11 @@
 package kz.test.lmssystem.service;
 
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.dto.LessonPatchDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Lesson;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -8,19 +13,47 @@ import java.util.List;
 @Service
 public interface LessonService {
 
-    List<Lesson> getAllLessons();
+    Slice<Lesson> getLessons(Long after, int limit, FetchPlan fetchPlan);
+
+    Slice<LessonSummaryDto> getLessonSummaries(Long after, int limit);
 
     Lesson getLessonById(Long id);
 
     Lesson getLessonsByName(String name);
 
+    // Номер order урока (и встроенной главы) для ответа с одним уроком: в кэше вместе с уроком он не хранится
+    LessonDto withOrder(LessonDto lesson);
+
     void updateLesson(Lesson lesson);
 
+    // Меняет только непустые поля patch; устаревшая patch.version() - OptimisticLockingFailureException
+    Lesson patchLesson(Long id, LessonPatchDto patch);
+
     void saveLesson(Lesson lesson);
 
+    void saveLessons(List<Lesson> lessons);
+
+    // Новый урок в главе урока lessonId, сразу перед ним или после него
+    void insertLessonBefore(Long lessonId, Lesson lesson);
+
+    void insertLessonAfter(Long lessonId, Lesson lesson);
+
     void deleteLessonById(Long id);
 
-    List<Lesson> getLessonsByChapterId(Long chapterId);
+    void deleteLessons(List<Long> ids);
+
+    // after - nextCursor предыдущей страницы, null - первая страница; испорченный курсор - InvalidCursorException
+    KeysetSlice<Lesson> getLessonsByChapterId(Long chapterId, String after, int limit, FetchPlan fetchPlan);
+
+    KeysetSlice<Lesson> getLessonsByCourseId(Long courseId, String after, int limit, FetchPlan fetchPlan);
+
+    KeysetSlice<LessonSummaryDto> getLessonSummariesByChapterId(Long chapterId, String after, int limit);
+
+    KeysetSlice<LessonSummaryDto> getLessonSummariesByCourseId(Long courseId, String after, int limit);
+
+    VersionStamp getLessonsVersion();
+
+    VersionStamp getLessonsVersionByChapterId(Long chapterId);
 
-    List<Lesson> getLessonsByCourseId(Long courseId);
+    VersionStamp getLessonsVersionByCourseId(Long courseId);
 }
@@ -0,0 +1,11 @@
+package kz.test.lmssystem.service;
+
+import kz.test.lmssystem.dto.SearchResultDto;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+@Service
+public interface SearchService {
+
+    Slice<SearchResultDto> search(String query, int offset, int limit);
+}
@@ -0,0 +1,194 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.ReplicaDataSource;
+import kz.test.lmssystem.config.TaggedCaffeineCache;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.service.impl.CatalogCacheTagger.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static kz.test.lmssystem.service.impl.CatalogCacheTagger.chapter;
+import static kz.test.lmssystem.service.impl.CatalogCacheTagger.course;
+import static kz.test.lmssystem.service.impl.CatalogCacheTagger.lesson;
+import static kz.test.lmssystem.service.impl.CatalogCacheTagger.parent;
+
+// Точечная очистка кэша сервисов после записи. Старое состояние сущности не запрашивается:
+// записи, где она лежит (по имени, в списках старого родителя), находятся по меткам CatalogCacheTagger
+// через индекс кэша, без обхода его значений.
+// В транзакции очистка откладывается до коммита, чтобы параллельное чтение не закэшировало старые данные.
+// При репликах она повторяется через max-lag: чтение другого клиента с реплики, еще не получившей запись,
+// могло положить в кэш старое состояние.
+// Готовые ответы (ключ содержит версию) после записи уже не совпадут и очищаются целиком, чтобы не занимать память
+@Component
+class CatalogCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final ChapterRepository chapterRepository;
+    private final Duration repeatAfter;
+
+    @Autowired
+    CatalogCacheEvictor(CacheManager cacheManager, ChapterRepository chapterRepository,
+                        ReplicaDataSource replicaDataSource) {
+        this(cacheManager, chapterRepository, replicaDataSource.staleReadWindow());
+    }
+
+    // repeatAfter - задержка повторной очистки, Duration.ZERO - без повтора
+    CatalogCacheEvictor(CacheManager cacheManager, ChapterRepository chapterRepository, Duration repeatAfter) {
+        this.cacheManager = cacheManager;
+        this.chapterRepository = chapterRepository;
+        this.repeatAfter = repeatAfter;
+    }
+
+    // Курс встроен в главы (и в уроки через главу), загруженные с FetchPlan.FULL
+    void evictCourse(Long courseId) {
+        afterCommit(() -> {
+            cache(CacheConfig.COURSES).evict(courseId);
+            Set<Tag> embedsCourse = Set.of(course(courseId));
+            Set<Tag> listsOrEmbedsCourse = Set.of(parent(courseId), course(courseId));
+            evictTagged(CacheConfig.COURSES_BY_NAME, embedsCourse);
+            evictTagged(CacheConfig.CHAPTERS, embedsCourse);
+            evictTagged(CacheConfig.CHAPTERS_BY_NAME, embedsCourse);
+            evictTagged(CacheConfig.CHAPTERS_BY_COURSE, listsOrEmbedsCourse);
+            evictTagged(CacheConfig.LESSONS, embedsCourse);
+            evictTagged(CacheConfig.LESSONS_BY_NAME, embedsCourse);
+            evictTagged(CacheConfig.LESSONS_BY_CHAPTER, embedsCourse);
+            evictTagged(CacheConfig.LESSONS_BY_COURSE, listsOrEmbedsCourse);
+            cache(CacheConfig.COURSE_TREES).evict(courseId);
+            cache(CacheConfig.RESPONSES).clear();
+        });
+    }
+
+    // courseId - курс, в котором глава находится после записи (null при удалении)
+    void evictChapter(Long chapterId, Long courseId) {
+        afterCommit(() -> {
+            cache(CacheConfig.CHAPTERS).evict(chapterId);
+            Set<Tag> inCourse = tags(parent(courseId), chapter(chapterId));
+            evictTagged(CacheConfig.CHAPTERS_BY_NAME, Set.of(chapter(chapterId)));
+            evictTagged(CacheConfig.CHAPTERS_BY_COURSE, inCourse);
+            evictTagged(CacheConfig.LESSONS, Set.of(chapter(chapterId)));
+            evictTagged(CacheConfig.LESSONS_BY_NAME, Set.of(chapter(chapterId)));
+            evictTagged(CacheConfig.LESSONS_BY_CHAPTER, Set.of(parent(chapterId), chapter(chapterId)));
+            evictTagged(CacheConfig.LESSONS_BY_COURSE, inCourse);
+            evictTagged(CacheConfig.COURSE_TREES, inCourse);
+            cache(CacheConfig.RESPONSES).clear();
+        });
+    }
+
+    // chapterId - глава, в которой урок находится после записи (null при удалении).
+    // Курс главы берется из кэша второго уровня Hibernate
+    void evictLesson(Long lessonId, Long chapterId) {
+        Long courseId = chapterId == null ? null
+                : chapterRepository.findById(chapterId).map(Chapter::getCourseId).orElse(null);
+        afterCommit(() -> {
+            cache(CacheConfig.LESSONS).evict(lessonId);
+            Set<Tag> inCourse = tags(parent(courseId), lesson(lessonId));
+            evictTagged(CacheConfig.LESSONS_BY_NAME, Set.of(lesson(lessonId)));
+            evictTagged(CacheConfig.LESSONS_BY_CHAPTER, tags(parent(chapterId), lesson(lessonId)));
+            evictTagged(CacheConfig.LESSONS_BY_COURSE, inCourse);
+            evictTagged(CacheConfig.COURSE_TREES, inCourse);
+            cache(CacheConfig.RESPONSES).clear();
+        });
+    }
+
+    // Удаление множеством: одна выборка по индексу на каждый затронутый родитель. courseIds - удаленные курсы
+    // и курсы, у которых удалены главы; chapterIds - удаленные главы и главы, у которых удалены уроки.
+    // Сбрасываются и оставшиеся дети этих родителей: их order сдвинулся
+    void evictSubtrees(Collection<Long> courseIds, Collection<Long> chapterIds) {
+        Set<Tag> courses = tags(courseIds, CatalogCacheTagger::course);
+        Set<Tag> chapters = tags(chapterIds, CatalogCacheTagger::chapter);
+        Set<Tag> courseLists = tags(courseIds, CatalogCacheTagger::parent);
+        Set<Tag> chapterLists = tags(chapterIds, CatalogCacheTagger::parent);
+        Set<Tag> affected = union(courses, chapters);
+        afterCommit(() -> {
+            evictTagged(CacheConfig.COURSES, courses);
+            evictTagged(CacheConfig.COURSES_BY_NAME, courses);
+            evictTagged(CacheConfig.CHAPTERS, affected);
+            evictTagged(CacheConfig.CHAPTERS_BY_NAME, affected);
+            evictTagged(CacheConfig.CHAPTERS_BY_COURSE, union(courseLists, affected));
+            evictTagged(CacheConfig.LESSONS, affected);
+            evictTagged(CacheConfig.LESSONS_BY_NAME, affected);
+            evictTagged(CacheConfig.LESSONS_BY_CHAPTER, union(chapterLists, affected));
+            evictTagged(CacheConfig.LESSONS_BY_COURSE, union(courseLists, affected));
+            evictTagged(CacheConfig.COURSE_TREES, union(courseLists, chapters));
+            cache(CacheConfig.RESPONSES).clear();
+        });
+    }
+
+    // Массовая загрузка мимо JPA: списки по родителю сбрасываются целиком
+    void clear(String... cacheNames) {
+        afterCommit(() -> {
+            for (String cacheName : cacheNames) {
+                cache(cacheName).clear();
+            }
+        });
+    }
+
+    // Кэш без индекса меток очищается целиком
+    private void evictTagged(String cacheName, Set<Tag> tags) {
+        if (cache(cacheName) instanceof TaggedCaffeineCache tagged) {
+            tagged.evictTagged(tags);
+        } else {
+            cache(cacheName).clear();
+        }
+    }
+
+    private Cache cache(String cacheName) {
+        return Objects.requireNonNull(cacheManager.getCache(cacheName), cacheName);
+    }
+
+    void afterCommit(Runnable eviction) {
+        Runnable evictAndRepeat = repeatAfter.isZero() ? eviction : () -> {
+            eviction.run();
+            CompletableFuture.runAsync(eviction,
+                    CompletableFuture.delayedExecutor(repeatAfter.toMillis(), TimeUnit.MILLISECONDS));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndRepeat.run();
+                }
+            });
+        } else {
+            evictAndRepeat.run();
+        }
+    }
+
+    // Метка без id (родитель удаленной записи) не добавляется
+    private static Set<Tag> tags(Tag... tags) {
+        Set<Tag> result = new HashSet<>();
+        for (Tag tag : tags) {
+            if (tag.id() != null) {
+                result.add(tag);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Tag> tags(Collection<Long> ids, Function<Long, Tag> tagOf) {
+        Set<Tag> result = new HashSet<>();
+        ids.forEach(id -> result.add(tagOf.apply(id)));
+        return result;
+    }
+
+    private static Set<Tag> union(Set<Tag> first, Set<Tag> second) {
+        Set<Tag> result = new HashSet<>(first);
+        result.addAll(second);
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.config.CacheTagger;
+import kz.test.lmssystem.config.ParentPageKey;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+import kz.test.lmssystem.dto.ChapterTreeDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.LessonTreeDto;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Метки записей кэша каталога: родитель из ключа списка и id всех курсов, глав и уроков внутри значения,
+// включая встроенные (курс главы, глава урока). По ним CatalogCacheEvictor находит записи, которые задела запись
+@Component
+class CatalogCacheTagger implements CacheTagger {
+
+    enum Kind { PARENT, COURSE, CHAPTER, LESSON }
+
+    record Tag(Kind kind, Long id) {
+    }
+
+    static Tag parent(Long id) {
+        return new Tag(Kind.PARENT, id);
+    }
+
+    static Tag course(Long id) {
+        return new Tag(Kind.COURSE, id);
+    }
+
+    static Tag chapter(Long id) {
+        return new Tag(Kind.CHAPTER, id);
+    }
+
+    static Tag lesson(Long id) {
+        return new Tag(Kind.LESSON, id);
+    }
+
+    // Значение кэша - сущность, список или Slice. Ключ Long в кэше списка - родитель, в кэше по id - сама запись
+    @Override
+    public Set<Object> tags(Object key, Object value) {
+        Set<Object> tags = new HashSet<>();
+        if (key instanceof Long id) {
+            tags.add(parent(id));
+        } else if (key instanceof ParentPageKey page) {
+            tags.add(parent(page.parentId()));
+        }
+        if (value instanceof Iterable<?> elements) {
+            elements.forEach(element -> addElement(tags, element));
+        } else {
+            addElement(tags, value);
+        }
+        tags.removeIf(tag -> ((Tag) tag).id() == null);
+        return tags;
+    }
+
+    private static void addElement(Set<Object> tags, Object element) {
+        if (element instanceof Course course) {
+            tags.add(course(course.getId()));
+        } else if (element instanceof Chapter chapter) {
+            tags.add(chapter(chapter.getId()));
+            tags.add(course(chapter.getCourseId()));
+        } else if (element instanceof ChapterSummaryDto summary) {
+            tags.add(chapter(summary.id()));
+        } else if (element instanceof Lesson lesson) {
+            tags.add(lesson(lesson.getId()));
+            tags.add(chapter(lesson.getChapterId()));
+            // Курс внутри урока есть, только если глава была загружена
+            if (Hibernate.isInitialized(lesson.getChapter()) && lesson.getChapter() != null) {
+                tags.add(course(lesson.getChapter().getCourseId()));
+            }
+        } else if (element instanceof LessonSummaryDto summary) {
+            tags.add(lesson(summary.id()));
+            tags.add(chapter(summary.chapterId()));
+        } else if (element instanceof CourseTreeDto tree) {
+            tags.add(course(tree.id()));
+            for (ChapterTreeDto chapter : tree.chapters()) {
+                tags.add(chapter(chapter.id()));
+                for (LessonTreeDto lesson : chapter.lessons()) {
+                    tags.add(lesson(lesson.id()));
+                }
+            }
+        }
+    }
+}
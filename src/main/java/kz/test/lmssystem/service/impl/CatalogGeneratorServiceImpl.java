@@ -0,0 +1,307 @@
+package kz.test.lmssystem.service.impl;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.GenerationReportDto;
+import kz.test.lmssystem.repository.CopyRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.service.CatalogGeneratorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static kz.test.lmssystem.repository.CopyRepository.COPY_CHAPTERS;
+import static kz.test.lmssystem.repository.CopyRepository.COPY_COURSES;
+import static kz.test.lmssystem.repository.CopyRepository.COPY_LESSONS;
+import static kz.test.lmssystem.repository.CopyRepository.appendText;
+
+// Синтетический каталог для проверки на объемах: размеры курсов и глав - логнормальные вокруг средних
+// (немного крупных, много мелких), слова в названиях и описаниях - по закону Ципфа.
+// Каждая сущность получает свой поток случайных чисел от (seed, вид, порядковый номер), поэтому
+// результат зависит только от seed и параметров, а увеличение числа курсов не меняет уже созданные
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class CatalogGeneratorServiceImpl implements CatalogGeneratorService {
+
+    // В порядке убывания частоты, языки как в реальном каталоге
+    private static final String[] WORDS = {
+            "and", "introduction", "to", "basics", "java", "data", "of", "the", "advanced", "course",
+            "основы", "в", "и", "programming", "web", "design", "python", "практика", "for", "with",
+            "spring", "development", "модуль", "sql", "system", "работа", "с", "applications", "testing", "api",
+            "негіздері", "databases", "security", "cloud", "architecture", "patterns", "алгоритмы", "структуры",
+            "данных", "machine", "learning", "analysis", "network", "frontend", "backend", "mobile", "devops",
+            "docker", "kubernetes", "микросервисы", "тестирование", "javascript", "typescript", "react", "linux",
+            "оқу", "бағдарламалау", "git", "performance", "optimization", "концепции", "управление", "проектами",
+            "agile", "scrum", "statistics", "mathematics", "algebra", "геометрия", "физика", "economics",
+            "marketing", "finance", "accounting", "менеджмент", "english", "grammar", "vocabulary", "қазақ",
+            "тілі", "история", "literature", "writing", "communication", "leadership", "product", "ux", "research",
+            "visualization", "excel", "tableau", "hadoop", "kafka", "streaming", "concurrency", "multithreading",
+            "collections", "generics", "exceptions", "interfaces", "inheritance", "polymorphism", "encapsulation",
+            "refactoring", "ci", "cd", "monitoring", "logging", "caching", "indexing", "transactions", "replication",
+            "sharding", "postgresql", "hibernate", "jpa", "rest", "graphql", "grpc", "oauth", "jwt", "кэширование",
+            "индексы", "транзакции", "деректер", "қауіпсіздік"
+    };
+    private static final double[] WORD_CDF = zipfCdf(WORDS.length);
+
+    // Виды потоков случайных чисел
+    private static final int COURSE_FANOUT = 1;
+    private static final int CHAPTER_FANOUT = 2;
+    private static final int COURSE_TEXT = 3;
+    private static final int CHAPTER_TEXT = 4;
+    private static final int LESSON_TEXT = 5;
+
+    // Самый крупный курс или глава - не больше стольких средних
+    private static final int MAX_FANOUT_FACTOR = 20;
+    private static final double NULL_DESCRIPTION_RATE = 0.05;
+    // Медианная длина описания в словах
+    private static final int COURSE_DESCRIPTION_WORDS = 35;
+    private static final int CHAPTER_DESCRIPTION_WORDS = 12;
+    private static final int LESSON_DESCRIPTION_WORDS = 20;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int TIME_SPAN_MINUTES = 2 * 365 * 24 * 60;
+    private static final int MAX_EDIT_DELAY_MINUTES = 90 * 24 * 60;
+
+    private final CopyRepository copyRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogCacheEvictor cacheEvictor;
+
+    @Value("${lms.generator.chunk-size:50000}")
+    private int chunkSize = 50000;
+
+    // sigma логнормального разброса размеров: 0 - все курсы и главы одного размера
+    @Value("${lms.generator.skew:1.0}")
+    private double skew = 1.0;
+
+    // Очистить каталог и последовательности: тогда с тем же seed совпадают и id.
+    // Удаляет весь каталог, поэтому включается только явно
+    @Value("${lms.generator.truncate:false}")
+    private boolean truncate;
+
+    @Override
+    public GenerationReportDto generate(int courses, int chaptersPerCourse, int lessonsPerChapter, long seed) {
+        log.info("Generating catalog: {} courses x {} chapters x {} lessons on average, seed {}, skew {}",
+                courses, chaptersPerCourse, lessonsPerChapter, seed, skew);
+        long start = System.nanoTime();
+        if (truncate) {
+            copyRepository.truncateCatalog();
+        }
+
+        // Размеры считаются заранее: так известны объемы проходов, а id родителей - к началу прохода детей
+        int[] chaptersOfCourse = new int[courses];
+        long chapters = 0;
+        for (int course = 0; course < courses; course++) {
+            chaptersOfCourse[course] = fanout(random(seed, COURSE_FANOUT, course), chaptersPerCourse);
+            chapters += chaptersOfCourse[course];
+        }
+        int[] lessonsOfChapter = new int[Math.toIntExact(chapters)];
+        long lessons = 0;
+        for (int chapter = 0; chapter < lessonsOfChapter.length; chapter++) {
+            lessonsOfChapter[chapter] = fanout(random(seed, CHAPTER_FANOUT, chapter), lessonsPerChapter);
+            lessons += lessonsOfChapter[chapter];
+        }
+        log.info("Catalog plan: {} courses, {} chapters, {} lessons", courses, chapters, lessons);
+
+        long[] courseIds = new long[courses];
+        long copiedCourses = copy("courses", COPY_COURSES, "courses_seq", courses, (csv, ordinal, id) -> {
+            courseIds[(int) ordinal] = id;
+            SplittableRandom random = random(seed, COURSE_TEXT, ordinal);
+            appendRow(csv, id, name(random, 2, 6), description(random, COURSE_DESCRIPTION_WORDS), random);
+        });
+
+        long[] chapterIds = new long[lessonsOfChapter.length];
+        Cursor courseCursor = new Cursor(chaptersOfCourse);
+        long copiedChapters = copy("chapters", COPY_CHAPTERS, "chapters_seq", chapters, (csv, ordinal, id) -> {
+            chapterIds[(int) ordinal] = id;
+            int course = courseCursor.next();
+            SplittableRandom random = random(seed, CHAPTER_TEXT, ordinal);
+            appendChildRow(csv, id, name(random, 2, 5), description(random, CHAPTER_DESCRIPTION_WORDS),
+                    courseCursor.order, courseIds[course], random);
+        });
+
+        Cursor chapterCursor = new Cursor(lessonsOfChapter);
+        long copiedLessons = copy("lessons", COPY_LESSONS, "lessons_seq", lessons, (csv, ordinal, id) -> {
+            int chapter = chapterCursor.next();
+            SplittableRandom random = random(seed, LESSON_TEXT, ordinal);
+            appendChildRow(csv, id, name(random, 2, 7), description(random, LESSON_DESCRIPTION_WORDS),
+                    chapterCursor.order, chapterIds[chapter], random);
+        });
+
+        copyRepository.analyzeCatalog();
+        // COPY идет мимо Hibernate и сервисов: сбрасываем все кэши каталога
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        cacheEvictor.clear(CacheConfig.COURSES, CacheConfig.COURSES_BY_NAME, CacheConfig.CHAPTERS,
+                CacheConfig.CHAPTERS_BY_NAME, CacheConfig.CHAPTERS_BY_COURSE, CacheConfig.LESSONS,
+                CacheConfig.LESSONS_BY_NAME, CacheConfig.LESSONS_BY_CHAPTER, CacheConfig.LESSONS_BY_COURSE,
+                CacheConfig.COURSE_TREES, CacheConfig.RESPONSES);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Generated {} courses, {} chapters, {} lessons in {} ms",
+                copiedCourses, copiedChapters, copiedLessons, elapsedMs);
+        return GenerationReportDto.builder()
+                .seed(seed)
+                .courses(copiedCourses)
+                .chapters(copiedChapters)
+                .lessons(copiedLessons)
+                .elapsedMs(elapsedMs)
+                .build();
+    }
+
+    private long copy(String entity, String copySql, String sequence, long total, RowWriter writer) {
+        long copied = 0;
+        for (long from = 0; from < total; from += chunkSize) {
+            long chunkStart = System.nanoTime();
+            int rows = (int) Math.min(chunkSize, total - from);
+            List<Long> ids = copyRepository.reserveIds(sequence, rows);
+            StringBuilder csv = new StringBuilder(rows * 192);
+            for (int i = 0; i < rows; i++) {
+                writer.write(csv, from + i, ids.get(i));
+            }
+            copied += copyRepository.copyIn(copySql, csv.toString());
+            log.info("Generated {} of {} {}, chunk of {} rows in {} ms",
+                    copied, total, entity, rows, (System.nanoTime() - chunkStart) / 1_000_000);
+        }
+        return copied;
+    }
+
+    private static void appendRow(StringBuilder csv, long id, String name, String description,
+                                  SplittableRandom random) {
+        csv.append(id).append(',');
+        appendText(csv, name);
+        csv.append(',');
+        appendText(csv, description);
+        csv.append(',');
+        appendTimes(csv, random);
+    }
+
+    private static void appendChildRow(StringBuilder csv, long id, String name, String description, int order,
+                                       long parentId, SplittableRandom random) {
+        csv.append(id).append(',');
+        appendText(csv, name);
+        csv.append(',');
+        appendText(csv, description);
+        csv.append(',').append(order * OrderRepository.SORT_KEY_GAP).append(',').append(parentId).append(',');
+        appendTimes(csv, random);
+    }
+
+    // Большая часть записей после создания не правилась
+    private static void appendTimes(StringBuilder csv, SplittableRandom random) {
+        LocalDateTime created = EPOCH.plusMinutes(random.nextInt(TIME_SPAN_MINUTES));
+        LocalDateTime updated = random.nextDouble() < 0.7 ? created
+                : created.plusMinutes(random.nextInt(MAX_EDIT_DELAY_MINUTES));
+        csv.append(created).append(',').append(updated).append('\n');
+    }
+
+    private int fanout(SplittableRandom random, int mean) {
+        // Множитель со средним 1: среднее по каталогу остается mean при любом skew
+        double multiplier = Math.exp(skew * random.nextGaussian() - skew * skew / 2);
+        return (int) Math.max(1, Math.min((long) mean * MAX_FANOUT_FACTOR, Math.round(mean * multiplier)));
+    }
+
+    static String name(SplittableRandom random, int minWords, int maxWords) {
+        int words = random.nextInt(minWords, maxWords + 1);
+        StringBuilder name = new StringBuilder(words * 10);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                name.append(' ');
+            }
+            String word = word(random);
+            name.append(i == 0 ? capitalize(word) : word);
+        }
+        return name.toString();
+    }
+
+    // Длина в словах логнормальная вокруг медианы, текст разбит на предложения
+    static String description(SplittableRandom random, int medianWords) {
+        if (random.nextDouble() < NULL_DESCRIPTION_RATE) {
+            return null;
+        }
+        int words = (int) Math.max(3, Math.round(medianWords * Math.exp(0.6 * random.nextGaussian())));
+        StringBuilder description = new StringBuilder(words * 10);
+        int sentenceLeft = 0;
+        for (int i = 0; i < words; i++) {
+            String word = word(random);
+            if (sentenceLeft == 0) {
+                if (i > 0) {
+                    description.append(". ");
+                }
+                sentenceLeft = random.nextInt(6, 15);
+                description.append(capitalize(word));
+            } else {
+                description.append(' ').append(word);
+            }
+            sentenceLeft--;
+        }
+        return description.append('.').toString();
+    }
+
+    private static String word(SplittableRandom random) {
+        int index = Arrays.binarySearch(WORD_CDF, random.nextDouble());
+        return WORDS[index >= 0 ? index : Math.min(-index - 1, WORDS.length - 1)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static double[] zipfCdf(int size) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1.0 / rank;
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    static SplittableRandom random(long seed, int kind, long ordinal) {
+        return new SplittableRandom(mix(mix(seed + kind) + ordinal));
+    }
+
+    // Финализатор SplitMix64: соседние seed и номера дают несвязанные потоки
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(StringBuilder csv, long ordinal, long id);
+    }
+
+    // Строки детей идут подряд по родителям: next() возвращает индекс родителя очередной строки,
+    // order - ее номер внутри родителя начиная с 1
+    private static final class Cursor {
+
+        private final int[] counts;
+        private int parent;
+        private int order;
+
+        Cursor(int[] counts) {
+            this.counts = counts;
+        }
+
+        int next() {
+            while (order >= counts[parent]) {
+                parent++;
+                order = 0;
+            }
+            order++;
+            return parent;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.repository.CatalogStreamRepository;
+import kz.test.lmssystem.repository.CatalogStreamRepository.Keyed;
+import kz.test.lmssystem.service.CatalogStreamService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+// Без @Timed: метод возвращает Flux сразу, время выполнения запроса он бы не измерил
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogStreamServiceImpl implements CatalogStreamService {
+
+    private final CatalogStreamRepository catalogStreamRepository;
+
+    @Override
+    public Flux<CourseDto> streamCourses(Long after, Long limit) {
+        log.info("Streaming courses after id: {}, limit: {}", after, limit);
+        return catalogStreamRepository.streamCourses(KeysetPageRequest.after(after), streamLimit(limit));
+    }
+
+    @Override
+    public Flux<ChapterDto> streamChaptersByCourseId(Long courseId, String after, Long limit) {
+        log.info("Streaming chapters by course id: {} after: {}, limit: {}", courseId, after, limit);
+        return Mono.fromCallable(() -> PageCursor.parse(after))
+                .flatMapMany(cursor -> numbered(cursor, catalogStreamRepository.streamChaptersByCourseId(
+                        courseId, cursor.sortKey(), cursor.id(), streamLimit(limit)), ChapterDto::setOrder,
+                        ChapterDto::setCursor));
+    }
+
+    @Override
+    public Flux<LessonDto> streamLessonsByChapterId(Long chapterId, String after, Long limit) {
+        log.info("Streaming lessons by chapter id: {} after: {}, limit: {}", chapterId, after, limit);
+        return Mono.fromCallable(() -> PageCursor.parse(after))
+                .flatMapMany(cursor -> numbered(cursor, catalogStreamRepository.streamLessonsByChapterId(
+                        chapterId, cursor.sortKey(), cursor.id(), streamLimit(limit)), LessonDto::setOrder,
+                        LessonDto::setCursor));
+    }
+
+    // Номер order продолжает номер курсора: поток идет подряд внутри одного родителя.
+    // Курсор каждого элемента строится из ключа его строки и номера: продолжение потока не ищет элемент в базе
+    private static <T> Flux<T> numbered(PageCursor after, Flux<Keyed<T>> rows, ObjIntConsumer<T> setOrder,
+                                        BiConsumer<T, String> setCursor) {
+        Positions positions = new Positions(after.groupId(), after.position());
+        return rows.map(row -> {
+            int position = positions.next(after.groupId());
+            setOrder.accept(row.value(), position);
+            setCursor.accept(row.value(),
+                    PageCursor.of(row.cursor().sortKey(), row.cursor().id()).at(position).token());
+            return row.value();
+        });
+    }
+
+    // В отличие от страниц, поток не ограничен MAX_LIMIT: репозиторий читает его порциями, память и соединения
+    // не растут с длиной ответа
+    private static long streamLimit(Long limit) {
+        return limit == null ? Long.MAX_VALUE : Math.max(1, limit);
+    }
+}
@@ -1,29 +1,85 @@
 package kz.test.lmssystem.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.ChapterPatchDto;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
 import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.ChapterSummaryRow;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.repository.DeleteRepository.LockedChapter;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.Position;
 import kz.test.lmssystem.service.ChapterService;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class ChapterServiceImpl implements ChapterService {
 
     private final ChapterRepository chapterRepository;
+    private final CourseRepository courseRepository;
+    private final OrderRepository orderRepository;
+    private final DeleteRepository deleteRepository;
+    private final SortKeyRebalancer rebalancer;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogCacheEvictor cacheEvictor;
 
     @Override
-    public List<Chapter> getAllChapters() {
-        return chapterRepository.findAll();
+    @Transactional(readOnly = true)
+    public Slice<Chapter> getChapters(Long after, int limit, FetchPlan fetchPlan) {
+        log.info("Fetching chapters after id: {}, limit: {}, fetch plan: {}", after, limit, fetchPlan);
+        long cursor = KeysetPageRequest.after(after);
+        Pageable page = KeysetPageRequest.of(limit);
+        Slice<Chapter> chapters = fetchPlan == FetchPlan.FULL
+                ? chapterRepository.findWithCourseByIdGreaterThanOrderByIdAsc(cursor, page)
+                : chapterRepository.findByIdGreaterThanOrderByIdAsc(cursor, page);
+        Map<Long, Integer> positions = orderRepository.chapterPositions(
+                chapters.map(Chapter::getId).getContent());
+        chapters.forEach(chapter -> chapter.setOrder(positions.getOrDefault(chapter.getId(), 0)));
+        return chapters;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<ChapterSummaryDto> getChapterSummaries(Long after, int limit) {
+        log.info("Fetching chapter summaries after id: {}, limit: {}", after, limit);
+        Slice<ChapterSummaryRow> rows = chapterRepository.findSummariesAfter(KeysetPageRequest.after(after),
+                KeysetPageRequest.of(limit));
+        Map<Long, Integer> positions = orderRepository.chapterPositions(
+                rows.map(ChapterSummaryRow::id).getContent());
+        return rows.map(row -> row.toDto(positions.getOrDefault(row.id(), 0)));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CHAPTERS, key = "#id")
     public Chapter getChapterById(Long id) {
         log.info("Fetching chapter by id: {}", id);
         return chapterRepository.findById(id)
@@ -34,30 +90,261 @@ public class ChapterServiceImpl implements ChapterService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CHAPTERS_BY_NAME, key = "#name")
     public Chapter getChapterByName(String name) {
-        return chapterRepository.findByName(name);
+        log.info("Fetching chapter by name: {}", name);
+        Chapter chapter = chapterRepository.findByName(name);
+        if (chapter == null) {
+            log.error("Chapter with name '{}' not found", name);
+            throw new ResourceNotFoundException("Chapter", "name", name);
+        }
+        return chapter;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public ChapterDto withOrder(ChapterDto chapter) {
+        chapter.setOrder(orderRepository.chapterPositions(List.of(chapter.getId())).getOrDefault(chapter.getId(), 0));
+        return chapter;
+    }
+
+    @Override
+    @Transactional
     public void updateChapter(Chapter chapter) {
+        log.info("Updating chapter with id: {}", chapter.getId());
+        Chapter current = chapterRepository.findById(chapter.getId())
+                .orElseThrow(() -> {
+                    log.error("Cannot update. Chapter with id {} not found", chapter.getId());
+                    return new ResourceNotFoundException("Chapter", chapter.getId());
+                });
+        Long previousCourseId = current.getCourseId();
+        Long courseId = courseIdOf(chapter);
+        // sort_key пишут только вставка и перестановка; в другом курсе глава встает в конец.
+        // PUT без version перезаписывает главу как раньше, с version - проверяет ее при слиянии
+        chapter.setSortKey(current.getSortKey());
+        if (chapter.getVersion() == null) {
+            chapter.setVersion(current.getVersion());
+        }
+        attachCourse(chapter);
         chapterRepository.save(chapter);
+        if (!Objects.equals(previousCourseId, courseId)) {
+            orderRepository.moveChapterToEnd(chapter.getId(), courseId);
+            evictSecondLevelChapters(List.of(chapter.getId()));
+            evictCourseChapters(previousCourseId);
+            evictCourseChapters(courseId);
+        }
+        cacheEvictor.evictChapter(chapter.getId(), courseId);
     }
 
+    // PATCH: загруженная сущность меняется на месте, Hibernate пишет только измененные колонки с проверкой version
     @Override
+    @Transactional
+    public Chapter patchChapter(Long id, ChapterPatchDto patch) {
+        log.info("Patching chapter with id: {}", id);
+        Chapter chapter = chapterRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Cannot patch. Chapter with id {} not found", id);
+                    return new ResourceNotFoundException("Chapter", id);
+                });
+        OptimisticVersion.require(Chapter.class, id, chapter.getVersion(), patch.version());
+        if (patch.chapterName() != null) {
+            chapter.setName(patch.chapterName());
+        }
+        if (patch.description() != null) {
+            chapter.setDescription(patch.description());
+        }
+        cacheEvictor.evictChapter(id, chapter.getCourseId());
+        return chapter;
+    }
+
+    @Override
+    @Transactional
     public void saveChapter(Chapter chapter) {
+        attachCourse(chapter);
+        chapter.setSortKey(orderRepository.appendChapterKey(courseIdOf(chapter)));
         chapterRepository.save(chapter);
+        cacheEvictor.evictChapter(chapter.getId(), courseIdOf(chapter));
+    }
+
+    @Override
+    @Transactional
+    public void saveChapters(List<Chapter> chapters) {
+        log.info("Creating {} chapters in batch", chapters.size());
+        chapters.forEach(this::attachCourse);
+        ChildOrder.appendKeys(chapters, ChapterServiceImpl::courseIdOf, orderRepository::appendChapterKey,
+                Chapter::setSortKey);
+        chapterRepository.saveAll(chapters);
+        chapters.forEach(chapter -> cacheEvictor.evictChapter(chapter.getId(), courseIdOf(chapter)));
+    }
+
+    @Override
+    @Transactional
+    public void insertChapterBefore(Long chapterId, Chapter chapter) {
+        insertNextTo(chapterId, chapter, false);
     }
 
     @Override
+    @Transactional
+    public void insertChapterAfter(Long chapterId, Chapter chapter) {
+        insertNextTo(chapterId, chapter, true);
+    }
+
+    @Override
+    @Transactional
     public void deleteChapterById(Long id) {
-        chapterRepository.deleteById(id);
+        log.info("Deleting chapter with id: {}", id);
+        deleteSubtrees(List.of(id));
+    }
+
+    @Override
+    @Transactional
+    public void deleteChapters(List<Long> ids) {
+        List<Long> chapterIds = RequestedIds.distinct(ids);
+        log.info("Deleting {} chapters", chapterIds.size());
+        deleteSubtrees(chapterIds);
+    }
+
+    @Override
+    @Transactional
+    public void reorderLessons(Long chapterId, List<Long> lessonIds) {
+        log.info("Reordering {} lessons of chapter id: {}", lessonIds.size(), chapterId);
+        Chapter chapter = chapterRepository.findById(chapterId)
+                .orElseThrow(() -> {
+                    log.error("Cannot reorder lessons. Chapter with id {} not found", chapterId);
+                    return new ResourceNotFoundException("Chapter", chapterId);
+                });
+        ChildOrder.requireDistinct("lesson", lessonIds);
+        int updated = orderRepository.reorderLessons(chapterId, lessonIds);
+        ChildOrder.requireComplete("lesson", "chapter", chapterId, lessonIds.size(),
+                orderRepository.checkLessonOrder(chapterId, lessonIds));
+        log.info("Moved {} lessons of chapter id: {}", updated, chapterId);
+        // Уроки не в кэше второго уровня; из кэшей сервисов уходят глава, ее уроки и их списки
+        cacheEvictor.evictChapter(chapterId, chapter.getCourseId());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CHAPTERS_BY_COURSE, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<Chapter> getChapterByCourseId(Long courseId, String after, int limit, FetchPlan fetchPlan) {
+        log.info("Getting chapters by course id: {} after: {}, limit: {}, fetch plan: {}",
+                courseId, after, limit, fetchPlan);
+        PageCursor cursor = PageCursor.parse(after);
+        Pageable page = KeysetPageRequest.of(limit);
+        Slice<Chapter> chapters = fetchPlan == FetchPlan.FULL
+                ? chapterRepository.findWithCourseByCourseIdAfter(courseId, cursor.sortKey(), cursor.id(), page)
+                : chapterRepository.findByCourseIdAfter(courseId, cursor.sortKey(), cursor.id(), page);
+        return PageCursor.slice(cursor, chapters, chapter -> PageCursor.of(chapter.getSortKey(), chapter.getId()),
+                (chapter, order) -> {
+                    chapter.setOrder(order);
+                    return chapter;
+                });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CHAPTERS_BY_COURSE, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<ChapterSummaryDto> getChapterSummariesByCourseId(Long courseId, String after, int limit) {
+        log.info("Getting chapter summaries by course id: {} after: {}, limit: {}", courseId, after, limit);
+        PageCursor cursor = PageCursor.parse(after);
+        Slice<ChapterSummaryRow> rows = chapterRepository.findSummariesByCourseIdAfter(
+                courseId, cursor.sortKey(), cursor.id(), KeysetPageRequest.of(limit));
+        return PageCursor.slice(cursor, rows, row -> PageCursor.of(row.sortKey(), row.id()), ChapterSummaryRow::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersionStamp getChaptersVersion() {
+        log.info("Getting chapters version");
+        return chapterRepository.findVersion();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Chapter> getChapterByCourseId(Long courseId) {
-        log.info("Getting chapters by course id: {}\", courseId {}", courseId);
-        return chapterRepository.findByCourseId(courseId);
+    public VersionStamp getChaptersVersionByCourseId(Long courseId) {
+        log.info("Getting chapters version by course id: {}", courseId);
+        return chapterRepository.findVersionByCourseId(courseId);
     }
 
+    // Вставка пишет одну строку: ключ берется из зазора между якорем и его соседом в курсе якоря
+    private void insertNextTo(Long anchorId, Chapter chapter, boolean after) {
+        log.info("Inserting chapter {} chapter id: {}", after ? "after" : "before", anchorId);
+        Position anchor = lockAnchor(anchorId);
+        Long neighborKey = orderRepository.neighborChapterKey(anchor, after);
+        OptionalLong key = ChildOrder.keyNextTo(anchor.sortKey(), neighborKey, after);
+        if (key.isEmpty()) {
+            // Фоновая перенумерация не успела: перенумеровать курс здесь и взять ключи заново
+            log.warn("No sort key gap next to chapter id: {}, rebalancing course id: {}", anchorId, anchor.parentId());
+            orderRepository.rebalanceChapters(anchor.parentId());
+            anchor = lockAnchor(anchorId);
+            neighborKey = orderRepository.neighborChapterKey(anchor, after);
+            key = ChildOrder.keyNextTo(anchor.sortKey(), neighborKey, after);
+        }
+        long sortKey = key.orElseThrow();
+        if (ChildOrder.crowded(sortKey, anchor.sortKey(), neighborKey)) {
+            rebalancer.requestChapters(anchor.parentId());
+        }
+        Course course = courseRepository.getReferenceById(anchor.parentId());
+        chapter.setId(null);
+        chapter.setCourse(course);
+        chapter.setSortKey(sortKey);
+        chapterRepository.save(chapter);
+        log.info("Inserted chapter id: {} into course id: {}", chapter.getId(), anchor.parentId());
+        evictCourseChapters(anchor.parentId());
+    }
+
+    private Position lockAnchor(Long chapterId) {
+        return orderRepository.lockChapter(chapterId)
+                .orElseThrow(() -> {
+                    log.error("Cannot insert next to chapter with id {}: not found or not in a course", chapterId);
+                    return new ResourceNotFoundException("Chapter", chapterId);
+                });
+    }
+
+    // Главы вместе с уроками: блокировка, затем DELETE уроков и DELETE глав. Если хотя бы одной главы нет,
+    // не удаляется ничего
+    private void deleteSubtrees(List<Long> chapterIds) {
+        List<LockedChapter> chapters = deleteRepository.lockChapters(chapterIds);
+        RequestedIds.requireFound("Chapter", chapterIds, chapters.stream().map(LockedChapter::id).toList());
+        int lessons = deleteRepository.deleteLessonsOfChapters(chapterIds);
+        deleteRepository.deleteChapters(chapterIds);
+        log.info("Deleted {} chapters, {} lessons", chapterIds.size(), lessons);
+        // Курсы удаленных глав: у оставшихся глав этих курсов сдвигается order
+        List<Long> courseIds = chapters.stream()
+                .map(LockedChapter::courseId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        evictSecondLevelChapters(chapterIds);
+        cacheEvictor.evictSubtrees(courseIds, chapterIds);
+    }
+
+    // Номер order главы выводится из соседей: вставка в середину, перенос и удаление меняют его у всего курса.
+    // Во втором уровне кэша номера нет, поэтому сбрасываются только списки курса в кэшах сервисов
+    private void evictCourseChapters(Long courseId) {
+        if (courseId != null) {
+            cacheEvictor.evictCourse(courseId);
+        }
+    }
+
+    // Запись мимо Hibernate: эти главы и списки глав курсов во втором уровне кэша сбрасываются после коммита
+    private void evictSecondLevelChapters(List<Long> chapterIds) {
+        cacheEvictor.afterCommit(() -> {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            chapterIds.forEach(id -> cache.evictEntityData(Chapter.class, id));
+            cache.evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+        });
+    }
+
+    // Курс, к которому глава относится после записи: ссылка из DTO или read-only course_id
+    // Курс из тела запроса - объект с одним id и без version, Hibernate не принимает его как отсоединенную
+    // сущность. Вместо него ставится ссылка текущей сессии, без SELECT
+    private void attachCourse(Chapter chapter) {
+        Long courseId = courseIdOf(chapter);
+        chapter.setCourse(courseId == null ? null : courseRepository.getReferenceById(courseId));
+    }
+
+    private static Long courseIdOf(Chapter chapter) {
+        return chapter.getCourse() != null ? chapter.getCourse().getId() : chapter.getCourseId();
+    }
 }
@@ -0,0 +1,78 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.exception.InvalidOrderException;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.OrderCheck;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Проверки полного списка детей для нового порядка (PUT .../order) и ключи sort_key для вставки
+final class ChildOrder {
+
+    private ChildOrder() {
+    }
+
+    static void requireDistinct(String child, List<Long> ids) {
+        Set<Long> seen = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null || !seen.add(id)) {
+                throw new InvalidOrderException(String.format("%s id %s is null or listed twice", child, id));
+            }
+        }
+    }
+
+    // Вызывается после UPDATE в той же транзакции: исключение откатывает запись.
+    // Каждый ребенок родителя в списке и наоборот, ключи (parent_id, sort_key) уникальны
+    static void requireComplete(String child, String parent, Long parentId, int listed, OrderCheck check) {
+        if (check.listed() != listed || check.children() != listed) {
+            throw new InvalidOrderException(String.format(
+                    "%s %d has %d %ss, the new order lists %d of them and %d %ss of other %ss",
+                    parent, parentId, check.children(), child, check.listed(), listed - check.listed(), child, parent));
+        }
+        if (check.distinctKeys() != check.children()) {
+            throw new InvalidOrderException(String.format("%s %d has duplicate %s order numbers",
+                    parent, parentId, child));
+        }
+    }
+
+    // Ключ рядом с якорем: середина зазора до соседа, за крайним якорем - еще один шаг.
+    // Пусто, если зазор исчерпан (соседние ключи отличаются меньше чем на 2)
+    static OptionalLong keyNextTo(long anchorKey, Long neighborKey, boolean after) {
+        if (neighborKey == null) {
+            return OptionalLong.of(after ? anchorKey + OrderRepository.SORT_KEY_GAP
+                    : anchorKey - OrderRepository.SORT_KEY_GAP);
+        }
+        long low = Math.min(anchorKey, neighborKey);
+        long high = Math.max(anchorKey, neighborKey);
+        return high - low < 2 ? OptionalLong.empty() : OptionalLong.of(low + (high - low) / 2);
+    }
+
+    // Новый ключ оказался ближе REBALANCE_THRESHOLD к соседу: следующие вставки сюда скоро исчерпают зазор
+    static boolean crowded(long key, long anchorKey, Long neighborKey) {
+        long gap = Math.abs(key - anchorKey);
+        if (neighborKey != null) {
+            gap = Math.min(gap, Math.abs(neighborKey - key));
+        }
+        return gap < OrderRepository.REBALANCE_THRESHOLD;
+    }
+
+    // Ключи в конец родителя в порядке списка; ключ конца запрашивается один раз на родителя
+    static <T> void appendKeys(List<T> children, Function<T, Long> parentOf, Function<Long, Long> appendKey,
+                               BiConsumer<T, Long> setKey) {
+        Map<Long, Long> lastKeys = new HashMap<>();
+        for (T child : children) {
+            Long parentId = parentOf.apply(child);
+            Long last = lastKeys.get(parentId);
+            long key = last == null ? appendKey.apply(parentId) : last + OrderRepository.SORT_KEY_GAP;
+            lastKeys.put(parentId, key);
+            setKey.accept(child, key);
+        }
+    }
+}
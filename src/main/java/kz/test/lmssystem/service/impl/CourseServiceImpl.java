@@ -1,31 +1,71 @@
 package kz.test.lmssystem.service.impl;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.ChapterTreeDto;
+import kz.test.lmssystem.dto.CoursePatchDto;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.LessonTreeDto;
+import kz.test.lmssystem.dto.VersionStamp;
+import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
+import kz.test.lmssystem.repository.ChapterRepository;
 import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.OrderRepository;
 import kz.test.lmssystem.service.CourseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class CourseServiceImpl implements CourseService {
 
     private final CourseRepository courseRepository;
+    private final ChapterRepository chapterRepository;
+    private final LessonRepository lessonRepository;
+    private final OrderRepository orderRepository;
+    private final DeleteRepository deleteRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogCacheEvictor cacheEvictor;
 
     @Override
-    public List<Course> getAllCourses() {
-        log.info("Fetching all courses");
-        List<Course> courses = courseRepository.findAll();
-        log.info("Found {} courses", courses.size());
-        return courses;
+    @Transactional(readOnly = true)
+    public Slice<Course> getCourses(Long after, int limit) {
+        log.info("Fetching courses after id: {}, limit: {}", after, limit);
+        return courseRepository.findByIdGreaterThanOrderByIdAsc(
+                KeysetPageRequest.after(after), KeysetPageRequest.of(limit));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<CourseSummaryDto> getCourseSummaries(Long after, int limit) {
+        log.info("Fetching course summaries after id: {}, limit: {}", after, limit);
+        return courseRepository.findSummariesAfter(KeysetPageRequest.after(after), KeysetPageRequest.of(limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.COURSES, key = "#id")
     public Course getCourseById(Long id) {
         log.info("Fetching course by id: {}", id);
         return courseRepository.findById(id)
@@ -36,6 +76,8 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.COURSES_BY_NAME, key = "#name")
     public Course getCourseByName(String name) {
         log.info("Fetching course by name: {}", name);
         Course course = courseRepository.findByName(name);
@@ -46,18 +88,97 @@ public class CourseServiceImpl implements CourseService {
         return course;
     }
 
+    // Три запроса независимо от числа глав: курс, главы курса, все уроки курса.
+    // Курс и главы обычно приходят из кэша второго уровня, уроки раскладываются по главам в памяти.
+    // Номера order - позиции в этих упорядоченных списках
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.COURSE_TREES, key = "#id")
+    public CourseTreeDto getCourseTree(Long id) {
+        log.info("Fetching course tree by id: {}", id);
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Course with id {} not found", id);
+                    return new ResourceNotFoundException("Course", id);
+                });
+        List<Chapter> chapters = Positions.number(chapterRepository.findByCourseId(id), chapter -> id,
+                Chapter::setOrder);
+        List<Lesson> lessons = Positions.number(lessonRepository.findForTreeByCourseId(id), Lesson::getChapterId,
+                Lesson::setOrder);
+        Map<Long, List<LessonTreeDto>> lessonsByChapter = lessons.stream()
+                .collect(Collectors.groupingBy(Lesson::getChapterId,
+                        Collectors.mapping(CourseServiceImpl::toLessonTree, Collectors.toList())));
+        List<ChapterTreeDto> chapterTrees = chapters.stream()
+                .map(chapter -> toChapterTree(chapter, lessonsByChapter.getOrDefault(chapter.getId(), List.of())))
+                .toList();
+        log.info("Course tree {} built with {} chapters", id, chapterTrees.size());
+        return new CourseTreeDto(course.getId(), course.getName(), course.getDescription(),
+                course.getCreatedTime(), course.getUpdatedTime(), chapterTrees);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersionStamp getCoursesVersion() {
+        log.info("Fetching courses version");
+        return courseRepository.findVersion();
+    }
+
+    // Сам курс берется из кэша второго уровня, главы и уроки - двумя агрегатными запросами
     @Override
+    @Transactional(readOnly = true)
+    public VersionStamp getCourseTreeVersion(Long id) {
+        log.info("Fetching course tree version by id: {}", id);
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Course with id {} not found", id);
+                    return new ResourceNotFoundException("Course", id);
+                });
+        return VersionStamp.of(course.getUpdatedTime(), course.getCreatedTime())
+                .and(chapterRepository.findVersionByCourseId(id))
+                .and(lessonRepository.findVersionByCourseId(id));
+    }
+
+    // Курс берется из кэша второго уровня, слияние идет в загруженную копию без второго SELECT.
+    // PUT без version перезаписывает курс как раньше, с version - проверяет ее при слиянии
+    @Override
+    @Transactional
     public void updateCourse(Course course) {
         log.info("Updating course with id: {}", course.getId());
-        if (!courseRepository.existsById(course.getId())) {
-            log.error("Cannot update. Course with id {} not found", course.getId());
-            throw new ResourceNotFoundException("Course", course.getId());
+        Course current = courseRepository.findById(course.getId())
+                .orElseThrow(() -> {
+                    log.error("Cannot update. Course with id {} not found", course.getId());
+                    return new ResourceNotFoundException("Course", course.getId());
+                });
+        if (course.getVersion() == null) {
+            course.setVersion(current.getVersion());
         }
         log.debug("Course data: {}", course);
         courseRepository.save(course);
+        cacheEvictor.evictCourse(course.getId());
         log.info("Course updated successfully");
     }
 
+    // PATCH: загруженная сущность меняется на месте, Hibernate пишет только измененные колонки с проверкой version
+    @Override
+    @Transactional
+    public Course patchCourse(Long id, CoursePatchDto patch) {
+        log.info("Patching course with id: {}", id);
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Cannot patch. Course with id {} not found", id);
+                    return new ResourceNotFoundException("Course", id);
+                });
+        OptimisticVersion.require(Course.class, id, course.getVersion(), patch.version());
+        if (patch.courseName() != null) {
+            course.setName(patch.courseName());
+        }
+        if (patch.description() != null) {
+            course.setDescription(patch.description());
+        }
+        cacheEvictor.evictCourse(id);
+        return course;
+    }
+
     @Override
     public void saveCourse(Course course) {
         log.info("Creating new course");
@@ -67,14 +188,81 @@ public class CourseServiceImpl implements CourseService {
     }
 
     @Override
+    @Transactional
+    public void saveCourses(List<Course> courses) {
+        log.info("Creating {} courses in batch", courses.size());
+        courseRepository.saveAll(courses);
+        log.info("Courses created successfully");
+    }
+
+    @Override
+    @Transactional
     public void deleteCourseById(Long id) {
         log.info("Deleting course with id: {}", id);
-        if (!courseRepository.existsById(id)) {
-            log.error("Cannot delete. Course with id {} not found", id);
-            throw new ResourceNotFoundException("Course", id);
-        }
-        courseRepository.deleteById(id);
+        deleteSubtrees(List.of(id));
         log.info("Course deleted successfully");
     }
 
+    @Override
+    @Transactional
+    public void deleteCourses(List<Long> ids) {
+        List<Long> courseIds = RequestedIds.distinct(ids);
+        log.info("Deleting {} courses", courseIds.size());
+        deleteSubtrees(courseIds);
+    }
+
+    // Курсы вместе с главами и уроками: блокировка, затем по одному DELETE на уровень снизу вверх.
+    // Если хотя бы одного курса нет, не удаляется ничего
+    private void deleteSubtrees(List<Long> courseIds) {
+        RequestedIds.requireFound("Course", courseIds, deleteRepository.lockCourses(courseIds));
+        List<Long> chapterIds = deleteRepository.lockChaptersOfCourses(courseIds);
+        int lessons = 0;
+        if (!chapterIds.isEmpty()) {
+            lessons = deleteRepository.deleteLessonsOfChapters(chapterIds);
+            deleteRepository.deleteChapters(chapterIds);
+        }
+        deleteRepository.deleteCourses(courseIds);
+        log.info("Deleted {} courses, {} chapters, {} lessons", courseIds.size(), chapterIds.size(), lessons);
+        // DELETE шел мимо Hibernate: курсы и главы во втором уровне кэша сбрасываются после коммита
+        cacheEvictor.afterCommit(() -> {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            courseIds.forEach(id -> cache.evictEntityData(Course.class, id));
+            chapterIds.forEach(id -> cache.evictEntityData(Chapter.class, id));
+            cache.evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+        });
+        cacheEvictor.evictSubtrees(courseIds, chapterIds);
+    }
+
+    @Override
+    @Transactional
+    public void reorderChapters(Long courseId, List<Long> chapterIds) {
+        log.info("Reordering {} chapters of course id: {}", chapterIds.size(), courseId);
+        if (!courseRepository.existsById(courseId)) {
+            log.error("Cannot reorder chapters. Course with id {} not found", courseId);
+            throw new ResourceNotFoundException("Course", courseId);
+        }
+        ChildOrder.requireDistinct("chapter", chapterIds);
+        int updated = orderRepository.reorderChapters(courseId, chapterIds);
+        ChildOrder.requireComplete("chapter", "course", courseId, chapterIds.size(),
+                orderRepository.checkChapterOrder(courseId, chapterIds));
+        log.info("Moved {} chapters of course id: {}", updated, courseId);
+        // UPDATE шел мимо Hibernate: главы и списки глав курса во втором уровне кэша сбрасываются после коммита
+        cacheEvictor.afterCommit(() -> {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            chapterIds.forEach(id -> cache.evictEntityData(Chapter.class, id));
+            cache.evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+        });
+        cacheEvictor.evictCourse(courseId);
+    }
+
+    private static ChapterTreeDto toChapterTree(Chapter chapter, List<LessonTreeDto> lessons) {
+        return new ChapterTreeDto(chapter.getId(), chapter.getName(), chapter.getDescription(), chapter.getOrder(),
+                chapter.getCreatedTime(), chapter.getUpdatedTime(), List.copyOf(lessons));
+    }
+
+    private static LessonTreeDto toLessonTree(Lesson lesson) {
+        return new LessonTreeDto(lesson.getId(), lesson.getName(), lesson.getDescription(), lesson.getOrder(),
+                lesson.getCreatedTime(), lesson.getUpdatedTime());
+    }
+
 }
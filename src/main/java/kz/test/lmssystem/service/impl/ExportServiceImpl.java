@@ -0,0 +1,109 @@
+package kz.test.lmssystem.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.mapper.ChapterMapper;
+import kz.test.lmssystem.mapper.CourseMapper;
+import kz.test.lmssystem.mapper.LessonMapper;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ExportServiceImpl implements ExportService {
+
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private final CourseRepository courseRepository;
+    private final ChapterRepository chapterRepository;
+    private final LessonRepository lessonRepository;
+    private final CourseMapper courseMapper;
+    private final ChapterMapper chapterMapper;
+    private final LessonMapper lessonMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    // Транзакция держит открытым курсор PostgreSQL на всё время выгрузки.
+    // Главы и уроки идут по родителям в порядке (sort_key, id), номер order считается на ходу
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCourses(OutputStream out) throws IOException {
+        try (Stream<Course> courses = courseRepository.streamAll()) {
+            return write("courses", courses, courseMapper::toDtoCourse, CourseDto.class, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportChapters(OutputStream out) throws IOException {
+        Positions positions = new Positions();
+        try (Stream<Chapter> chapters = chapterRepository.streamAll()) {
+            return write("chapters", chapters, chapter -> {
+                chapter.setOrder(positions.next(chapter.getCourseId()));
+                return chapterMapper.toDtoChapter(chapter);
+            }, ChapterDto.class, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportLessons(OutputStream out) throws IOException {
+        Positions positions = new Positions();
+        try (Stream<Lesson> lessons = lessonRepository.streamAll()) {
+            return write("lessons", lessons, lesson -> {
+                lesson.setOrder(positions.next(lesson.getChapterId()));
+                return lessonMapper.toDtoLesson(lesson);
+            }, LessonDto.class, out);
+        }
+    }
+
+    private <E, D> long write(String entity, Stream<E> rows, Function<E, D> mapper, Class<D> type,
+                              OutputStream out) throws IOException {
+        log.info("Exporting {} as NDJSON", entity);
+        // Без flush после каждой строки: буфер генератора сбрасывается в сокет по мере заполнения
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            Iterator<E> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                E row = iterator.next();
+                writer.writeValue(generator, mapper.apply(row));
+                generator.writeRaw('\n');
+                // Отсоединяем сущность, чтобы persistence context не рос вместе с выгрузкой
+                entityManager.detach(row);
+                if (++count % PROGRESS_INTERVAL == 0) {
+                    log.debug("Exported {} {} so far", count, entity);
+                }
+            }
+        }
+        log.info("Exported {} {}", count, entity);
+        return count;
+    }
+}
@@ -0,0 +1,283 @@
+package kz.test.lmssystem.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.ChapterImportRow;
+import kz.test.lmssystem.dto.CourseImportRow;
+import kz.test.lmssystem.dto.ImportReportDto;
+import kz.test.lmssystem.dto.LessonImportRow;
+import kz.test.lmssystem.repository.CopyRepository.ParentRef;
+import kz.test.lmssystem.repository.CopyRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.service.ImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static kz.test.lmssystem.repository.CopyRepository.COPY_CHAPTERS;
+import static kz.test.lmssystem.repository.CopyRepository.COPY_COURSES;
+import static kz.test.lmssystem.repository.CopyRepository.COPY_LESSONS;
+import static kz.test.lmssystem.repository.CopyRepository.appendText;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class ImportServiceImpl implements ImportService {
+
+    private static final int MAX_REPORTED_REJECTS = 100;
+
+    // Несколько родителей с одинаковым именем: по имени их не различить
+    private static final long AMBIGUOUS = -1L;
+
+    private final CopyRepository copyRepository;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final CatalogCacheEvictor cacheEvictor;
+
+    @Value("${lms.import.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    @Override
+    public ImportReportDto importCourses(InputStream ndjson) throws IOException {
+        ImportReportDto report = importRows("courses", ndjson, CourseImportRow.class, COPY_COURSES, "courses_seq",
+                false, row -> {
+                    require(row.courseName(), "courseName is required");
+                    return new PendingRow(row.courseName(), row.description(), 0, null);
+                });
+        if (report.getImported() > 0) {
+            cacheEvictor.clear(CacheConfig.RESPONSES);
+        }
+        return report;
+    }
+
+    @Override
+    public ImportReportDto importChapters(InputStream ndjson) throws IOException {
+        ParentLookup courses = ParentLookup.of(copyRepository.findCourseRefs());
+        SortKeys sortKeys = new SortKeys(copyRepository.findLastChapterSortKeys());
+        ImportReportDto report = importRows("chapters", ndjson, ChapterImportRow.class, COPY_CHAPTERS, "chapters_seq",
+                true, row -> {
+                    require(row.chapterName(), "chapterName is required");
+                    Long courseId = courses.resolve(row.courseId(), row.courseName(), null, "course");
+                    return new PendingRow(row.chapterName(), row.description(), sortKeys.of(courseId, row.order()),
+                            courseId);
+                });
+        // COPY идет мимо Hibernate, поэтому закэшированные списки глав курса сбрасываем сами
+        if (report.getImported() > 0) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                    .evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+            cacheEvictor.clear(CacheConfig.CHAPTERS_BY_COURSE, CacheConfig.COURSE_TREES, CacheConfig.RESPONSES);
+        }
+        return report;
+    }
+
+    @Override
+    public ImportReportDto importLessons(InputStream ndjson) throws IOException {
+        ParentLookup courses = ParentLookup.of(copyRepository.findCourseRefs());
+        ParentLookup chapters = ParentLookup.of(copyRepository.findChapterRefs());
+        SortKeys sortKeys = new SortKeys(copyRepository.findLastLessonSortKeys());
+        ImportReportDto report = importRows("lessons", ndjson, LessonImportRow.class, COPY_LESSONS, "lessons_seq",
+                true, row -> {
+                    require(row.lessonName(), "lessonName is required");
+                    Long courseId = row.courseId() == null && row.courseName() == null ? null
+                            : courses.resolve(row.courseId(), row.courseName(), null, "course");
+                    Long chapterId = chapters.resolve(row.chapterId(), row.chapterName(), courseId, "chapter");
+                    return new PendingRow(row.lessonName(), row.description(), sortKeys.of(chapterId, row.order()),
+                            chapterId);
+                });
+        if (report.getImported() > 0) {
+            cacheEvictor.clear(CacheConfig.LESSONS_BY_CHAPTER, CacheConfig.LESSONS_BY_COURSE, CacheConfig.COURSE_TREES,
+                    CacheConfig.RESPONSES);
+        }
+        return report;
+    }
+
+    private <R> ImportReportDto importRows(String entity, InputStream ndjson, Class<R> rowType, String copySql,
+                                           String sequence, boolean hierarchical,
+                                           RowPreparer<R> preparer) throws IOException {
+        log.info("Importing {} from NDJSON, chunk size: {}", entity, chunkSize);
+        ImportReportDto report = ImportReportDto.builder().entity(entity).build();
+        List<PendingRow> chunk = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setReceived(report.getReceived() + 1);
+            try {
+                chunk.add(preparer.prepare(objectMapper.readValue(line, rowType)).at(lineNumber));
+            } catch (JsonProcessingException e) {
+                reject(report, lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            } catch (RowRejectedException e) {
+                reject(report, lineNumber, e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                flush(report, chunk, copySql, sequence, hierarchical);
+            }
+        }
+        flush(report, chunk, copySql, sequence, hierarchical);
+        log.info("Import of {} finished: received {}, imported {}, rejected {}",
+                entity, report.getReceived(), report.getImported(), report.getRejected());
+        return report;
+    }
+
+    private void flush(ImportReportDto report, List<PendingRow> chunk, String copySql, String sequence,
+                       boolean hierarchical) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Long> ids = copyRepository.reserveIds(sequence, chunk.size());
+        String now = LocalDateTime.now().toString();
+        StringBuilder csv = new StringBuilder(chunk.size() * 128);
+        for (int i = 0; i < chunk.size(); i++) {
+            PendingRow row = chunk.get(i);
+            csv.append(ids.get(i)).append(',');
+            appendText(csv, row.name());
+            csv.append(',');
+            appendText(csv, row.description());
+            csv.append(',');
+            if (hierarchical) {
+                csv.append(row.sortKey()).append(',').append(row.parentId()).append(',');
+            }
+            csv.append(now).append(',').append(now).append('\n');
+        }
+        int number = report.getChunks().size() + 1;
+        try {
+            long copied = copyRepository.copyIn(copySql, csv.toString());
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            report.getChunks().add(new ImportReportDto.Chunk(number, chunk.size(), elapsedMs, null));
+            report.setImported(report.getImported() + copied);
+            log.info("Imported chunk {} of {}: {} rows in {} ms, {} rows so far",
+                    number, report.getEntity(), copied, elapsedMs, report.getImported());
+        } catch (DataAccessException e) {
+            // Родители проверены по справочнику на старте, но могли быть удалены во время импорта: COPY части
+            // откатился целиком, ее строки уходят в отклоненные, уже вставленные части и следующие остаются
+            String error = e.getMostSpecificCause().getMessage();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            report.getChunks().add(new ImportReportDto.Chunk(number, chunk.size(), elapsedMs, error));
+            for (PendingRow row : chunk) {
+                reject(report, row.line(), "Chunk " + number + " failed: " + error);
+            }
+            log.warn("Chunk {} of {} failed, {} rows rejected: {}", number, report.getEntity(), chunk.size(), error);
+        }
+        chunk.clear();
+    }
+
+    private static void reject(ImportReportDto report, long lineNumber, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getRejectedRows().size() < MAX_REPORTED_REJECTS) {
+            report.getRejectedRows().add(new ImportReportDto.RejectedRow(lineNumber, reason));
+        }
+        log.debug("Rejected line {}: {}", lineNumber, reason);
+    }
+
+    private static void require(String value, String reason) {
+        if (value == null || value.isBlank()) {
+            throw new RowRejectedException(reason);
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface RowPreparer<R> {
+        PendingRow prepare(R row);
+    }
+
+    private record PendingRow(String name, String description, long sortKey, Long parentId, long line) {
+
+        PendingRow(String name, String description, long sortKey, Long parentId) {
+            this(name, description, sortKey, parentId, 0);
+        }
+
+        PendingRow at(long line) {
+            return new PendingRow(name, description, sortKey, parentId, line);
+        }
+    }
+
+    // Номер из файла задает sort_key с шагом перенумерации, равные ключи упорядочены по id.
+    // Строка без order встает в конец родителя: после его детей в базе и уже прочитанных строк импорта
+    private static final class SortKeys {
+
+        private final Map<Long, Long> lastByParent;
+
+        SortKeys(Map<Long, Long> lastByParent) {
+            this.lastByParent = new HashMap<>(lastByParent);
+        }
+
+        long of(Long parentId, Integer order) {
+            long sortKey = order != null ? order * OrderRepository.SORT_KEY_GAP
+                    : lastByParent.getOrDefault(parentId, 0L) + OrderRepository.SORT_KEY_GAP;
+            lastByParent.merge(parentId, sortKey, Math::max);
+            return sortKey;
+        }
+    }
+
+    private static class RowRejectedException extends RuntimeException {
+        RowRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    // Справочник родителей в памяти: один запрос на импорт вместо findByName на каждую строку
+    private record ParentLookup(Set<Long> ids, Map<String, Long> byName, Map<String, Long> byParentAndName) {
+
+        static ParentLookup of(List<ParentRef> refs) {
+            Set<Long> ids = new HashSet<>(refs.size() * 2);
+            Map<String, Long> byName = new HashMap<>(refs.size() * 2);
+            Map<String, Long> byParentAndName = new HashMap<>(refs.size() * 2);
+            for (ParentRef ref : refs) {
+                ids.add(ref.id());
+                byName.merge(ref.name(), ref.id(), (a, b) -> AMBIGUOUS);
+                if (ref.parentId() != null) {
+                    byParentAndName.merge(ref.parentId() + "/" + ref.name(), ref.id(), (a, b) -> AMBIGUOUS);
+                }
+            }
+            return new ParentLookup(ids, byName, byParentAndName);
+        }
+
+        Long resolve(Long id, String name, Long parentId, String kind) {
+            if (id != null) {
+                if (!ids.contains(id)) {
+                    throw new RowRejectedException(kind + " with id " + id + " not found");
+                }
+                return id;
+            }
+            if (name == null) {
+                throw new RowRejectedException(kind + "Id or " + kind + "Name is required");
+            }
+            Long resolved = parentId != null ? byParentAndName.get(parentId + "/" + name) : byName.get(name);
+            if (resolved == null) {
+                throw new RowRejectedException(kind + " with name '" + name + "' not found");
+            }
+            if (resolved == AMBIGUOUS) {
+                throw new RowRejectedException(kind + " name '" + name + "' is ambiguous, use " + kind + "Id");
+            }
+            return resolved;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package kz.test.lmssystem.service.impl;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+final class KeysetPageRequest {
+
+    static final int MAX_LIMIT = 500;
+    // Меньше любого sort_key: первая страница внутри родителя, (sort_key, id) > (FIRST_SORT_KEY, 0)
+    static final long FIRST_SORT_KEY = Long.MIN_VALUE;
+
+    private KeysetPageRequest() {
+    }
+
+    // Всегда первая страница: смещение задается курсором (id > after), а не OFFSET
+    static Pageable of(int limit) {
+        return PageRequest.of(0, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    static long after(Long after) {
+        return after == null ? 0L : after;
+    }
+}
@@ -1,31 +1,89 @@
 package kz.test.lmssystem.service.impl;
 
 
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.dto.LessonPatchDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
+import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.entity.Lesson;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.repository.DeleteRepository.DeletedLesson;
+import kz.test.lmssystem.repository.LessonPageRow;
 import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.LessonSummaryRow;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.Position;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import kz.test.lmssystem.service.LessonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
+@Timed(MetricsConfig.SERVICE_TIMER)
 public class LessonServiceImpl implements LessonService {
 
     private final LessonRepository lessonRepository;
+    private final ChapterRepository chapterRepository;
+    private final OrderRepository orderRepository;
+    private final DeleteRepository deleteRepository;
+    private final SortKeyRebalancer rebalancer;
+    private final CatalogCacheEvictor cacheEvictor;
 
     @Override
-    public List<Lesson> getAllLessons() {
-        return lessonRepository.findAll();
+    @Transactional(readOnly = true)
+    public Slice<Lesson> getLessons(Long after, int limit, FetchPlan fetchPlan) {
+        log.info("Fetching lessons after id: {}, limit: {}, fetch plan: {}", after, limit, fetchPlan);
+        long cursor = KeysetPageRequest.after(after);
+        Pageable page = KeysetPageRequest.of(limit);
+        Slice<Lesson> lessons = fetchPlan == FetchPlan.FULL
+                ? lessonRepository.findWithParentsByIdGreaterThanOrderByIdAsc(cursor, page)
+                : lessonRepository.findByIdGreaterThanOrderByIdAsc(cursor, page);
+        Map<Long, Integer> positions = orderRepository.lessonPositions(ids(lessons.getContent(), Lesson::getId));
+        lessons.forEach(lesson -> lesson.setOrder(positions.getOrDefault(lesson.getId(), 0)));
+        numberChapters(lessons.getContent());
+        return lessons;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LessonSummaryDto> getLessonSummaries(Long after, int limit) {
+        log.info("Fetching lesson summaries after id: {}, limit: {}", after, limit);
+        Slice<LessonSummaryRow> rows = lessonRepository.findSummariesAfter(KeysetPageRequest.after(after),
+                KeysetPageRequest.of(limit));
+        Map<Long, Integer> positions = orderRepository.lessonPositions(ids(rows.getContent(), LessonSummaryRow::id));
+        return rows.map(row -> row.toDto(positions.getOrDefault(row.id(), 0)));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS, key = "#id")
     public Lesson getLessonById(Long id) {
         log.info("Fetching lesson by id: {}", id);
         return lessonRepository.findById(id)
@@ -36,37 +94,293 @@ public class LessonServiceImpl implements LessonService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS_BY_NAME, key = "#name")
     public Lesson getLessonsByName(String name) {
-        return lessonRepository.findByName(name);
+        log.info("Fetching lesson by name: {}", name);
+        Lesson lesson = lessonRepository.findByName(name);
+        if (lesson == null) {
+            log.error("Lesson with name '{}' not found", name);
+            throw new ResourceNotFoundException("Lesson", "name", name);
+        }
+        return lesson;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public LessonDto withOrder(LessonDto lesson) {
+        lesson.setOrder(orderRepository.lessonPositions(List.of(lesson.getId())).getOrDefault(lesson.getId(), 0));
+        ChapterDto chapter = lesson.getChapter();
+        if (chapter != null) {
+            chapter.setOrder(orderRepository.chapterPositions(List.of(chapter.getId()))
+                    .getOrDefault(chapter.getId(), 0));
+        }
+        return lesson;
     }
 
     @Override
     public void updateLesson(Lesson lesson) {
+        log.info("Updating lesson with id: {}", lesson.getId());
+        Lesson current = lessonRepository.findById(lesson.getId())
+                .orElseThrow(() -> {
+                    log.error("Cannot update. Lesson with id {} not found", lesson.getId());
+                    return new ResourceNotFoundException("Lesson", lesson.getId());
+                });
+        Long previousChapterId = current.getChapterId();
+        Long chapterId = chapterIdOf(lesson);
+        // sort_key пишут только вставка и перестановка; в другой главе урок встает в конец.
+        // PUT без version перезаписывает урок как раньше, с version - проверяет ее при слиянии
+        lesson.setSortKey(current.getSortKey());
+        if (lesson.getVersion() == null) {
+            lesson.setVersion(current.getVersion());
+        }
+        attachChapter(lesson);
         lessonRepository.save(lesson);
+        if (!Objects.equals(previousChapterId, chapterId)) {
+            orderRepository.moveLessonToEnd(lesson.getId(), chapterId);
+            evictChapterLessons(previousChapterId);
+        }
+        cacheEvictor.evictLesson(lesson.getId(), chapterId);
+    }
+
+    // PATCH: загруженная сущность меняется на месте, Hibernate пишет только измененные колонки с проверкой version
+    @Override
+    public Lesson patchLesson(Long id, LessonPatchDto patch) {
+        log.info("Patching lesson with id: {}", id);
+        Lesson lesson = lessonRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Cannot patch. Lesson with id {} not found", id);
+                    return new ResourceNotFoundException("Lesson", id);
+                });
+        OptimisticVersion.require(Lesson.class, id, lesson.getVersion(), patch.version());
+        if (patch.lessonName() != null) {
+            lesson.setName(patch.lessonName());
+        }
+        if (patch.description() != null) {
+            lesson.setDescription(patch.description());
+        }
+        cacheEvictor.evictLesson(id, lesson.getChapterId());
+        return lesson;
     }
 
     @Override
     public void saveLesson(Lesson lesson) {
+        attachChapter(lesson);
+        lesson.setSortKey(orderRepository.appendLessonKey(chapterIdOf(lesson)));
         lessonRepository.save(lesson);
+        cacheEvictor.evictLesson(lesson.getId(), chapterIdOf(lesson));
+    }
+
+    @Override
+    public void saveLessons(List<Lesson> lessons) {
+        log.info("Creating {} lessons in batch", lessons.size());
+        lessons.forEach(this::attachChapter);
+        ChildOrder.appendKeys(lessons, LessonServiceImpl::chapterIdOf, orderRepository::appendLessonKey,
+                Lesson::setSortKey);
+        lessonRepository.saveAll(lessons);
+        lessons.forEach(lesson -> cacheEvictor.evictLesson(lesson.getId(), chapterIdOf(lesson)));
+    }
+
+    @Override
+    public void insertLessonBefore(Long lessonId, Lesson lesson) {
+        insertNextTo(lessonId, lesson, false);
+    }
+
+    @Override
+    public void insertLessonAfter(Long lessonId, Lesson lesson) {
+        insertNextTo(lessonId, lesson, true);
     }
 
     @Override
     public void deleteLessonById(Long id) {
-        lessonRepository.deleteById(id);
+        log.info("Deleting lesson with id: {}", id);
+        Lesson lesson = lessonRepository.findById(id)
+                .orElseThrow(() -> {
+                    log.error("Cannot delete. Lesson with id {} not found", id);
+                    return new ResourceNotFoundException("Lesson", id);
+                });
+        lessonRepository.delete(lesson);
+        cacheEvictor.evictLesson(id, null);
+        evictChapterLessons(lesson.getChapterId());
+    }
+
+    // Уроки одним DELETE; если хотя бы одного нет, не удаляется ничего
+    @Override
+    public void deleteLessons(List<Long> ids) {
+        List<Long> lessonIds = RequestedIds.distinct(ids);
+        log.info("Deleting {} lessons", lessonIds.size());
+        List<DeletedLesson> deleted = deleteRepository.deleteLessons(lessonIds);
+        RequestedIds.requireFound("Lesson", lessonIds, deleted.stream().map(DeletedLesson::id).toList());
+        // У оставшихся уроков этих глав сдвигается order; курсы затрагиваются только через уроки глав
+        List<Long> chapterIds = deleted.stream()
+                .map(DeletedLesson::chapterId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        cacheEvictor.evictSubtrees(List.of(), chapterIds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS_BY_CHAPTER, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<Lesson> getLessonsByChapterId(Long chapterId, String after, int limit, FetchPlan fetchPlan) {
+        log.info("Getting lessons by chapter id: {} after: {}, limit: {}, fetch plan: {}",
+                chapterId, after, limit, fetchPlan);
+        PageCursor cursor = PageCursor.parse(after);
+        Pageable page = KeysetPageRequest.of(limit);
+        Slice<Lesson> lessons = fetchPlan == FetchPlan.FULL
+                ? lessonRepository.findWithParentsByChapterIdAfter(chapterId, cursor.sortKey(), cursor.id(), page)
+                : lessonRepository.findByChapterIdAfter(chapterId, cursor.sortKey(), cursor.id(), page);
+        return numberChapters(PageCursor.slice(cursor, lessons,
+                lesson -> PageCursor.of(lesson.getSortKey(), lesson.getId()), LessonServiceImpl::numbered));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS_BY_COURSE, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<Lesson> getLessonsByCourseId(Long courseId, String after, int limit, FetchPlan fetchPlan) {
+        log.info("Getting lessons by course id: {} after: {}, limit: {}, fetch plan: {}",
+                courseId, after, limit, fetchPlan);
+        PageCursor cursor = PageCursor.parse(after);
+        Pageable page = KeysetPageRequest.of(limit);
+        if (fetchPlan == FetchPlan.FULL) {
+            Slice<Lesson> lessons = lessonRepository.findWithParentsByCourseIdAfter(courseId, cursor.groupSortKey(),
+                    cursor.groupId(), cursor.sortKey(), cursor.id(), page);
+            return numberChapters(PageCursor.slice(cursor, lessons, lesson -> new PageCursor(
+                    lesson.getChapter().getSortKey(), lesson.getChapterId(), lesson.getSortKey(), lesson.getId()),
+                    LessonServiceImpl::numbered));
+        }
+        Slice<LessonPageRow> rows = lessonRepository.findByCourseIdAfter(courseId, cursor.groupSortKey(),
+                cursor.groupId(), cursor.sortKey(), cursor.id(), page);
+        return PageCursor.slice(cursor, rows, row -> new PageCursor(row.chapterSortKey(), row.lesson().getChapterId(),
+                row.lesson().getSortKey(), row.lesson().getId()), (row, order) -> numbered(row.lesson(), order));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS_BY_CHAPTER, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<LessonSummaryDto> getLessonSummariesByChapterId(Long chapterId, String after, int limit) {
+        log.info("Getting lesson summaries by chapter id: {} after: {}, limit: {}", chapterId, after, limit);
+        PageCursor cursor = PageCursor.parse(after);
+        Slice<LessonSummaryRow> rows = lessonRepository.findSummariesByChapterIdAfter(
+                chapterId, cursor.sortKey(), cursor.id(), KeysetPageRequest.of(limit));
+        return PageCursor.slice(cursor, rows, row -> PageCursor.of(row.sortKey(), row.id()), LessonSummaryRow::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.LESSONS_BY_COURSE, keyGenerator = "parentPageKeyGenerator")
+    public KeysetSlice<LessonSummaryDto> getLessonSummariesByCourseId(Long courseId, String after, int limit) {
+        log.info("Getting lesson summaries by course id: {} after: {}, limit: {}", courseId, after, limit);
+        PageCursor cursor = PageCursor.parse(after);
+        Slice<LessonSummaryRow> rows = lessonRepository.findSummariesByCourseIdAfter(courseId,
+                cursor.groupSortKey(), cursor.groupId(), cursor.sortKey(), cursor.id(), KeysetPageRequest.of(limit));
+        return PageCursor.slice(cursor, rows, row -> new PageCursor(row.chapterSortKey(), row.chapterId(),
+                row.sortKey(), row.id()), LessonSummaryRow::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public VersionStamp getLessonsVersion() {
+        log.info("Getting lessons version");
+        return lessonRepository.findVersion();
     }
 
+    // Встроенная глава (FetchPlan.FULL) несет свой номер order, а его меняет вставка или удаление соседней главы,
+    // не трогая саму главу. Поэтому в версию списка входят и главы курса
     @Override
     @Transactional(readOnly = true)
-    public List<Lesson> getLessonsByChapterId(Long chapterId) {
-        log.info("Getting lessons by chapter id: {}", chapterId);
-        return lessonRepository.findByChapterId(chapterId);
+    public VersionStamp getLessonsVersionByChapterId(Long chapterId) {
+        log.info("Getting lessons version by chapter id: {}", chapterId);
+        VersionStamp version = lessonRepository.findVersionByChapterId(chapterId);
+        return chapterRepository.findById(chapterId)
+                .map(Chapter::getCourseId)
+                .map(courseId -> version.and(chapterRepository.findVersionByCourseId(courseId)))
+                .orElse(version);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<Lesson> getLessonsByCourseId(Long courseId) {
-        log.info("Getting lessons by course id: {}", courseId);
-        return lessonRepository.findByCourseId(courseId);
+    public VersionStamp getLessonsVersionByCourseId(Long courseId) {
+        log.info("Getting lessons version by course id: {}", courseId);
+        return lessonRepository.findVersionByCourseId(courseId).and(chapterRepository.findVersionByCourseId(courseId));
     }
 
+    // Вставка пишет одну строку: ключ берется из зазора между якорем и его соседом в главе якоря
+    private void insertNextTo(Long anchorId, Lesson lesson, boolean after) {
+        log.info("Inserting lesson {} lesson id: {}", after ? "after" : "before", anchorId);
+        Position anchor = lockAnchor(anchorId);
+        Long neighborKey = orderRepository.neighborLessonKey(anchor, after);
+        OptionalLong key = ChildOrder.keyNextTo(anchor.sortKey(), neighborKey, after);
+        if (key.isEmpty()) {
+            // Фоновая перенумерация не успела: перенумеровать главу здесь и взять ключи заново
+            log.warn("No sort key gap next to lesson id: {}, rebalancing chapter id: {}", anchorId, anchor.parentId());
+            orderRepository.rebalanceLessons(anchor.parentId());
+            anchor = lockAnchor(anchorId);
+            neighborKey = orderRepository.neighborLessonKey(anchor, after);
+            key = ChildOrder.keyNextTo(anchor.sortKey(), neighborKey, after);
+        }
+        long sortKey = key.orElseThrow();
+        if (ChildOrder.crowded(sortKey, anchor.sortKey(), neighborKey)) {
+            rebalancer.requestLessons(anchor.parentId());
+        }
+        Chapter chapter = chapterRepository.getReferenceById(anchor.parentId());
+        lesson.setId(null);
+        lesson.setChapter(chapter);
+        lesson.setSortKey(sortKey);
+        lessonRepository.save(lesson);
+        log.info("Inserted lesson id: {} into chapter id: {}", lesson.getId(), anchor.parentId());
+        evictChapterLessons(anchor.parentId());
+    }
+
+    private Position lockAnchor(Long lessonId) {
+        return orderRepository.lockLesson(lessonId)
+                .orElseThrow(() -> {
+                    log.error("Cannot insert next to lesson with id {}: not found or not in a chapter", lessonId);
+                    return new ResourceNotFoundException("Lesson", lessonId);
+                });
+    }
+
+    // Номер order урока выводится из соседей: вставка в середину, перенос и удаление меняют его у всей главы
+    private void evictChapterLessons(Long chapterId) {
+        if (chapterId != null) {
+            cacheEvictor.evictChapter(chapterId,
+                    chapterRepository.findById(chapterId).map(Chapter::getCourseId).orElse(null));
+        }
+    }
+
+    // Главы, загруженные планом выборки FetchPlan.FULL, нумеруются внутри курса одним запросом
+    private <C extends Iterable<Lesson>> C numberChapters(C lessons) {
+        Set<Chapter> chapters = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Lesson lesson : lessons) {
+            if (lesson.getChapter() != null && Hibernate.isInitialized(lesson.getChapter())) {
+                chapters.add(lesson.getChapter());
+            }
+        }
+        if (!chapters.isEmpty()) {
+            Map<Long, Integer> positions = orderRepository.chapterPositions(ids(chapters, Chapter::getId));
+            chapters.forEach(chapter -> chapter.setOrder(positions.getOrDefault(chapter.getId(), 0)));
+        }
+        return lessons;
+    }
+
+    private static Lesson numbered(Lesson lesson, int order) {
+        lesson.setOrder(order);
+        return lesson;
+    }
+
+    private static <E> List<Long> ids(Collection<E> elements, Function<E, Long> idOf) {
+        return elements.stream().map(idOf).distinct().toList();
+    }
+
+    // Глава из тела запроса - объект с одним id и без version, Hibernate не принимает его как отсоединенную
+    // сущность. Вместо него ставится ссылка текущей сессии, без SELECT
+    private void attachChapter(Lesson lesson) {
+        Long chapterId = chapterIdOf(lesson);
+        lesson.setChapter(chapterId == null ? null : chapterRepository.getReferenceById(chapterId));
+    }
+
+    private static Long chapterIdOf(Lesson lesson) {
+        return lesson.getChapter() != null ? lesson.getChapter().getId() : lesson.getChapterId();
+    }
 }
@@ -0,0 +1,19 @@
+package kz.test.lmssystem.service.impl;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Objects;
+
+// Проверка версии, которую прислал клиент. Hibernate сверяет version в UPDATE только со своей загруженной копией,
+// поэтому изменение, сделанное после чтения клиентом, без этой проверки перезаписалось бы молча
+final class OptimisticVersion {
+
+    private OptimisticVersion() {
+    }
+
+    static void require(Class<?> type, Long id, Long current, Long expected) {
+        if (!Objects.equals(current, expected)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
+}
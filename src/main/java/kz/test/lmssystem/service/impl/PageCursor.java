@@ -0,0 +1,73 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.exception.InvalidCursorException;
+import kz.test.lmssystem.service.KeysetSlice;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Курсор страницы внутри родителя: ключ (sort_key, id) последнего элемента, для уроков курса - еще ключ его главы,
+// и номер order этого элемента, от которого нумеруется следующая страница.
+// Клиенту уходит непрозрачной строкой (base64url), поэтому следующая страница не ищет элемент-курсор в базе
+// и продолжается с того же места, даже если его уже удалили
+record PageCursor(long groupSortKey, long groupId, long sortKey, long id, int position) {
+
+    // Меньше любого ключа: первая страница
+    static final PageCursor FIRST = new PageCursor(KeysetPageRequest.FIRST_SORT_KEY, 0,
+            KeysetPageRequest.FIRST_SORT_KEY, 0, 0);
+
+    PageCursor(long groupSortKey, long groupId, long sortKey, long id) {
+        this(groupSortKey, groupId, sortKey, id, 0);
+    }
+
+    static PageCursor of(long sortKey, long id) {
+        return new PageCursor(KeysetPageRequest.FIRST_SORT_KEY, 0, sortKey, id);
+    }
+
+    PageCursor at(int position) {
+        return new PageCursor(groupSortKey, groupId, sortKey, id, position);
+    }
+
+    static PageCursor parse(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+            if (parts.length != 5) {
+                throw new InvalidCursorException(cursor);
+            }
+            return new PageCursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    Long.parseLong(parts[3]), Integer.parseInt(parts[4]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    // Страница после курсора after с курсором последнего элемента, если за ней есть еще.
+    // Номер order строки продолжает номер курсора внутри той же группы (groupId), в новой группе начинается с 1
+    static <R, T> KeysetSlice<T> slice(PageCursor after, Slice<R> page, Function<R, PageCursor> cursorOf,
+                                       BiFunction<R, Integer, T> mapper) {
+        Positions positions = new Positions(after.groupId(), after.position());
+        List<T> content = new ArrayList<>(page.getNumberOfElements());
+        PageCursor last = null;
+        for (R row : page.getContent()) {
+            last = cursorOf.apply(row);
+            int position = positions.next(last.groupId());
+            last = last.at(position);
+            content.add(mapper.apply(row, position));
+        }
+        String next = page.hasNext() && last != null ? last.token() : null;
+        return new KeysetSlice<>(content, page.getPageable(), page.hasNext(), next);
+    }
+
+    String token() {
+        String value = groupSortKey + ":" + groupId + ":" + sortKey + ":" + id + ":" + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,37 @@
+package kz.test.lmssystem.service.impl;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+// Номер order ребенка (с 1 внутри родителя) для детей, которые уже идут по родителям в порядке (sort_key, id):
+// считается на ходу, без подзапроса на каждую строку. Ребенок без родителя получает 0
+final class Positions {
+
+    private Long parentId;
+    private int position;
+
+    Positions() {
+    }
+
+    // Продолжение после ребенка parentId с номером position (курсор предыдущей страницы)
+    Positions(Long parentId, int position) {
+        this.parentId = parentId;
+        this.position = position;
+    }
+
+    int next(Long parentId) {
+        if (parentId == null) {
+            return 0;
+        }
+        position = parentId.equals(this.parentId) ? position + 1 : 1;
+        this.parentId = parentId;
+        return position;
+    }
+
+    static <E> List<E> number(List<E> children, Function<E, Long> parentOf, ObjIntConsumer<E> setOrder) {
+        Positions positions = new Positions();
+        children.forEach(child -> setOrder.accept(child, positions.next(parentOf.apply(child))));
+        return children;
+    }
+}
@@ -0,0 +1,29 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.exception.ResourceNotFoundException;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Удаление множеством - все или ничего: если какого-то id нет, исключение откатывает транзакцию и дает 404
+final class RequestedIds {
+
+    private RequestedIds() {
+    }
+
+    static List<Long> distinct(List<Long> ids) {
+        return ids.stream().distinct().toList();
+    }
+
+    static void requireFound(String resourceName, List<Long> requested, Collection<Long> found) {
+        if (found.size() == requested.size()) {
+            return;
+        }
+        Set<Long> present = new HashSet<>(found);
+        List<Long> missing = requested.stream().filter(id -> !present.contains(id)).toList();
+        throw missing.size() == 1 ? new ResourceNotFoundException(resourceName, missing.get(0))
+                : new ResourceNotFoundException(String.format("%s with ids %s not found", resourceName, missing));
+    }
+}
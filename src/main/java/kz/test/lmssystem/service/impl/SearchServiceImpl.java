@@ -0,0 +1,73 @@
+package kz.test.lmssystem.service.impl;
+
+import io.micrometer.core.annotation.Timed;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.dto.SearchResultDto;
+import kz.test.lmssystem.repository.SearchRepository;
+import kz.test.lmssystem.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Timed(MetricsConfig.SERVICE_TIMER)
+public class SearchServiceImpl implements SearchService {
+
+    static final int MAX_LIMIT = 100;
+    static final int MAX_TERMS = 8;
+    // Дальше по рангу не листаем: каждая страница читает offset + limit лучших совпадений каждой таблицы
+    static final int MAX_OFFSET = 1000;
+    // Однобуквенный терм или короткий префикс совпадает с большей частью каталога
+    static final int MIN_TERM_LENGTH = 2;
+    static final int MIN_PREFIX_LENGTH = 3;
+
+    private final SearchRepository searchRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<SearchResultDto> search(String query, int offset, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        int from = Math.max(0, offset);
+        Pageable pageable = PageRequest.of(from / pageSize, pageSize);
+        String tsQuery = toTsQuery(query);
+        log.info("Searching for '{}' (tsquery: '{}'), offset: {}, limit: {}", query, tsQuery, from, pageSize);
+        if (tsQuery.isEmpty() || from > MAX_OFFSET) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        // Запрашиваем на одну строку больше, чтобы узнать hasNext без COUNT
+        List<SearchResultDto> hits = searchRepository.search(tsQuery, from, pageSize + 1);
+        boolean hasNext = hits.size() > pageSize && from + pageSize <= MAX_OFFSET;
+        return new SliceImpl<>(hasNext ? hits.subList(0, pageSize) : hits, pageable, hasNext);
+    }
+
+    // Из пользовательского ввода остаются только буквы и цифры, термы короче MIN_TERM_LENGTH отбрасываются,
+    // остальные объединяются через AND. Последний ищется по префиксу, чтобы поиск работал по мере набора,
+    // но только начиная с MIN_PREFIX_LENGTH символов
+    static String toTsQuery(String query) {
+        if (query == null) {
+            return "";
+        }
+        List<String> terms = Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> term.codePointCount(0, term.length()) >= MIN_TERM_LENGTH)
+                .limit(MAX_TERMS)
+                .toList();
+        if (terms.isEmpty()) {
+            return "";
+        }
+        String last = terms.get(terms.size() - 1);
+        String suffix = last.codePointCount(0, last.length()) >= MIN_PREFIX_LENGTH ? ":*" : "";
+        return terms.stream().collect(Collectors.joining(" & ", "", suffix));
+    }
+}
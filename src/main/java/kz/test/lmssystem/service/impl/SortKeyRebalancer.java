@@ -0,0 +1,94 @@
+package kz.test.lmssystem.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import kz.test.lmssystem.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongToIntFunction;
+
+// Фоновая перенумерация sort_key: родитель, у которого вставка оставила тесный зазор, получает ключи заново
+// с шагом SORT_KEY_GAP. Каждый родитель - своя короткая транзакция с одним UPDATE; вставки в него на это время
+// ждут, чтение не блокируется. Порядок и номера order не меняются, поэтому кэши не сбрасываются
+@Slf4j
+@Component
+class SortKeyRebalancer {
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration interval;
+    private final Set<Long> pendingChapters = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingCourses = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService worker;
+
+    SortKeyRebalancer(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+                      @Value("${lms.ordering.rebalance-interval:1s}") Duration interval) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.interval = interval;
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sort-key-rebalance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::rebalancePending, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Sort key rebalance checked every {}", interval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    // Уроки главы
+    void requestLessons(long chapterId) {
+        pendingChapters.add(chapterId);
+    }
+
+    // Главы курса
+    void requestChapters(long courseId) {
+        pendingCourses.add(courseId);
+    }
+
+    void rebalancePending() {
+        drain(pendingChapters, "lessons of chapter", orderRepository::rebalanceLessons);
+        drain(pendingCourses, "chapters of course", orderRepository::rebalanceChapters);
+    }
+
+    // Не удавшийся родитель остается в очереди до следующего прохода
+    private void drain(Set<Long> pending, String children, LongToIntFunction rebalance) {
+        List<Long> failed = new ArrayList<>();
+        for (Iterator<Long> iterator = pending.iterator(); iterator.hasNext(); ) {
+            Long parentId = iterator.next();
+            iterator.remove();
+            try {
+                Integer moved = transactionTemplate.execute(status -> rebalance.applyAsInt(parentId));
+                log.info("Rebalanced sort keys of {} {}: {} rows rewritten", children, parentId, moved);
+            } catch (RuntimeException e) {
+                log.warn("Sort key rebalance of {} {} failed, retrying later: {}", children, parentId, e.getMessage());
+                failed.add(parentId);
+            }
+        }
+        pending.addAll(failed);
+    }
+}
@@ -0,0 +1,14 @@
+-- Полнотекстовый поиск: взвешенный tsvector (name - A, description - B) в generated-колонке.
+-- Конфигурация 'simple' без стемминга: в каталоге смешаны русский, казахский и английский.
+-- ADD COLUMN ... STORED переписывает таблицу под ACCESS EXCLUSIVE: чтение и запись каталога стоят до конца
+-- changeSet, на больших таблицах его нужно выполнять в окно обслуживания. GIN-индексы строятся отдельно,
+-- CONCURRENTLY, в 2026_10_18_create_indexes
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+                         setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+ALTER TABLE chapters ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+                         setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+ALTER TABLE lessons ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+                         setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
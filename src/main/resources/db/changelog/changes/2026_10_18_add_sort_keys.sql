@@ -0,0 +1,18 @@
+-- Разреженный ключ порядка вместо сплошного order_number: между соседями остается зазор, поэтому вставка
+-- между ними пишет одну строку. Номер order (с 1) выводится из sort_key при чтении. Шаг 2^20 = 1048576,
+-- как OrderRepository.SORT_KEY_GAP; при одинаковых order_number прежний порядок задавал id
+ALTER TABLE chapters ADD COLUMN sort_key bigint NOT NULL DEFAULT 0;
+ALTER TABLE lessons ADD COLUMN sort_key bigint NOT NULL DEFAULT 0;
+
+UPDATE chapters c SET sort_key = r.pos * 1048576
+FROM (SELECT id, row_number() OVER (PARTITION BY course_id ORDER BY order_number, id) AS pos FROM chapters) r
+WHERE c.id = r.id;
+UPDATE lessons l SET sort_key = r.pos * 1048576
+FROM (SELECT id, row_number() OVER (PARTITION BY chapter_id ORDER BY order_number, id) AS pos FROM lessons) r
+WHERE l.id = r.id;
+
+ALTER TABLE chapters DROP COLUMN order_number;
+ALTER TABLE lessons DROP COLUMN order_number;
+
+CREATE INDEX IF NOT EXISTS idx_chapters_course_id_sort_key ON chapters (course_id, sort_key, id);
+CREATE INDEX IF NOT EXISTS idx_lessons_chapter_id_sort_key ON lessons (chapter_id, sort_key, id);
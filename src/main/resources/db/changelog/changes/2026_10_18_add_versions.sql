@@ -0,0 +1,5 @@
+-- Версия строки для оптимистической блокировки (@Version): UPDATE идет с условием version = ?,
+-- устаревшая версия в PATCH/PUT дает 409. Строки из COPY и INSERT без версии начинают с 0
+ALTER TABLE courses ADD COLUMN version bigint NOT NULL DEFAULT 0;
+ALTER TABLE chapters ADD COLUMN version bigint NOT NULL DEFAULT 0;
+ALTER TABLE lessons ADD COLUMN version bigint NOT NULL DEFAULT 0;
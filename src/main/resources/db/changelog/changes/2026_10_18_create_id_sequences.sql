@@ -0,0 +1,14 @@
+-- Pooled-оптимизатор Hibernate: nextval возвращает верхнюю границу блока из 50 id,
+-- поэтому сдвигаем последовательности на 50 выше текущего максимума.
+-- На базах после ddl-auto=update последовательности уже есть и могли выдать блоки выше MAX(id)
+-- (строки откатились или удалены): setval никогда не сдвигает их назад, иначе id повторятся
+CREATE SEQUENCE IF NOT EXISTS courses_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS chapters_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS lessons_seq INCREMENT BY 50;
+
+SELECT setval('courses_seq', GREATEST((SELECT last_value FROM courses_seq) + 50,
+                                      (SELECT COALESCE(MAX(id), 0) FROM courses) + 50), false);
+SELECT setval('chapters_seq', GREATEST((SELECT last_value FROM chapters_seq) + 50,
+                                       (SELECT COALESCE(MAX(id), 0) FROM chapters) + 50), false);
+SELECT setval('lessons_seq', GREATEST((SELECT last_value FROM lessons_seq) + 50,
+                                      (SELECT COALESCE(MAX(id), 0) FROM lessons) + 50), false);
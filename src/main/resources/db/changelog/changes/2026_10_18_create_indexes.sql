@@ -0,0 +1,13 @@
+-- CONCURRENTLY не блокирует запись в таблицу на время построения, но не работает внутри транзакции:
+-- changeSet выполняется с runInTransaction="false", каждый индекс - отдельной командой.
+-- Если построение прервано, остается индекс INVALID: его нужно удалить (DROP INDEX CONCURRENTLY) до повторного запуска
+
+-- findByName: lower(name) = lower(:name) AND name = :name
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_courses_lower_name ON courses (lower(name));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_chapters_lower_name ON chapters (lower(name));
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_lessons_lower_name ON lessons (lower(name));
+
+-- Полнотекстовый поиск по search_vector из 2026_10_18_add_search_vectors
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_courses_search_vector ON courses USING GIN (search_vector);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_chapters_search_vector ON chapters USING GIN (search_vector);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_lessons_search_vector ON lessons USING GIN (search_vector);
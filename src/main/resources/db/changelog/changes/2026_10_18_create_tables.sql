@@ -0,0 +1,31 @@
+-- Схема, которую раньше создавал hibernate ddl-auto=update; теперь Hibernate только валидирует её
+CREATE TABLE courses
+(
+    id           bigint       NOT NULL PRIMARY KEY,
+    name         varchar(255),
+    description  text,
+    created_time timestamp(6),
+    updated_time timestamp(6)
+);
+
+CREATE TABLE chapters
+(
+    id           bigint       NOT NULL PRIMARY KEY,
+    name         varchar(255),
+    description  text,
+    order_number integer      NOT NULL DEFAULT 0,
+    course_id    bigint       CONSTRAINT fk_chapters_course REFERENCES courses (id),
+    created_time timestamp(6),
+    updated_time timestamp(6)
+);
+
+CREATE TABLE lessons
+(
+    id           bigint       NOT NULL PRIMARY KEY,
+    name         varchar(255),
+    description  text,
+    order_number integer      NOT NULL DEFAULT 0,
+    chapter_id   bigint       CONSTRAINT fk_lessons_chapter REFERENCES chapters (id),
+    created_time timestamp(6),
+    updated_time timestamp(6)
+);
@@ -0,0 +1,105 @@
+package kz.test.lmssystem.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkheadDataSourceTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection connection;
+
+    @Test
+    void getConnection_ShouldHoldPermitUntilConnectionClosedOnce() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "primary", 2, Duration.ofMillis(50));
+
+        Connection first = bulkhead.getConnection();
+        Connection second = bulkhead.getConnection();
+        assertEquals(0, bulkhead.availablePermits());
+
+        first.close();
+        first.close();
+        assertEquals(1, bulkhead.availablePermits());
+        second.close();
+        assertEquals(2, bulkhead.availablePermits());
+        verify(connection, times(3)).close();
+    }
+
+    @Test
+    void getConnection_ShouldFailFastWhenAllPermitsTaken() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "primary", 1, Duration.ofMillis(20));
+        bulkhead.bindTo(registry);
+
+        Connection held = bulkhead.getConnection();
+        SQLTransientConnectionException e = assertThrows(SQLTransientConnectionException.class, bulkhead::getConnection);
+
+        assertTrue(e.getMessage().contains("primary"));
+        verify(pool, times(1)).getConnection();
+        assertEquals(1, registry.get(MetricsConfig.DB_BULKHEAD_WAIT).tag("outcome", "rejected").timer().count());
+        held.close();
+        assertEquals(1, bulkhead.availablePermits());
+    }
+
+    @Test
+    void getConnection_ShouldQueueUntilPermitReleased() throws Exception {
+        when(pool.getConnection()).thenReturn(connection);
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "primary", 1, Duration.ofSeconds(5));
+        Connection held = bulkhead.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return bulkhead.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+
+        held.close();
+        assertNotNull(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.availablePermits());
+    }
+
+    @Test
+    void getConnection_ShouldReturnPermitWhenPoolFails() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("connection refused"));
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "primary", 1, Duration.ofMillis(20));
+
+        assertThrows(SQLException.class, bulkhead::getConnection);
+        assertEquals(1, bulkhead.availablePermits());
+    }
+
+    @Test
+    void connection_ShouldDelegateUnwrapToPoolConnection() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.unwrap(Connection.class)).thenReturn(connection);
+        BulkheadDataSource bulkhead = new BulkheadDataSource(pool, "primary", 1, Duration.ofMillis(20));
+
+        Connection proxy = bulkhead.getConnection();
+
+        assertSame(connection, proxy.unwrap(Connection.class));
+        assertEquals(proxy, proxy);
+        assertNotEquals(proxy, connection);
+    }
+}
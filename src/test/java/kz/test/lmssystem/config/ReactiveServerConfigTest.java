@@ -0,0 +1,49 @@
+package kz.test.lmssystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.test.lmssystem.config.ReactiveServerConfig.ReactiveServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+class ReactiveServerConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(PingRoutes.class, ReactiveServerConfig.class);
+
+    @Test
+    void reactiveServer_ShouldBeOffByDefault() {
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(ReactiveServer.class).isEmpty()));
+    }
+
+    @Test
+    void reactiveServer_WhenEnabled_ShouldStartOnFreePort() {
+        contextRunner.withPropertyValues("lms.reactive.enabled=true", "lms.reactive.port=0")
+                .run(context -> {
+                    ReactiveServer server = context.getBean(ReactiveServer.class);
+                    assertTrue(server.isRunning());
+                    assertTrue(server.getPort() > 0);
+                });
+    }
+
+    @Configuration
+    static class PingRoutes {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        @Bean
+        RouterFunction<ServerResponse> pingRouter() {
+            return route(GET("/ping"), request -> ServerResponse.ok().build());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package kz.test.lmssystem.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    // Отставание задается тестом вместо запроса к pg_last_xact_replay_timestamp()
+    private final Map<DataSource, Double> lagSeconds = new HashMap<>();
+
+    private ReplicaDataSource replicaDataSource(DataSource... replicas) {
+        return new ReplicaDataSource(primary, List.of(replicas), Duration.ofSeconds(1)) {
+            @Override
+            double measureLagSeconds(DataSource replica) throws SQLException {
+                Double lag = lagSeconds.get(replica);
+                if (lag == null) {
+                    throw new SQLException("connection refused");
+                }
+                return lag;
+            }
+        };
+    }
+
+    @Test
+    void getConnection_WithoutReplicas_ShouldUsePrimary() throws SQLException {
+        // Arrange
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource();
+
+        // Act & Assert
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldSkipLaggingReplica() throws SQLException {
+        // Arrange
+        lagSeconds.put(replica1, 5.0);
+        lagSeconds.put(replica2, 0.2);
+        when(replica2.getConnection()).thenReturn(replicaConnection);
+        ReplicaDataSource dataSource = replicaDataSource(replica1, replica2);
+        dataSource.checkLag();
+
+        // Act & Assert
+        assertSame(replicaConnection, dataSource.getConnection());
+        assertSame(replicaConnection, dataSource.getConnection());
+        verify(replica1, never()).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_WhenAllReplicasLagOrFail_ShouldFallBackToPrimary() throws SQLException {
+        // Arrange
+        lagSeconds.put(replica1, 3.0);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource(replica1, replica2);
+        dataSource.checkLag();
+
+        // Act & Assert
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica1, never()).getConnection();
+        verify(replica2, never()).getConnection();
+    }
+
+    @Test
+    void getConnection_RightAfterOwnWriteCommit_ShouldReadFromPrimary() throws SQLException {
+        // Arrange
+        lagSeconds.put(replica1, 0.0);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource(replica1);
+        dataSource.checkLag();
+        ReadYourWrites client = ReadYourWrites.start(0, millis -> {
+        });
+
+        // Act
+        try {
+            ReadYourWrites.writeCommitted();
+
+            // Assert
+            assertSame(primaryConnection, dataSource.getConnection());
+        } finally {
+            client.stop();
+        }
+        verify(replica1, never()).getConnection();
+    }
+
+    @Test
+    void getConnection_AfterWriteOfOtherClient_ShouldReadFromReplica() throws SQLException {
+        // Arrange
+        lagSeconds.put(replica1, 0.0);
+        when(replica1.getConnection()).thenReturn(replicaConnection);
+        ReplicaDataSource dataSource = replicaDataSource(replica1);
+        dataSource.checkLag();
+        ReadYourWrites writer = ReadYourWrites.start(0, millis -> {
+        });
+        ReadYourWrites.writeCommitted();
+        writer.stop();
+
+        // Act: другой клиент и клиент, чья запись старше max-lag
+        Connection withoutCookie = dataSource.getConnection();
+        ReadYourWrites reader = ReadYourWrites.start(System.currentTimeMillis() - 2000, millis -> {
+        });
+        try {
+            // Assert
+            assertSame(replicaConnection, withoutCookie);
+            assertSame(replicaConnection, dataSource.getConnection());
+        } finally {
+            reader.stop();
+        }
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    void getConnection_WhenReplicaRefusesConnection_ShouldFallBackAndExcludeIt() throws SQLException {
+        // Arrange
+        lagSeconds.put(replica1, 0.0);
+        when(replica1.getConnection()).thenThrow(new SQLException("too many connections"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        ReplicaDataSource dataSource = replicaDataSource(replica1);
+        dataSource.checkLag();
+
+        // Act & Assert
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica1, times(1)).getConnection();
+    }
+}
@@ -0,0 +1,138 @@
+package kz.test.lmssystem.config;
+
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.repository.CopyRepository;
+import kz.test.lmssystem.service.CourseService;
+import liquibase.Liquibase;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Два независимых PostgreSQL: второй - локальная замена реплики (не в recovery, отставание 0).
+// Данные в них различаются, поэтому по результату видно, откуда было чтение
+@SpringBootTest(properties = {
+        "spring.liquibase.contexts=test",
+        "lms.datasource.replica.max-lag=500ms",
+        "lms.datasource.replica.lag-check-interval=100ms"
+})
+@Testcontainers(disabledWithoutDocker = true)
+class ReplicaRoutingTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("lms.datasource.replica.urls", replica::getJdbcUrl);
+        registry.add("lms.datasource.replica.username", replica::getUsername);
+        registry.add("lms.datasource.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void replicaSchema() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())) {
+            new Liquibase("db/changelog/db.changelog-master.xml", new ClassLoaderResourceAccessor(),
+                    DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection)))
+                    .update("test");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("INSERT INTO courses (id, name, created_time) VALUES (1000000, 'On replica', now())");
+            }
+        }
+    }
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CopyRepository copyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyTransactions_ShouldReadFromReplicaExceptRightAfterOwnWrite() throws Exception {
+        List<Long> cookie = new ArrayList<>();
+        ReadYourWrites writer = ReadYourWrites.start(0, cookie::add);
+        try {
+            Course course = new Course();
+            course.setName("On primary");
+            courseService.saveCourse(course);
+
+            // Сразу после своей записи - primary
+            assertEquals(1, cookie.size());
+            assertEquals(List.of("On primary"), readOnly("On %"));
+        } finally {
+            writer.stop();
+        }
+
+        // Другой клиент читает с реплики сразу
+        assertEquals(List.of("On replica"), readOnly("On %"));
+
+        // Тот же клиент со своим cookie - после max-lag
+        ReadYourWrites sameClient = ReadYourWrites.start(cookie.get(0), millis -> {
+        });
+        try {
+            assertEquals(List.of("On primary"), readOnly("On %"));
+            Thread.sleep(1000);
+            assertEquals(List.of("On replica"), readOnly("On %"));
+        } finally {
+            sameClient.stop();
+        }
+    }
+
+    @Test
+    void copyImport_ShouldSendClientToPrimaryRightAfterwards() {
+        List<Long> cookie = new ArrayList<>();
+        ReadYourWrites importer = ReadYourWrites.start(0, cookie::add);
+        try {
+            // COPY идет в autocommit, мимо транзакций Spring
+            copyRepository.copyIn(CopyRepository.COPY_COURSES,
+                    "2000000,\"Copied on primary\",,2026-01-01 00:00:00,\n");
+
+            assertEquals(1, cookie.size());
+            assertEquals(List.of("Copied on primary"), readOnly("Copied %"));
+        } finally {
+            importer.stop();
+        }
+
+        assertEquals(List.of(), readOnly("Copied %"));
+    }
+
+    // Кэши сервисов обходятся: проверяется только маршрутизация соединения
+    private List<String> readOnly(String pattern) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template.execute(status -> jdbcTemplate.queryForList(
+                "SELECT name FROM courses WHERE name LIKE ?", String.class, pattern));
+    }
+}
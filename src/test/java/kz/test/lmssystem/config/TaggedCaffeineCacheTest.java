@@ -0,0 +1,55 @@
+package kz.test.lmssystem.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaggedCaffeineCacheTest {
+
+    private TaggedCaffeineCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // Метки - сами элементы списка
+        TaggedCacheManager cacheManager = new TaggedCacheManager(
+                (key, value) -> value instanceof List<?> list ? Set.copyOf(list) : Set.of());
+        cacheManager.registerTaggedCache("lists", Caffeine.newBuilder());
+        cache = (TaggedCaffeineCache) cacheManager.getCache("lists");
+    }
+
+    @Test
+    void evictTagged_ShouldEvictOnlyEntriesWithThatTag() {
+        cache.put(1L, List.of("a", "b"));
+        cache.put(2L, List.of("b"));
+        cache.put(3L, List.of("c"));
+
+        cache.evictTagged(Set.of("b"));
+
+        assertNull(cache.get(1L));
+        assertNull(cache.get(2L));
+        assertNotNull(cache.get(3L));
+    }
+
+    @Test
+    void evictTagged_ShouldNotTouchKeyEvictedAndPutAgainWithOtherTags() {
+        cache.put(1L, List.of("a"));
+        cache.evict(1L);
+        cache.put(1L, List.of("b"));
+
+        cache.evictTagged(Set.of("a"));
+
+        assertNotNull(cache.get(1L));
+    }
+
+    @Test
+    void getCache_ShouldReturnNullForUnregisteredName() {
+        TaggedCacheManager cacheManager = new TaggedCacheManager((key, value) -> Set.of());
+
+        assertNull(cacheManager.getCache("unknown"));
+    }
+}
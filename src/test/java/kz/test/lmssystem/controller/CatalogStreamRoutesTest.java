@@ -0,0 +1,95 @@
+package kz.test.lmssystem.controller;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.exception.InvalidCursorException;
+import kz.test.lmssystem.service.CatalogStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogStreamRoutesTest {
+
+    private CatalogStreamService catalogStreamService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        catalogStreamService = mock(CatalogStreamService.class);
+        webTestClient = WebTestClient.bindToRouterFunction(
+                        new CatalogStreamRoutes().catalogStreamRouter(new CatalogStreamHandler(catalogStreamService)))
+                .build();
+    }
+
+    @Test
+    void courses_ShouldStreamJsonArray() {
+        when(catalogStreamService.streamCourses(null, null)).thenReturn(Flux.just(
+                CourseDto.builder().id(1L).courseName("Java").build(),
+                CourseDto.builder().id(2L).courseName("Spring").build()));
+
+        webTestClient.get().uri("/api/courses/")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].courseName").isEqualTo("Spring");
+    }
+
+    @Test
+    void chaptersByCourse_ShouldPassCursorAndLimit() {
+        when(catalogStreamService.streamChaptersByCourseId(1L, "cHJldg", 2L)).thenReturn(Flux.just(
+                ChapterDto.builder().id(6L).courseId(1L).cursor("c2l4").build(),
+                ChapterDto.builder().id(7L).courseId(1L).cursor("c2V2ZW4").build()));
+
+        webTestClient.get().uri("/api/chapters/by-course/1?after=cHJldg&limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(6)
+                .jsonPath("$[1].courseId").isEqualTo(1)
+                .jsonPath("$[1].cursor").isEqualTo("c2V2ZW4");
+    }
+
+    @Test
+    void lessonsByChapter_ShouldStreamNdjsonWhenAccepted() {
+        when(catalogStreamService.streamLessonsByChapterId(1L, null, null)).thenReturn(Flux.just(
+                LessonDto.builder().id(1L).lessonName("Intro").chapterId(1L).build(),
+                LessonDto.builder().id(2L).lessonName("Types").chapterId(1L).build()));
+
+        webTestClient.get().uri("/api/lessons/by-chapter/1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(LessonDto.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void lessonsByChapter_WhenCursorIsMalformed_ShouldReturnBadRequest() {
+        when(catalogStreamService.streamLessonsByChapterId(1L, "99", null))
+                .thenReturn(Flux.error(new InvalidCursorException("99")));
+
+        webTestClient.get().uri("/api/lessons/by-chapter/1?after=99")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void lessonsByChapter_ShouldRejectNonNumericParameter() {
+        webTestClient.get().uri("/api/lessons/by-chapter/1?limit=ten")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(catalogStreamService, never()).streamLessonsByChapterId(any(), any(), any());
+    }
+}
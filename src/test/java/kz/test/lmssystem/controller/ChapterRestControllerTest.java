@@ -2,15 +2,23 @@ package kz.test.lmssystem.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.ChapterPatchDto;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.exception.InvalidOrderException;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
 import kz.test.lmssystem.mapper.ChapterMapper;
 import kz.test.lmssystem.service.ChapterService;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -21,6 +29,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,10 +41,10 @@ public class ChapterRestControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    @Mock
+    @MockitoBean
     private ChapterService chapterService;
 
-    @Mock
+    @MockitoBean
     private ChapterMapper chapterMapper;
 
     @Autowired
@@ -59,6 +68,12 @@ public class ChapterRestControllerTest {
                 .description("Learn Java from scratch")
                 .createdTime(LocalDateTime.now())
                 .build();
+
+        // Версия списков для условного GET: без If-None-Match ответ всегда 200
+        when(chapterService.getChaptersVersion()).thenReturn(new VersionStamp(0L, null));
+        when(chapterService.getChaptersVersionByCourseId(anyLong())).thenReturn(new VersionStamp(0L, null));
+        // Номер order отдельной сущности сервис дописывает в тот же DTO
+        when(chapterService.withOrder(any(ChapterDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -67,16 +82,33 @@ public class ChapterRestControllerTest {
         List<Chapter> chapters = Arrays.asList(testChapter);
         List<ChapterDto> chapterDtos = Arrays.asList(testChapterDto);
 
-        when(chapterService.getAllChapters()).thenReturn(chapters);
+        when(chapterService.getChapters(null, 50, FetchPlan.FULL)).thenReturn(new SliceImpl<>(chapters));
         when(chapterMapper.toDtoChapterList(chapters)).thenReturn(chapterDtos);
 
-        mockMvc.perform(get("/api/chapters"))
+        mockMvc.perform(get("/api/chapters/"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].chapterName").value("Java Chapter"));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content[0].chapterName").value("Java Chapter"));
+
+        verify(chapterService, times(1)).getChapters(null, 50, FetchPlan.FULL);
+    }
+
+    @Test
+    void getChaptersByCourseId_WithSummaryView_ShouldReturnSummaries() throws Exception {
+        ChapterSummaryDto summary = new ChapterSummaryDto(1L, "Java Chapter", 1, 1L, null, null);
+        when(chapterService.getChapterSummariesByCourseId(1L, "cHJldg", 50))
+                .thenReturn(new KeysetSlice<>(List.of(summary), PageRequest.of(0, 50), true, "bmV4dA"));
 
-        verify(chapterService, times(1)).getAllChapters();
+        mockMvc.perform(get("/api/chapters/by-course/1").param("view", "summary").param("after", "cHJldg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(jsonPath("$.content[0].chapterName").value("Java Chapter"))
+                .andExpect(jsonPath("$.content[0].courseId").value(1))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+
+        verify(chapterService, times(1)).getChapterSummariesByCourseId(1L, "cHJldg", 50);
     }
 
     @Test
@@ -112,7 +144,9 @@ public class ChapterRestControllerTest {
     @Test
     void getChapterByName_WhenCourseExists_ShouldReturnChapter() throws Exception {
         // Arrange
-        when(chapterService.getChapterByName("Java Chapter")).thenReturn(testChapter);
+        testChapter.setName("Java Lesson");
+        testChapterDto.setChapterName("Java Lesson");
+        when(chapterService.getChapterByName("Java Lesson")).thenReturn(testChapter);
         when(chapterMapper.toDtoChapter(testChapter)).thenReturn(testChapterDto);
 
         // Act & Assert
@@ -131,7 +165,7 @@ public class ChapterRestControllerTest {
         doNothing().when(chapterService).saveChapter(any(Chapter.class));
 
         // Act & Assert
-        mockMvc.perform(post("/api/chapters")
+        mockMvc.perform(post("/api/chapters/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testChapterDto)))
                 .andExpect(status().isCreated());
@@ -139,13 +173,57 @@ public class ChapterRestControllerTest {
         verify(chapterService, times(1)).saveChapter(any(Chapter.class));
     }
 
+    @Test
+    void insertChapterAfter_ShouldCreateChapterNextToAnchor() throws Exception {
+        // Arrange
+        when(chapterMapper.toEntityChapter(any(ChapterDto.class))).thenReturn(testChapter);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/chapters/").param("after", "5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testChapterDto)))
+                .andExpect(status().isCreated());
+
+        verify(chapterService, times(1)).insertChapterAfter(5L, testChapter);
+        verify(chapterService, never()).saveChapter(any(Chapter.class));
+    }
+
+    @Test
+    void insertChapterBefore_WhenAnchorNotExists_ShouldReturn404() throws Exception {
+        // Arrange
+        when(chapterMapper.toEntityChapter(any(ChapterDto.class))).thenReturn(testChapter);
+        doThrow(new ResourceNotFoundException("Chapter", 999L))
+                .when(chapterService).insertChapterBefore(999L, testChapter);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/chapters/").param("before", "999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testChapterDto)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void addChapters_ShouldCreateChaptersInBatch() throws Exception {
+        // Arrange
+        List<Chapter> chapters = List.of(testChapter);
+        when(chapterMapper.toEntityChapterList(anyList())).thenReturn(chapters);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/chapters/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testChapterDto))))
+                .andExpect(status().isCreated());
+
+        verify(chapterService, times(1)).saveChapters(chapters);
+    }
+
     @Test
     void updateChapter_ShouldUpdateChapter() throws Exception {
         // Arrange
         doNothing().when(chapterService).updateChapter(any(Chapter.class));
 
         // Act & Assert
-        mockMvc.perform(put("/api/chapters")
+        mockMvc.perform(put("/api/chapters/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testChapter)))
                 .andExpect(status().isOk());
@@ -153,6 +231,23 @@ public class ChapterRestControllerTest {
         verify(chapterService, times(1)).updateChapter(any(Chapter.class));
     }
 
+    @Test
+    void patchChapter_ShouldReturnChapterWithNewVersion() throws Exception {
+        // Arrange
+        testChapterDto.setVersion(1L);
+        when(chapterService.patchChapter(eq(1L), any(ChapterPatchDto.class))).thenReturn(testChapter);
+        when(chapterMapper.toDtoChapter(testChapter)).thenReturn(testChapterDto);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/chapters/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"chapterName\":\"Renamed\",\"version\":0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        verify(chapterService).patchChapter(1L, new ChapterPatchDto("Renamed", null, 0L));
+    }
+
     @Test
     void deleteChapter_ShouldDeleteChapter() throws Exception {
         // Arrange
@@ -178,4 +273,49 @@ public class ChapterRestControllerTest {
         verify(chapterService, times(1)).deleteChapterById(999L);
     }
 
+    @Test
+    void deleteChapters_ShouldPassIds() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/chapters/").param("ids", "1,2,3"))
+                .andExpect(status().isNoContent());
+
+        verify(chapterService, times(1)).deleteChapters(List.of(1L, 2L, 3L));
+        verify(chapterService, never()).deleteChapterById(anyLong());
+    }
+
+    @Test
+    void deleteChapters_WhenSomeNotExists_ShouldReturn404() throws Exception {
+        // Arrange
+        doThrow(new ResourceNotFoundException("Chapter", 999L))
+                .when(chapterService).deleteChapters(List.of(1L, 999L));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/chapters/").param("ids", "1", "999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reorderLessons_ShouldPassOrderedIds() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/chapters/1/lessons/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[3, 1, 2]"))
+                .andExpect(status().isOk());
+
+        verify(chapterService, times(1)).reorderLessons(1L, List.of(3L, 1L, 2L));
+    }
+
+    @Test
+    void reorderLessons_WhenListDoesNotMatch_ShouldReturn400() throws Exception {
+        // Arrange
+        doThrow(new InvalidOrderException("chapter 1 has 3 lessons, the new order lists 2 of them"))
+                .when(chapterService).reorderLessons(1L, List.of(3L, 1L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/chapters/1/lessons/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[3, 1]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("chapter 1 has 3 lessons, the new order lists 2 of them"));
+    }
 }
@@ -0,0 +1,126 @@
+package kz.test.lmssystem.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// PUT главы на настоящей базе и кэше второго уровня: тело без sort_key не должно попасть в кэш сущностей,
+// из которого потом читают страницы по курсу
+@SpringBootTest(properties = "spring.liquibase.contexts=test")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class ChapterUpdateIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ChapterRepository chapterRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    private Long courseId;
+
+    private Long chapterId;
+
+    @BeforeEach
+    void setUp() {
+        Course course = new Course();
+        course.setName("Java");
+        courseRepository.save(course);
+        courseId = course.getId();
+
+        List<Chapter> chapters = new ArrayList<>();
+        for (int ch = 0; ch < 3; ch++) {
+            Chapter chapter = new Chapter();
+            chapter.setName("Chapter " + ch);
+            chapter.setCourse(course);
+            chapter.setSortKey((ch + 1) * OrderRepository.SORT_KEY_GAP);
+            chapters.add(chapter);
+        }
+        chapterRepository.saveAll(chapters);
+        chapterId = chapters.get(0).getId();
+
+        List<Lesson> lessons = new ArrayList<>();
+        for (Chapter chapter : chapters) {
+            for (int l = 0; l < 2; l++) {
+                Lesson lesson = new Lesson();
+                lesson.setName(chapter.getName() + "." + l);
+                lesson.setChapter(chapter);
+                lesson.setSortKey((l + 1) * OrderRepository.SORT_KEY_GAP);
+                lessons.add(lesson);
+            }
+        }
+        lessonRepository.saveAll(lessons);
+    }
+
+    @Test
+    void updateChapter_ThenByCoursePages_ShouldKeepSortKey() throws Exception {
+        // Arrange: страницы прогревают кэш второго уровня до PUT
+        mockMvc.perform(get("/api/chapters/by-course/" + courseId).param("limit", "2"))
+                .andExpect(status().isOk());
+
+        // Act
+        mockMvc.perform(put("/api/chapters/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":" + chapterId + ",\"name\":\"Renamed\",\"courseId\":" + courseId + "}"))
+                .andExpect(status().isOk());
+
+        // Assert: findById читает главу из кэша второго уровня
+        assertEquals(OrderRepository.SORT_KEY_GAP, chapterRepository.findById(chapterId).orElseThrow().getSortKey());
+        String page = mockMvc.perform(get("/api/chapters/by-course/" + courseId).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].chapterName").value("Renamed"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(get("/api/chapters/by-course/" + courseId).param("after", JsonPath.read(page, "$.nextCursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].chapterName").value("Chapter 2"));
+        mockMvc.perform(get("/api/lessons/by-course/" + courseId).param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(true));
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.chapters[0].chapterName").value("Renamed"));
+    }
+}
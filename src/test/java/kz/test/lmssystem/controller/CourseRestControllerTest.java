@@ -1,42 +1,63 @@
 package kz.test.lmssystem.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.CacheTagger;
 import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.CoursePatchDto;
+import kz.test.lmssystem.dto.ChapterTreeDto;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.LessonTreeDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Course;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
 import kz.test.lmssystem.mapper.CourseMapper;
 import kz.test.lmssystem.service.CourseService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(CourseRestController.class)
+@Import({ResponseCache.class, CacheConfig.class})
 class CourseRestControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
-    @Mock
+    @MockitoBean
     private CourseService courseService;
 
-    @Mock
+    @MockitoBean
     private CourseMapper courseMapper;
 
+    // Кэши сервисов в тесте не заполняются: сервис подменен
+    @MockitoBean
+    private CacheTagger cacheTagger;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -57,6 +78,10 @@ class CourseRestControllerTest {
                 .description("Learn Java from scratch")
                 .createdTime(LocalDateTime.now())
                 .build();
+
+        // Версия списков для условного GET: без If-None-Match ответ всегда 200
+        when(courseService.getCoursesVersion()).thenReturn(new VersionStamp(0L, null));
+        when(courseService.getCourseTreeVersion(anyLong())).thenReturn(new VersionStamp(0L, null));
     }
 
     @Test
@@ -65,17 +90,50 @@ class CourseRestControllerTest {
         List<Course> courses = Arrays.asList(testCourse);
         List<CourseDto> courseDtos = Arrays.asList(testCourseDto);
 
-        when(courseService.getAllCourses()).thenReturn(courses);
+        when(courseService.getCourses(null, 50)).thenReturn(new SliceImpl<>(courses));
         when(courseMapper.toDtoCourseList(courses)).thenReturn(courseDtos);
 
         // Act & Assert
-        mockMvc.perform(get("/api/courses"))
+        mockMvc.perform(get("/api/courses/"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].courseName").value("Java Programming"));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content[0].courseName").value("Java Programming"));
 
-        verify(courseService, times(1)).getAllCourses();
+        verify(courseService, times(1)).getCourses(null, 50);
+    }
+
+    @Test
+    void getAllCourses_WhenETagMatches_ShouldReturn304WithoutLoadingPage() throws Exception {
+        // Arrange
+        when(courseService.getCoursesVersion())
+                .thenReturn(new VersionStamp(3L, LocalDateTime.of(2026, 1, 1, 12, 0)));
+        when(courseService.getCourses(null, 50)).thenReturn(new SliceImpl<>(List.of(testCourse)));
+        String etag = mockMvc.perform(get("/api/courses/"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/courses/").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(courseService, times(1)).getCourses(null, 50);
+    }
+
+    @Test
+    void getAllCourses_WithSummaryView_ShouldReturnSummariesWithoutDescription() throws Exception {
+        // Arrange
+        CourseSummaryDto summary = new CourseSummaryDto(1L, "Java Programming", null, null);
+        when(courseService.getCourseSummaries(null, 50)).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/courses/").param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].courseName").value("Java Programming"))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+
+        verify(courseService, never()).getCourses(any(), anyInt());
     }
 
     @Test
@@ -94,6 +152,69 @@ class CourseRestControllerTest {
         verify(courseService, times(1)).getCourseById(1L);
     }
 
+    @Test
+    void getCourseById_WhenNotModifiedSinceLastUpdate_ShouldReturn304() throws Exception {
+        // Arrange
+        testCourse.setUpdatedTime(LocalDateTime.of(2026, 1, 1, 12, 0));
+        when(courseService.getCourseById(1L)).thenReturn(testCourse);
+        when(courseMapper.toDtoCourse(testCourse)).thenReturn(testCourseDto);
+
+        // Act & Assert
+        String etag = mockMvc.perform(get("/api/courses/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/courses/1").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        testCourse.setUpdatedTime(LocalDateTime.of(2026, 1, 2, 12, 0));
+        mockMvc.perform(get("/api/courses/1").header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getCourseById_WhenClientAcceptsGzip_ShouldReturnPrecompressedBody() throws Exception {
+        // Arrange
+        testCourseDto.setDescription("Learn Java from scratch. ".repeat(100));
+        when(courseService.getCourseById(1L)).thenReturn(testCourse);
+        when(courseMapper.toDtoCourse(testCourse)).thenReturn(testCourseDto);
+
+        // Act & Assert
+        byte[] body = mockMvc.perform(get("/api/courses/1").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (GZIPInputStream json = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("Java Programming",
+                    objectMapper.readValue(json, CourseDto.class).getCourseName());
+        }
+    }
+
+    @Test
+    void getCourseById_WhenGzipAndIdentityServed_ShouldUseWeakETagValidForBoth() throws Exception {
+        // Arrange
+        testCourseDto.setDescription("Learn Java from scratch. ".repeat(100));
+        when(courseService.getCourseById(1L)).thenReturn(testCourse);
+        when(courseMapper.toDtoCourse(testCourse)).thenReturn(testCourseDto);
+
+        // Act
+        String gzipETag = mockMvc.perform(get("/api/courses/1").header("Accept-Encoding", "gzip"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getHeader("ETag");
+        String identityETag = mockMvc.perform(get("/api/courses/1"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Assert: байты разные, поэтому строгий ETag был бы неверен
+        assertTrue(gzipETag.startsWith("W/\""), gzipETag);
+        assertEquals(gzipETag, identityETag);
+        mockMvc.perform(get("/api/courses/1").header("Accept-Encoding", "gzip").header("If-None-Match", identityETag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/courses/1").header("If-None-Match", gzipETag))
+                .andExpect(status().isNotModified());
+    }
+
     @Test
     void getCourseById_WhenCourseNotExists_ShouldReturn404() throws Exception {
         // Arrange
@@ -108,6 +229,25 @@ class CourseRestControllerTest {
         verify(courseService, times(1)).getCourseById(999L);
     }
 
+    @Test
+    void getCourseTree_ShouldReturnChaptersWithLessons() throws Exception {
+        // Arrange
+        CourseTreeDto tree = new CourseTreeDto(1L, "Java Programming", "Learn Java from scratch", null, null,
+                List.of(new ChapterTreeDto(10L, "Basics", null, 1, null, null,
+                        List.of(new LessonTreeDto(100L, "Intro", null, 1, null, null)))));
+        when(courseService.getCourseTree(1L)).thenReturn(tree);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/courses/1/tree"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.courseName").value("Java Programming"))
+                .andExpect(jsonPath("$.chapters", hasSize(1)))
+                .andExpect(jsonPath("$.chapters[0].lessons[0].lessonName").value("Intro"));
+
+        verify(courseService, times(1)).getCourseTree(1L);
+    }
+
     @Test
     void getCourseByName_WhenCourseExists_ShouldReturnCourse() throws Exception {
         // Arrange
@@ -130,7 +270,7 @@ class CourseRestControllerTest {
         doNothing().when(courseService).saveCourse(any(Course.class));
 
         // Act & Assert
-        mockMvc.perform(post("/api/courses")
+        mockMvc.perform(post("/api/courses/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testCourseDto)))
                 .andExpect(status().isCreated());
@@ -138,13 +278,28 @@ class CourseRestControllerTest {
         verify(courseService, times(1)).saveCourse(any(Course.class));
     }
 
+    @Test
+    void addCourses_ShouldCreateCoursesInBatch() throws Exception {
+        // Arrange
+        List<Course> courses = List.of(testCourse);
+        when(courseMapper.toEntityCourseList(anyList())).thenReturn(courses);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/courses/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testCourseDto))))
+                .andExpect(status().isCreated());
+
+        verify(courseService, times(1)).saveCourses(courses);
+    }
+
     @Test
     void updateCourse_ShouldUpdateCourse() throws Exception {
         // Arrange
         doNothing().when(courseService).updateCourse(any(Course.class));
 
         // Act & Assert
-        mockMvc.perform(put("/api/courses")
+        mockMvc.perform(put("/api/courses/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testCourse)))
                 .andExpect(status().isOk());
@@ -152,6 +307,48 @@ class CourseRestControllerTest {
         verify(courseService, times(1)).updateCourse(any(Course.class));
     }
 
+    @Test
+    void patchCourse_ShouldReturnCourseWithNewVersion() throws Exception {
+        // Arrange
+        testCourseDto.setVersion(3L);
+        when(courseService.patchCourse(eq(1L), any(CoursePatchDto.class))).thenReturn(testCourse);
+        when(courseMapper.toDtoCourse(testCourse)).thenReturn(testCourseDto);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/courses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"courseName\":\"Java 21\",\"version\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+
+        verify(courseService).patchCourse(1L, new CoursePatchDto("Java 21", null, 2L));
+    }
+
+    @Test
+    void patchCourse_WhenVersionIsStale_ShouldReturnConflict() throws Exception {
+        // Arrange
+        when(courseService.patchCourse(eq(1L), any(CoursePatchDto.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Course.class, 1L));
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/courses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"courseName\":\"Java 21\",\"version\":2}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
+    @Test
+    void patchCourse_WhenVersionMissing_ShouldReturnBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(patch("/api/courses/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"courseName\":\"Java 21\"}"))
+                .andExpect(status().isBadRequest());
+
+        verify(courseService, never()).patchCourse(anyLong(), any());
+    }
+
     @Test
     void deleteCourse_ShouldDeleteCourse() throws Exception {
         // Arrange
@@ -176,4 +373,49 @@ class CourseRestControllerTest {
 
         verify(courseService, times(1)).deleteCourseById(999L);
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteCourses_ShouldPassIds() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/courses/").param("ids", "1,2,3"))
+                .andExpect(status().isNoContent());
+
+        verify(courseService, times(1)).deleteCourses(List.of(1L, 2L, 3L));
+        verify(courseService, never()).deleteCourseById(anyLong());
+    }
+
+    @Test
+    void deleteCourses_WhenSomeNotExists_ShouldReturn404() throws Exception {
+        // Arrange
+        doThrow(new ResourceNotFoundException("Course", 999L))
+                .when(courseService).deleteCourses(List.of(1L, 999L));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/courses/").param("ids", "1", "999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reorderChapters_ShouldPassOrderedIds() throws Exception {
+        // Act & Assert
+        mockMvc.perform(put("/api/courses/1/chapters/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2, 1]"))
+                .andExpect(status().isOk());
+
+        verify(courseService, times(1)).reorderChapters(1L, List.of(2L, 1L));
+    }
+
+    @Test
+    void reorderChapters_WhenCourseNotExists_ShouldReturn404() throws Exception {
+        // Arrange
+        doThrow(new ResourceNotFoundException("Course", 999L))
+                .when(courseService).reorderChapters(999L, List.of(1L));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/courses/999/chapters/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                .andExpect(status().isNotFound());
+    }
+}
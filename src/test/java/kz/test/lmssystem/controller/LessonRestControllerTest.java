@@ -2,15 +2,22 @@ package kz.test.lmssystem.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.dto.LessonPatchDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Lesson;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
 import kz.test.lmssystem.mapper.LessonMapper;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import kz.test.lmssystem.service.LessonService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -21,6 +28,7 @@ import java.util.List;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,10 +40,10 @@ public class LessonRestControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
-    @Mock
+    @MockitoBean
     private LessonService lessonService;
 
-    @Mock
+    @MockitoBean
     private LessonMapper lessonMapper;
 
     @Autowired
@@ -59,6 +67,13 @@ public class LessonRestControllerTest {
                 .description("Learn Java from scratch")
                 .createdTime(LocalDateTime.now())
                 .build();
+
+        // Версия списков для условного GET: без If-None-Match ответ всегда 200
+        when(lessonService.getLessonsVersion()).thenReturn(new VersionStamp(0L, null));
+        when(lessonService.getLessonsVersionByChapterId(anyLong())).thenReturn(new VersionStamp(0L, null));
+        when(lessonService.getLessonsVersionByCourseId(anyLong())).thenReturn(new VersionStamp(0L, null));
+        // Номер order отдельной сущности сервис дописывает в тот же DTO
+        when(lessonService.withOrder(any(LessonDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
 
     @Test
@@ -67,16 +82,33 @@ public class LessonRestControllerTest {
         List<Lesson> lessons = Arrays.asList(testLesson);
         List<LessonDto> lessonDtos = Arrays.asList(testLessonDto);
 
-        when(lessonService.getAllLessons()).thenReturn(lessons);
+        when(lessonService.getLessons(null, 50, FetchPlan.FULL)).thenReturn(new SliceImpl<>(lessons));
         when(lessonMapper.toDtoLessonList(lessons)).thenReturn(lessonDtos);
 
-        mockMvc.perform(get("/api/lessons"))
+        mockMvc.perform(get("/api/lessons/"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].lessonName").value("Java Lesson"));
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content[0].lessonName").value("Java Lesson"));
 
-        verify(lessonService, times(1)).getAllLessons();
+        verify(lessonService, times(1)).getLessons(null, 50, FetchPlan.FULL);
+    }
+
+    @Test
+    void getLessonsByChapterId_WithSummaryView_ShouldReturnSummaries() throws Exception {
+        LessonSummaryDto summary = new LessonSummaryDto(1L, "Java Lesson", 1, 1L, null, null);
+        when(lessonService.getLessonSummariesByChapterId(1L, "cHJldg", 50))
+                .thenReturn(new KeysetSlice<>(List.of(summary), PageRequest.of(0, 50), true, "bmV4dA"));
+
+        mockMvc.perform(get("/api/lessons/by-chapter/1").param("view", "summary").param("after", "cHJldg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("bmV4dA"))
+                .andExpect(jsonPath("$.content[0].lessonName").value("Java Lesson"))
+                .andExpect(jsonPath("$.content[0].chapterId").value(1))
+                .andExpect(jsonPath("$.content[0].description").doesNotExist());
+
+        verify(lessonService, times(1)).getLessonSummariesByChapterId(1L, "cHJldg", 50);
     }
 
     @Test
@@ -95,6 +127,23 @@ public class LessonRestControllerTest {
         verify(lessonService, times(1)).getLessonById(1L);
     }
 
+    @Test
+    void getLessonById_WhenOrderShifted_ShouldNotReturn304() throws Exception {
+        // Arrange
+        when(lessonService.getLessonById(1L)).thenReturn(testLesson);
+        when(lessonMapper.toDtoLesson(testLesson)).thenReturn(testLessonDto);
+        testLessonDto.setOrder(2);
+        String etag = mockMvc.perform(get("/api/lessons/1"))
+                .andExpect(header().doesNotExist("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert: перед уроком вставили соседа, сам урок не менялся
+        testLessonDto.setOrder(3);
+        mockMvc.perform(get("/api/lessons/1").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.order").value(3));
+    }
+
     @Test
     void getLessonById_WhenLessonNotExists_ShouldReturn404() throws Exception {
         // Arrange
@@ -131,7 +180,7 @@ public class LessonRestControllerTest {
         doNothing().when(lessonService).saveLesson(any(Lesson.class));
 
         // Act & Assert
-        mockMvc.perform(post("/api/lessons")
+        mockMvc.perform(post("/api/lessons/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testLessonDto)))
                 .andExpect(status().isCreated());
@@ -139,13 +188,57 @@ public class LessonRestControllerTest {
         verify(lessonService, times(1)).saveLesson(any(Lesson.class));
     }
 
+    @Test
+    void insertLessonBefore_ShouldCreateLessonNextToAnchor() throws Exception {
+        // Arrange
+        when(lessonMapper.toEntityLesson(any(LessonDto.class))).thenReturn(testLesson);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/lessons/").param("before", "5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testLessonDto)))
+                .andExpect(status().isCreated());
+
+        verify(lessonService, times(1)).insertLessonBefore(5L, testLesson);
+        verify(lessonService, never()).saveLesson(any(Lesson.class));
+    }
+
+    @Test
+    void insertLessonAfter_ShouldCreateLessonNextToAnchor() throws Exception {
+        // Arrange
+        when(lessonMapper.toEntityLesson(any(LessonDto.class))).thenReturn(testLesson);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/lessons/").param("after", "5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testLessonDto)))
+                .andExpect(status().isCreated());
+
+        verify(lessonService, times(1)).insertLessonAfter(5L, testLesson);
+    }
+
+    @Test
+    void addLessons_ShouldCreateLessonsInBatch() throws Exception {
+        // Arrange
+        List<Lesson> lessons = List.of(testLesson);
+        when(lessonMapper.toEntityLessonList(anyList())).thenReturn(lessons);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/lessons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testLessonDto))))
+                .andExpect(status().isCreated());
+
+        verify(lessonService, times(1)).saveLessons(lessons);
+    }
+
     @Test
     void updateLesson_ShouldUpdateLesson() throws Exception {
         // Arrange
         doNothing().when(lessonService).updateLesson(any(Lesson.class));
 
         // Act & Assert
-        mockMvc.perform(put("/api/lessons")
+        mockMvc.perform(put("/api/lessons/")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(testLesson)))
                 .andExpect(status().isOk());
@@ -153,6 +246,23 @@ public class LessonRestControllerTest {
         verify(lessonService, times(1)).updateLesson(any(Lesson.class));
     }
 
+    @Test
+    void patchLesson_ShouldReturnLessonWithNewVersion() throws Exception {
+        // Arrange
+        testLessonDto.setVersion(1L);
+        when(lessonService.patchLesson(eq(1L), any(LessonPatchDto.class))).thenReturn(testLesson);
+        when(lessonMapper.toDtoLesson(testLesson)).thenReturn(testLessonDto);
+
+        // Act & Assert
+        mockMvc.perform(patch("/api/lessons/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lessonName\":\"Renamed\",\"version\":0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+
+        verify(lessonService).patchLesson(1L, new LessonPatchDto("Renamed", null, 0L));
+    }
+
     @Test
     void deleteLesson_ShouldDeleteLesson() throws Exception {
         // Arrange
@@ -178,4 +288,25 @@ public class LessonRestControllerTest {
         verify(lessonService, times(1)).deleteLessonById(999L);
     }
 
+    @Test
+    void deleteLessons_ShouldPassIds() throws Exception {
+        // Act & Assert
+        mockMvc.perform(delete("/api/lessons/").param("ids", "1,2,3"))
+                .andExpect(status().isNoContent());
+
+        verify(lessonService, times(1)).deleteLessons(List.of(1L, 2L, 3L));
+        verify(lessonService, never()).deleteLessonById(anyLong());
+    }
+
+    @Test
+    void deleteLessons_WhenSomeNotExists_ShouldReturn404() throws Exception {
+        // Arrange
+        doThrow(new ResourceNotFoundException("Lesson", 999L))
+                .when(lessonService).deleteLessons(List.of(1L, 999L));
+
+        // Act & Assert
+        mockMvc.perform(delete("/api/lessons/").param("ids", "1", "999"))
+                .andExpect(status().isNotFound());
+    }
+
 }
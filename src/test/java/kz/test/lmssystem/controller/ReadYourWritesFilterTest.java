@@ -0,0 +1,66 @@
+package kz.test.lmssystem.controller;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import kz.test.lmssystem.config.DataSourceConfig;
+import kz.test.lmssystem.config.ReadYourWrites;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofMillis(500));
+
+    // Обработчик, коммитящий пишущую транзакцию через тот же слушатель, что подключен к менеджеру транзакций
+    private static MockFilterChain chainCommittingWrite() {
+        TransactionExecution transaction = mock(TransactionExecution.class);
+        when(transaction.isReadOnly()).thenReturn(false);
+        TransactionExecutionListener listener = new DataSourceConfig().replicaReadYourWritesListener();
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                listener.afterCommit(transaction, null);
+            }
+        });
+    }
+
+    @Test
+    void doFilter_WhenWriteCommitted_ShouldSetLastWriteCookie() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long before = System.currentTimeMillis();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/courses/"), response, chainCommittingWrite());
+
+        // Assert
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertNotNull(cookie);
+        assertTrue(Long.parseLong(cookie.getValue()) >= before);
+        assertEquals(1, cookie.getMaxAge());
+    }
+
+    @Test
+    void doFilter_WithoutWrite_ShouldNotSetCookie() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/courses/"), response, new MockFilterChain());
+
+        // Assert
+        assertNull(response.getCookie(ReadYourWrites.COOKIE));
+    }
+}
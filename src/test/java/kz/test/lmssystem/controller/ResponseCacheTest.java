@@ -0,0 +1,83 @@
+package kz.test.lmssystem.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final VersionStamp VERSION = new VersionStamp(1L, LocalDateTime.of(2026, 1, 1, 12, 0));
+
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new ResponseCache(new CaffeineCacheManager(CacheConfig.RESPONSES), new ObjectMapper());
+    }
+
+    private static ServletWebRequest request(String uri, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    @Test
+    void ok_ShouldSerializeOncePerRouteAndVersion() {
+        AtomicInteger serialized = new AtomicInteger();
+        CourseSummaryDto course = new CourseSummaryDto(1L, "Java", null, null);
+
+        ResponseEntity<byte[]> first = responseCache.ok(request("/api/courses/1", null), VERSION, () -> {
+            serialized.incrementAndGet();
+            return course;
+        });
+        ResponseEntity<byte[]> second = responseCache.ok(request("/api/courses/1", null), VERSION, () -> {
+            serialized.incrementAndGet();
+            return course;
+        });
+        responseCache.ok(request("/api/courses/1", null), new VersionStamp(1L, VERSION.lastModified().plusSeconds(1)),
+                () -> {
+                    serialized.incrementAndGet();
+                    return course;
+                });
+
+        assertEquals(2, serialized.get());
+        assertSame(first.getBody(), second.getBody());
+    }
+
+    @Test
+    void ok_ShouldServeGzipOnlyToClientsThatAcceptIt() {
+        CourseSummaryDto course = new CourseSummaryDto(1L, "Java ".repeat(500), null, null);
+
+        ResponseEntity<byte[]> gzip = responseCache.ok(request("/api/courses/1", "br, gzip"), VERSION, () -> course);
+        ResponseEntity<byte[]> refused = responseCache.ok(request("/api/courses/1", "gzip;q=0"), VERSION, () -> course);
+        ResponseEntity<byte[]> plain = responseCache.ok(request("/api/courses/1", null), VERSION, () -> course);
+
+        assertEquals("gzip", gzip.getHeaders().getFirst("Content-Encoding"));
+        assertTrue(gzip.getBody().length < plain.getBody().length);
+        assertNull(refused.getHeaders().getFirst("Content-Encoding"));
+        assertNull(plain.getHeaders().getFirst("Content-Encoding"));
+    }
+
+    @Test
+    void ok_ShouldNotCompressSmallBodies() {
+        ResponseEntity<byte[]> response = responseCache.ok(request("/api/courses/1", "gzip"), VERSION,
+                () -> new CourseSummaryDto(1L, "Java", null, null));
+
+        assertNull(response.getHeaders().getFirst("Content-Encoding"));
+    }
+}
@@ -0,0 +1,159 @@
+package kz.test.lmssystem.controller;
+
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Бюджет SQL на настоящих сервисах и базе: схема создается Liquibase, каталог засевается один раз на класс.
+// Страница списка (50 строк) больше бюджета, поэтому N+1 в любом из маршрутов роняет запрос
+@SpringBootTest(properties = {
+        "spring.liquibase.contexts=test",
+        "lms.reactive.enabled=false",
+        "lms.sql.statement-budget=" + SqlStatementBudgetTest.BUDGET,
+        "lms.sql.fail-over-budget=true",
+        "lms.sql.response-header=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Testcontainers(disabledWithoutDocker = true)
+class SqlStatementBudgetTest {
+
+    static final int BUDGET = 10;
+
+    private static final int COURSES = 60;
+    private static final int CHAPTERS_PER_COURSE = 4;
+    private static final int LESSONS_PER_CHAPTER = 15;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ChapterRepository chapterRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    private Long courseId;
+
+    private Long chapterId;
+
+    @BeforeAll
+    void seed() {
+        List<Course> courses = new ArrayList<>();
+        for (int c = 0; c < COURSES; c++) {
+            Course course = new Course();
+            course.setName("Course " + c);
+            course.setDescription("Description " + c);
+            courses.add(course);
+        }
+        courseRepository.saveAll(courses);
+
+        List<Chapter> chapters = new ArrayList<>();
+        for (Course course : courses) {
+            for (int ch = 0; ch < CHAPTERS_PER_COURSE; ch++) {
+                Chapter chapter = new Chapter();
+                chapter.setName(course.getName() + "." + ch);
+                chapter.setCourse(course);
+                chapter.setSortKey((ch + 1) * OrderRepository.SORT_KEY_GAP);
+                chapters.add(chapter);
+            }
+        }
+        chapterRepository.saveAll(chapters);
+
+        List<Lesson> lessons = new ArrayList<>();
+        for (Chapter chapter : chapters) {
+            for (int l = 0; l < LESSONS_PER_CHAPTER; l++) {
+                Lesson lesson = new Lesson();
+                lesson.setName(chapter.getName() + "." + l);
+                lesson.setChapter(chapter);
+                lesson.setSortKey((l + 1) * OrderRepository.SORT_KEY_GAP);
+                lessons.add(lesson);
+            }
+        }
+        lessonRepository.saveAll(lessons);
+
+        courseId = courses.get(0).getId();
+        chapterId = chapters.get(0).getId();
+    }
+
+    @Test
+    void getCourses_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/courses/");
+    }
+
+    @Test
+    void getCourseSummaries_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/courses/?view=summary");
+    }
+
+    @Test
+    void getCourseTree_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/courses/" + courseId + "/tree");
+    }
+
+    @Test
+    void getChapters_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/chapters/");
+    }
+
+    @Test
+    void getChapterSummariesByCourse_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/chapters/by-course/" + courseId + "?view=summary");
+    }
+
+    @Test
+    void getLessons_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/lessons/");
+    }
+
+    @Test
+    void getLessonSummariesByChapter_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/lessons/by-chapter/" + chapterId + "?view=summary");
+    }
+
+    // Запрос сверх бюджета падает в фильтре (lms.sql.fail-over-budget), заголовок проверяет сам счетчик
+    private void assertWithinBudget(String uri) throws Exception {
+        String statements = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(SqlStatementHeaderAdvice.STATEMENTS_HEADER);
+
+        assertNotNull(statements, uri);
+        assertTrue(Integer.parseInt(statements) <= BUDGET, uri + " issued " + statements + " SQL statements");
+    }
+}
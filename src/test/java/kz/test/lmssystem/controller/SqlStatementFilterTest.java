@@ -0,0 +1,90 @@
+package kz.test.lmssystem.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import kz.test.lmssystem.config.MetricsConfig;
+import kz.test.lmssystem.config.SqlStatementConfig;
+import kz.test.lmssystem.config.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlStatementFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SqlStatementFilter filter(boolean failOverBudget) {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(meterRegistry);
+        return new SqlStatementFilter(provider, 2, 1.0, failOverBudget);
+    }
+
+    // Обработчик, выполняющий statements запросов через тот же слушатель, что подключен к Hibernate
+    private static MockFilterChain chainExecuting(int statements) {
+        return new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) {
+                request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/courses/{id}");
+                SqlStatementConfig.StatementListener listener = new SqlStatementConfig.StatementListener();
+                for (int i = 0; i < statements; i++) {
+                    listener.jdbcExecuteStatementStart();
+                    listener.jdbcExecuteStatementEnd();
+                }
+            }
+        });
+    }
+
+    @Test
+    void doFilter_ShouldRecordStatementsPerRoute() throws Exception {
+        // Act
+        filter(true).doFilter(new MockHttpServletRequest("GET", "/api/courses/1"), new MockHttpServletResponse(),
+                chainExecuting(2));
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get(MetricsConfig.SQL_STATEMENTS)
+                .tag("uri", "/api/courses/{id}").tag("method", "GET").summary().totalAmount());
+        assertEquals(1L, meterRegistry.get(MetricsConfig.SQL_JDBC_TIME).timer().count());
+        assertNull(SqlStatementCounter.current());
+    }
+
+    @Test
+    void doFilter_WhenOverBudgetAndStrict_ShouldFail() {
+        // Act & Assert
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> filter(true).doFilter(
+                new MockHttpServletRequest("GET", "/api/courses/1"), new MockHttpServletResponse(), chainExecuting(3)));
+        assertTrue(e.getMessage().contains("issued 3 SQL statements (budget 2)"));
+    }
+
+    @Test
+    void doFilter_WhenOverBudget_ShouldOnlyWarn() throws Exception {
+        // Act
+        filter(false).doFilter(new MockHttpServletRequest("GET", "/api/courses/1"), new MockHttpServletResponse(),
+                chainExecuting(3));
+
+        // Assert
+        assertEquals(3.0, meterRegistry.get(MetricsConfig.SQL_STATEMENTS).summary().totalAmount());
+    }
+
+    @Test
+    void doFilter_ShouldSkipNonApiRequests() throws Exception {
+        // Act
+        filter(true).doFilter(new MockHttpServletRequest("GET", "/actuator/prometheus"), new MockHttpServletResponse(),
+                chainExecuting(3));
+
+        // Assert
+        assertTrue(meterRegistry.find(MetricsConfig.SQL_STATEMENTS).meters().isEmpty());
+    }
+}
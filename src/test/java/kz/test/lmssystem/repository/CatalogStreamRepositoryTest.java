@@ -0,0 +1,173 @@
+package kz.test.lmssystem.repository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.repository.CatalogStreamRepository.Cursor;
+import kz.test.lmssystem.repository.CatalogStreamRepository.Keyed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Схема создается Liquibase, строки вставляются без транзакции теста, чтобы их видело соединение R2DBC.
+// Пул R2DBC из одного соединения: поток, который держит соединение, пока клиент читает, заблокировал бы любой
+// другой запрос
+@JdbcTest(properties = "spring.liquibase.contexts=test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class CatalogStreamRepositoryTest {
+
+    // Три порции: две полные и неполная
+    private static final int LESSONS = CatalogStreamRepository.CHUNK_SIZE * 2 + 10;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ConnectionPool pool;
+
+    private CatalogStreamRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE courses, chapters, lessons");
+        jdbcTemplate.update("INSERT INTO courses (id, name) VALUES (1, 'Java'), (2, 'Spring')");
+        jdbcTemplate.update("INSERT INTO chapters (id, name, course_id, sort_key) VALUES (1, 'Basics', 1, 1024)");
+        // sort_key убывает с ростом id: порядок потока не совпадает с порядком id
+        jdbcTemplate.update("INSERT INTO lessons (id, name, chapter_id, sort_key) " +
+                "SELECT g, 'Lesson ' || g, 1, (? - g) * 1024 FROM generate_series(1, ?) g", LESSONS + 1, LESSONS);
+
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.builder()
+                .option(ConnectionFactoryOptions.DRIVER, "postgresql")
+                .option(ConnectionFactoryOptions.HOST, postgres.getHost())
+                .option(ConnectionFactoryOptions.PORT, postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT))
+                .option(ConnectionFactoryOptions.DATABASE, postgres.getDatabaseName())
+                .option(ConnectionFactoryOptions.USER, postgres.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, postgres.getPassword())
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(1)
+                .maxSize(1)
+                .maxAcquireTime(Duration.ofSeconds(5))
+                .build());
+        repository = new CatalogStreamRepository(DatabaseClient.create(pool));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    void streamLessonsByChapterId_ShouldReadAllChunksInSortKeyOrder() {
+        List<LessonDto> lessons = repository.streamLessonsByChapterId(1L, Long.MIN_VALUE, 0L, Long.MAX_VALUE)
+                .map(Keyed::value)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(LongStream.iterate(LESSONS, id -> id - 1).limit(LESSONS).boxed().toList(),
+                lessons.stream().map(LessonDto::getId).toList());
+    }
+
+    @Test
+    void streamLessonsByChapterId_ShouldContinueAfterCursorAndStopAtLimit() {
+        // Урок с id 400 стоит на позиции LESSONS - 400 + 1
+        long sortKey = (LESSONS + 1 - 400) * 1024L;
+
+        List<Keyed<LessonDto>> lessons = repository.streamLessonsByChapterId(1L, sortKey, 400L, 300)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        assertEquals(300, lessons.size());
+        assertEquals(399L, lessons.get(0).value().getId());
+        assertEquals(new Cursor(sortKey + 1024, 399L), lessons.get(0).cursor());
+        assertEquals(100L, lessons.get(299).value().getId());
+    }
+
+    @Test
+    void streamLessonsByChapterId_WhenCursorLessonDeleted_ShouldContinueAfterItsKey() {
+        long sortKey = (LESSONS + 1 - 400) * 1024L;
+        jdbcTemplate.update("DELETE FROM lessons WHERE id = 400");
+
+        List<Keyed<LessonDto>> lessons = repository.streamLessonsByChapterId(1L, sortKey, 400L, 1)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(399L, lessons.get(0).value().getId());
+    }
+
+    @Test
+    void streamLessonsByChapterId_WhenClientIsSlow_ShouldNotBlockOtherRequests() throws InterruptedException {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        CountDownLatch firstLesson = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        BaseSubscriber<LessonDto> slowClient = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(LessonDto lesson) {
+                received.add(lesson.getId());
+                firstLesson.countDown();
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                completed.countDown();
+            }
+        };
+        repository.streamLessonsByChapterId(1L, Long.MIN_VALUE, 0L, Long.MAX_VALUE)
+                .map(Keyed::value)
+                .subscribe(slowClient);
+        assertTrue(firstLesson.await(10, TimeUnit.SECONDS));
+
+        // Клиент забрал один урок из потока; единственное соединение пула свободно для других запросов
+        List<CourseDto> courses = repository.streamCourses(0L, Long.MAX_VALUE)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertEquals(2, courses.size());
+
+        // Остальные порции читаются, когда клиент продолжает
+        slowClient.request(Long.MAX_VALUE);
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+        assertEquals(LESSONS, received.size());
+    }
+}
@@ -0,0 +1,186 @@
+package kz.test.lmssystem.repository;
+
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Схема создается Liquibase (без демо-данных) и валидируется Hibernate
+@DataJpaTest(properties = {
+        "spring.liquibase.contexts=test",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({HibernateCacheConfig.class, OrderRepository.class})
+@Testcontainers(disabledWithoutDocker = true)
+class LessonRepositoryTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Statistics statistics;
+
+    private Long courseId;
+
+    private Long chapterId;
+
+    @BeforeEach
+    void setUp() {
+        // 2 курса x 2 главы x 3 урока: без fetch-плана это 1 + 4 + 2 запроса
+        for (int c = 0; c < 2; c++) {
+            Course course = new Course();
+            course.setName("Course " + c);
+            entityManager.persist(course);
+            courseId = course.getId();
+            for (int ch = 0; ch < 2; ch++) {
+                Chapter chapter = new Chapter();
+                chapter.setName("Chapter " + c + "." + ch);
+                chapter.setCourse(course);
+                chapter.setSortKey((ch + 1) * OrderRepository.SORT_KEY_GAP);
+                entityManager.persist(chapter);
+                chapterId = chapter.getId();
+                // sort_key убывает вместе с id, чтобы порядок выдачи не совпадал с порядком вставки
+                for (int l = 0; l < 3; l++) {
+                    Lesson lesson = new Lesson();
+                    lesson.setName("Lesson " + c + "." + ch + "." + l);
+                    lesson.setSortKey((3 - l) * OrderRepository.SORT_KEY_GAP);
+                    lesson.setChapter(chapter);
+                    entityManager.persist(lesson);
+                }
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findByChapterId_ShouldLoadWholeChainInOneStatement() {
+        List<Lesson> lessons = lessonRepository.findByChapterId(chapterId);
+
+        assertEquals(3, lessons.size());
+        lessons.forEach(lesson -> assertNotNull(lesson.getChapter().getCourse().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByChapterId_ShouldReturnLessonsInSortKeyOrder() {
+        List<Lesson> lessons = lessonRepository.findByChapterId(chapterId);
+
+        assertEquals(List.of(OrderRepository.SORT_KEY_GAP, 2 * OrderRepository.SORT_KEY_GAP,
+                3 * OrderRepository.SORT_KEY_GAP), lessons.stream().map(Lesson::getSortKey).toList());
+    }
+
+    @Test
+    void lessonPositions_ShouldNumberLessonsWithinTheirChapters() {
+        List<Lesson> lessons = lessonRepository.findByChapterId(chapterId);
+
+        Map<Long, Integer> positions = orderRepository.lessonPositions(List.of(lessons.get(2).getId(),
+                lessons.get(0).getId()));
+
+        assertEquals(Map.of(lessons.get(0).getId(), 1, lessons.get(2).getId(), 3), positions);
+    }
+
+    @Test
+    void reorderLessons_ShouldStampUpdatedTimeFromJvmClock() {
+        List<Long> ids = new ArrayList<>(lessonRepository.findByChapterId(chapterId).stream()
+                .map(Lesson::getId).toList());
+        // Первый урок в конец: ключ меняется у каждой строки
+        ids.add(ids.removeFirst());
+        // Часы сессии базы на 14 часов впереди: localtimestamp разошелся бы с @PreUpdate
+        entityManager.getEntityManager().createNativeQuery("SET LOCAL TIME ZONE 'Pacific/Kiritimati'")
+                .executeUpdate();
+        LocalDateTime before = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        orderRepository.reorderLessons(chapterId, ids);
+        entityManager.clear();
+
+        LocalDateTime after = LocalDateTime.now().plusSeconds(1);
+        lessonRepository.findByChapterId(chapterId).forEach(lesson -> {
+            assertFalse(lesson.getUpdatedTime().isBefore(before), lesson.getUpdatedTime().toString());
+            assertTrue(lesson.getUpdatedTime().isBefore(after), lesson.getUpdatedTime().toString());
+        });
+    }
+
+    @Test
+    void findByName_ShouldMatchExactName() {
+        assertNotNull(lessonRepository.findByName("Lesson 1.1.2"));
+        assertNull(lessonRepository.findByName("lesson 1.1.2"));
+    }
+
+    @Test
+    void findByCourseId_ShouldLoadWholeChainInOneStatement() {
+        List<Lesson> lessons = lessonRepository.findByCourseId(courseId);
+
+        assertEquals(6, lessons.size());
+        lessons.forEach(lesson -> assertNotNull(lesson.getChapter().getCourse().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findWithParentsPage_ShouldLoadWholeChainInOneStatement() {
+        Slice<Lesson> page = lessonRepository.findWithParentsByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 5));
+
+        assertEquals(5, page.getNumberOfElements());
+        assertTrue(page.hasNext());
+        page.forEach(lesson -> assertNotNull(lesson.getChapter().getCourse().getName()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void flatPage_ShouldNotTouchParents() {
+        Slice<Lesson> page = lessonRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 20));
+
+        assertEquals(12, page.getNumberOfElements());
+        assertFalse(page.hasNext());
+        page.forEach(lesson -> {
+            assertNotNull(lesson.getChapterId());
+            assertFalse(Hibernate.isInitialized(lesson.getChapter()));
+        });
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,59 @@
+package kz.test.lmssystem.service.impl;
+
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.dto.CacheRegionStatisticsDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheStatisticsServiceImplTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @InjectMocks
+    private CacheStatisticsServiceImpl cacheStatisticsService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        statistics = mock(Statistics.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+    }
+
+    @Test
+    void getRegionStatistics_ShouldReturnCountersPerRegion() {
+        CacheRegionStatistics courses = mock(CacheRegionStatistics.class);
+        when(courses.getHitCount()).thenReturn(30L);
+        when(courses.getMissCount()).thenReturn(10L);
+        when(courses.getPutCount()).thenReturn(10L);
+        when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[]{"courses", "chapters"});
+        when(statistics.getCacheRegionStatistics("courses")).thenReturn(courses);
+        when(statistics.getCacheRegionStatistics("chapters")).thenReturn(null);
+
+        List<CacheRegionStatisticsDto> result = cacheStatisticsService.getRegionStatistics();
+
+        assertEquals(2, result.size());
+        assertEquals(new CacheRegionStatisticsDto("chapters", 0, 0, 0, 0), result.get(0));
+        CacheRegionStatisticsDto coursesDto = result.get(1);
+        assertEquals("courses", coursesDto.region());
+        assertEquals(30, coursesDto.hits());
+        assertEquals(10, coursesDto.misses());
+        assertEquals(0.75, coursesDto.hitRatio(), 1e-9);
+    }
+}
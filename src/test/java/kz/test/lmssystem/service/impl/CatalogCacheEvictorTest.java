@@ -0,0 +1,248 @@
+package kz.test.lmssystem.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import kz.test.lmssystem.config.CacheConfig;
+import kz.test.lmssystem.config.ParentPageKey;
+import kz.test.lmssystem.config.TaggedCacheManager;
+import kz.test.lmssystem.dto.ChapterTreeDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.LessonTreeDto;
+import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.service.FetchPlan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogCacheEvictorTest {
+
+    @Mock
+    private ChapterRepository chapterRepository;
+
+    private TaggedCacheManager cacheManager;
+
+    private CatalogCacheEvictor cacheEvictor;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TaggedCacheManager(new CatalogCacheTagger());
+        for (String name : List.of(CacheConfig.COURSES, CacheConfig.COURSES_BY_NAME, CacheConfig.CHAPTERS,
+                CacheConfig.CHAPTERS_BY_NAME, CacheConfig.CHAPTERS_BY_COURSE, CacheConfig.LESSONS,
+                CacheConfig.LESSONS_BY_NAME, CacheConfig.LESSONS_BY_CHAPTER, CacheConfig.LESSONS_BY_COURSE,
+                CacheConfig.COURSE_TREES)) {
+            cacheManager.registerTaggedCache(name, Caffeine.newBuilder());
+        }
+        cacheManager.registerCustomCache(CacheConfig.RESPONSES, Caffeine.newBuilder().build());
+        cacheEvictor = new CatalogCacheEvictor(cacheManager, chapterRepository, Duration.ZERO);
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    private static Course course(long id) {
+        Course course = new Course();
+        course.setId(id);
+        return course;
+    }
+
+    private static Chapter chapter(long id, long courseId) {
+        Chapter chapter = new Chapter();
+        chapter.setId(id);
+        chapter.setCourse(course(courseId));
+        chapter.setCourseId(courseId);
+        return chapter;
+    }
+
+    private static Lesson lesson(long id, Chapter chapter) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setName("Lesson " + id);
+        lesson.setChapter(chapter);
+        lesson.setChapterId(chapter.getId());
+        return lesson;
+    }
+
+    @Test
+    void evictLesson_ShouldTouchOnlyThatLessonAndItsParents() {
+        Chapter first = chapter(10L, 1L);
+        Chapter second = chapter(20L, 2L);
+        Lesson updated = lesson(100L, first);
+        Lesson other = lesson(200L, second);
+        cache(CacheConfig.LESSONS).put(100L, updated);
+        cache(CacheConfig.LESSONS).put(200L, other);
+        cache(CacheConfig.LESSONS_BY_NAME).put("Lesson 100", updated);
+        cache(CacheConfig.LESSONS_BY_NAME).put("Lesson 200", other);
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(10L, List.of(updated));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(new ParentPageKey(10L, null, 50, FetchPlan.FULL),
+                new SliceImpl<>(List.of(updated), PageRequest.of(0, 50), false));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(20L, List.of(other));
+        cache(CacheConfig.LESSONS_BY_COURSE).put(1L, List.of(updated));
+        cache(CacheConfig.LESSONS_BY_COURSE).put(2L, List.of(other));
+        when(chapterRepository.findById(10L)).thenReturn(Optional.of(first));
+
+        cacheEvictor.evictLesson(100L, 10L);
+
+        assertNull(cache(CacheConfig.LESSONS).get(100L));
+        assertNull(cache(CacheConfig.LESSONS_BY_NAME).get("Lesson 100"));
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(10L));
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(new ParentPageKey(10L, null, 50, FetchPlan.FULL)));
+        assertNull(cache(CacheConfig.LESSONS_BY_COURSE).get(1L));
+        assertNotNull(cache(CacheConfig.LESSONS).get(200L));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_NAME).get("Lesson 200"));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(20L));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_COURSE).get(2L));
+    }
+
+    @Test
+    void evictLesson_ShouldEvictOldChapterListWhenLessonMoved() {
+        Chapter oldChapter = chapter(10L, 1L);
+        Lesson moved = lesson(100L, oldChapter);
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(new ParentPageKey(10L, null, 50, "getLessonSummariesByChapterId"),
+                new SliceImpl<>(List.of(new LessonSummaryDto(100L, "Lesson 100", 1, 10L, null, null))));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(20L, List.of());
+        cache(CacheConfig.LESSONS_BY_NAME).put("Lesson 100", moved);
+        when(chapterRepository.findById(20L)).thenReturn(Optional.of(chapter(20L, 1L)));
+
+        cacheEvictor.evictLesson(100L, 20L);
+
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER)
+                .get(new ParentPageKey(10L, null, 50, "getLessonSummariesByChapterId")));
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(20L));
+        assertNull(cache(CacheConfig.LESSONS_BY_NAME).get("Lesson 100"));
+    }
+
+    @Test
+    void evictChapter_ShouldEvictLessonsEmbeddingIt() {
+        Chapter updated = chapter(10L, 1L);
+        Chapter other = chapter(20L, 1L);
+        cache(CacheConfig.CHAPTERS).put(10L, updated);
+        cache(CacheConfig.CHAPTERS).put(20L, other);
+        cache(CacheConfig.CHAPTERS_BY_COURSE).put(1L, List.of(updated, other));
+        cache(CacheConfig.LESSONS).put(100L, lesson(100L, updated));
+        cache(CacheConfig.LESSONS).put(200L, lesson(200L, other));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(20L, List.of(lesson(200L, other)));
+
+        cache(CacheConfig.COURSE_TREES).put(1L, new CourseTreeDto(1L, "Java", null, null, null, List.of()));
+
+        cacheEvictor.evictChapter(10L, 1L);
+
+        assertNull(cache(CacheConfig.COURSE_TREES).get(1L));
+        assertNull(cache(CacheConfig.CHAPTERS).get(10L));
+        assertNull(cache(CacheConfig.CHAPTERS_BY_COURSE).get(1L));
+        assertNull(cache(CacheConfig.LESSONS).get(100L));
+        assertNotNull(cache(CacheConfig.CHAPTERS).get(20L));
+        assertNotNull(cache(CacheConfig.LESSONS).get(200L));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(20L));
+    }
+
+    @Test
+    void evictCourse_ShouldEvictChaptersAndLessonsOfThatCourseOnly() {
+        Chapter inCourse = chapter(10L, 1L);
+        Chapter elsewhere = chapter(20L, 2L);
+        cache(CacheConfig.COURSES).put(1L, course(1L));
+        cache(CacheConfig.COURSES_BY_NAME).put("Java", course(1L));
+        cache(CacheConfig.COURSES_BY_NAME).put("Go", course(2L));
+        cache(CacheConfig.CHAPTERS).put(10L, inCourse);
+        cache(CacheConfig.CHAPTERS).put(20L, elsewhere);
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(10L, List.of(lesson(100L, inCourse)));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(20L, List.of(lesson(200L, elsewhere)));
+
+        cacheEvictor.evictCourse(1L);
+
+        assertNull(cache(CacheConfig.COURSES).get(1L));
+        assertNull(cache(CacheConfig.COURSES_BY_NAME).get("Java"));
+        assertNull(cache(CacheConfig.CHAPTERS).get(10L));
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(10L));
+        assertNotNull(cache(CacheConfig.COURSES_BY_NAME).get("Go"));
+        assertNotNull(cache(CacheConfig.CHAPTERS).get(20L));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(20L));
+    }
+
+    @Test
+    void evictLesson_ShouldEvictTreeOfOldAndNewCourse() {
+        CourseTreeDto oldTree = new CourseTreeDto(1L, "Java", null, null, null,
+                List.of(new ChapterTreeDto(10L, "Basics", null, 1, null, null,
+                        List.of(new LessonTreeDto(100L, "Lesson 100", null, 1, null, null)))));
+        CourseTreeDto newTree = new CourseTreeDto(2L, "Go", null, null, null, List.of());
+        CourseTreeDto untouched = new CourseTreeDto(3L, "Rust", null, null, null, List.of());
+        cache(CacheConfig.COURSE_TREES).put(1L, oldTree);
+        cache(CacheConfig.COURSE_TREES).put(2L, newTree);
+        cache(CacheConfig.COURSE_TREES).put(3L, untouched);
+        when(chapterRepository.findById(20L)).thenReturn(Optional.of(chapter(20L, 2L)));
+
+        cacheEvictor.evictLesson(100L, 20L);
+
+        assertNull(cache(CacheConfig.COURSE_TREES).get(1L));
+        assertNull(cache(CacheConfig.COURSE_TREES).get(2L));
+        assertNotNull(cache(CacheConfig.COURSE_TREES).get(3L));
+    }
+
+    @Test
+    void evictSubtrees_ShouldEvictDeletedParentsAndTheirSiblingsInOnePass() {
+        Chapter deleted = chapter(10L, 1L);
+        Chapter sibling = chapter(11L, 1L);
+        Chapter lessonsDeleted = chapter(20L, 2L);
+        Chapter untouched = chapter(30L, 3L);
+        cache(CacheConfig.COURSES).put(1L, course(1L));
+        cache(CacheConfig.COURSES).put(3L, course(3L));
+        cache(CacheConfig.CHAPTERS).put(11L, sibling);
+        cache(CacheConfig.CHAPTERS).put(20L, lessonsDeleted);
+        cache(CacheConfig.CHAPTERS).put(30L, untouched);
+        cache(CacheConfig.CHAPTERS_BY_COURSE).put(new ParentPageKey(1L, null, 50, FetchPlan.FULL),
+                new SliceImpl<>(List.of(deleted, sibling), PageRequest.of(0, 50), false));
+        cache(CacheConfig.LESSONS).put(110L, lesson(110L, sibling));
+        cache(CacheConfig.LESSONS).put(200L, lesson(200L, lessonsDeleted));
+        cache(CacheConfig.LESSONS).put(300L, lesson(300L, untouched));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(20L, List.of(lesson(200L, lessonsDeleted)));
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(30L, List.of(lesson(300L, untouched)));
+        cache(CacheConfig.COURSE_TREES).put(2L, new CourseTreeDto(2L, "Go", null, null, null,
+                List.of(new ChapterTreeDto(20L, "Basics", null, 1, null, null, List.of()))));
+        cache(CacheConfig.COURSE_TREES).put(3L, new CourseTreeDto(3L, "Rust", null, null, null, List.of()));
+
+        cacheEvictor.evictSubtrees(List.of(1L), List.of(10L, 20L));
+
+        assertNull(cache(CacheConfig.COURSES).get(1L));
+        assertNull(cache(CacheConfig.CHAPTERS).get(11L));
+        assertNull(cache(CacheConfig.CHAPTERS).get(20L));
+        assertNull(cache(CacheConfig.CHAPTERS_BY_COURSE).get(new ParentPageKey(1L, null, 50, FetchPlan.FULL)));
+        assertNull(cache(CacheConfig.LESSONS).get(110L));
+        assertNull(cache(CacheConfig.LESSONS).get(200L));
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(20L));
+        assertNull(cache(CacheConfig.COURSE_TREES).get(2L));
+        assertNotNull(cache(CacheConfig.COURSES).get(3L));
+        assertNotNull(cache(CacheConfig.CHAPTERS).get(30L));
+        assertNotNull(cache(CacheConfig.LESSONS).get(300L));
+        assertNotNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(30L));
+        assertNotNull(cache(CacheConfig.COURSE_TREES).get(3L));
+        verifyNoInteractions(chapterRepository);
+    }
+
+    @Test
+    void clear_ShouldEmptyOnlyGivenCaches() {
+        cache(CacheConfig.LESSONS_BY_CHAPTER).put(10L, List.of());
+        cache(CacheConfig.LESSONS).put(100L, new Lesson());
+
+        cacheEvictor.clear(CacheConfig.LESSONS_BY_CHAPTER);
+
+        assertNull(cache(CacheConfig.LESSONS_BY_CHAPTER).get(10L));
+        assertNotNull(cache(CacheConfig.LESSONS).get(100L));
+        verifyNoInteractions(chapterRepository);
+    }
+}
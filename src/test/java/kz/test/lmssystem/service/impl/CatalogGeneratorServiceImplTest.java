@@ -0,0 +1,160 @@
+package kz.test.lmssystem.service.impl;
+
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.dto.GenerationReportDto;
+import kz.test.lmssystem.repository.CopyRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogGeneratorServiceImplTest {
+
+    @Mock
+    private CopyRepository copyRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CatalogCacheEvictor cacheEvictor;
+
+    @InjectMocks
+    private CatalogGeneratorServiceImpl generatorService;
+
+    // Скопированные строки по таблицам, как их увидел бы COPY
+    private final Map<String, List<String>> copied = new HashMap<>();
+    private final Map<String, Long> sequences = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(copyRepository.reserveIds(anyString(), anyInt())).thenAnswer(inv -> {
+            long first = sequences.merge(inv.getArgument(0), inv.<Integer>getArgument(1).longValue(), Long::sum)
+                    - inv.<Integer>getArgument(1) + 1;
+            return LongStream.range(first, first + inv.<Integer>getArgument(1)).boxed().toList();
+        });
+        lenient().when(copyRepository.copyIn(anyString(), anyString())).thenAnswer(inv -> {
+            String table = inv.<String>getArgument(0).split(" ")[1];
+            List<String> rows = inv.<String>getArgument(1).lines().toList();
+            copied.computeIfAbsent(table, key -> new ArrayList<>()).addAll(rows);
+            return (long) rows.size();
+        });
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        lenient().when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.getCache()).thenReturn(mock(Cache.class));
+    }
+
+    @Test
+    void generate_ShouldLinkEveryRowToAnExistingParent() {
+        GenerationReportDto report = generatorService.generate(20, 5, 8, 42);
+
+        assertEquals(20, report.getCourses());
+        assertEquals(report.getChapters(), copied.get("chapters").size());
+        assertEquals(report.getLessons(), copied.get("lessons").size());
+
+        Set<String> courseIds = copied.get("courses").stream().map(row -> row.split(",")[0]).collect(Collectors.toSet());
+        Set<String> chapterIds = new HashSet<>();
+        for (String row : copied.get("chapters")) {
+            String[] fields = row.split(",");
+            chapterIds.add(fields[0]);
+            assertTrue(courseIds.contains(fields[4]), row);
+        }
+        // Ключи внутри главы идут подряд с шагом перенумерации
+        Map<String, Long> lastKey = new HashMap<>();
+        for (String row : copied.get("lessons")) {
+            String[] fields = row.split(",");
+            assertTrue(chapterIds.contains(fields[4]), row);
+            assertEquals(lastKey.getOrDefault(fields[4], 0L) + OrderRepository.SORT_KEY_GAP, Long.parseLong(fields[3]), row);
+            lastKey.put(fields[4], Long.parseLong(fields[3]));
+        }
+        verify(copyRepository).analyzeCatalog();
+        verify(copyRepository, never()).truncateCatalog();
+        verify(cacheEvictor).clear(any(String[].class));
+    }
+
+    @Test
+    void generate_ShouldBeDeterministicForSeed() {
+        Map<String, List<String>> first = generateOnEmptyDatabase(7);
+
+        assertEquals(first, generateOnEmptyDatabase(7));
+        assertNotEquals(first.get("lessons"), generateOnEmptyDatabase(8).get("lessons"));
+    }
+
+    private Map<String, List<String>> generateOnEmptyDatabase(long seed) {
+        copied.clear();
+        sequences.clear();
+        generatorService.generate(10, 4, 6, seed);
+        return new HashMap<>(copied);
+    }
+
+    @Test
+    void generate_ShouldKeepAverageFanOutAndSkewSizes() {
+        GenerationReportDto report = generatorService.generate(400, 10, 1, 1);
+
+        double average = (double) report.getChapters() / report.getCourses();
+        assertEquals(10, average, 1.5);
+        Map<String, Long> perCourse = copied.get("chapters").stream()
+                .collect(Collectors.groupingBy(row -> row.split(",")[4], Collectors.counting()));
+        long largest = perCourse.values().stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertTrue(largest > 3 * average, "largest course has " + largest + " chapters");
+    }
+
+    @Test
+    void generate_ShouldKeepExistingCatalogByDefault() {
+        generatorService.generate(3, 1, 1, 5);
+
+        verify(copyRepository, never()).truncateCatalog();
+        verify(copyRepository).reserveIds("courses_seq", 3);
+    }
+
+    @Test
+    void generate_ShouldCopyInChunksAndTruncateWhenConfigured() {
+        ReflectionTestUtils.setField(generatorService, "chunkSize", 3);
+        ReflectionTestUtils.setField(generatorService, "truncate", true);
+        ReflectionTestUtils.setField(generatorService, "skew", 0.0);
+
+        GenerationReportDto report = generatorService.generate(7, 1, 1, 3);
+
+        assertEquals(7, report.getLessons());
+        verify(copyRepository).truncateCatalog();
+        verify(copyRepository, times(3)).copyIn(startsWith("COPY lessons"), anyString());
+        verify(copyRepository).reserveIds("lessons_seq", 1);
+    }
+
+    @Test
+    void description_ShouldBeSentencesOfVocabularyWords() {
+        SplittableRandom random = CatalogGeneratorServiceImpl.random(42, 3, 0);
+        String name = CatalogGeneratorServiceImpl.name(random, 2, 4);
+        int words = name.split(" ").length;
+        assertTrue(words >= 2 && words <= 4, name);
+        assertTrue(Character.isUpperCase(name.charAt(0)), name);
+
+        String description = null;
+        while (description == null) {
+            description = CatalogGeneratorServiceImpl.description(random, 20);
+        }
+        assertTrue(description.endsWith("."), description);
+        assertFalse(description.contains("\""), description);
+    }
+}
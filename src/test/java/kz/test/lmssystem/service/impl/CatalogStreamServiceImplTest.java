@@ -0,0 +1,81 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.dto.ChapterDto;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.exception.InvalidCursorException;
+import kz.test.lmssystem.repository.CatalogStreamRepository;
+import kz.test.lmssystem.repository.CatalogStreamRepository.Cursor;
+import kz.test.lmssystem.repository.CatalogStreamRepository.Keyed;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogStreamServiceImplTest {
+
+    @Mock
+    private CatalogStreamRepository catalogStreamRepository;
+
+    @InjectMocks
+    private CatalogStreamServiceImpl catalogStreamService;
+
+    private static LessonDto lesson(long id) {
+        return LessonDto.builder().id(id).lessonName("Lesson " + id).chapterId(1L).build();
+    }
+
+    private static Keyed<LessonDto> keyed(LessonDto lesson, long sortKey) {
+        return new Keyed<>(lesson, new Cursor(sortKey, lesson.getId()));
+    }
+
+    @Test
+    void streamCourses_ShouldStartFromBeginningWithoutLimit() {
+        when(catalogStreamRepository.streamCourses(0L, Long.MAX_VALUE))
+                .thenReturn(Flux.just(CourseDto.builder().id(1L).build(), CourseDto.builder().id(2L).build()));
+
+        List<CourseDto> result = catalogStreamService.streamCourses(null, null).collectList().block();
+
+        assertEquals(2, result.size());
+        verify(catalogStreamRepository).streamCourses(0L, Long.MAX_VALUE);
+    }
+
+    @Test
+    void streamLessonsByChapterId_ShouldContinueAfterCursorKeysAndClampLimit() {
+        when(catalogStreamRepository.streamLessonsByChapterId(1L, 3072L, 10L, 1L))
+                .thenReturn(Flux.just(keyed(lesson(11), 4096L)));
+
+        List<LessonDto> result = catalogStreamService.streamLessonsByChapterId(1L, PageCursor.of(3072L, 10L).token(), 0L)
+                .collectList().block();
+
+        assertEquals(List.of(11L), result.stream().map(LessonDto::getId).toList());
+        assertEquals(1, result.get(0).getOrder());
+        assertEquals(PageCursor.of(4096L, 11L).at(1).token(), result.get(0).getCursor());
+    }
+
+    @Test
+    void streamLessonsByChapterId_ShouldStartBeforeFirstSortKey() {
+        when(catalogStreamRepository.streamLessonsByChapterId(1L, Long.MIN_VALUE, 0L, Long.MAX_VALUE))
+                .thenReturn(Flux.just(keyed(lesson(1), 1024L), keyed(lesson(2), 2048L)));
+
+        List<LessonDto> result = catalogStreamService.streamLessonsByChapterId(1L, null, null).collectList().block();
+
+        assertEquals(List.of(1, 2), result.stream().map(LessonDto::getOrder).toList());
+    }
+
+    @Test
+    void streamChaptersByCourseId_WhenCursorIsMalformed_ShouldFail() {
+        Flux<ChapterDto> result = catalogStreamService.streamChaptersByCourseId(1L, "5", null);
+
+        assertThrows(InvalidCursorException.class, result::blockLast);
+        verify(catalogStreamRepository, never()).streamChaptersByCourseId(anyLong(), anyLong(), anyLong(), anyLong());
+    }
+}
@@ -1,17 +1,38 @@
 package kz.test.lmssystem.service.impl;
 
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.dto.ChapterPatchDto;
+import kz.test.lmssystem.dto.ChapterSummaryDto;
 import kz.test.lmssystem.entity.Chapter;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.exception.InvalidCursorException;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
+import kz.test.lmssystem.exception.InvalidOrderException;
 import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.ChapterSummaryRow;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.repository.DeleteRepository.LockedChapter;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.OrderCheck;
+import kz.test.lmssystem.repository.OrderRepository.Position;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +47,24 @@ class ChapterServiceImplTest {
     @Mock
     private ChapterRepository chapterRepository;
 
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private DeleteRepository deleteRepository;
+
+    @Mock
+    private SortKeyRebalancer rebalancer;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CatalogCacheEvictor cacheEvictor;
+
     @InjectMocks
     private ChapterServiceImpl chapterService;
 
@@ -41,23 +80,61 @@ class ChapterServiceImplTest {
     }
 
     @Test
-    void getAllChapters_ShouldReturnListOfChapters() {
+    void getChapterByCourseId_ShouldReadPageAfterCursorKeys() {
+        // Arrange
+        testChapter.setSortKey(4096L);
+        when(chapterRepository.findByCourseIdAfter(eq(1L), eq(3072L), eq(5L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testChapter), PageRequest.of(0, 1), true));
+
+        // Act
+        KeysetSlice<Chapter> result = chapterService.getChapterByCourseId(1L, PageCursor.of(3072L, 5L).token(), 20,
+                FetchPlan.FLAT);
+
+        // Assert
+        assertEquals(1, result.getNumberOfElements());
+        assertEquals(1, result.getContent().get(0).getOrder());
+        assertEquals(PageCursor.of(4096L, testChapter.getId()).at(1).token(), result.getNextCursor());
+        verify(chapterRepository, times(1)).findByCourseIdAfter(1L, 3072L, 5L, PageRequest.of(0, 20));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getChapterByCourseId_WhenCursorIsMalformed_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class,
+                () -> chapterService.getChapterByCourseId(1L, "5", 20, FetchPlan.FLAT));
+        verify(chapterRepository, never()).findByCourseIdAfter(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getChapters_WithFullFetchPlan_ShouldLoadCourseInSameQuery() {
         // Arrange
-        Chapter chapter2 = new Chapter();
-        chapter2.setId(2L);
-        chapter2.setName("Python Chapter");
-        chapter2.setDescription("Learn Python");
+        when(chapterRepository.findWithCourseByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testChapter)));
 
-        List<Chapter> chapters = Arrays.asList(testChapter, chapter2);
-        when(chapterRepository.findAll()).thenReturn(chapters);
+        // Act
+        chapterService.getChapters(null, 50, FetchPlan.FULL);
+
+        // Assert
+        verify(chapterRepository, times(1)).findWithCourseByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 50));
+        verify(chapterRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    }
+
+    @Test
+    void getChapterSummariesByCourseId_ShouldUseProjectionQuery() {
+        // Arrange
+        ChapterSummaryRow summary = new ChapterSummaryRow(1L, "Java Chapter", 1L, null, null, 1024L);
+        when(chapterRepository.findSummariesByCourseIdAfter(eq(1L), eq(Long.MIN_VALUE), eq(0L), any()))
+                .thenReturn(new SliceImpl<>(List.of(summary)));
 
         // Act
-        List<Chapter> result = chapterService.getAllChapters();
+        KeysetSlice<ChapterSummaryDto> result = chapterService.getChapterSummariesByCourseId(1L, null, 50);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(chapterRepository, times(1)).findAll();
+        assertEquals(1L, result.getContent().get(0).courseId());
+        assertNull(result.getNextCursor());
+        verify(chapterRepository, times(1))
+                .findSummariesByCourseIdAfter(1L, Long.MIN_VALUE, 0L, PageRequest.of(0, 50));
     }
 
     @Test
@@ -125,57 +202,322 @@ class ChapterServiceImplTest {
         verify(chapterRepository, times(1)).save(testChapter);
     }
 
+    @Test
+    void saveChapters_ShouldSaveAllInOneCall() {
+        // Arrange
+        Chapter second = new Chapter();
+        second.setName("Second Chapter");
+        List<Chapter> chapters = List.of(testChapter, second);
+
+        // Act
+        chapterService.saveChapters(chapters);
+
+        // Assert
+        verify(chapterRepository, times(1)).saveAll(chapters);
+        verify(chapterRepository, never()).save(any(Chapter.class));
+    }
+
     @Test
     void updateChapter_WhenChapterExists_ShouldUpdateChapter() {
         // Arrange
-        when(chapterRepository.existsById(1L)).thenReturn(true);
+        Chapter current = new Chapter();
+        current.setId(1L);
+        current.setSortKey(3 * OrderRepository.SORT_KEY_GAP);
+        // Тело PUT не несет sort_key
+        testChapter.setSortKey(null);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(current));
         when(chapterRepository.save(any(Chapter.class))).thenReturn(testChapter);
 
         // Act
         chapterService.updateChapter(testChapter);
 
         // Assert
-        verify(chapterRepository, times(1)).existsById(1L);
         verify(chapterRepository, times(1)).save(testChapter);
+        assertEquals(3 * OrderRepository.SORT_KEY_GAP, testChapter.getSortKey());
+        verify(orderRepository, never()).moveChapterToEnd(anyLong(), any());
+    }
+
+    @Test
+    void updateChapter_WhenCourseChanges_ShouldMoveChapterToEndOfNewCourse() {
+        // Arrange
+        secondLevelCache();
+        Chapter current = new Chapter();
+        current.setId(1L);
+        current.setCourseId(7L);
+        current.setSortKey(OrderRepository.SORT_KEY_GAP);
+        Course course = new Course();
+        course.setId(8L);
+        testChapter.setCourse(course);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        // Act
+        chapterService.updateChapter(testChapter);
+
+        // Assert
+        verify(orderRepository, times(1)).moveChapterToEnd(1L, 8L);
+        verify(cacheEvictor, times(1)).evictCourse(7L);
+        verify(cacheEvictor, times(1)).evictCourse(8L);
     }
 
     @Test
     void updateChapter_WhenChapterNotExists_ShouldThrowException() {
         // Arrange
-        when(chapterRepository.existsById(anyLong())).thenReturn(false);
+        when(chapterRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             chapterService.updateChapter(testChapter);
         });
-        verify(chapterRepository, times(1)).existsById(1L);
+        verify(chapterRepository, times(1)).findById(1L);
         verify(chapterRepository, never()).save(any(Chapter.class));
     }
 
     @Test
-    void deleteChapterById_WhenChapterExists_ShouldDeleteChapter() {
+    void patchChapter_ShouldChangeOnlyGivenFields() {
         // Arrange
-        when(chapterRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(chapterRepository).deleteById(1L);
+        testChapter.setVersion(2L);
+        testChapter.setCourseId(7L);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(testChapter));
 
         // Act
-        chapterService.deleteChapterById(1L);
+        Chapter result = chapterService.patchChapter(1L, new ChapterPatchDto(null, "Updated description", 2L));
 
         // Assert
-        verify(chapterRepository, times(1)).existsById(1L);
-        verify(chapterRepository, times(1)).deleteById(1L);
+        assertSame(testChapter, result);
+        assertEquals("Java Chapter", result.getName());
+        assertEquals("Updated description", result.getDescription());
+        verify(chapterRepository, never()).save(any(Chapter.class));
+        verify(cacheEvictor, times(1)).evictChapter(1L, 7L);
+    }
+
+    @Test
+    void patchChapter_WhenVersionIsStale_ShouldThrowConflict() {
+        // Arrange
+        testChapter.setVersion(3L);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(testChapter));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> chapterService.patchChapter(1L, new ChapterPatchDto("Renamed", null, 2L)));
+        assertEquals("Java Chapter", testChapter.getName());
+        verify(cacheEvictor, never()).evictChapter(anyLong(), any());
+    }
+
+    @Test
+    void deleteChapterById_WhenChapterExists_ShouldDeleteChapterWithLessons() {
+        // Arrange
+        Cache cache = secondLevelCache();
+        when(deleteRepository.lockChapters(List.of(1L))).thenReturn(List.of(new LockedChapter(1L, 7L)));
+
+        // Act
+        chapterService.deleteChapterById(1L);
+
+        // Assert: уроки, затем глава; order соседних глав курса сдвинулся
+        InOrder inOrder = inOrder(deleteRepository);
+        inOrder.verify(deleteRepository).deleteLessonsOfChapters(List.of(1L));
+        inOrder.verify(deleteRepository).deleteChapters(List.of(1L));
+        verify(cache).evictEntityData(Chapter.class, 1L);
+        verify(cache).evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+        verify(cacheEvictor, times(1)).evictSubtrees(List.of(7L), List.of(1L));
+        verify(chapterRepository, never()).delete(any(Chapter.class));
     }
 
     @Test
     void deleteChapterById_WhenChapterNotExists_ShouldThrowException() {
         // Arrange
-        when(chapterRepository.existsById(anyLong())).thenReturn(false);
+        when(deleteRepository.lockChapters(List.of(999L))).thenReturn(List.of());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             chapterService.deleteChapterById(999L);
         });
-        verify(chapterRepository, times(1)).existsById(999L);
-        verify(chapterRepository, never()).deleteById(anyLong());
+        verify(deleteRepository, never()).deleteLessonsOfChapters(anyList());
+        verify(deleteRepository, never()).deleteChapters(anyList());
+    }
+
+    @Test
+    void deleteChapters_ShouldEvictEachCourseOnce() {
+        // Arrange
+        secondLevelCache();
+        when(deleteRepository.lockChapters(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new LockedChapter(1L, 7L), new LockedChapter(2L, 7L), new LockedChapter(3L, null)));
+
+        // Act
+        chapterService.deleteChapters(List.of(1L, 2L, 3L));
+
+        // Assert
+        verify(deleteRepository, times(1)).deleteChapters(List.of(1L, 2L, 3L));
+        verify(cacheEvictor, times(1)).evictSubtrees(List.of(7L), List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void deleteChapters_WhenSeveralChaptersNotExist_ShouldListMissingIds() {
+        // Arrange
+        when(deleteRepository.lockChapters(List.of(1L, 2L, 3L))).thenReturn(List.of(new LockedChapter(1L, 7L)));
+
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> chapterService.deleteChapters(List.of(1L, 2L, 3L)));
+        assertEquals("Chapter with ids [2, 3] not found", exception.getMessage());
+        verify(deleteRepository, never()).deleteChapters(anyList());
+    }
+
+    @Test
+    void saveChapters_ShouldAppendKeysAfterLastChapterOfCourse() {
+        // Arrange
+        Course course = new Course();
+        course.setId(7L);
+        testChapter.setCourse(course);
+        Chapter second = new Chapter();
+        second.setCourse(course);
+        Course reference = new Course();
+        reference.setId(7L);
+        when(courseRepository.getReferenceById(7L)).thenReturn(reference);
+        long last = 5 * OrderRepository.SORT_KEY_GAP;
+        when(orderRepository.appendChapterKey(7L)).thenReturn(last + OrderRepository.SORT_KEY_GAP);
+
+        // Act
+        chapterService.saveChapters(List.of(testChapter, second));
+
+        // Assert: курс из запроса (без version) заменен ссылкой сессии
+        assertSame(reference, testChapter.getCourse());
+        assertSame(reference, second.getCourse());
+        assertEquals(last + OrderRepository.SORT_KEY_GAP, testChapter.getSortKey());
+        assertEquals(last + 2 * OrderRepository.SORT_KEY_GAP, second.getSortKey());
+        verify(orderRepository, times(1)).appendChapterKey(7L);
+    }
+
+    @Test
+    void insertChapterAfter_ShouldWriteOneRowInTheMiddleOfTheGap() {
+        // Arrange
+        Chapter chapter = new Chapter();
+        chapter.setName("Inserted");
+        Course course = new Course();
+        course.setId(7L);
+        Position anchor = new Position(1L, 7L, OrderRepository.SORT_KEY_GAP);
+        when(orderRepository.lockChapter(1L)).thenReturn(Optional.of(anchor));
+        when(orderRepository.neighborChapterKey(anchor, true)).thenReturn(2 * OrderRepository.SORT_KEY_GAP);
+        when(courseRepository.getReferenceById(7L)).thenReturn(course);
+
+        // Act
+        chapterService.insertChapterAfter(1L, chapter);
+
+        // Assert
+        assertEquals(OrderRepository.SORT_KEY_GAP + OrderRepository.SORT_KEY_GAP / 2, chapter.getSortKey());
+        assertSame(course, chapter.getCourse());
+        verify(chapterRepository, times(1)).save(chapter);
+        verify(orderRepository, never()).rebalanceChapters(anyLong());
+        verifyNoInteractions(rebalancer);
+        // Номера order во втором уровне кэша нет: он не сбрасывается
+        verifyNoInteractions(entityManagerFactory);
+        verify(cacheEvictor, times(1)).evictCourse(7L);
+    }
+
+    @Test
+    void insertChapterBefore_WhenGapIsExhausted_ShouldRebalanceCourseFirst() {
+        // Arrange
+        Chapter chapter = new Chapter();
+        Position crowded = new Position(1L, 7L, 11);
+        Position rebalanced = new Position(1L, 7L, 2 * OrderRepository.SORT_KEY_GAP);
+        when(orderRepository.lockChapter(1L)).thenReturn(Optional.of(crowded), Optional.of(rebalanced));
+        when(orderRepository.neighborChapterKey(crowded, false)).thenReturn(10L);
+        when(orderRepository.neighborChapterKey(rebalanced, false)).thenReturn(OrderRepository.SORT_KEY_GAP);
+
+        // Act
+        chapterService.insertChapterBefore(1L, chapter);
+
+        // Assert
+        verify(orderRepository, times(1)).rebalanceChapters(7L);
+        assertEquals(OrderRepository.SORT_KEY_GAP + OrderRepository.SORT_KEY_GAP / 2, chapter.getSortKey());
+        verify(chapterRepository, times(1)).save(chapter);
+    }
+
+    @Test
+    void insertChapterAfter_WhenGapRunsLow_ShouldQueueBackgroundRebalance() {
+        // Arrange
+        Chapter chapter = new Chapter();
+        Position anchor = new Position(1L, 7L, 100);
+        when(orderRepository.lockChapter(1L)).thenReturn(Optional.of(anchor));
+        when(orderRepository.neighborChapterKey(anchor, true)).thenReturn(200L);
+
+        // Act
+        chapterService.insertChapterAfter(1L, chapter);
+
+        // Assert
+        assertEquals(150L, chapter.getSortKey());
+        verify(rebalancer, times(1)).requestChapters(7L);
+        verify(orderRepository, never()).rebalanceChapters(anyLong());
+    }
+
+    @Test
+    void insertChapterAfter_WhenAnchorNotExists_ShouldThrowException() {
+        // Arrange
+        when(orderRepository.lockChapter(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> chapterService.insertChapterAfter(999L, new Chapter()));
+        verify(chapterRepository, never()).save(any(Chapter.class));
+    }
+
+    @Test
+    void reorderLessons_ShouldUpdateInOneStatementAndEvictChapter() {
+        // Arrange
+        testChapter.setCourseId(7L);
+        List<Long> lessonIds = List.of(3L, 1L, 2L);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(testChapter));
+        when(orderRepository.reorderLessons(1L, lessonIds)).thenReturn(3);
+        when(orderRepository.checkLessonOrder(1L, lessonIds)).thenReturn(new OrderCheck(3, 3, 3));
+
+        // Act
+        chapterService.reorderLessons(1L, lessonIds);
+
+        // Assert
+        verify(orderRepository, times(1)).reorderLessons(1L, lessonIds);
+        verify(cacheEvictor, times(1)).evictChapter(1L, 7L);
+    }
+
+    @Test
+    void reorderLessons_WhenListMissesLesson_ShouldThrowException() {
+        // Arrange
+        List<Long> lessonIds = List.of(3L, 1L);
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(testChapter));
+        when(orderRepository.checkLessonOrder(1L, lessonIds)).thenReturn(new OrderCheck(3, 2, 3));
+
+        // Act & Assert
+        assertThrows(InvalidOrderException.class, () -> chapterService.reorderLessons(1L, lessonIds));
+        verify(cacheEvictor, never()).evictChapter(any(), any());
+    }
+
+    @Test
+    void reorderLessons_WhenListRepeatsLesson_ShouldNotUpdate() {
+        // Arrange
+        when(chapterRepository.findById(1L)).thenReturn(Optional.of(testChapter));
+
+        // Act & Assert
+        assertThrows(InvalidOrderException.class, () -> chapterService.reorderLessons(1L, List.of(1L, 2L, 1L)));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void reorderLessons_WhenChapterNotExists_ShouldThrowException() {
+        // Arrange
+        when(chapterRepository.findById(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> chapterService.reorderLessons(999L, List.of(1L)));
+        verifyNoInteractions(orderRepository);
+    }
+
+    // Кэш второго уровня Hibernate: главы, записанные мимо Hibernate, и списки глав курсов сбрасываются
+    private Cache secondLevelCache() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(cacheEvictor).afterCommit(any());
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        return cache;
     }
-}
\ No newline at end of file
+}
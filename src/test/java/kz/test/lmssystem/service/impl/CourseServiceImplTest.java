@@ -1,17 +1,37 @@
 package kz.test.lmssystem.service.impl;
 
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.dto.CoursePatchDto;
+import kz.test.lmssystem.dto.CourseSummaryDto;
+import kz.test.lmssystem.dto.CourseTreeDto;
+import kz.test.lmssystem.dto.VersionStamp;
+import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
+import kz.test.lmssystem.repository.ChapterRepository;
 import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.exception.InvalidOrderException;
+import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.OrderCheck;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +46,24 @@ class CourseServiceImplTest {
     @Mock
     private CourseRepository courseRepository;
 
+    @Mock
+    private ChapterRepository chapterRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private DeleteRepository deleteRepository;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CatalogCacheEvictor cacheEvictor;
+
     @InjectMocks
     private CourseServiceImpl courseService;
 
@@ -41,23 +79,46 @@ class CourseServiceImplTest {
     }
 
     @Test
-    void getAllCourses_ShouldReturnListOfCourses() {
+    void getCourses_ShouldReadAfterCursorWithClampedLimit() {
         // Arrange
-        Course course2 = new Course();
-        course2.setId(2L);
-        course2.setName("Python Programming");
-        course2.setDescription("Learn Python");
+        when(courseRepository.findByIdGreaterThanOrderByIdAsc(eq(10L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testCourse), PageRequest.of(0, 500), true));
 
-        List<Course> courses = Arrays.asList(testCourse, course2);
-        when(courseRepository.findAll()).thenReturn(courses);
+        // Act
+        Slice<Course> result = courseService.getCourses(10L, 10_000);
+
+        // Assert
+        assertEquals(1, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        verify(courseRepository, times(1)).findByIdGreaterThanOrderByIdAsc(10L, PageRequest.of(0, 500));
+    }
+
+    @Test
+    void getCourses_WithoutCursor_ShouldStartFromFirstId() {
+        // Arrange
+        when(courseRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testCourse)));
 
         // Act
-        List<Course> result = courseService.getAllCourses();
+        courseService.getCourses(null, 0);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(courseRepository, times(1)).findAll();
+        verify(courseRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 1));
+    }
+
+    @Test
+    void getCourseSummaries_ShouldUseProjectionQuery() {
+        // Arrange
+        CourseSummaryDto summary = new CourseSummaryDto(1L, "Java Programming", null, null);
+        when(courseRepository.findSummariesAfter(eq(0L), any())).thenReturn(new SliceImpl<>(List.of(summary)));
+
+        // Act
+        Slice<CourseSummaryDto> result = courseService.getCourseSummaries(null, 50);
+
+        // Assert
+        assertEquals("Java Programming", result.getContent().get(0).courseName());
+        verify(courseRepository, times(1)).findSummariesAfter(0L, PageRequest.of(0, 50));
+        verify(courseRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
     }
 
     @Test
@@ -87,6 +148,73 @@ class CourseServiceImplTest {
         verify(courseRepository, times(1)).findById(999L);
     }
 
+    @Test
+    void getCourseTree_ShouldGroupLessonsUnderOrderedChapters() {
+        // Arrange
+        Chapter first = new Chapter();
+        first.setId(10L);
+        first.setName("Basics");
+        Chapter second = new Chapter();
+        second.setId(20L);
+        second.setName("Advanced");
+        Lesson lesson1 = new Lesson();
+        lesson1.setId(100L);
+        lesson1.setChapterId(10L);
+        Lesson lesson2 = new Lesson();
+        lesson2.setId(101L);
+        lesson2.setChapterId(10L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+        when(chapterRepository.findByCourseId(1L)).thenReturn(List.of(first, second));
+        when(lessonRepository.findForTreeByCourseId(1L)).thenReturn(List.of(lesson1, lesson2));
+
+        // Act
+        CourseTreeDto result = courseService.getCourseTree(1L);
+
+        // Assert
+        assertEquals("Java Programming", result.courseName());
+        assertEquals(2, result.chapters().size());
+        assertEquals("Basics", result.chapters().get(0).chapterName());
+        assertEquals(List.of(100L, 101L),
+                result.chapters().get(0).lessons().stream().map(lesson -> lesson.id()).toList());
+        assertEquals(List.of(1, 2), result.chapters().stream().map(chapter -> chapter.order()).toList());
+        assertEquals(List.of(1, 2),
+                result.chapters().get(0).lessons().stream().map(lesson -> lesson.order()).toList());
+        assertTrue(result.chapters().get(1).lessons().isEmpty());
+        verify(chapterRepository, times(1)).findByCourseId(1L);
+        verify(lessonRepository, times(1)).findForTreeByCourseId(1L);
+    }
+
+    @Test
+    void getCourseTree_WhenCourseNotExists_ShouldThrowException() {
+        // Arrange
+        when(courseRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> {
+            courseService.getCourseTree(999L);
+        });
+        verify(chapterRepository, never()).findByCourseId(anyLong());
+        verify(lessonRepository, never()).findForTreeByCourseId(anyLong());
+    }
+
+    @Test
+    void getCourseTreeVersion_ShouldCombineCourseChaptersAndLessons() {
+        // Arrange
+        LocalDateTime created = LocalDateTime.of(2026, 1, 1, 12, 0);
+        LocalDateTime lessonUpdated = LocalDateTime.of(2026, 1, 3, 12, 0);
+        testCourse.setCreatedTime(created);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+        when(chapterRepository.findVersionByCourseId(1L)).thenReturn(new VersionStamp(2L, created.plusDays(1)));
+        when(lessonRepository.findVersionByCourseId(1L)).thenReturn(new VersionStamp(5L, lessonUpdated));
+
+        // Act
+        VersionStamp result = courseService.getCourseTreeVersion(1L);
+
+        // Assert
+        assertEquals(8L, result.count());
+        assertEquals(lessonUpdated, result.lastModified());
+    }
+
     @Test
     void getCourseByName_WhenCourseExists_ShouldReturnCourse() {
         // Arrange
@@ -125,57 +253,225 @@ class CourseServiceImplTest {
         verify(courseRepository, times(1)).save(testCourse);
     }
 
+    @Test
+    void saveCourses_ShouldSaveAllInOneCall() {
+        // Arrange
+        Course second = new Course();
+        second.setName("Second Course");
+        List<Course> courses = List.of(testCourse, second);
+
+        // Act
+        courseService.saveCourses(courses);
+
+        // Assert
+        verify(courseRepository, times(1)).saveAll(courses);
+        verify(courseRepository, never()).save(any(Course.class));
+    }
+
     @Test
     void updateCourse_WhenCourseExists_ShouldUpdateCourse() {
         // Arrange
-        when(courseRepository.existsById(1L)).thenReturn(true);
+        Course current = new Course();
+        current.setId(1L);
+        current.setVersion(3L);
+        testCourse.setVersion(3L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(current));
         when(courseRepository.save(any(Course.class))).thenReturn(testCourse);
 
         // Act
         courseService.updateCourse(testCourse);
 
         // Assert
-        verify(courseRepository, times(1)).existsById(1L);
+        verify(courseRepository, times(1)).findById(1L);
+        verify(courseRepository, never()).existsById(anyLong());
+        verify(courseRepository, times(1)).save(testCourse);
+    }
+
+    @Test
+    void updateCourse_WhenVersionMissing_ShouldOverwriteCurrentVersion() {
+        // Arrange
+        Course current = new Course();
+        current.setId(1L);
+        current.setVersion(3L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        // Act
+        courseService.updateCourse(testCourse);
+
+        // Assert: без version PUT работает как раньше, а save не принимает курс за новый
+        assertEquals(3L, testCourse.getVersion());
         verify(courseRepository, times(1)).save(testCourse);
     }
 
     @Test
     void updateCourse_WhenCourseNotExists_ShouldThrowException() {
         // Arrange
-        when(courseRepository.existsById(anyLong())).thenReturn(false);
+        when(courseRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             courseService.updateCourse(testCourse);
         });
-        verify(courseRepository, times(1)).existsById(1L);
+        verify(courseRepository, times(1)).findById(1L);
         verify(courseRepository, never()).save(any(Course.class));
     }
 
     @Test
-    void deleteCourseById_WhenCourseExists_ShouldDeleteCourse() {
+    void patchCourse_ShouldChangeOnlyGivenFields() {
         // Arrange
-        when(courseRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(courseRepository).deleteById(1L);
+        testCourse.setVersion(2L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+
+        // Act
+        Course result = courseService.patchCourse(1L, new CoursePatchDto("Java 21", null, 2L));
+
+        // Assert: меняется загруженная сущность, UPDATE пишет Hibernate при коммите
+        assertSame(testCourse, result);
+        assertEquals("Java 21", result.getName());
+        assertEquals("Learn Java from scratch", result.getDescription());
+        verify(courseRepository, never()).save(any(Course.class));
+        verify(cacheEvictor).evictCourse(1L);
+    }
+
+    @Test
+    void patchCourse_WhenVersionIsStale_ShouldThrowConflictAndKeepCourse() {
+        // Arrange
+        testCourse.setVersion(3L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(testCourse));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> courseService.patchCourse(1L, new CoursePatchDto("Java 21", null, 2L)));
+        assertEquals("Java Programming", testCourse.getName());
+        verify(cacheEvictor, never()).evictCourse(anyLong());
+    }
+
+    @Test
+    void patchCourse_WhenCourseNotExists_ShouldThrowException() {
+        // Arrange
+        when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> courseService.patchCourse(1L, new CoursePatchDto("Java 21", null, 2L)));
+    }
+
+    @Test
+    void deleteCourseById_WhenCourseExists_ShouldDeleteCourseWithChaptersAndLessons() {
+        // Arrange
+        when(deleteRepository.lockCourses(List.of(1L))).thenReturn(List.of(1L));
+        when(deleteRepository.lockChaptersOfCourses(List.of(1L))).thenReturn(List.of(10L, 11L));
+        Cache secondLevelCache = secondLevelCache();
 
         // Act
         courseService.deleteCourseById(1L);
 
-        // Assert
-        verify(courseRepository, times(1)).existsById(1L);
-        verify(courseRepository, times(1)).deleteById(1L);
+        // Assert: уроки, затем главы, затем курс
+        InOrder inOrder = inOrder(deleteRepository);
+        inOrder.verify(deleteRepository).deleteLessonsOfChapters(List.of(10L, 11L));
+        inOrder.verify(deleteRepository).deleteChapters(List.of(10L, 11L));
+        inOrder.verify(deleteRepository).deleteCourses(List.of(1L));
+        verify(secondLevelCache).evictEntityData(Course.class, 1L);
+        verify(secondLevelCache).evictEntityData(Chapter.class, 10L);
+        verify(secondLevelCache).evictEntityData(Chapter.class, 11L);
+        verify(cacheEvictor, times(1)).evictSubtrees(List.of(1L), List.of(10L, 11L));
+        verify(courseRepository, never()).deleteById(anyLong());
     }
 
     @Test
     void deleteCourseById_WhenCourseNotExists_ShouldThrowException() {
         // Arrange
-        when(courseRepository.existsById(anyLong())).thenReturn(false);
+        when(deleteRepository.lockCourses(List.of(999L))).thenReturn(List.of());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             courseService.deleteCourseById(999L);
         });
-        verify(courseRepository, times(1)).existsById(999L);
-        verify(courseRepository, never()).deleteById(anyLong());
+        verify(deleteRepository, never()).deleteCourses(anyList());
+        verify(cacheEvictor, never()).evictSubtrees(anyCollection(), anyCollection());
+    }
+
+    @Test
+    void deleteCourses_WhenCourseHasNoChapters_ShouldDeleteOnlyCourses() {
+        // Arrange
+        when(deleteRepository.lockCourses(List.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(deleteRepository.lockChaptersOfCourses(List.of(1L, 2L))).thenReturn(List.of());
+        secondLevelCache();
+
+        // Act: повторный id удаляется один раз
+        courseService.deleteCourses(List.of(1L, 2L, 1L));
+
+        // Assert
+        verify(deleteRepository, never()).deleteLessonsOfChapters(anyList());
+        verify(deleteRepository, times(1)).deleteCourses(List.of(1L, 2L));
+        verify(cacheEvictor, times(1)).evictSubtrees(List.of(1L, 2L), List.of());
+    }
+
+    @Test
+    void deleteCourses_WhenSomeCourseNotExists_ShouldDeleteNothing() {
+        // Arrange
+        when(deleteRepository.lockCourses(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> courseService.deleteCourses(List.of(1L, 2L, 3L)));
+        assertEquals("Course with id 2 not found", exception.getMessage());
+        verify(deleteRepository, never()).lockChaptersOfCourses(anyList());
+        verify(deleteRepository, never()).deleteCourses(anyList());
+    }
+
+    @Test
+    void reorderChapters_ShouldUpdateInOneStatementAndEvictCourse() {
+        // Arrange
+        List<Long> chapterIds = List.of(2L, 1L);
+        when(courseRepository.existsById(1L)).thenReturn(true);
+        when(orderRepository.reorderChapters(1L, chapterIds)).thenReturn(2);
+        when(orderRepository.checkChapterOrder(1L, chapterIds)).thenReturn(new OrderCheck(2, 2, 2));
+        Cache secondLevelCache = secondLevelCache();
+
+        // Act
+        courseService.reorderChapters(1L, chapterIds);
+
+        // Assert
+        verify(orderRepository, times(1)).reorderChapters(1L, chapterIds);
+        verify(secondLevelCache).evictEntityData(Chapter.class, 2L);
+        verify(secondLevelCache).evictEntityData(Chapter.class, 1L);
+        verify(secondLevelCache).evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+        verify(cacheEvictor, times(1)).evictCourse(1L);
+    }
+
+    @Test
+    void reorderChapters_WhenListHasChapterOfOtherCourse_ShouldThrowException() {
+        // Arrange
+        List<Long> chapterIds = List.of(2L, 1L, 99L);
+        when(courseRepository.existsById(1L)).thenReturn(true);
+        when(orderRepository.checkChapterOrder(1L, chapterIds)).thenReturn(new OrderCheck(2, 2, 2));
+
+        // Act & Assert
+        assertThrows(InvalidOrderException.class, () -> courseService.reorderChapters(1L, chapterIds));
+        verify(cacheEvictor, never()).evictCourse(anyLong());
+    }
+
+    @Test
+    void reorderChapters_WhenCourseNotExists_ShouldThrowException() {
+        // Arrange
+        when(courseRepository.existsById(999L)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> courseService.reorderChapters(999L, List.of(1L)));
+        verifyNoInteractions(orderRepository);
+    }
+
+    // Очистка второго уровня выполняется сразу, как после коммита
+    private Cache secondLevelCache() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(cacheEvictor).afterCommit(any());
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        return cache;
     }
-}
\ No newline at end of file
+}
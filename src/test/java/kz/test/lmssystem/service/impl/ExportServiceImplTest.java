@@ -0,0 +1,121 @@
+package kz.test.lmssystem.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import kz.test.lmssystem.dto.CourseDto;
+import kz.test.lmssystem.dto.LessonDto;
+import kz.test.lmssystem.entity.Course;
+import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.mapper.CourseMapper;
+import kz.test.lmssystem.mapper.LessonMapper;
+import kz.test.lmssystem.repository.CourseRepository;
+import kz.test.lmssystem.repository.LessonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceImplTest {
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private CourseMapper courseMapper;
+
+    @Mock
+    private LessonMapper lessonMapper;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private ExportServiceImpl exportService;
+
+    private static Lesson lesson(long id) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setName("Lesson " + id);
+        return lesson;
+    }
+
+    @Test
+    void exportLessons_ShouldWriteOneLinePerLessonAndDetach() throws Exception {
+        Lesson first = lesson(1L);
+        Lesson second = lesson(2L);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(lessonRepository.streamAll()).thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+        when(lessonMapper.toDtoLesson(any(Lesson.class))).thenAnswer(inv -> {
+            Lesson lesson = inv.getArgument(0);
+            return LessonDto.builder().id(lesson.getId()).lessonName(lesson.getName()).chapterId(7L)
+                    .createdTime(LocalDateTime.of(2026, 1, 1, 0, 0)).build();
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.exportLessons(out);
+
+        assertEquals(2, count);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        JsonNode line = objectMapper.readTree(lines.get(1));
+        assertEquals(2, line.get("id").asLong());
+        assertEquals("Lesson 2", line.get("lessonName").asText());
+        assertEquals(7, line.get("chapterId").asLong());
+        assertTrue(lines.get(1).startsWith("{"));
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(second);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportCourses_ShouldWriteNothingForEmptyTable() throws Exception {
+        when(courseRepository.streamAll()).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.exportCourses(out));
+        assertEquals(0, out.size());
+        verifyNoInteractions(courseMapper, entityManager);
+    }
+
+    @Test
+    void exportCourses_ShouldNotCloseResponseStream() throws Exception {
+        Course course = new Course();
+        course.setId(1L);
+        when(courseRepository.streamAll()).thenReturn(Stream.of(course));
+        when(courseMapper.toDtoCourse(course)).thenReturn(CourseDto.builder().id(1L).courseName("Java").build());
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        exportService.exportCourses(out);
+
+        assertEquals("{\"id\":1,\"courseName\":\"Java\",\"description\":null,\"createdTime\":null,\"updatedTime\":null,\"version\":null}\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertFalse(closed.get());
+    }
+}
@@ -0,0 +1,198 @@
+package kz.test.lmssystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import kz.test.lmssystem.config.HibernateCacheConfig;
+import kz.test.lmssystem.dto.ImportReportDto;
+import kz.test.lmssystem.repository.CopyRepository;
+import kz.test.lmssystem.repository.CopyRepository.ParentRef;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceImplTest {
+
+    @Mock
+    private CopyRepository copyRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private CatalogCacheEvictor cacheEvictor;
+
+    @InjectMocks
+    private ImportServiceImpl importService;
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stubIds() {
+        when(copyRepository.reserveIds(anyString(), anyInt())).thenAnswer(inv ->
+                LongStream.rangeClosed(1, inv.<Integer>getArgument(1)).boxed().toList());
+        when(copyRepository.copyIn(anyString(), anyString())).thenAnswer(inv ->
+                inv.<String>getArgument(1).lines().count());
+    }
+
+    @Test
+    void importCourses_ShouldCopyValidRowsAndRejectInvalid() {
+        stubIds();
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importCourses(ndjson(
+                "{\"courseName\":\"Java\",\"description\":\"say \\\"hi\\\"\"}",
+                "",
+                "{not json",
+                "{\"description\":\"no name\"}",
+                "{\"courseName\":\"Go\"}")));
+
+        assertEquals(4, report.getReceived());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertEquals(List.of(3L, 4L), report.getRejectedRows().stream().map(ImportReportDto.RejectedRow::line).toList());
+        assertEquals(1, report.getChunks().size());
+
+        ArgumentCaptor<String> csv = ArgumentCaptor.forClass(String.class);
+        verify(copyRepository).copyIn(startsWith("COPY courses"), csv.capture());
+        List<String> rows = csv.getValue().lines().toList();
+        assertTrue(rows.get(0).startsWith("1,\"Java\",\"say \"\"hi\"\"\","));
+        assertTrue(rows.get(1).startsWith("2,\"Go\",,"));
+        verify(copyRepository).reserveIds("courses_seq", 2);
+    }
+
+    @Test
+    void importCourses_ShouldFlushInChunks() {
+        stubIds();
+        ReflectionTestUtils.setField(importService, "chunkSize", 2);
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importCourses(ndjson(
+                "{\"courseName\":\"A\"}", "{\"courseName\":\"B\"}", "{\"courseName\":\"C\"}")));
+
+        assertEquals(3, report.getImported());
+        assertEquals(List.of(2, 1), report.getChunks().stream().map(ImportReportDto.Chunk::rows).toList());
+        verify(copyRepository, times(2)).copyIn(anyString(), anyString());
+    }
+
+    @Test
+    void importChapters_ShouldResolveCourseByIdOrName() {
+        stubIds();
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Cache cache = mock(Cache.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(copyRepository.findCourseRefs()).thenReturn(List.of(
+                new ParentRef(10L, "Java", null),
+                new ParentRef(11L, "Dup", null),
+                new ParentRef(12L, "Dup", null)));
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importChapters(ndjson(
+                "{\"chapterName\":\"Intro\",\"order\":1,\"courseId\":10}",
+                "{\"chapterName\":\"Basics\",\"order\":2,\"courseName\":\"Java\"}",
+                "{\"chapterName\":\"X\",\"courseId\":99}",
+                "{\"chapterName\":\"Y\",\"courseName\":\"Dup\"}",
+                "{\"chapterName\":\"Z\"}")));
+
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getRejected());
+
+        ArgumentCaptor<String> csv = ArgumentCaptor.forClass(String.class);
+        verify(copyRepository).copyIn(startsWith("COPY chapters"), csv.capture());
+        List<String> rows = csv.getValue().lines().toList();
+        assertTrue(rows.get(0).startsWith("1,\"Intro\",,1048576,10,"));
+        assertTrue(rows.get(1).startsWith("2,\"Basics\",,2097152,10,"));
+        verify(cache).evictQueryRegion(HibernateCacheConfig.CHAPTERS_BY_COURSE_REGION);
+    }
+
+    @Test
+    void importLessons_ShouldResolveChapterNameWithinCourse() {
+        stubIds();
+        when(copyRepository.findCourseRefs()).thenReturn(List.of(new ParentRef(10L, "Java", null)));
+        when(copyRepository.findChapterRefs()).thenReturn(List.of(
+                new ParentRef(20L, "Intro", 10L),
+                new ParentRef(21L, "Intro", 30L)));
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importLessons(ndjson(
+                "{\"lessonName\":\"Hello\",\"order\":1,\"chapterName\":\"Intro\",\"courseName\":\"Java\"}",
+                "{\"lessonName\":\"World\",\"chapterName\":\"Intro\"}")));
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.getRejectedRows().get(0).reason().contains("ambiguous"));
+        verify(copyRepository).copyIn(startsWith("COPY lessons"), startsWith("1,\"Hello\",,1048576,20,"));
+    }
+
+    @Test
+    void importLessons_ShouldAppendRowsWithoutOrderAfterExistingLessons() {
+        stubIds();
+        when(copyRepository.findChapterRefs()).thenReturn(List.of(
+                new ParentRef(20L, "Intro", 10L),
+                new ParentRef(21L, "Empty", 10L)));
+        when(copyRepository.findLastLessonSortKeys()).thenReturn(Map.of(20L, 3 * 1048576L));
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importLessons(ndjson(
+                "{\"lessonName\":\"A\",\"chapterId\":20}",
+                "{\"lessonName\":\"B\",\"chapterId\":20}",
+                "{\"lessonName\":\"C\",\"chapterId\":21}")));
+
+        assertEquals(3, report.getImported());
+        ArgumentCaptor<String> csv = ArgumentCaptor.forClass(String.class);
+        verify(copyRepository).copyIn(startsWith("COPY lessons"), csv.capture());
+        List<String> rows = csv.getValue().lines().toList();
+        assertTrue(rows.get(0).startsWith("1,\"A\",,4194304,20,"));
+        assertTrue(rows.get(1).startsWith("2,\"B\",,5242880,20,"));
+        assertTrue(rows.get(2).startsWith("3,\"C\",,1048576,21,"));
+    }
+
+    @Test
+    void importLessons_ShouldReportFailedChunkAndContinue() {
+        stubIds();
+        ReflectionTestUtils.setField(importService, "chunkSize", 1);
+        when(copyRepository.findChapterRefs()).thenReturn(List.of(new ParentRef(20L, "Intro", 10L)));
+        doThrow(new DataIntegrityViolationException("lessons_chapter_id_fkey"))
+                .when(copyRepository).copyIn(anyString(), contains("\"A\""));
+
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importLessons(ndjson(
+                "{\"lessonName\":\"A\",\"chapterId\":20}",
+                "{\"lessonName\":\"B\",\"chapterId\":20}")));
+
+        assertEquals(1, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(1L, report.getRejectedRows().get(0).line());
+        assertTrue(report.getRejectedRows().get(0).reason().contains("lessons_chapter_id_fkey"));
+        assertNotNull(report.getChunks().get(0).error());
+        assertNull(report.getChunks().get(1).error());
+    }
+
+    @Test
+    void importCourses_ShouldNotCopyWhenEverythingRejected() {
+        ImportReportDto report = assertDoesNotThrow(() -> importService.importCourses(ndjson("{}", "[]")));
+
+        assertEquals(0, report.getImported());
+        assertEquals(2, report.getRejected());
+        assertTrue(report.getChunks().isEmpty());
+        verifyNoInteractions(copyRepository);
+    }
+}
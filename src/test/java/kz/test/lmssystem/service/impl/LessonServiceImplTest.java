@@ -1,20 +1,36 @@
 package kz.test.lmssystem.service.impl;
 
+import kz.test.lmssystem.dto.LessonPatchDto;
+import kz.test.lmssystem.dto.LessonSummaryDto;
+import kz.test.lmssystem.dto.VersionStamp;
 import kz.test.lmssystem.entity.Chapter;
 import kz.test.lmssystem.entity.Lesson;
+import kz.test.lmssystem.exception.InvalidCursorException;
 import kz.test.lmssystem.exception.ResourceNotFoundException;
 import kz.test.lmssystem.repository.ChapterRepository;
+import kz.test.lmssystem.repository.DeleteRepository;
+import kz.test.lmssystem.repository.DeleteRepository.DeletedLesson;
+import kz.test.lmssystem.repository.LessonPageRow;
 import kz.test.lmssystem.repository.LessonRepository;
+import kz.test.lmssystem.repository.LessonSummaryRow;
+import kz.test.lmssystem.repository.OrderRepository;
+import kz.test.lmssystem.repository.OrderRepository.Position;
+import kz.test.lmssystem.service.FetchPlan;
+import kz.test.lmssystem.service.KeysetSlice;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -28,6 +44,21 @@ class LessonServiceImplTest {
     @Mock
     private LessonRepository lessonRepository;
 
+    @Mock
+    private ChapterRepository chapterRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private DeleteRepository deleteRepository;
+
+    @Mock
+    private SortKeyRebalancer rebalancer;
+
+    @Mock
+    private CatalogCacheEvictor cacheEvictor;
+
     @InjectMocks
     private LessonServiceImpl lessonService;
 
@@ -43,23 +74,90 @@ class LessonServiceImplTest {
     }
 
     @Test
-    void getAllLessons_ShouldReturnListOfLessons() {
+    void getLessonsByChapterId_ShouldReadPageAfterCursorKeys() {
         // Arrange
-        Lesson lesson2 = new Lesson();
-        lesson2.setId(2L);
-        lesson2.setName("Python Lesson");
-        lesson2.setDescription("Learn Python");
+        when(lessonRepository.findByChapterIdAfter(eq(1L), eq(3072L), eq(5L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testLesson)));
+
+        // Act
+        Slice<Lesson> result = lessonService.getLessonsByChapterId(1L, PageCursor.of(3072L, 5L).token(), 20,
+                FetchPlan.FLAT);
 
-        List<Lesson> lessons = Arrays.asList(testLesson, lesson2);
-        when(lessonRepository.findAll()).thenReturn(lessons);
+        // Assert
+        assertEquals(1, result.getNumberOfElements());
+        verify(lessonRepository, times(1)).findByChapterIdAfter(1L, 3072L, 5L, PageRequest.of(0, 20));
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void getLessonsByChapterId_WhenCursorIsMalformed_ShouldThrowException() {
+        // Act & Assert
+        assertThrows(InvalidCursorException.class,
+                () -> lessonService.getLessonsByChapterId(1L, "5", 20, FetchPlan.FLAT));
+        verify(lessonRepository, never()).findByChapterIdAfter(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getLessonsByCourseId_WithFullFetchPlan_ShouldLoadParentsInSameQuery() {
+        // Arrange
+        Chapter chapter = new Chapter();
+        chapter.setId(3L);
+        chapter.setSortKey(2048L);
+        testLesson.setChapter(chapter);
+        testLesson.setChapterId(3L);
+        testLesson.setSortKey(1024L);
+        when(orderRepository.chapterPositions(List.of(3L))).thenReturn(Map.of(3L, 2));
+        when(lessonRepository.findWithParentsByCourseIdAfter(
+                eq(1L), eq(Long.MIN_VALUE), eq(0L), eq(Long.MIN_VALUE), eq(0L), any()))
+                .thenReturn(new SliceImpl<>(List.of(testLesson)));
+
+        // Act
+        lessonService.getLessonsByCourseId(1L, null, 50, FetchPlan.FULL);
+
+        // Assert: номер урока - из курсора, номер встроенной главы - одним запросом по главам страницы
+        assertEquals(1, testLesson.getOrder());
+        assertEquals(2, chapter.getOrder());
+        verify(lessonRepository, times(1)).findWithParentsByCourseIdAfter(
+                1L, Long.MIN_VALUE, 0L, Long.MIN_VALUE, 0L, PageRequest.of(0, 50));
+        verify(lessonRepository, never())
+                .findByCourseIdAfter(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getLessonsByCourseId_ShouldContinueAfterCursorChapterAndLessonKeys() {
+        // Arrange
+        testLesson.setChapterId(3L);
+        testLesson.setSortKey(4096L);
+        when(lessonRepository.findByCourseIdAfter(eq(1L), eq(1024L), eq(2L), eq(3072L), eq(5L), any()))
+                .thenReturn(new SliceImpl<>(List.of(new LessonPageRow(testLesson, 2048L)), PageRequest.of(0, 1), true));
 
         // Act
-        List<Lesson> result = lessonService.getAllLessons();
+        KeysetSlice<Lesson> result = lessonService.getLessonsByCourseId(1L,
+                new PageCursor(1024L, 2L, 3072L, 5L).token(), 20, FetchPlan.FLAT);
 
         // Assert
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        verify(lessonRepository, times(1)).findAll();
+        assertEquals(List.of(testLesson), result.getContent());
+        // Первый урок новой главы: номер с 1, а не продолжение номера курсора
+        assertEquals(1, testLesson.getOrder());
+        assertEquals(new PageCursor(2048L, 3L, 4096L, 1L, 1).token(), result.getNextCursor());
+        verify(lessonRepository, times(1)).findByCourseIdAfter(1L, 1024L, 2L, 3072L, 5L, PageRequest.of(0, 20));
+    }
+
+    @Test
+    void getLessonSummariesByChapterId_ShouldUseProjectionQuery() {
+        // Arrange
+        LessonSummaryRow summary = new LessonSummaryRow(1L, "Java Lesson", 1L, null, null, 1024L);
+        when(lessonRepository.findSummariesByChapterIdAfter(eq(1L), eq(Long.MIN_VALUE), eq(0L), any()))
+                .thenReturn(new SliceImpl<>(List.of(summary)));
+
+        // Act
+        KeysetSlice<LessonSummaryDto> result = lessonService.getLessonSummariesByChapterId(1L, null, 50);
+
+        // Assert
+        assertEquals("Java Lesson", result.getContent().get(0).lessonName());
+        assertNull(result.getNextCursor());
+        verify(lessonRepository, times(1))
+                .findSummariesByChapterIdAfter(1L, Long.MIN_VALUE, 0L, PageRequest.of(0, 50));
     }
 
     @Test
@@ -127,57 +225,242 @@ class LessonServiceImplTest {
         verify(lessonRepository, times(1)).save(testLesson);
     }
 
+    @Test
+    void saveLessons_ShouldSaveAllInOneCall() {
+        // Arrange
+        Lesson second = new Lesson();
+        second.setName("Second Lesson");
+        List<Lesson> lessons = List.of(testLesson, second);
+
+        // Act
+        lessonService.saveLessons(lessons);
+
+        // Assert
+        verify(lessonRepository, times(1)).saveAll(lessons);
+        verify(lessonRepository, never()).save(any(Lesson.class));
+    }
+
     @Test
     void updateLesson_WhenLessonExists_ShouldUpdateLesson() {
         // Arrange
-        when(lessonRepository.existsById(1L)).thenReturn(true);
+        Lesson current = new Lesson();
+        current.setId(1L);
+        current.setSortKey(2 * OrderRepository.SORT_KEY_GAP);
+        current.setVersion(5L);
+        when(lessonRepository.findById(1L)).thenReturn(Optional.of(current));
         when(lessonRepository.save(any(Lesson.class))).thenReturn(testLesson);
 
         // Act
         lessonService.updateLesson(testLesson);
 
-        // Assert
-        verify(lessonRepository, times(1)).existsById(1L);
+        // Assert: PUT без version берет текущую, чтобы save не принял урок за новый
         verify(lessonRepository, times(1)).save(testLesson);
+        assertEquals(2 * OrderRepository.SORT_KEY_GAP, testLesson.getSortKey());
+        assertEquals(5L, testLesson.getVersion());
+        verify(orderRepository, never()).moveLessonToEnd(anyLong(), any());
+    }
+
+    @Test
+    void updateLesson_WhenChapterChanges_ShouldMoveLessonToEndOfNewChapter() {
+        // Arrange
+        Lesson current = new Lesson();
+        current.setId(1L);
+        current.setChapterId(3L);
+        Chapter chapter = new Chapter();
+        chapter.setId(4L);
+        testLesson.setChapter(chapter);
+        when(lessonRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(chapterRepository.findById(3L)).thenReturn(Optional.empty());
+
+        // Act
+        lessonService.updateLesson(testLesson);
+
+        // Assert
+        verify(orderRepository, times(1)).moveLessonToEnd(1L, 4L);
+        verify(cacheEvictor, times(1)).evictChapter(3L, null);
+        verify(cacheEvictor, times(1)).evictLesson(1L, 4L);
     }
 
     @Test
     void updateLesson_WhenCLessonNotExists_ShouldThrowException() {
         // Arrange
-        when(lessonRepository.existsById(anyLong())).thenReturn(false);
+        when(lessonRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             lessonService.updateLesson(testLesson);
         });
-        verify(lessonRepository, times(1)).existsById(1L);
+        verify(lessonRepository, times(1)).findById(1L);
         verify(lessonRepository, never()).save(any(Lesson.class));
     }
 
+    @Test
+    void patchLesson_ShouldChangeOnlyGivenFields() {
+        // Arrange
+        testLesson.setVersion(2L);
+        testLesson.setChapterId(3L);
+        when(lessonRepository.findById(1L)).thenReturn(Optional.of(testLesson));
+
+        // Act
+        Lesson result = lessonService.patchLesson(1L, new LessonPatchDto(null, "Updated description", 2L));
+
+        // Assert
+        assertSame(testLesson, result);
+        assertEquals("Java Lesson", result.getName());
+        assertEquals("Updated description", result.getDescription());
+        verify(lessonRepository, never()).save(any(Lesson.class));
+        verify(cacheEvictor, times(1)).evictLesson(1L, 3L);
+    }
+
+    @Test
+    void patchLesson_WhenVersionIsStale_ShouldThrowConflict() {
+        // Arrange
+        testLesson.setVersion(3L);
+        when(lessonRepository.findById(1L)).thenReturn(Optional.of(testLesson));
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> lessonService.patchLesson(1L, new LessonPatchDto("Renamed", null, 2L)));
+        assertEquals("Java Lesson", testLesson.getName());
+        verify(cacheEvictor, never()).evictLesson(anyLong(), any());
+    }
+
     @Test
     void deleteLessonById_WhenLessonExists_ShouldDeleteLesson() {
         // Arrange
-        when(lessonRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(lessonRepository).deleteById(1L);
+        testLesson.setChapterId(3L);
+        Chapter chapter = new Chapter();
+        chapter.setCourseId(7L);
+        when(lessonRepository.findById(1L)).thenReturn(Optional.of(testLesson));
+        when(chapterRepository.findById(3L)).thenReturn(Optional.of(chapter));
 
         // Act
         lessonService.deleteLessonById(1L);
 
         // Assert
-        verify(lessonRepository, times(1)).existsById(1L);
-        verify(lessonRepository, times(1)).deleteById(1L);
+        verify(lessonRepository, times(1)).delete(testLesson);
+        verify(cacheEvictor, times(1)).evictChapter(3L, 7L);
     }
 
     @Test
     void deleteLessonById_WhenLessonNotExists_ShouldThrowException() {
         // Arrange
-        when(lessonRepository.existsById(anyLong())).thenReturn(false);
+        when(lessonRepository.findById(anyLong())).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             lessonService.deleteLessonById(999L);
         });
-        verify(lessonRepository, times(1)).existsById(999L);
-        verify(lessonRepository, never()).deleteById(anyLong());
+        verify(lessonRepository, times(1)).findById(999L);
+        verify(lessonRepository, never()).delete(any(Lesson.class));
+    }
+
+    @Test
+    void deleteLessons_ShouldDeleteInOneStatementAndEvictChaptersOnce() {
+        // Arrange
+        when(deleteRepository.deleteLessons(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new DeletedLesson(1L, 3L), new DeletedLesson(2L, 3L), new DeletedLesson(3L, 4L)));
+
+        // Act
+        lessonService.deleteLessons(List.of(1L, 2L, 3L));
+
+        // Assert
+        verify(deleteRepository, times(1)).deleteLessons(List.of(1L, 2L, 3L));
+        verify(cacheEvictor, times(1)).evictSubtrees(List.of(), List.of(3L, 4L));
+        verify(lessonRepository, never()).delete(any(Lesson.class));
+    }
+
+    @Test
+    void deleteLessons_WhenSomeLessonNotExists_ShouldThrowException() {
+        // Arrange: исключение откатывает транзакцию вместе с уже выполненным DELETE
+        when(deleteRepository.deleteLessons(List.of(1L, 999L))).thenReturn(List.of(new DeletedLesson(1L, 3L)));
+
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+                () -> lessonService.deleteLessons(List.of(1L, 999L)));
+        assertEquals("Lesson with id 999 not found", exception.getMessage());
+        verify(cacheEvictor, never()).evictSubtrees(anyCollection(), anyCollection());
+    }
+
+    @Test
+    void insertLessonBefore_ShouldWriteOneRowInTheMiddleOfTheGap() {
+        // Arrange
+        Lesson lesson = new Lesson();
+        lesson.setName("Inserted");
+        Chapter chapter = new Chapter();
+        chapter.setId(3L);
+        Position anchor = new Position(1L, 3L, 2 * OrderRepository.SORT_KEY_GAP);
+        when(orderRepository.lockLesson(1L)).thenReturn(Optional.of(anchor));
+        when(orderRepository.neighborLessonKey(anchor, false)).thenReturn(OrderRepository.SORT_KEY_GAP);
+        when(chapterRepository.getReferenceById(3L)).thenReturn(chapter);
+
+        // Act
+        lessonService.insertLessonBefore(1L, lesson);
+
+        // Assert
+        assertEquals(OrderRepository.SORT_KEY_GAP + OrderRepository.SORT_KEY_GAP / 2, lesson.getSortKey());
+        assertSame(chapter, lesson.getChapter());
+        verify(lessonRepository, times(1)).save(lesson);
+        verify(orderRepository, never()).rebalanceLessons(anyLong());
+        verifyNoInteractions(rebalancer);
+        verify(cacheEvictor, times(1)).evictChapter(eq(3L), any());
+    }
+
+    @Test
+    void insertLessonAfter_WhenAnchorIsLast_ShouldAppendOneGapLater() {
+        // Arrange
+        Lesson lesson = new Lesson();
+        Position anchor = new Position(1L, 3L, 4 * OrderRepository.SORT_KEY_GAP);
+        when(orderRepository.lockLesson(1L)).thenReturn(Optional.of(anchor));
+        when(orderRepository.neighborLessonKey(anchor, true)).thenReturn(null);
+
+        // Act
+        lessonService.insertLessonAfter(1L, lesson);
+
+        // Assert
+        assertEquals(5 * OrderRepository.SORT_KEY_GAP, lesson.getSortKey());
+        verify(lessonRepository, times(1)).save(lesson);
+    }
+
+    @Test
+    void insertLessonAfter_WhenGapIsExhausted_ShouldRebalanceChapterFirst() {
+        // Arrange
+        Lesson lesson = new Lesson();
+        Position crowded = new Position(1L, 3L, 10);
+        Position rebalanced = new Position(1L, 3L, OrderRepository.SORT_KEY_GAP);
+        when(orderRepository.lockLesson(1L)).thenReturn(Optional.of(crowded), Optional.of(rebalanced));
+        when(orderRepository.neighborLessonKey(crowded, true)).thenReturn(11L);
+        when(orderRepository.neighborLessonKey(rebalanced, true)).thenReturn(2 * OrderRepository.SORT_KEY_GAP);
+
+        // Act
+        lessonService.insertLessonAfter(1L, lesson);
+
+        // Assert
+        verify(orderRepository, times(1)).rebalanceLessons(3L);
+        assertEquals(OrderRepository.SORT_KEY_GAP + OrderRepository.SORT_KEY_GAP / 2, lesson.getSortKey());
+    }
+
+    @Test
+    void insertLessonAfter_WhenAnchorNotExists_ShouldThrowException() {
+        // Arrange
+        when(orderRepository.lockLesson(999L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> lessonService.insertLessonAfter(999L, new Lesson()));
+        verify(lessonRepository, never()).save(any(Lesson.class));
+    }
+
+    @Test
+    void getLessonsVersionByChapterId_ShouldReturnAggregateWithoutLoadingLessons() {
+        // Arrange
+        VersionStamp version = new VersionStamp(2L, LocalDateTime.of(2026, 1, 1, 12, 0));
+        when(lessonRepository.findVersionByChapterId(1L)).thenReturn(version);
+
+        // Act
+        VersionStamp result = lessonService.getLessonsVersionByChapterId(1L);
+
+        // Assert
+        assertEquals(version, result);
+        verify(lessonRepository, never()).findByChapterId(anyLong());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package kz.test.lmssystem.service.impl;
+
+import kz.test.lmssystem.dto.SearchResultDto;
+import kz.test.lmssystem.repository.SearchRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchServiceImplTest {
+
+    @Mock
+    private SearchRepository searchRepository;
+
+    @InjectMocks
+    private SearchServiceImpl searchService;
+
+    private static SearchResultDto hit(long id) {
+        return new SearchResultDto("lesson", id, "Lesson " + id, 1L, 0.5f);
+    }
+
+    @Test
+    void toTsQuery_ShouldJoinTermsAndMatchLastAsPrefix() {
+        assertEquals("java & sprin:*", SearchServiceImpl.toTsQuery("  Java, Sprin"));
+        assertEquals("основы:*", SearchServiceImpl.toTsQuery("Основы"));
+    }
+
+    @Test
+    void toTsQuery_ShouldDropTsqueryOperators() {
+        assertEquals("ab & cd & efg:*", SearchServiceImpl.toTsQuery("ab & !cd | (efg:*)"));
+        assertEquals("", SearchServiceImpl.toTsQuery("&|!()':*"));
+        assertEquals("", SearchServiceImpl.toTsQuery(null));
+    }
+
+    @Test
+    void toTsQuery_ShouldDropShortTermsAndShortPrefixes() {
+        assertEquals("java", SearchServiceImpl.toTsQuery("a java x"));
+        assertEquals("java & sp", SearchServiceImpl.toTsQuery("java sp"));
+        assertEquals("", SearchServiceImpl.toTsQuery("a b c"));
+    }
+
+    @Test
+    void search_ShouldNotPageBeyondMaxOffset() {
+        Slice<SearchResultDto> result = searchService.search("java", SearchServiceImpl.MAX_OFFSET + 1, 20);
+
+        assertTrue(result.getContent().isEmpty());
+        assertFalse(result.hasNext());
+        verifyNoInteractions(searchRepository);
+    }
+
+    @Test
+    void search_ShouldReturnPageAndDetectNext() {
+        when(searchRepository.search("java:*", 20, 3)).thenReturn(List.of(hit(1), hit(2), hit(3)));
+
+        Slice<SearchResultDto> result = searchService.search("java", 20, 2);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+        assertEquals(1L, result.getContent().get(0).id());
+    }
+
+    @Test
+    void search_ShouldClampLimit() {
+        when(searchRepository.search(anyString(), eq(0), eq(SearchServiceImpl.MAX_LIMIT + 1))).thenReturn(List.of(hit(1)));
+
+        Slice<SearchResultDto> result = searchService.search("java", -5, 10_000);
+
+        assertEquals(1, result.getNumberOfElements());
+        assertFalse(result.hasNext());
+    }
+
+    @Test
+    void search_ShouldNotQueryForBlankInput() {
+        Slice<SearchResultDto> result = searchService.search("  ", 0, 20);
+
+        assertTrue(result.getContent().isEmpty());
+        assertFalse(result.hasNext());
+        verifyNoInteractions(searchRepository);
+    }
+}